@@ -0,0 +1,49 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool.benchmark;
+
+/**
+ * An operation measured by the BenchmarkRunner. The runner calls setUp() once, then run() many times
+ * (first to warm up the JVM, then to measure) and finally tearDown().
+ */
+public abstract class Benchmark {
+
+	private String name;
+
+	public Benchmark(String name) {
+		this.setName(name);
+	}
+
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Executes the operation once
+	 */
+	public abstract void run() throws Exception;
+
+	public void tearDown() throws Exception {
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	private void setName(String name) {
+		this.name = name;
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool.benchmark;
+
+/**
+ * The measures of a benchmark: throughput (operations per second, with the standard deviation
+ * between iterations) and allocation (bytes allocated per operation and allocation rate).
+ * The allocation is -1 if the JVM can't measure it.
+ */
+public class BenchmarkResult {
+
+	private String name;
+	private double throughput;
+	private double throughputDeviation;
+	private long bytesPerOperation;
+	private double allocationRate;
+
+	public BenchmarkResult(String name, double throughput, double throughputDeviation, long bytesPerOperation, double allocationRate) {
+		this.setName(name);
+		this.setThroughput(throughput);
+		this.setThroughputDeviation(throughputDeviation);
+		this.setBytesPerOperation(bytesPerOperation);
+		this.setAllocationRate(allocationRate);
+	}
+
+	public String toString() {
+		String allocation = (this.getBytesPerOperation() < 0) ? "n/a" :
+			String.format("%,14d B/op %,10.1f MB/s", this.getBytesPerOperation(), this.getAllocationRate());
+		return String.format("%-24s %,12.3f +- %,10.3f ops/s %s", this.getName(), this.getThroughput(), this.getThroughputDeviation(), allocation);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	private void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Operations per second (average of the iterations)
+	 */
+	public double getThroughput() {
+		return throughput;
+	}
+
+	private void setThroughput(double throughput) {
+		this.throughput = throughput;
+	}
+
+	public double getThroughputDeviation() {
+		return throughputDeviation;
+	}
+
+	private void setThroughputDeviation(double throughputDeviation) {
+		this.throughputDeviation = throughputDeviation;
+	}
+
+	public long getBytesPerOperation() {
+		return bytesPerOperation;
+	}
+
+	private void setBytesPerOperation(long bytesPerOperation) {
+		this.bytesPerOperation = bytesPerOperation;
+	}
+
+	/**
+	 * Megabytes allocated per second
+	 */
+	public double getAllocationRate() {
+		return allocationRate;
+	}
+
+	private void setAllocationRate(double allocationRate) {
+		this.allocationRate = allocationRate;
+	}
+
+}
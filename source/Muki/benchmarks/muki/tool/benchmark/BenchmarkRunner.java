@@ -0,0 +1,126 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Runs benchmarks the same way JMH does in throughput mode: some warm-up iterations that are discarded,
+ * and then the measured iterations. Every iteration runs the operation repeatedly during a fixed time
+ * (at least once). The memory allocated by the current thread is measured with the ThreadMXBean of HotSpot,
+ * so the benchmarks must run the operation in the calling thread.
+ */
+public class BenchmarkRunner {
+
+	private int warmupIterations = 3;
+	private int iterations = 5;
+	private long iterationTime = 1000;
+
+	public BenchmarkResult run(Benchmark benchmark) throws Exception {
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < this.getWarmupIterations(); i++) {
+				this.runIteration(benchmark);
+			}
+			double[] throughputs = new double[this.getIterations()];
+			long operations = 0;
+			long time = 0;
+			long startBytes = this.getAllocatedBytes();
+			for (int i = 0; i < this.getIterations(); i++) {
+				long start = System.nanoTime();
+				long iterationOperations = this.runIteration(benchmark);
+				long iterationTime = System.nanoTime() - start;
+				throughputs[i] = iterationOperations * 1e9 / iterationTime;
+				operations += iterationOperations;
+				time += iterationTime;
+			}
+			long endBytes = this.getAllocatedBytes();
+			double average = 0;
+			for (double throughput : throughputs) {
+				average += throughput / throughputs.length;
+			}
+			double variance = 0;
+			for (double throughput : throughputs) {
+				variance += (throughput - average) * (throughput - average) / throughputs.length;
+			}
+			if (startBytes < 0 || endBytes < 0) {
+				return new BenchmarkResult(benchmark.getName(), average, Math.sqrt(variance), -1, -1);
+			}
+			long bytes = endBytes - startBytes;
+			double allocationRate = (bytes / (1024.0 * 1024.0)) / (time / 1e9);
+			return new BenchmarkResult(benchmark.getName(), average, Math.sqrt(variance), bytes / operations, allocationRate);
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * Runs the operation during the iteration time. Returns the number of operations executed.
+	 */
+	private long runIteration(Benchmark benchmark) throws Exception {
+		long end = System.nanoTime() + this.getIterationTime() * 1000000L;
+		long operations = 0;
+		do {
+			benchmark.run();
+			operations++;
+		} while (System.nanoTime() < end);
+		return operations;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread, or -1 if the JVM doesn't support the measure
+	 */
+	private long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean)bean;
+		if (!hotspotBean.isThreadAllocatedMemorySupported() || !hotspotBean.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+		return hotspotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Duration of every iteration, in milliseconds
+	 */
+	public long getIterationTime() {
+		return iterationTime;
+	}
+
+	public void setIterationTime(long iterationTime) {
+		this.iterationTime = iterationTime;
+	}
+
+}
@@ -0,0 +1,228 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import muki.tool.ExecutionResult;
+import muki.tool.Generator;
+import muki.tool.IOUtility;
+import muki.tool.JavaGenerator;
+import muki.tool.ModelUtility;
+import muki.tool.ObjcGenerator;
+import muki.tool.SwiftGenerator;
+import muki.tool.model.Project;
+
+/**
+ * Measures the main stages of the generator with a synthetic project: reading the project file, the validation
+ * and the generation of every target. Usage (see the target "benchmark" in build.xml):
+ * 
+ * GeneratorBenchmarks [--models=<n>] [--attributes=<n>] [--list-attributes=<n>] [--controllers=<n>] [--operations=<n>]
+ *   [--warmup=<iterations>] [--iterations=<iterations>] [--time=<ms per iteration>] [--only=<benchmark name>] [--temp=<directory>]
+ */
+public class GeneratorBenchmarks {
+
+	private SyntheticProjectBuilder builder;
+	private BenchmarkRunner runner;
+	private String only;
+	private String tempDirectory;
+	private IOUtility io;
+
+	public GeneratorBenchmarks() {
+		this.setBuilder(new SyntheticProjectBuilder());
+		this.setRunner(new BenchmarkRunner());
+		this.setTempDirectory(System.getProperty("java.io.tmpdir") + File.separator + "muki-benchmarks");
+		this.setIo(new IOUtility());
+	}
+
+	public static void main(String[] args) throws Exception {
+		GeneratorBenchmarks benchmarks = new GeneratorBenchmarks();
+		for (String arg : args) {
+			if (!benchmarks.parseOption(arg)) {
+				System.out.println("Invalid argument: " + arg);
+				return;
+			}
+		}
+		for (BenchmarkResult result : benchmarks.runAll()) {
+			System.out.println(result);
+		}
+	}
+
+	private boolean parseOption(String arg) {
+		int i = arg.indexOf('=');
+		if (!arg.startsWith("--") || i < 0) {
+			return false;
+		}
+		String name = arg.substring(2, i);
+		String value = arg.substring(i + 1);
+		if (name.equals("only")) {
+			this.setOnly(value);
+		} else if (name.equals("temp")) {
+			this.setTempDirectory(value);
+		} else if (name.equals("models")) {
+			this.getBuilder().setModels(Integer.parseInt(value));
+		} else if (name.equals("attributes")) {
+			this.getBuilder().setAttributes(Integer.parseInt(value));
+		} else if (name.equals("list-attributes")) {
+			this.getBuilder().setListAttributes(Integer.parseInt(value));
+		} else if (name.equals("controllers")) {
+			this.getBuilder().setControllers(Integer.parseInt(value));
+		} else if (name.equals("operations")) {
+			this.getBuilder().setOperations(Integer.parseInt(value));
+		} else if (name.equals("warmup")) {
+			this.getRunner().setWarmupIterations(Integer.parseInt(value));
+		} else if (name.equals("iterations")) {
+			this.getRunner().setIterations(Integer.parseInt(value));
+		} else if (name.equals("time")) {
+			this.getRunner().setIterationTime(Long.parseLong(value));
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Builds the synthetic project, saves it in the temp directory and runs the benchmarks
+	 */
+	public List<BenchmarkResult> runAll() throws Exception {
+		final Project project = this.getBuilder().build();
+		final String projectFile = this.getTempDirectory() + "/synthetic-project.xml";
+		final String outputDirectory = this.getTempDirectory() + "/output";
+		this.getIo().deleteDirectory(this.getTempDirectory());
+		this.getIo().createDirectory(this.getTempDirectory());
+		new ModelUtility().saveProject(project, projectFile);
+		ExecutionResult validation = new ExecutionResult();
+		new ModelUtility().validate(project, validation);
+		if (!validation.isOk()) {
+			throw new IllegalStateException("The synthetic project is not valid: " + validation.getLog());
+		}
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new Benchmark("openProject") {
+			public void run() throws Exception {
+				new ModelUtility().openProject(projectFile);
+			}
+		});
+		benchmarks.add(new Benchmark("validate") {
+			public void run() throws Exception {
+				ExecutionResult result = new ExecutionResult();
+				result.setVerbose(false);
+				new ModelUtility().validate(project, result);
+			}
+		});
+		benchmarks.add(new GenerateAllBenchmark("java.generateAll", project, outputDirectory) {
+			protected Generator createGenerator() throws Exception {
+				return new JavaGenerator();
+			}
+		});
+		benchmarks.add(new GenerateAllBenchmark("objc.generateAll", project, outputDirectory) {
+			protected Generator createGenerator() throws Exception {
+				return new ObjcGenerator();
+			}
+		});
+		benchmarks.add(new GenerateAllBenchmark("swift.generateAll", project, outputDirectory) {
+			protected Generator createGenerator() throws Exception {
+				return new SwiftGenerator();
+			}
+		});
+
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (Benchmark benchmark : benchmarks) {
+			if (this.getOnly() == null || benchmark.getName().equals(this.getOnly())) {
+				results.add(this.getRunner().run(benchmark));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Generates the whole project with a generator. The generator is created once, as the generators
+	 * are used in the MukiGenerator.
+	 */
+	private abstract class GenerateAllBenchmark extends Benchmark {
+
+		private Project project;
+		private String outputDirectory;
+		private Generator generator;
+
+		public GenerateAllBenchmark(String name, Project project, String outputDirectory) {
+			super(name);
+			this.project = project;
+			this.outputDirectory = outputDirectory;
+		}
+
+		protected abstract Generator createGenerator() throws Exception;
+
+		public void setUp() throws Exception {
+			this.generator = this.createGenerator();
+		}
+
+		public void run() throws Exception {
+			this.generator.generateAll(this.project, this.outputDirectory);
+		}
+
+		public void tearDown() throws Exception {
+			getIo().deleteDirectory(this.outputDirectory);
+		}
+
+	}
+
+	public SyntheticProjectBuilder getBuilder() {
+		return builder;
+	}
+
+	private void setBuilder(SyntheticProjectBuilder builder) {
+		this.builder = builder;
+	}
+
+	public BenchmarkRunner getRunner() {
+		return runner;
+	}
+
+	private void setRunner(BenchmarkRunner runner) {
+		this.runner = runner;
+	}
+
+	/**
+	 * Name of the only benchmark to run. All the benchmarks run if it's null.
+	 */
+	public String getOnly() {
+		return only;
+	}
+
+	public void setOnly(String only) {
+		this.only = only;
+	}
+
+	public String getTempDirectory() {
+		return tempDirectory;
+	}
+
+	public void setTempDirectory(String tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
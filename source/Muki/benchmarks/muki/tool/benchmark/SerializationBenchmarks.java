@@ -0,0 +1,502 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import muki.tool.ExecutionResult;
+import muki.tool.IOUtility;
+import muki.tool.JavaGenerator;
+import muki.tool.JavaSourceCompiler;
+import muki.tool.MemoryOutputSink;
+import muki.tool.model.Project;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Measures the serialization of the generated models: JAXB and the XML codecs, Jackson and the JSON codecs,
+ * the binary codecs, and the Java serialization of the default models and the Externalizable ones (the project
+ * is compiled twice to compare them). The synthetic project is generated and compiled in process, and an object graph of
+ * one model is populated by reflection. The sizes of the messages are printed before the results. Usage (see
+ * the target "benchmark-serialization" in build.xml):
+ *
+ * SerializationBenchmarks [--models=<n>] [--attributes=<n>] [--list-attributes=<n>] [--list-size=<n>] [--depth=<n>]
+ *   [--warmup=<iterations>] [--iterations=<iterations>] [--time=<ms per iteration>] [--only=<benchmark name>] [--temp=<directory>]
+ */
+public class SerializationBenchmarks {
+
+	private SyntheticProjectBuilder builder;
+	private BenchmarkRunner runner;
+	private int listSize = 3;
+	private int depth = 3;
+	private String only;
+	private String tempDirectory;
+	private IOUtility io;
+
+	public SerializationBenchmarks() {
+		this.setBuilder(new SyntheticProjectBuilder());
+		this.getBuilder().setModels(20);
+		this.getBuilder().setControllers(2);
+		this.setRunner(new BenchmarkRunner());
+		this.setTempDirectory(System.getProperty("java.io.tmpdir") + File.separator + "muki-serialization-benchmarks");
+		this.setIo(new IOUtility());
+	}
+
+	public static void main(String[] args) throws Exception {
+		SerializationBenchmarks benchmarks = new SerializationBenchmarks();
+		for (String arg : args) {
+			if (!benchmarks.parseOption(arg)) {
+				System.out.println("Invalid argument: " + arg);
+				return;
+			}
+		}
+		for (BenchmarkResult result : benchmarks.runAll()) {
+			System.out.println(result);
+		}
+	}
+
+	private boolean parseOption(String arg) {
+		int i = arg.indexOf('=');
+		if (!arg.startsWith("--") || i < 0) {
+			return false;
+		}
+		String name = arg.substring(2, i);
+		String value = arg.substring(i + 1);
+		if (name.equals("only")) {
+			this.setOnly(value);
+		} else if (name.equals("temp")) {
+			this.setTempDirectory(value);
+		} else if (name.equals("models")) {
+			this.getBuilder().setModels(Integer.parseInt(value));
+		} else if (name.equals("attributes")) {
+			this.getBuilder().setAttributes(Integer.parseInt(value));
+		} else if (name.equals("list-attributes")) {
+			this.getBuilder().setListAttributes(Integer.parseInt(value));
+		} else if (name.equals("list-size")) {
+			this.setListSize(Integer.parseInt(value));
+		} else if (name.equals("depth")) {
+			this.setDepth(Integer.parseInt(value));
+		} else if (name.equals("warmup")) {
+			this.getRunner().setWarmupIterations(Integer.parseInt(value));
+		} else if (name.equals("iterations")) {
+			this.getRunner().setIterations(Integer.parseInt(value));
+		} else if (name.equals("time")) {
+			this.getRunner().setIterationTime(Long.parseLong(value));
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Generates and compiles the synthetic project, populates the last model (the one with more references)
+	 * and runs the benchmarks of every format
+	 */
+	public List<BenchmarkResult> runAll() throws Exception {
+		Project project = this.getBuilder().build();
+		String classesDirectory = this.getTempDirectory() + "/classes";
+		this.getIo().deleteDirectory(this.getTempDirectory());
+		ClassLoader loader = this.compile(project, classesDirectory, false);
+		ClassLoader externalizableLoader = this.compile(project, this.getTempDirectory() + "/externalizable-classes", true);
+		String modelName = project.getModelDefinitions().getModel().get(this.getBuilder().getModels() - 1).getName();
+		String modelPackage = project.getModelDefinitions().getJavaPackage();
+		final Class<?> modelClass = loader.loadClass(modelPackage + "." + modelName);
+		final Object value = this.populate(modelClass, 0);
+		Object externalizableValue = this.populate(externalizableLoader.loadClass(modelPackage + "." + modelName), 0);
+
+		List<Format> formats = new ArrayList<Format>();
+		formats.add(new JaxbFormat(modelClass));
+		formats.add(new XmlCodecFormat(loader.loadClass(modelPackage + "." + modelName + "XmlCodec")));
+		formats.add(new JacksonFormat(modelClass));
+		formats.add(new JsonCodecFormat(loader.loadClass(modelPackage + "." + modelName + "JsonCodec")));
+		formats.add(new BinaryFormat(loader.loadClass(modelPackage + "." + modelName + "BinaryCodec"),
+				loader.loadClass(modelPackage + ".MukiBinaryWriter"), loader.loadClass(modelPackage + ".MukiBinaryReader")));
+
+		formats.add(new JavaSerializationFormat("serializable", loader));
+		formats.add(new JavaSerializationFormat("externalizable", externalizableLoader));
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (final Format format : formats) {
+			final Object formatValue = format.getName().equals("externalizable") ? externalizableValue : value;
+			final byte[] message = format.write(formatValue);
+			System.out.println(format.getName() + ": " + message.length + " bytes");
+			benchmarks.add(new Benchmark(format.getName() + ".write") {
+				public void run() throws Exception {
+					format.write(formatValue);
+				}
+			});
+			benchmarks.add(new Benchmark(format.getName() + ".read") {
+				public void run() throws Exception {
+					format.read(message);
+				}
+			});
+		}
+
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (Benchmark benchmark : benchmarks) {
+			if (this.getOnly() == null || benchmark.getName().equals(this.getOnly())) {
+				results.add(this.getRunner().run(benchmark));
+			}
+		}
+		return results;
+	}
+
+	private ClassLoader compile(Project project, String classesDirectory, boolean externalizable) throws Exception {
+		JavaGenerator generator = new JavaGenerator();
+		generator.setJsonCodecs(true);
+		generator.setXmlCodecs(true);
+		generator.setExternalizable(externalizable);
+		MemoryOutputSink sink = new MemoryOutputSink(classesDirectory);
+		generator.setOutputSink(sink);
+		generator.generateAll(project, classesDirectory);
+		if (!generator.isBinaryCodecs()) {
+			throw new IllegalStateException("The synthetic project has no operations with the binary serialization");
+		}
+		ExecutionResult result = new ExecutionResult();
+		JavaSourceCompiler compiler = new JavaSourceCompiler();
+		Map<String, byte[]> classes = compiler.compile(sink.getFiles(), result);
+		if (!result.isOk()) {
+			throw new IllegalStateException("The synthetic project doesn't compile: " + result.getLog());
+		}
+		compiler.writeClasses(classes, classesDirectory);
+		URL[] urls = new URL[] { new File(classesDirectory).toURI().toURL() };
+		return new URLClassLoader(urls, this.getClass().getClassLoader());
+	}
+
+	/**
+	 * Creates an instance of the model with all the attributes set. The references to other models are
+	 * populated up to the depth, and the lists have listSize items.
+	 */
+	private Object populate(Class<?> modelClass, int level) throws Exception {
+		Object value = modelClass.getDeclaredConstructor().newInstance();
+		int index = 0;
+		for (Method method : modelClass.getMethods()) {
+			index++;
+			if (method.getName().startsWith("set") && method.getParameterTypes().length == 1 && method.getParameterTypes()[0] != List.class) {
+				Class<?> type = method.getParameterTypes()[0];
+				Object attribute = this.createAttribute(type, index, level);
+				if (attribute != null) {
+					method.invoke(value, attribute);
+				}
+			} else if (method.getName().startsWith("get") && method.getReturnType() == List.class && level < this.getDepth()) {
+				Class<?> itemsType = (Class<?>)((ParameterizedType)method.getGenericReturnType()).getActualTypeArguments()[0];
+				@SuppressWarnings("unchecked")
+				List<Object> list = (List<Object>)method.invoke(value);
+				for (int i = 0; i < this.getListSize(); i++) {
+					list.add(this.populate(itemsType, level + 1));
+				}
+			}
+		}
+		return value;
+	}
+
+	private Object createAttribute(Class<?> type, int index, int level) throws Exception {
+		if (type == String.class) {
+			return "Value of the attribute " + index;
+		} else if (type == Long.class || type == long.class) {
+			return Long.valueOf(index * 1000003L);
+		} else if (type == Integer.class || type == int.class) {
+			return Integer.valueOf(index * 31);
+		} else if (type == Double.class || type == double.class) {
+			return Double.valueOf(index / 7.0);
+		} else if (type == Boolean.class || type == boolean.class) {
+			return Boolean.valueOf(index % 2 == 0);
+		} else if (level < this.getDepth()) {
+			return this.populate(type, level + 1);
+		}
+		return null;
+	}
+
+	/**
+	 * A serialization of the model that is measured
+	 */
+	private static abstract class Format {
+
+		private String name;
+
+		public Format(String name) {
+			this.name = name;
+		}
+
+		public abstract byte[] write(Object value) throws Exception;
+
+		public abstract Object read(byte[] message) throws Exception;
+
+		public String getName() {
+			return name;
+		}
+
+	}
+
+	private static class JaxbFormat extends Format {
+
+		private JAXBContext context;
+
+		public JaxbFormat(Class<?> modelClass) throws Exception {
+			super("jaxb");
+			this.context = JAXBContext.newInstance(modelClass);
+		}
+
+		public byte[] write(Object value) throws Exception {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			this.context.createMarshaller().marshal(value, out);
+			return out.toByteArray();
+		}
+
+		public Object read(byte[] message) throws Exception {
+			return this.context.createUnmarshaller().unmarshal(new ByteArrayInputStream(message));
+		}
+
+	}
+
+	private static class XmlCodecFormat extends Format {
+
+		private XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+		private XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		private Method writeMethod;
+		private Method readMethod;
+
+		public XmlCodecFormat(Class<?> codecClass) throws Exception {
+			super("xmlCodec");
+			this.readMethod = codecClass.getMethod("read", XMLStreamReader.class);
+			this.writeMethod = codecClass.getMethod("write", this.readMethod.getReturnType(), XMLStreamWriter.class);
+		}
+
+		public byte[] write(Object value) throws Exception {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			XMLStreamWriter writer = this.outputFactory.createXMLStreamWriter(out, "UTF-8");
+			this.writeMethod.invoke(null, value, writer);
+			writer.close();
+			return out.toByteArray();
+		}
+
+		public Object read(byte[] message) throws Exception {
+			XMLStreamReader reader = this.inputFactory.createXMLStreamReader(new ByteArrayInputStream(message));
+			try {
+				return this.readMethod.invoke(null, reader);
+			} finally {
+				reader.close();
+			}
+		}
+
+	}
+
+	private static class JacksonFormat extends Format {
+
+		private ObjectMapper mapper = new ObjectMapper();
+		private Class<?> modelClass;
+
+		public JacksonFormat(Class<?> modelClass) {
+			super("jackson");
+			this.modelClass = modelClass;
+		}
+
+		public byte[] write(Object value) throws Exception {
+			return this.mapper.writeValueAsBytes(value);
+		}
+
+		public Object read(byte[] message) throws Exception {
+			return this.mapper.readValue(message, 0, message.length, this.modelClass);
+		}
+
+	}
+
+	private static class JsonCodecFormat extends Format {
+
+		private JsonFactory factory = new JsonFactory();
+		private Method writeMethod;
+		private Method readMethod;
+
+		public JsonCodecFormat(Class<?> codecClass) throws Exception {
+			super("jsonCodec");
+			this.readMethod = codecClass.getMethod("read", JsonParser.class);
+			this.writeMethod = codecClass.getMethod("write", this.readMethod.getReturnType(), JsonGenerator.class);
+		}
+
+		public byte[] write(Object value) throws Exception {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			JsonGenerator generator = this.factory.createJsonGenerator(out, JsonEncoding.UTF8);
+			this.writeMethod.invoke(null, value, generator);
+			generator.close();
+			return out.toByteArray();
+		}
+
+		public Object read(byte[] message) throws Exception {
+			JsonParser parser = this.factory.createJsonParser(message);
+			try {
+				parser.nextToken();
+				return this.readMethod.invoke(null, parser);
+			} finally {
+				parser.close();
+			}
+		}
+
+	}
+
+	private static class BinaryFormat extends Format {
+
+		private Class<?> writerClass;
+		private Method writeMethod;
+		private Method toByteArrayMethod;
+		private Method readMethod;
+		private Constructor<?> readerConstructor;
+
+		public BinaryFormat(Class<?> codecClass, Class<?> writerClass, Class<?> readerClass) throws Exception {
+			super("binary");
+			this.writerClass = writerClass;
+			this.readMethod = codecClass.getMethod("read", readerClass);
+			this.writeMethod = codecClass.getMethod("write", this.readMethod.getReturnType(), writerClass);
+			this.toByteArrayMethod = writerClass.getMethod("toByteArray");
+			this.readerConstructor = readerClass.getConstructor(byte[].class);
+		}
+
+		public byte[] write(Object value) throws Exception {
+			Object writer = this.writerClass.getDeclaredConstructor().newInstance();
+			this.writeMethod.invoke(null, value, writer);
+			return (byte[])this.toByteArrayMethod.invoke(writer);
+		}
+
+		public Object read(byte[] message) throws Exception {
+			return this.readMethod.invoke(null, this.readerConstructor.newInstance(message));
+		}
+
+	}
+
+	/**
+	 * The Java serialization of ObjectOutputStream. The classes are resolved with the loader of the generated ones.
+	 */
+	private static class JavaSerializationFormat extends Format {
+
+		private ClassLoader loader;
+
+		public JavaSerializationFormat(String name, ClassLoader loader) {
+			super(name);
+			this.loader = loader;
+		}
+
+		public byte[] write(Object value) throws Exception {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(value);
+			out.close();
+			return bytes.toByteArray();
+		}
+
+		public Object read(byte[] message) throws Exception {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(message)) {
+				protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+					return Class.forName(desc.getName(), false, loader);
+				}
+			};
+			try {
+				return in.readObject();
+			} finally {
+				in.close();
+			}
+		}
+
+	}
+
+	public SyntheticProjectBuilder getBuilder() {
+		return builder;
+	}
+
+	private void setBuilder(SyntheticProjectBuilder builder) {
+		this.builder = builder;
+	}
+
+	public BenchmarkRunner getRunner() {
+		return runner;
+	}
+
+	private void setRunner(BenchmarkRunner runner) {
+		this.runner = runner;
+	}
+
+	/**
+	 * Number of items of every list attribute
+	 */
+	public int getListSize() {
+		return listSize;
+	}
+
+	public void setListSize(int listSize) {
+		this.listSize = listSize;
+	}
+
+	/**
+	 * Levels of references to other models that are populated
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	/**
+	 * Name of the only benchmark to run. All the benchmarks run if it's null.
+	 */
+	public String getOnly() {
+		return only;
+	}
+
+	public void setOnly(String only) {
+		this.only = only;
+	}
+
+	public String getTempDirectory() {
+		return tempDirectory;
+	}
+
+	public void setTempDirectory(String tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
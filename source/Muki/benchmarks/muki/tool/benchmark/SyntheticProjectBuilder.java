@@ -0,0 +1,196 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool.benchmark;
+
+import muki.tool.ModelUtility;
+import muki.tool.model.ControllerDefinitionsType;
+import muki.tool.model.ControllerType;
+import muki.tool.model.DeleteOperationType;
+import muki.tool.model.GetOperationType;
+import muki.tool.model.ListAttrType;
+import muki.tool.model.ModelDefinitionsType;
+import muki.tool.model.ModelType;
+import muki.tool.model.PathParamType;
+import muki.tool.model.PostOperationType;
+import muki.tool.model.Project;
+import muki.tool.model.PutOperationType;
+import muki.tool.model.QueryParamType;
+import muki.tool.model.SimpleAttrType;
+
+/**
+ * Builds valid projects of any size to measure the generator. Every model has simple attributes of all the
+ * basic types plus references to other models, and list attributes of other models. Every controller has
+ * GET, POST, PUT and DELETE operations on the models, with XML, JSON and binary serialization.
+ */
+public class SyntheticProjectBuilder {
+
+	private static String[] SERIALIZATION_TYPES = new String[] { "xml", "json", "binary" };
+	private static String[] BASIC_TYPES = new String[] { ModelUtility.STRING_TYPE, ModelUtility.LONG_TYPE,
+		ModelUtility.INTEGER_TYPE, ModelUtility.DOUBLE_TYPE, ModelUtility.BOOLEAN_TYPE };
+	private int models = 100;
+	private int attributes = 10;
+	private int listAttributes = 2;
+	private int controllers = 10;
+	private int operations = 8;
+
+	public Project build() {
+		ModelDefinitionsType modelDefinitions = new ModelDefinitionsType();
+		modelDefinitions.setJavaPackage("synthetic.model");
+		for (int i = 0; i < this.getModels(); i++) {
+			modelDefinitions.getModel().add(this.createModel(i));
+		}
+		ControllerDefinitionsType controllerDefinitions = new ControllerDefinitionsType();
+		controllerDefinitions.setJavaPackage("synthetic.controller");
+		for (int i = 0; i < this.getControllers(); i++) {
+			controllerDefinitions.getController().add(this.createController(i));
+		}
+		Project project = new Project();
+		project.setName("Synthetic");
+		project.setModelDefinitions(modelDefinitions);
+		project.setControllerDefinitions(controllerDefinitions);
+		return project;
+	}
+
+	private ModelType createModel(int index) {
+		ModelType model = new ModelType();
+		model.setName(this.getModelName(index));
+		for (int i = 0; i < this.getAttributes(); i++) {
+			SimpleAttrType attribute = new SimpleAttrType();
+			attribute.setName("attribute" + i);
+			attribute.setTag(i + 1);
+			// Every sixth attribute references a model defined before this one
+			if (index > 0 && i % 6 == 5) {
+				attribute.setType(this.getModelName((index + i) % index));
+			} else {
+				attribute.setType(BASIC_TYPES[i % BASIC_TYPES.length]);
+			}
+			model.getSimpleAttr().add(attribute);
+		}
+		for (int i = 0; index > 0 && i < this.getListAttributes(); i++) {
+			ListAttrType attribute = new ListAttrType();
+			attribute.setName("list" + i);
+			attribute.setTag(this.getAttributes() + i + 1);
+			attribute.setItemsType(this.getModelName((index + i) % index));
+			model.getListAttr().add(attribute);
+		}
+		return model;
+	}
+
+	private ControllerType createController(int index) {
+		ControllerType controller = new ControllerType();
+		controller.setName("Controller" + index);
+		controller.setHttpPath("/controller" + index);
+		PathParamType idParam = new PathParamType();
+		idParam.setName("id");
+		QueryParamType pageParam = new QueryParamType();
+		pageParam.setName("page");
+		for (int i = 0; i < this.getOperations(); i++) {
+			String modelName = this.getModels() == 0 ? ModelUtility.STRING_TYPE : this.getModelName((index + i) % this.getModels());
+			String serialization = SERIALIZATION_TYPES[i % SERIALIZATION_TYPES.length];
+			switch (i % 4) {
+			case 0:
+				GetOperationType getOperation = new GetOperationType();
+				getOperation.setName("get" + i);
+				getOperation.setHttpPath("/get" + i + "/{id}");
+				getOperation.setReturnType(modelName);
+				getOperation.setSerializationType(serialization);
+				getOperation.getPathParam().add(idParam);
+				getOperation.getQueryParam().add(pageParam);
+				controller.getGetOperation().add(getOperation);
+				break;
+			case 1:
+				PostOperationType postOperation = new PostOperationType();
+				postOperation.setName("post" + i);
+				postOperation.setHttpPath("/post" + i);
+				postOperation.setParamType(modelName);
+				postOperation.setReturnType(modelName);
+				postOperation.setSerializationType(serialization);
+				controller.getPostOperation().add(postOperation);
+				break;
+			case 2:
+				PutOperationType putOperation = new PutOperationType();
+				putOperation.setName("put" + i);
+				putOperation.setHttpPath("/put" + i + "/{id}");
+				putOperation.setParamType(modelName);
+				putOperation.setSerializationType(serialization);
+				putOperation.getPathParam().add(idParam);
+				controller.getPutOperation().add(putOperation);
+				break;
+			default:
+				DeleteOperationType deleteOperation = new DeleteOperationType();
+				deleteOperation.setName("delete" + i);
+				deleteOperation.setHttpPath("/delete" + i + "/{id}");
+				deleteOperation.getPathParam().add(idParam);
+				controller.getDeleteOperation().add(deleteOperation);
+			}
+		}
+		return controller;
+	}
+
+	private String getModelName(int index) {
+		return "Model" + index;
+	}
+
+	public int getModels() {
+		return models;
+	}
+
+	public void setModels(int models) {
+		this.models = models;
+	}
+
+	/**
+	 * Number of simple attributes of every model
+	 */
+	public int getAttributes() {
+		return attributes;
+	}
+
+	public void setAttributes(int attributes) {
+		this.attributes = attributes;
+	}
+
+	/**
+	 * Number of list attributes of every model (except the first one, that has nothing to reference)
+	 */
+	public int getListAttributes() {
+		return listAttributes;
+	}
+
+	public void setListAttributes(int listAttributes) {
+		this.listAttributes = listAttributes;
+	}
+
+	public int getControllers() {
+		return controllers;
+	}
+
+	public void setControllers(int controllers) {
+		this.controllers = controllers;
+	}
+
+	/**
+	 * Number of operations of every controller
+	 */
+	public int getOperations() {
+		return operations;
+	}
+
+	public void setOperations(int operations) {
+		this.operations = operations;
+	}
+
+}
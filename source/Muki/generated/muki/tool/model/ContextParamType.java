@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -34,8 +35,11 @@ import javax.xml.bind.annotation.XmlType;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "context-paramType")
-public class ContextParamType {
+public class ContextParamType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlAttribute
     protected String name;
     @XmlAttribute
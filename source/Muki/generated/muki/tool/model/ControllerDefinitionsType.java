@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -40,8 +41,11 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "controller-definitionsType", propOrder = {
     "controller"
 })
-public class ControllerDefinitionsType {
+public class ControllerDefinitionsType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     protected List<ControllerType> controller;
     @XmlAttribute(name = "java-package")
     protected String javaPackage;
@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -34,6 +35,8 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;/sequence>
  *       &lt;attribute name="name" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="http-path" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="async" type="{http://www.w3.org/2001/XMLSchema}boolean" />
+ *       &lt;attribute name="async-timeout" type="{http://www.w3.org/2001/XMLSchema}long" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -48,8 +51,11 @@ import javax.xml.bind.annotation.XmlType;
     "putOperation",
     "deleteOperation"
 })
-public class ControllerType {
+public class ControllerType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlElement(name = "get-operation")
     protected List<GetOperationType> getOperation;
     @XmlElement(name = "post-operation")
@@ -62,6 +68,10 @@ public class ControllerType {
     protected String name;
     @XmlAttribute(name = "http-path")
     protected String httpPath;
+    @XmlAttribute
+    protected Boolean async;
+    @XmlAttribute(name = "async-timeout")
+    protected Long asyncTimeout;
 
     /**
      * Gets the value of the getOperation property.
@@ -227,4 +237,52 @@ public class ControllerType {
         this.httpPath = value;
     }
 
+    /**
+     * Gets the value of the async property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets the value of the async property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setAsync(Boolean value) {
+        this.async = value;
+    }
+
+    /**
+     * Gets the value of the asyncTimeout property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Long }
+     *     
+     */
+    public Long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * Sets the value of the asyncTimeout property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Long }
+     *     
+     */
+    public void setAsyncTimeout(Long value) {
+        this.asyncTimeout = value;
+    }
+
 }
@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -33,6 +34,7 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;/sequence>
  *       &lt;attribute name="name" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="http-path" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="async" type="{http://www.w3.org/2001/XMLSchema}boolean" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -46,8 +48,11 @@ import javax.xml.bind.annotation.XmlType;
     "queryParam",
     "contextParam"
 })
-public class DeleteOperationType {
+public class DeleteOperationType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlElement(name = "path-param")
     protected List<PathParamType> pathParam;
     @XmlElement(name = "query-param")
@@ -58,6 +63,8 @@ public class DeleteOperationType {
     protected String name;
     @XmlAttribute(name = "http-path")
     protected String httpPath;
+    @XmlAttribute
+    protected Boolean async;
 
     /**
      * Gets the value of the pathParam property.
@@ -194,4 +201,28 @@ public class DeleteOperationType {
         this.httpPath = value;
     }
 
+    /**
+     * Gets the value of the async property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets the value of the async property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setAsync(Boolean value) {
+        this.async = value;
+    }
+
 }
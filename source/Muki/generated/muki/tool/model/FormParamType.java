@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -33,8 +34,11 @@ import javax.xml.bind.annotation.XmlType;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "form-paramType")
-public class FormParamType {
+public class FormParamType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlAttribute
     protected String name;
 
@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -30,11 +31,14 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="path-param" type="{http://muki/service-description/}path-paramType" maxOccurs="unbounded" minOccurs="0"/>
  *         &lt;element name="query-param" type="{http://muki/service-description/}query-paramType" maxOccurs="unbounded" minOccurs="0"/>
  *         &lt;element name="context-param" type="{http://muki/service-description/}context-paramType" maxOccurs="unbounded" minOccurs="0"/>
+ *         &lt;element name="pagination" type="{http://muki/service-description/}paginationType" minOccurs="0"/>
  *       &lt;/sequence>
  *       &lt;attribute name="name" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="return-type" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="http-path" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="serialization-type" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="streaming-list" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="async" type="{http://www.w3.org/2001/XMLSchema}boolean" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -46,16 +50,21 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "get-operationType", propOrder = {
     "pathParam",
     "queryParam",
-    "contextParam"
+    "contextParam",
+    "pagination"
 })
-public class GetOperationType {
+public class GetOperationType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlElement(name = "path-param")
     protected List<PathParamType> pathParam;
     @XmlElement(name = "query-param")
     protected List<QueryParamType> queryParam;
     @XmlElement(name = "context-param")
     protected List<ContextParamType> contextParam;
+    protected PaginationType pagination;
     @XmlAttribute
     protected String name;
     @XmlAttribute(name = "return-type")
@@ -64,6 +73,10 @@ public class GetOperationType {
     protected String httpPath;
     @XmlAttribute(name = "serialization-type")
     protected String serializationType;
+    @XmlAttribute(name = "streaming-list")
+    protected String streamingList;
+    @XmlAttribute
+    protected Boolean async;
 
     /**
      * Gets the value of the pathParam property.
@@ -152,6 +165,30 @@ public class GetOperationType {
         return this.contextParam;
     }
 
+    /**
+     * Gets the value of the pagination property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link PaginationType }
+     *     
+     */
+    public PaginationType getPagination() {
+        return pagination;
+    }
+
+    /**
+     * Sets the value of the pagination property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link PaginationType }
+     *     
+     */
+    public void setPagination(PaginationType value) {
+        this.pagination = value;
+    }
+
     /**
      * Gets the value of the name property.
      * 
@@ -248,4 +285,52 @@ public class GetOperationType {
         this.serializationType = value;
     }
 
+    /**
+     * Gets the value of the streamingList property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getStreamingList() {
+        return streamingList;
+    }
+
+    /**
+     * Sets the value of the streamingList property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setStreamingList(String value) {
+        this.streamingList = value;
+    }
+
+    /**
+     * Gets the value of the async property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets the value of the async property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setAsync(Boolean value) {
+        this.async = value;
+    }
+
 }
@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -25,6 +26,7 @@ import javax.xml.bind.annotation.XmlType;
  *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
  *       &lt;attribute name="name" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="items-type" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="tag" type="{http://www.w3.org/2001/XMLSchema}int" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -34,12 +36,17 @@ import javax.xml.bind.annotation.XmlType;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "list-attrType")
-public class ListAttrType {
+public class ListAttrType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlAttribute
     protected String name;
     @XmlAttribute(name = "items-type")
     protected String itemsType;
+    @XmlAttribute
+    protected Integer tag;
 
     /**
      * Gets the value of the name property.
@@ -89,4 +96,28 @@ public class ListAttrType {
         this.itemsType = value;
     }
 
+    /**
+     * Gets the value of the tag property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getTag() {
+        return tag;
+    }
+
+    /**
+     * Sets the value of the tag property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setTag(Integer value) {
+        this.tag = value;
+    }
+
 }
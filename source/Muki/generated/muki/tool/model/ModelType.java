@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -43,8 +44,11 @@ import javax.xml.bind.annotation.XmlType;
     "simpleAttr",
     "listAttr"
 })
-public class ModelType {
+public class ModelType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlElement(name = "simple-attr")
     protected List<SimpleAttrType> simpleAttr;
     @XmlElement(name = "list-attr")
@@ -100,6 +100,14 @@ public class ObjectFactory {
         return new QueryParamType();
     }
 
+    /**
+     * Create an instance of {@link PaginationType }
+     * 
+     */
+    public PaginationType createPaginationType() {
+        return new PaginationType();
+    }
+
     /**
      * Create an instance of {@link DeleteOperationType }
      * 
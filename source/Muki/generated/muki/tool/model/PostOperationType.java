@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -37,6 +38,7 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;attribute name="http-path" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="param-type" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="serialization-type" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="async" type="{http://www.w3.org/2001/XMLSchema}boolean" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -51,8 +53,11 @@ import javax.xml.bind.annotation.XmlType;
     "formParam",
     "contextParam"
 })
-public class PostOperationType {
+public class PostOperationType
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlElement(name = "path-param")
     protected List<PathParamType> pathParam;
     @XmlElement(name = "query-param")
@@ -71,6 +76,8 @@ public class PostOperationType {
     protected String paramType;
     @XmlAttribute(name = "serialization-type")
     protected String serializationType;
+    @XmlAttribute
+    protected Boolean async;
 
     /**
      * Gets the value of the pathParam property.
@@ -308,4 +315,28 @@ public class PostOperationType {
         this.serializationType = value;
     }
 
+    /**
+     * Gets the value of the async property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets the value of the async property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setAsync(Boolean value) {
+        this.async = value;
+    }
+
 }
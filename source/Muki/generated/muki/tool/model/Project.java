@@ -8,6 +8,7 @@
 
 package muki.tool.model;
 
+import java.io.Serializable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -43,8 +44,11 @@ import javax.xml.bind.annotation.XmlType;
     "controllerDefinitions"
 })
 @XmlRootElement(name = "project")
-public class Project {
+public class Project
+    implements Serializable
+{
 
+    private final static long serialVersionUID = 1L;
     @XmlElement(name = "model-definitions", required = true)
     protected ModelDefinitionsType modelDefinitions;
     @XmlElement(name = "controller-definitions", required = true)
@@ -15,8 +15,17 @@
  */
 package muki.tool;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tools.ant.AntClassLoader;
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.FileSet;
+import org.apache.tools.ant.types.Path;
+import org.apache.tools.ant.types.Reference;
 
 /**
  * This class implements a task that can be invoked from an Ant script
@@ -32,15 +41,69 @@ import org.apache.tools.ant.Task;
  *   <taskdef name="muki-generator" classpathref="tools.classpath" classname="muki.tool.AntTask"/>
  *   <muki-generator option="generate-java" projectFile="c:/temp/project.xml" outputDirectory="c:/project/generated" />
  * </target>
+ * 
+ * With incremental="true" only the files that changed are written, and the task does nothing if the project
+ * and the generator version didn't change since the last run. The attribute threads="4" renders the
+ * templates in parallel. With quiet="true" the log only has the errors and warnings of the validation.
+ * With archive="true" the artifacts are written to a single zip/jar file in the output directory, and
+ * storeResources="true" stores the static support files without compression. With cacheDirectory="c:/temp/muki-cache"
+ * the validated project is saved in the directory, so the next tasks with the same project skip the parsing and
+ * the validation. With reportFile="c:/temp/muki-report.json" the times of the phases and templates, the files
+ * written and the peak of the heap are saved as JSON (see GenerationStatistics). With jsonCodecs="true" the Java
+ * target includes a JSON codec for every model that doesn't use reflection (see JavaGenerator.setJsonCodecs()),
+ * and with xmlCodecs="true" a StAX codec that replaces JAXB (see JavaGenerator.setXmlCodecs()). With
+ * externalizable="true" the Java models implement Externalizable (see JavaGenerator.setExternalizable()).
+ * 
+ * The option "generate-and-compile" generates the Java classes in memory and compiles them in the same process,
+ * without writing the sources. The classes are written to the output directory, or to generated-classes.jar with
+ * archive="true". The classes are compiled with the classpath of the attribute classpath (or classpathref), which
+ * needs the JAX-RS, JAXB and Jackson libraries. By default, the classpath of the taskdef is used:
+ * 
+ *   <muki-generator option="generate-and-compile" projectFile="c:/temp/project.xml" outputDirectory="c:/project/classes"
+ *     classpathref="tools.classpath" />
+ * 
+ * The option "generate-all" reads and validates the project once and generates several targets at the same time.
+ * Every target has its own output directory:
+ * 
+ *   <muki-generator option="generate-all" projectFile="c:/temp/project.xml" javaOutputDirectory="c:/server/generated"
+ *     objcOutputDirectory="c:/ios/generated" swiftOutputDirectory="c:/ios-swift/generated" />
+ * 
+ * Several projects can be generated in the same task with nested filesets. Every project is generated in a
+ * subdirectory of the output directory named after the project file, and parallelProjects="4" limits the
+ * number of projects generated at the same time:
+ * 
+ *   <muki-generator option="generate-java" outputDirectory="c:/project/generated">
+ *     <fileset dir="c:/projects" includes="*.xml" />
+ *   </muki-generator>
  */
 public class AntTask extends Task {
 	
 	private String option;
 	private String projectFile;
 	private String outputDirectory;
+	private boolean incremental;
+	private int threads = 1;
+	private boolean quiet;
+	private boolean archive;
+	private boolean storeResources;
+	private String javaOutputDirectory;
+	private String objcOutputDirectory;
+	private String swiftOutputDirectory;
+	private String cacheDirectory;
+	private int parallelProjects;
+	private String reportFile;
+	private boolean jsonCodecs;
+	private boolean xmlCodecs;
+	private boolean externalizable;
+	private Path classpath;
+	private List<FileSet> filesets = new ArrayList<FileSet>();
 	
 	public AntTask() {
 	}
+
+	public void addFileset(FileSet fileset) {
+		this.getFilesets().add(fileset);
+	}
 	
 	public void execute() throws BuildException {
 		ExecutionResult result = new ExecutionResult();
@@ -48,8 +111,36 @@ public class AntTask extends Task {
 		System.out.println();
 		System.out.println("*** Muki v" + Version.id() + " Created by Gabriel Casarini ***");		
 		System.out.print("*** STARTING ***");
+		generator.setIncremental(this.isIncremental());
+		generator.setThreads(this.getThreads());
+		generator.setQuiet(this.isQuiet(), result);
+		generator.setArchive(this.isArchive());
+		generator.setStoreResources(this.isStoreResources());
+		generator.setCacheDirectory(this.getCacheDirectory());
+		generator.setParallelProjects(this.getParallelProjects());
+		generator.setReportFile(this.getReportFile());
+		generator.setJsonCodecs(this.isJsonCodecs());
+		generator.setXmlCodecs(this.isXmlCodecs());
+		generator.setExternalizable(this.isExternalizable());
+		generator.setClasspath(this.getCompilerClasspath());
+		GenerationStatistics.resetPeakHeap();
+		if (this.getJavaOutputDirectory() != null) {
+			generator.addTarget(MukiGenerator.GENERATE_JAVA, this.getJavaOutputDirectory());
+		}
+		if (this.getObjcOutputDirectory() != null) {
+			generator.addTarget(MukiGenerator.GENERATE_OBJC, this.getObjcOutputDirectory());
+		}
+		if (this.getSwiftOutputDirectory() != null) {
+			generator.addTarget(MukiGenerator.GENERATE_SWIFT, this.getSwiftOutputDirectory());
+		}
 		try {
-			generator.run(this.getOption(), this.getProjectFile(), this.getOutputDirectory(), result);
+			if (this.getFilesets().isEmpty()) {
+				generator.run(this.getOption(), this.getProjectFile(), this.getOutputDirectory(), result);
+			} else {
+				generator.run(this.getOption(), this.getProjectFiles(), this.getOutputDirectory(), result);
+			}
+			result.getStatistics().updatePeakHeap();
+			generator.writeReport(result);
 		} catch (Exception e) {
 			e.printStackTrace();
 			throw new BuildException(e);
@@ -76,5 +167,140 @@ public class AntTask extends Task {
 	public void setOutputDirectory(String outputDirectory) {
 		this.outputDirectory = outputDirectory;
 	}
+	public boolean isIncremental() {
+		return incremental;
+	}
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+	public int getThreads() {
+		return threads;
+	}
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+	public boolean isQuiet() {
+		return quiet;
+	}
+	public void setQuiet(boolean quiet) {
+		this.quiet = quiet;
+	}
+	public boolean isArchive() {
+		return archive;
+	}
+	public void setArchive(boolean archive) {
+		this.archive = archive;
+	}
+	public boolean isStoreResources() {
+		return storeResources;
+	}
+	public void setStoreResources(boolean storeResources) {
+		this.storeResources = storeResources;
+	}
+	public String getJavaOutputDirectory() {
+		return javaOutputDirectory;
+	}
+	public void setJavaOutputDirectory(String javaOutputDirectory) {
+		this.javaOutputDirectory = javaOutputDirectory;
+	}
+	public String getObjcOutputDirectory() {
+		return objcOutputDirectory;
+	}
+	public void setObjcOutputDirectory(String objcOutputDirectory) {
+		this.objcOutputDirectory = objcOutputDirectory;
+	}
+	public String getSwiftOutputDirectory() {
+		return swiftOutputDirectory;
+	}
+	public void setSwiftOutputDirectory(String swiftOutputDirectory) {
+		this.swiftOutputDirectory = swiftOutputDirectory;
+	}
+	public String getCacheDirectory() {
+		return cacheDirectory;
+	}
+	public void setCacheDirectory(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+	public boolean isJsonCodecs() {
+		return jsonCodecs;
+	}
+	public void setJsonCodecs(boolean jsonCodecs) {
+		this.jsonCodecs = jsonCodecs;
+	}
+	public boolean isXmlCodecs() {
+		return xmlCodecs;
+	}
+	public void setXmlCodecs(boolean xmlCodecs) {
+		this.xmlCodecs = xmlCodecs;
+	}
+	public boolean isExternalizable() {
+		return externalizable;
+	}
+	public void setExternalizable(boolean externalizable) {
+		this.externalizable = externalizable;
+	}
+	public String getReportFile() {
+		return reportFile;
+	}
+	public void setReportFile(String reportFile) {
+		this.reportFile = reportFile;
+	}
+	public Path getClasspath() {
+		return classpath;
+	}
+	public void setClasspath(Path classpath) {
+		if (this.getClasspath() == null) {
+			this.classpath = classpath;
+		} else {
+			this.getClasspath().append(classpath);
+		}
+	}
+	public void setClasspathRef(Reference reference) {
+		Path path = new Path(this.getProject());
+		path.setRefid(reference);
+		this.setClasspath(path);
+	}
+	public int getParallelProjects() {
+		return parallelProjects;
+	}
+	public void setParallelProjects(int parallelProjects) {
+		this.parallelProjects = parallelProjects;
+	}
+
+	/**
+	 * Returns the classpath used to compile the generated classes: the attribute classpath, or the classpath
+	 * of the taskdef. Null if there is none (the compiler uses the classpath of the process)
+	 */
+	private String getCompilerClasspath() {
+		if (this.getClasspath() != null) {
+			return this.getClasspath().toString();
+		}
+		ClassLoader loader = this.getClass().getClassLoader();
+		if (loader instanceof AntClassLoader) {
+			return ((AntClassLoader)loader).getClasspath();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the project file (if any) and the files of the filesets
+	 */
+	private List<String> getProjectFiles() {
+		List<String> projectFiles = new ArrayList<String>();
+		if (this.getProjectFile() != null) {
+			projectFiles.add(this.getProjectFile());
+		}
+		for (FileSet fileset : this.getFilesets()) {
+			DirectoryScanner scanner = fileset.getDirectoryScanner(this.getProject());
+			File directory = fileset.getDir(this.getProject());
+			for (String fileName : scanner.getIncludedFiles()) {
+				projectFiles.add(new File(directory, fileName).getAbsolutePath());
+			}
+		}
+		return projectFiles;
+	}
+	private List<FileSet> getFilesets() {
+		return filesets;
+	}
 
 }
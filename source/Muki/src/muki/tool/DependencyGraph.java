@@ -0,0 +1,189 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import muki.tool.model.ControllerType;
+import muki.tool.model.GetOperationType;
+import muki.tool.model.ListAttrType;
+import muki.tool.model.ModelType;
+import muki.tool.model.PostOperationType;
+import muki.tool.model.Project;
+import muki.tool.model.PutOperationType;
+import muki.tool.model.SimpleAttrType;
+
+/**
+ * The dependencies between the elements of a project:
+ * - A model depends on the models used in its attributes (simple and list attributes)
+ * - A controller depends on the models used as parameters and return types of its operations
+ * - The aggregate artifacts (XmlSerializer, JsonSerializer, RestApplication, etc.) depend on all the
+ * models or all the controllers (see ProjectChanges.isModelsChanged() and isControllersChanged()), and
+ * the client stubs also depend on the list of models (see ProjectChanges.isModelListChanged())
+ * 
+ * The graph is used to find the artifacts affected by a change: when a model changes, the models
+ * and controllers that use it (directly or indirectly) are generated again.
+ */
+public class DependencyGraph {
+
+	private Map<String, Set<String>> modelDependencies;
+	private Map<String, Set<String>> controllerDependencies;
+	private Map<String, Set<String>> modelUsages;
+	private ModelUtility modelUtility;
+
+	public DependencyGraph(Project project) {
+		this.setModelUtility(new ModelUtility());
+		this.setModelDependencies(new HashMap<String, Set<String>>());
+		this.setControllerDependencies(new HashMap<String, Set<String>>());
+		this.setModelUsages(new HashMap<String, Set<String>>());
+		for (ModelType model : project.getModelDefinitions().getModel()) {
+			Set<String> dependencies = new HashSet<String>();
+			for (SimpleAttrType attribute : model.getSimpleAttr()) {
+				this.addDependency(dependencies, attribute.getType());
+			}
+			for (ListAttrType attribute : model.getListAttr()) {
+				this.addDependency(dependencies, attribute.getItemsType());
+			}
+			this.getModelDependencies().put(model.getName(), dependencies);
+			for (String dependency : dependencies) {
+				this.getUsages(dependency).add(model.getName());
+			}
+		}
+		for (ControllerType controller : project.getControllerDefinitions().getController()) {
+			Set<String> dependencies = new HashSet<String>();
+			for (GetOperationType operation : controller.getGetOperation()) {
+				this.addDependency(dependencies, operation.getReturnType());
+			}
+			for (PostOperationType operation : controller.getPostOperation()) {
+				this.addDependency(dependencies, operation.getParamType());
+				this.addDependency(dependencies, operation.getReturnType());
+			}
+			for (PutOperationType operation : controller.getPutOperation()) {
+				this.addDependency(dependencies, operation.getParamType());
+				this.addDependency(dependencies, operation.getReturnType());
+			}
+			this.getControllerDependencies().put(controller.getName(), dependencies);
+		}
+	}
+
+	/**
+	 * Only the models are dependencies: the basic types don't generate artifacts
+	 */
+	private void addDependency(Set<String> dependencies, String type) {
+		if (this.getModelUtility().isComplexType(type)) {
+			dependencies.add(type);
+		}
+	}
+
+	private Set<String> getUsages(String model) {
+		Set<String> usages = this.getModelUsages().get(model);
+		if (usages == null) {
+			usages = new HashSet<String>();
+			this.getModelUsages().put(model, usages);
+		}
+		return usages;
+	}
+
+	/**
+	 * Returns the models used by a model, or an empty set if the model doesn't exist
+	 */
+	public Set<String> getModelDependencies(String model) {
+		Set<String> dependencies = this.getModelDependencies().get(model);
+		return dependencies == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(dependencies);
+	}
+
+	/**
+	 * Returns the models used by a controller, or an empty set if the controller doesn't exist
+	 */
+	public Set<String> getControllerDependencies(String controller) {
+		Set<String> dependencies = this.getControllerDependencies().get(controller);
+		return dependencies == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(dependencies);
+	}
+
+	/**
+	 * Returns the changed models plus all the models that use them, directly or indirectly
+	 */
+	public Set<String> getAffectedModels(Set<String> changedModels) {
+		Set<String> affected = new HashSet<String>(changedModels);
+		LinkedList<String> pending = new LinkedList<String>(changedModels);
+		while (!pending.isEmpty()) {
+			Set<String> usages = this.getModelUsages().get(pending.removeFirst());
+			if (usages == null) {
+				continue;
+			}
+			for (String usage : usages) {
+				if (affected.add(usage)) {
+					pending.add(usage);
+				}
+			}
+		}
+		return affected;
+	}
+
+	/**
+	 * Returns the changed controllers plus the controllers that use any of the affected models
+	 */
+	public Set<String> getAffectedControllers(Set<String> affectedModels, Set<String> changedControllers) {
+		Set<String> affected = new HashSet<String>(changedControllers);
+		for (Map.Entry<String, Set<String>> entry : this.getControllerDependencies().entrySet()) {
+			if (!Collections.disjoint(entry.getValue(), affectedModels)) {
+				affected.add(entry.getKey());
+			}
+		}
+		return affected;
+	}
+
+	private Map<String, Set<String>> getModelDependencies() {
+		return modelDependencies;
+	}
+
+	private void setModelDependencies(Map<String, Set<String>> modelDependencies) {
+		this.modelDependencies = modelDependencies;
+	}
+
+	private Map<String, Set<String>> getControllerDependencies() {
+		return controllerDependencies;
+	}
+
+	private void setControllerDependencies(Map<String, Set<String>> controllerDependencies) {
+		this.controllerDependencies = controllerDependencies;
+	}
+
+	/**
+	 * The reverse of the model dependencies: the models that use every model
+	 */
+	private Map<String, Set<String>> getModelUsages() {
+		return modelUsages;
+	}
+
+	private void setModelUsages(Map<String, Set<String>> modelUsages) {
+		this.modelUsages = modelUsages;
+	}
+
+	private ModelUtility getModelUtility() {
+		return modelUtility;
+	}
+
+	private void setModelUtility(ModelUtility modelUtility) {
+		this.modelUtility = modelUtility;
+	}
+
+}
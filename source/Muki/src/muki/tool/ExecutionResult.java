@@ -15,35 +15,117 @@
  */
 package muki.tool;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Instances of this class are used to collect the information of the generation process through its
  * various stages. An ExecutionResult has a buffer where the client appends messages and also a flag
  * to indicate the result of the process.
+ * 
+ * The progress messages (trace) are only kept when the result is verbose. A result that is not verbose
+ * only records the errors and the warnings, up to maxMessages (0 means no limit): the messages
+ * after the limit are counted, but not kept. This keeps the log small for very big projects. When the result
+ * of another step is appended, its errors and warnings count against the same limit.
+ * 
+ * The numbers of the generation (times, files written, etc.) are collected in the statistics.
  */
 public class ExecutionResult {
 
-	private StringBuffer buffer;
+	private List<Message> entries;
 	private boolean ok;
+	private boolean verbose;
+	private int maxMessages;
+	private int messages;
+	private int keptMessages;
+	private int errors;
+	private int warnings;
+	private GenerationStatistics statistics;
 	
 	public ExecutionResult() {
-		this.setBuffer(new StringBuffer());
+		this.setEntries(new ArrayList<Message>());
+		this.setStatistics(new GenerationStatistics());
 		this.setOk(true);
+		this.setVerbose(true);
+	}
+	
+	public synchronized void append(String message) {
+		this.getEntries().add(new Message(message, false));
+	}
+	
+	/**
+	 * Appends the messages of another result (ex: a step that runs in another thread). The errors and
+	 * warnings of the other result are recorded again, so maxMessages applies to the whole log.
+	 */
+	public synchronized void append(ExecutionResult other) {
+		synchronized (other) {
+			for (Message message : other.getEntries()) {
+				if (message.isRecorded()) {
+					this.record(message.getText());
+				} else {
+					this.getEntries().add(message);
+				}
+			}
+			// The messages after the limit of the other result were only counted
+			this.messages += other.messages - other.keptMessages;
+		}
+		this.errors += other.getErrors();
+		this.warnings += other.getWarnings();
+		this.getStatistics().add(other.getStatistics());
+		if (!other.isOk()) {
+			this.setOk(false);
+		}
+	}
+	
+	/**
+	 * Appends a progress message. Ignored if the result is not verbose.
+	 */
+	public void trace(String message) {
+		if (this.isVerbose()) {
+			this.append(message);
+		}
+	}
+	
+	/**
+	 * Appends an error message and marks the result as failed
+	 */
+	public synchronized void error(String message) {
+		this.setOk(false);
+		this.errors++;
+		this.record(message);
 	}
 	
-	public void append(String message) {
-		this.getBuffer().append("\n").append(message);
+	public synchronized void warning(String message) {
+		this.warnings++;
+		this.record("WARNING: " + message);
 	}
 	
-	public String getLog() {
-		return this.getBuffer().toString();
+	private void record(String message) {
+		this.messages++;
+		if (this.getMaxMessages() <= 0 || this.keptMessages < this.getMaxMessages()) {
+			this.keptMessages++;
+			this.getEntries().add(new Message(message, true));
+		}
 	}
 	
-	private StringBuffer getBuffer() {
-		return buffer;
+	public synchronized String getLog() {
+		StringBuilder builder = new StringBuilder();
+		for (Message message : this.getEntries()) {
+			builder.append("\n").append(message.getText());
+		}
+		int omitted = this.messages - this.keptMessages;
+		if (omitted > 0) {
+			builder.append("\n... ").append(omitted).append(" more messages");
+		}
+		return builder.toString();
 	}
 	
-	private void setBuffer(StringBuffer buffer) {
-		this.buffer = buffer;
+	private List<Message> getEntries() {
+		return entries;
+	}
+	
+	private void setEntries(List<Message> entries) {
+		this.entries = entries;
 	}
 	
 	public boolean isOk() {
@@ -54,14 +136,69 @@ public class ExecutionResult {
 		this.ok = ok;
 	}
 
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	public int getMaxMessages() {
+		return maxMessages;
+	}
+
+	public void setMaxMessages(int maxMessages) {
+		this.maxMessages = maxMessages;
+	}
+
+	public synchronized int getErrors() {
+		return errors;
+	}
+
+	public synchronized int getWarnings() {
+		return warnings;
+	}
+
+	public GenerationStatistics getStatistics() {
+		return statistics;
+	}
+
+	private void setStatistics(GenerationStatistics statistics) {
+		this.statistics = statistics;
+	}
+
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
 		builder.append("ExecutionResult [ok=");
 		builder.append(ok);
-		builder.append(", buffer=");
-		builder.append(buffer);
+		builder.append(", log=");
+		builder.append(this.getLog());
 		builder.append("]");
 		return builder.toString();
 	}
+
+	/**
+	 * A line of the log. The recorded messages (errors and warnings) count against maxMessages.
+	 */
+	private static class Message {
+
+		private String text;
+		private boolean recorded;
+
+		public Message(String text, boolean recorded) {
+			this.text = text;
+			this.recorded = recorded;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public boolean isRecorded() {
+			return recorded;
+		}
+
+	}
 	
 }
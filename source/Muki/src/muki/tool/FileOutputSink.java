@@ -0,0 +1,56 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.net.URL;
+
+/**
+ * Writes the artifacts to the disk. This is the default sink of the generators. The static resources are
+ * copied without loading them in memory, and they are skipped if the file has the same size and hash.
+ */
+public class FileOutputSink implements OutputSink {
+
+	private IOUtility io;
+
+	public FileOutputSink() {
+		this.setIo(new IOUtility());
+	}
+
+	public void createDirectory(String directory) {
+		this.getIo().createDirectory(directory);
+	}
+
+	public void write(String fileName, byte[] data) throws Exception {
+		this.getIo().writeBinaryFile(fileName, data);
+	}
+
+	public boolean writeResource(String fileName, URL resource) throws Exception {
+		if (this.getIo().isSameContent(resource, fileName)) {
+			return false;
+		}
+		this.getIo().copyResource(resource, fileName);
+		return true;
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
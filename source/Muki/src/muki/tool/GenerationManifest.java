@@ -0,0 +1,359 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import muki.tool.model.Project;
+
+/**
+ * The manifest keeps the content hash of every file produced by the last generation in an output directory.
+ * It's used for incremental generation: a file is written only if its content changed, and the files that
+ * are no longer produced are removed. The manifest also stores a stamp of the project file and the generator
+ * version, so a run can be skipped entirely when nothing changed since the last generation.
+ * A copy of the project is saved with the manifest (see PROJECT_FILE_NAME), so the next generation
+ * can find the models and controllers that changed (see loadProject()).
+ *
+ * The manifest is saved as a properties file in the output directory (see FILE_NAME).
+ * Files can be written concurrently by several threads.
+ */
+public class GenerationManifest {
+
+	public static String FILE_NAME = ".muki-manifest";
+	public static String PROJECT_FILE_NAME = ".muki-project.xml";
+	private static String STAMP_KEY = "muki.stamp";
+	private static String PROJECT_KEY = "muki.project";
+	private String outputDirectory;
+	private String stamp;
+	private String previousProjectHash;
+	private byte[] projectData;
+	private Map<String, String> previousHashes;
+	private Map<String, String> currentHashes;
+	private int writtenFiles;
+	private int unchangedFiles;
+	private int removedFiles;
+	private IOUtility io;
+
+	public GenerationManifest(String outputDirectory) {
+		this.setOutputDirectory(new File(outputDirectory).getAbsolutePath());
+		this.setPreviousHashes(new HashMap<String, String>());
+		this.setCurrentHashes(new TreeMap<String, String>());
+		this.setIo(new IOUtility());
+	}
+
+	/**
+	 * Reads the manifest of the last generation. Returns false if the output directory
+	 * doesn't have a manifest.
+	 */
+	public boolean load() throws Exception {
+		File file = this.getFile();
+		if (!file.exists()) {
+			return false;
+		}
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		this.getPreviousHashes().clear();
+		for (Object name : properties.keySet()) {
+			String key = (String)name;
+			if (key.equals(STAMP_KEY)) {
+				this.setStamp(properties.getProperty(key));
+			} else if (key.equals(PROJECT_KEY)) {
+				this.setPreviousProjectHash(properties.getProperty(key));
+			} else {
+				this.getPreviousHashes().put(key, properties.getProperty(key));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Saves the files produced by the current generation and the stamp.
+	 */
+	public void save() throws Exception {
+		Properties properties = new Properties();
+		for (Map.Entry<String, String> entry : this.getCurrentHashes().entrySet()) {
+			properties.setProperty(entry.getKey(), entry.getValue());
+		}
+		if (this.getStamp() != null) {
+			properties.setProperty(STAMP_KEY, this.getStamp());
+		}
+		if (this.getProjectData() != null) {
+			this.getIo().writeBinaryFile(this.getProjectFile().getAbsolutePath(), this.getProjectData());
+			properties.setProperty(PROJECT_KEY, this.getIo().digest(this.getProjectData()));
+		} else {
+			this.getProjectFile().delete();
+		}
+		OutputStream out = new FileOutputStream(this.getFile());
+		try {
+			properties.store(out, "Generated by Muki " + Version.id() + ". Do not edit.");
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the data to the file only if the content is different from the last generation
+	 * (or the file was deleted). Returns true if the file has been written.
+	 */
+	public boolean write(String fileName, byte[] data) throws Exception {
+		String path = this.getRelativePath(fileName);
+		String hash = this.getIo().digest(data);
+		boolean unchanged = false;
+		synchronized (this) {
+			this.getCurrentHashes().put(path, hash);
+			unchanged = hash.equals(this.getPreviousHashes().get(path)) && this.getIo().existsFile(fileName);
+			if (unchanged) {
+				this.setUnchangedFiles(this.getUnchangedFiles() + 1);
+			} else {
+				this.setWrittenFiles(this.getWrittenFiles() + 1);
+			}
+		}
+		if (!unchanged) {
+			this.getIo().writeBinaryFile(fileName, data);
+		}
+		return !unchanged;
+	}
+
+	/**
+	 * Copies the static resource to the file only if it's different from the last generation
+	 * (or the file was deleted). The resource is not loaded in memory. Returns true if the file has been written.
+	 */
+	public boolean copyResource(String fileName, URL resource) throws Exception {
+		String path = this.getRelativePath(fileName);
+		String hash = this.getIo().digest(resource);
+		boolean unchanged = false;
+		synchronized (this) {
+			this.getCurrentHashes().put(path, hash);
+			unchanged = hash.equals(this.getPreviousHashes().get(path)) && this.getIo().existsFile(fileName);
+			if (unchanged) {
+				this.setUnchangedFiles(this.getUnchangedFiles() + 1);
+			} else {
+				this.setWrittenFiles(this.getWrittenFiles() + 1);
+			}
+		}
+		if (!unchanged) {
+			this.getIo().copyResource(resource, fileName);
+		}
+		return !unchanged;
+	}
+
+	/**
+	 * Deletes the files of the last generation that were not produced by the current one.
+	 */
+	public void removeStaleFiles() {
+		for (String path : this.getPreviousHashes().keySet()) {
+			if (!this.getCurrentHashes().containsKey(path)) {
+				this.getIo().deleteFile(this.getOutputDirectory() + "/" + path);
+				this.setRemovedFiles(this.getRemovedFiles() + 1);
+			}
+		}
+	}
+
+	/**
+	 * Keeps the files of the last generation that were not produced by the current one. Used when only
+	 * a part of the artifacts is generated (see ProjectChanges): the other files are still valid.
+	 */
+	public synchronized void keepPreviousFiles() {
+		for (Map.Entry<String, String> entry : this.getPreviousHashes().entrySet()) {
+			if (!this.getCurrentHashes().containsKey(entry.getKey())) {
+				this.getCurrentHashes().put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns true if all the files listed in the manifest of the last generation still exist.
+	 */
+	public boolean isComplete() {
+		for (String path : this.getPreviousHashes().keySet()) {
+			if (!this.getIo().existsFile(this.getOutputDirectory() + "/" + path)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the stamp that identifies a generation: the option, the content of the project file and the
+	 * version of Muki. If any of them changes, the code must be generated again.
+	 */
+	public String createStamp(String option, String projectFile) throws Exception {
+		byte[] data = this.getIo().readBinaryFile(projectFile);
+		return this.getStampPrefix(option) + this.getIo().digest(data);
+	}
+
+	/**
+	 * Returns the option of the target with the options that change the generated code, so the
+	 * incremental generation writes everything again when they change
+	 */
+	public static String getStampOption(String option, boolean jsonCodecs, boolean xmlCodecs, boolean externalizable) {
+		String stampOption = option;
+		if (option.equals(MukiGenerator.GENERATE_JAVA) && jsonCodecs) {
+			stampOption += MukiGenerator.OPTION_JSON_CODECS;
+		}
+		if (option.equals(MukiGenerator.GENERATE_JAVA) && xmlCodecs) {
+			stampOption += MukiGenerator.OPTION_XML_CODECS;
+		}
+		if (option.equals(MukiGenerator.GENERATE_JAVA) && externalizable) {
+			stampOption += MukiGenerator.OPTION_EXTERNALIZABLE;
+		}
+		return stampOption;
+	}
+
+	private String getStampPrefix(String option) {
+		return option + ":" + Version.id() + ":";
+	}
+
+	/**
+	 * Returns true if there is a copy of the project of the last generation made with the option
+	 * and the current version of Muki
+	 */
+	public boolean hasProject(String option) {
+		return this.getStamp() != null && this.getStamp().startsWith(this.getStampPrefix(option)) && 
+				this.getPreviousProjectHash() != null && this.getProjectFile().exists();
+	}
+
+	/**
+	 * Returns the project of the last generation, or null if there is no copy of the project or the
+	 * last generation was made with other option or version of Muki (the files would be different).
+	 */
+	public Project loadProject(String option) throws Exception {
+		if (!this.hasProject(option)) {
+			return null;
+		}
+		byte[] data = this.getIo().readBinaryFile(this.getProjectFile().getAbsolutePath());
+		if (!this.getPreviousProjectHash().equals(this.getIo().digest(data))) {
+			return null;
+		}
+		return (Project)ModelUtility.getContext().createUnmarshaller().unmarshal(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * Sets the project used in the current generation (the content of the project file),
+	 * to be saved with the manifest
+	 */
+	public void setProjectData(byte[] projectData) {
+		this.projectData = projectData;
+	}
+
+	private byte[] getProjectData() {
+		return projectData;
+	}
+
+	private String getRelativePath(String fileName) {
+		String path = new File(fileName).getAbsolutePath();
+		if (path.startsWith(this.getOutputDirectory() + File.separator)) {
+			path = path.substring(this.getOutputDirectory().length() + 1);
+		}
+		return path.replace(File.separatorChar, '/');
+	}
+
+	private File getFile() {
+		return new File(this.getOutputDirectory(), FILE_NAME);
+	}
+
+	private File getProjectFile() {
+		return new File(this.getOutputDirectory(), PROJECT_FILE_NAME);
+	}
+
+	public String getOutputDirectory() {
+		return outputDirectory;
+	}
+
+	private void setOutputDirectory(String outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	public String getStamp() {
+		return stamp;
+	}
+
+	public void setStamp(String stamp) {
+		this.stamp = stamp;
+	}
+
+	private String getPreviousProjectHash() {
+		return previousProjectHash;
+	}
+
+	private void setPreviousProjectHash(String previousProjectHash) {
+		this.previousProjectHash = previousProjectHash;
+	}
+
+	private Map<String, String> getPreviousHashes() {
+		return previousHashes;
+	}
+
+	private void setPreviousHashes(Map<String, String> previousHashes) {
+		this.previousHashes = previousHashes;
+	}
+
+	private Map<String, String> getCurrentHashes() {
+		return currentHashes;
+	}
+
+	private void setCurrentHashes(Map<String, String> currentHashes) {
+		this.currentHashes = currentHashes;
+	}
+
+	public int getWrittenFiles() {
+		return writtenFiles;
+	}
+
+	private void setWrittenFiles(int writtenFiles) {
+		this.writtenFiles = writtenFiles;
+	}
+
+	public int getUnchangedFiles() {
+		return unchangedFiles;
+	}
+
+	private void setUnchangedFiles(int unchangedFiles) {
+		this.unchangedFiles = unchangedFiles;
+	}
+
+	public int getRemovedFiles() {
+		return removedFiles;
+	}
+
+	private void setRemovedFiles(int removedFiles) {
+		this.removedFiles = removedFiles;
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
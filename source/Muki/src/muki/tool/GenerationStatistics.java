@@ -0,0 +1,245 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Numbers of a generation: the time spent in every phase (see PARSING, VALIDATION, etc.) and in every template,
+ * the files written or unchanged and the peak of the heap. The times of the phases executed by several threads
+ * (rendering and writing) are added, so they can be greater than the duration of the generation.
+ * 
+ * The statistics are collected by the ExecutionResult (see getStatistics()) and can be saved as JSON (see toJson()).
+ * All the methods are thread-safe.
+ */
+public class GenerationStatistics {
+
+	public static String PARSING = "parsing";
+	public static String VALIDATION = "validation";
+	public static String RENDERING = "rendering";
+	public static String WRITING = "writing";
+	public static String GENERATION = "generation";
+	public static String COMPILATION = "compilation";
+	private Map<String, Long> phases;
+	private Map<String, long[]> templates;
+	private int writtenFiles;
+	private long writtenBytes;
+	private int unchangedFiles;
+	private long peakHeap;
+
+	public GenerationStatistics() {
+		this.setPhases(new LinkedHashMap<String, Long>());
+		this.setTemplates(new TreeMap<String, long[]>());
+	}
+
+	/**
+	 * Adds the time (in nanoseconds) spent in a phase
+	 */
+	public synchronized void addPhase(String phase, long nanos) {
+		Long time = this.getPhases().get(phase);
+		this.getPhases().put(phase, (time == null ? 0 : time) + nanos);
+	}
+
+	/**
+	 * Adds the time (in nanoseconds) spent to render a template once
+	 */
+	public synchronized void addTemplate(String templateName, long nanos) {
+		long[] template = this.getTemplates().get(templateName);
+		if (template == null) {
+			template = new long[2];
+			this.getTemplates().put(templateName, template);
+		}
+		template[0]++;
+		template[1] += nanos;
+	}
+
+	public synchronized void addWrittenFile(long bytes) {
+		this.writtenFiles++;
+		this.writtenBytes += bytes;
+	}
+
+	/**
+	 * Counts a file that was not written because the content didn't change (see GenerationManifest)
+	 */
+	public synchronized void addUnchangedFile() {
+		this.unchangedFiles++;
+	}
+
+	/**
+	 * Records the peak of the heap since the start of the process (or since resetPeakHeap())
+	 */
+	public synchronized void updatePeakHeap() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+				used += pool.getPeakUsage().getUsed();
+			}
+		}
+		this.peakHeap = Math.max(this.peakHeap, used);
+	}
+
+	/**
+	 * Starts measuring the peak of the heap from the current usage
+	 */
+	public static void resetPeakHeap() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * Adds the numbers of other statistics (ex: a target generated in another thread)
+	 */
+	public void add(GenerationStatistics other) {
+		if (other == this) {
+			return;
+		}
+		GenerationStatistics copy = other.copy();
+		synchronized (this) {
+			for (Map.Entry<String, Long> phase : copy.getPhases().entrySet()) {
+				this.addPhase(phase.getKey(), phase.getValue());
+			}
+			for (Map.Entry<String, long[]> entry : copy.getTemplates().entrySet()) {
+				long[] template = this.getTemplates().get(entry.getKey());
+				if (template == null) {
+					template = new long[2];
+					this.getTemplates().put(entry.getKey(), template);
+				}
+				template[0] += entry.getValue()[0];
+				template[1] += entry.getValue()[1];
+			}
+			this.writtenFiles += copy.writtenFiles;
+			this.writtenBytes += copy.writtenBytes;
+			this.unchangedFiles += copy.unchangedFiles;
+			this.peakHeap = Math.max(this.peakHeap, copy.peakHeap);
+		}
+	}
+
+	private synchronized GenerationStatistics copy() {
+		GenerationStatistics copy = new GenerationStatistics();
+		copy.getPhases().putAll(this.getPhases());
+		for (Map.Entry<String, long[]> entry : this.getTemplates().entrySet()) {
+			copy.getTemplates().put(entry.getKey(), entry.getValue().clone());
+		}
+		copy.writtenFiles = this.writtenFiles;
+		copy.writtenBytes = this.writtenBytes;
+		copy.unchangedFiles = this.unchangedFiles;
+		copy.peakHeap = this.peakHeap;
+		return copy;
+	}
+
+	/**
+	 * Returns the time spent in a phase, in milliseconds
+	 */
+	public synchronized double getPhaseTime(String phase) {
+		Long time = this.getPhases().get(phase);
+		return time == null ? 0 : time / 1000000.0;
+	}
+
+	/**
+	 * Returns how many times the template was rendered
+	 */
+	public synchronized long getTemplateCount(String templateName) {
+		long[] template = this.getTemplates().get(templateName);
+		return template == null ? 0 : template[0];
+	}
+
+	/**
+	 * Returns the time spent to render the template, in milliseconds
+	 */
+	public synchronized double getTemplateTime(String templateName) {
+		long[] template = this.getTemplates().get(templateName);
+		return template == null ? 0 : template[1] / 1000000.0;
+	}
+
+	/**
+	 * Returns the statistics as a JSON object. The times are in milliseconds and the sizes in bytes.
+	 */
+	public synchronized String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"phases\": {");
+		String separator = "\n";
+		for (String phase : this.getPhases().keySet()) {
+			json.append(separator).append("    ").append(this.quote(phase)).append(": ").append(this.format(this.getPhaseTime(phase)));
+			separator = ",\n";
+		}
+		json.append("\n  },\n  \"templates\": {");
+		separator = "\n";
+		for (String templateName : this.getTemplates().keySet()) {
+			json.append(separator).append("    ").append(this.quote(templateName)).append(": { \"count\": ").append(this.getTemplateCount(templateName));
+			json.append(", \"time\": ").append(this.format(this.getTemplateTime(templateName))).append(" }");
+			separator = ",\n";
+		}
+		json.append("\n  },\n  \"writtenFiles\": ").append(this.getWrittenFiles());
+		json.append(",\n  \"writtenBytes\": ").append(this.getWrittenBytes());
+		json.append(",\n  \"unchangedFiles\": ").append(this.getUnchangedFiles());
+		json.append(",\n  \"peakHeap\": ").append(this.getPeakHeap());
+		json.append("\n}");
+		return json.toString();
+	}
+
+	private String format(double time) {
+		return String.format(Locale.US, "%.3f", time);
+	}
+
+	private String quote(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private Map<String, Long> getPhases() {
+		return phases;
+	}
+
+	private void setPhases(Map<String, Long> phases) {
+		this.phases = phases;
+	}
+
+	private Map<String, long[]> getTemplates() {
+		return templates;
+	}
+
+	private void setTemplates(Map<String, long[]> templates) {
+		this.templates = templates;
+	}
+
+	public synchronized int getWrittenFiles() {
+		return writtenFiles;
+	}
+
+	public synchronized long getWrittenBytes() {
+		return writtenBytes;
+	}
+
+	public synchronized int getUnchangedFiles() {
+		return unchangedFiles;
+	}
+
+	/**
+	 * The peak of the heap in bytes (0 if updatePeakHeap() was never called)
+	 */
+	public synchronized long getPeakHeap() {
+		return peakHeap;
+	}
+
+}
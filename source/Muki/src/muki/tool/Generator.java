@@ -0,0 +1,347 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelType;
+import muki.tool.model.Project;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.Velocity;
+
+/**
+ * Superclass of the code generators (Java, Objective-C and Swift). It centralizes the initialization
+ * of Velocity and the way the generated artifacts are written to the output directory:
+ * every file goes through write(), so the content can be checked against a GenerationManifest
+ * and only the files that actually changed are written to the disk. Without a manifest, the files
+ * are passed to the OutputSink: by default they are written to the disk (FileOutputSink), but they can
+ * also be kept in memory (MemoryOutputSink).
+ * 
+ * The artifacts are independent of each other, so they can be rendered in parallel (see setThreads()).
+ * Velocity is initialized only once per process, with the template cache enabled (see velocity.properties),
+ * so the templates are parsed once and shared by all the generators and worker threads. The helper is
+ * stateless and is also shared by all the artifacts of a generator.
+ *
+ * If the templates have been compiled into emitters at build time (see TemplateCompiler), the emitters are used
+ * instead of Velocity.
+ *
+ * With changes (see setChanges()), generateAll() only generates the artifacts of the models and controllers
+ * that changed since the last generation, and the artifacts that depend on all of them.
+ * 
+ * The time spent rendering every template and writing the files is added to the statistics (see setStatistics()).
+ */
+public abstract class Generator {
+
+	private static boolean velocityInitialized = false;
+	private IOUtility io;
+	private GenerationManifest manifest;
+	private OutputSink outputSink;
+	private ProjectChanges changes;
+	private GenerationStatistics statistics;
+	private int threads = 1;
+	private VelocityContext sharedContext;
+	private ClassLoader emitterClassLoader;
+	private Map<String, TemplateEmitter> emitters;
+
+	public Generator(VelocityHelper helper) throws Exception {
+		this.init(helper);
+	}
+
+	private void init(VelocityHelper helper) throws Exception {
+		this.setIo(new IOUtility());
+		this.setOutputSink(new FileOutputSink());
+		this.setStatistics(new GenerationStatistics());
+		initVelocity(this.getIo());
+		VelocityContext context = new VelocityContext();
+		context.put("helper", helper);
+		this.setSharedContext(context);
+		this.setEmitterClassLoader(Generator.class.getClassLoader());
+	}
+
+	/**
+	 * Initializes the Velocity engine the first time a generator is created
+	 */
+	private static synchronized void initVelocity(IOUtility io) throws Exception {
+		if (!velocityInitialized) {
+			Velocity.init(io.getProperties("velocity.properties"));
+			velocityInitialized = true;
+		}
+	}
+
+	/**
+	 * This is the main method that generates all the artifacts
+	 */
+	public abstract void generateAll(Project project, String outputDirectory) throws Exception;
+
+	/**
+	 * Runs the tasks that generate the artifacts. With one thread the tasks are executed in order, otherwise
+	 * they are distributed in a pool of workers. The first exception thrown by a task is propagated.
+	 */
+	protected void execute(List<Callable<Object>> tasks) throws Exception {
+		if (this.getThreads() <= 1 || tasks.size() <= 1) {
+			for (Callable<Object> task : tasks) {
+				task.call();
+			}
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.getThreads(), tasks.size()));
+		try {
+			List<Future<Object>> futures = executor.invokeAll(tasks);
+			for (Future<Object> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception) {
+						throw (Exception)e.getCause();
+					}
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Creates the context used to merge a template. It already contains the helper.
+	 */
+	protected VelocityContext createContext() {
+		return new VelocityContext(this.getSharedContext());
+	}
+
+	/**
+	 * Merges the template with the context and writes the result to the file
+	 */
+	protected void merge(String templateName, VelocityContext context, String fileName) throws Exception {
+		long start = System.nanoTime();
+		StringWriter writer = new StringWriter();
+		TemplateEmitter emitter = this.getEmitter(templateName);
+		if (emitter != null) {
+			emitter.merge(context, writer);
+		} else {
+			Template template = Velocity.getTemplate(templateName);
+			template.merge(context, writer);
+		}
+		long time = System.nanoTime() - start;
+		this.getStatistics().addTemplate(templateName, time);
+		this.getStatistics().addPhase(GenerationStatistics.RENDERING, time);
+		this.write(fileName, writer.toString().getBytes());
+	}
+
+	/**
+	 * Returns the emitter compiled from the template, or null if there is no emitter in the classpath
+	 */
+	protected synchronized TemplateEmitter getEmitter(String templateName) throws Exception {
+		if (!this.getEmitters().containsKey(templateName)) {
+			TemplateEmitter emitter = null;
+			try {
+				Class<?> emitterClass = Class.forName(TemplateCompiler.getEmitterClassName(templateName), true, this.getEmitterClassLoader());
+				emitter = (TemplateEmitter)emitterClass.getDeclaredConstructor().newInstance();
+			} catch (ClassNotFoundException e) {
+			}
+			this.getEmitters().put(templateName, emitter);
+		}
+		return this.getEmitters().get(templateName);
+	}
+
+	/**
+	 * Copies a static resource available in the classpath (support classes) to the file. The resource
+	 * is streamed, and it's not written again if the file has the same content.
+	 */
+	protected void copyResource(String resourceName, String fileName) throws Exception {
+		URL url = this.getClass().getResource(resourceName);
+		long start = System.nanoTime();
+		boolean written;
+		if (this.getManifest() != null) {
+			written = this.getManifest().copyResource(fileName, url);
+		} else {
+			written = this.getOutputSink().writeResource(fileName, url);
+		}
+		this.count(written, written ? this.getIo().getContentLength(url) : 0);
+		this.getStatistics().addPhase(GenerationStatistics.WRITING, System.nanoTime() - start);
+	}
+
+	/**
+	 * Writes the data to the file. If there is a manifest, the file is written only
+	 * if the content is different from the previous generation.
+	 */
+	protected void write(String fileName, byte[] data) throws Exception {
+		long start = System.nanoTime();
+		if (this.getManifest() != null) {
+			this.count(this.getManifest().write(fileName, data), data.length);
+		} else {
+			this.getOutputSink().write(fileName, data);
+			this.count(true, data.length);
+		}
+		this.getStatistics().addPhase(GenerationStatistics.WRITING, System.nanoTime() - start);
+	}
+
+	private void count(boolean written, long bytes) {
+		if (written) {
+			this.getStatistics().addWrittenFile(bytes);
+		} else {
+			this.getStatistics().addUnchangedFile();
+		}
+	}
+
+	/**
+	 * Creates a directory of the output
+	 */
+	protected void createDirectory(String directory) throws Exception {
+		if (this.getManifest() != null) {
+			this.getIo().createDirectory(directory);
+		} else {
+			this.getOutputSink().createDirectory(directory);
+		}
+	}
+
+	/**
+	 * Returns true if the artifacts of the model must be generated
+	 */
+	protected boolean isChanged(ModelType model) {
+		return this.getChanges() == null || this.getChanges().isChanged(model);
+	}
+
+	protected boolean isChanged(ControllerType controller) {
+		return this.getChanges() == null || this.getChanges().isChanged(controller);
+	}
+
+	/**
+	 * Returns true if the artifacts that depend on all the models must be generated
+	 */
+	protected boolean isModelsChanged() {
+		return this.getChanges() == null || this.getChanges().isModelsChanged();
+	}
+
+	/**
+	 * Returns true if the artifacts that use the names of all the models must be generated
+	 */
+	protected boolean isModelListChanged() {
+		return this.getChanges() == null || this.getChanges().isModelListChanged();
+	}
+
+	protected boolean isControllersChanged() {
+		return this.getChanges() == null || this.getChanges().isControllersChanged();
+	}
+
+	/**
+	 * Returns true if all the artifacts must be generated (there are no changes)
+	 */
+	protected boolean isGeneratingAll() {
+		return this.getChanges() == null;
+	}
+
+	protected IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+	public GenerationManifest getManifest() {
+		return manifest;
+	}
+
+	public void setManifest(GenerationManifest manifest) {
+		this.manifest = manifest;
+	}
+
+	/**
+	 * Destination of the artifacts when there is no manifest. The default is a FileOutputSink.
+	 */
+	public OutputSink getOutputSink() {
+		return outputSink;
+	}
+
+	public void setOutputSink(OutputSink outputSink) {
+		this.outputSink = outputSink;
+	}
+
+	/**
+	 * Times of the phases and the templates of the generation (see GenerationStatistics)
+	 */
+	public GenerationStatistics getStatistics() {
+		return statistics;
+	}
+
+	public void setStatistics(GenerationStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * The changes since the last generation. If null (the default), all the artifacts are generated.
+	 */
+	public ProjectChanges getChanges() {
+		return changes;
+	}
+
+	public void setChanges(ProjectChanges changes) {
+		this.changes = changes;
+	}
+
+	/**
+	 * Number of threads used to render the artifacts. The default is 1 (sequential generation).
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Class loader used to find the emitters compiled from the templates. By default, the class loader of the generator.
+	 */
+	public ClassLoader getEmitterClassLoader() {
+		return emitterClassLoader;
+	}
+
+	public void setEmitterClassLoader(ClassLoader emitterClassLoader) {
+		this.emitterClassLoader = emitterClassLoader;
+		this.setEmitters(new HashMap<String, TemplateEmitter>());
+	}
+
+	private Map<String, TemplateEmitter> getEmitters() {
+		return emitters;
+	}
+
+	private void setEmitters(Map<String, TemplateEmitter> emitters) {
+		this.emitters = emitters;
+	}
+
+	private VelocityContext getSharedContext() {
+		return sharedContext;
+	}
+
+	private void setSharedContext(VelocityContext sharedContext) {
+		this.sharedContext = sharedContext;
+	}
+
+}
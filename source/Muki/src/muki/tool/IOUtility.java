@@ -20,25 +20,44 @@ import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * This is a utility class that centralizes the management of files and resources
+ * This is a utility class that centralizes the management of files and resources. It's based on java.nio.file:
+ * the static resources are copied with channels, without loading them in memory.
  */
 public class IOUtility {
 
+	private static int BUFFER_SIZE = 8192;
+
 	public IOUtility() {		
 	}
 
@@ -58,17 +77,16 @@ public class IOUtility {
 	 * caso contrario.
 	 */
 	public boolean existsFile(String fileName) {
-		File file = new File(fileName);
-		return file.exists();
+		return Files.exists(Paths.get(fileName));
 	}
 
 	/**
 	 * Borra el fichero indicado en la ruta.
 	 */
 	public void deleteFile(String fileName) {
-		File file = new File(fileName);
-		if (file.exists()) {
-			file.delete();
+		try {
+			Files.deleteIfExists(Paths.get(fileName));
+		} catch (IOException e) {
 		}
 	}
 
@@ -76,8 +94,10 @@ public class IOUtility {
 	 * Crea un nuevo directorio en la ruta indicada.
 	 */
 	public void createDirectory(String directoryPath) {
-		File output = new File(directoryPath);
-		output.mkdirs();
+		try {
+			Files.createDirectories(Paths.get(directoryPath));
+		} catch (IOException e) {
+		}
 	}
 
 	/**
@@ -90,19 +110,89 @@ public class IOUtility {
 
 	/**
 	 * Borra el directorio apuntado por la ruta. El directorio puede contener
-	 * subdirectorios o ficheros.
+	 * subdirectorios o ficheros. Los subdirectorios se borran en paralelo.
+	 * Retorna false si el directorio no existe o no se ha podido borrar completamente.
 	 */
 	public boolean deleteDirectory(File directory) {
-		if (directory.isDirectory()) {
-			String[] children = directory.list();
-			for (int i = 0; i < children.length; i++) {
-				boolean success = this.deleteDirectory(new File(directory, children[i]));
-				if (!success) {
-					return false;
+		Path path = directory.toPath();
+		if (!Files.isDirectory(path)) {
+			return directory.delete();
+		}
+		List<Path> subdirectories = new ArrayList<Path>();
+		try {
+			DirectoryStream<Path> children = Files.newDirectoryStream(path);
+			try {
+				for (Path child : children) {
+					if (Files.isDirectory(child) && !Files.isSymbolicLink(child)) {
+						subdirectories.add(child);
+					} else {
+						Files.delete(child);
+					}
 				}
+			} finally {
+				children.close();
 			}
+			this.deleteTrees(subdirectories);
+			Files.delete(path);
+			return true;
+		} catch (IOException e) {
+			return false;
 		}
-		return directory.delete();
+	}
+
+	/**
+	 * Borra los arboles de directorios, cada uno en un hilo
+	 */
+	private void deleteTrees(List<Path> directories) throws IOException {
+		if (directories.size() < 2) {
+			for (Path directory : directories) {
+				this.deleteTree(directory);
+			}
+			return;
+		}
+		int threads = Math.min(directories.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (final Path directory : directories) {
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						deleteTree(directory);
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> future : futures) {
+				try {
+					future.get();
+				} catch (Exception e) {
+					throw new IOException(e.getCause() != null ? e.getCause() : e);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Borra el directorio recorriendo el arbol: primero los ficheros y despues
+	 * cada directorio (ya vacio)
+	 */
+	private void deleteTree(Path directory) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+				if (e != null) {
+					throw e;
+				}
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
 	}
 
 	/**
@@ -111,7 +201,7 @@ public class IOUtility {
 	public String readTextFile(String fileName) {
 		StringBuilder contents = new StringBuilder();
 		try {
-			BufferedReader in = new BufferedReader(new FileReader(fileName));
+			BufferedReader in = Files.newBufferedReader(Paths.get(fileName), Charset.defaultCharset());
 			String str;
 			while ((str = in.readLine()) != null) {
 				contents.append(str);
@@ -130,7 +220,7 @@ public class IOUtility {
 	 */
 	public void writeTextFile(String fileName, String data) {
 		try {
-			BufferedWriter out = new BufferedWriter(new FileWriter(fileName));
+			BufferedWriter out = Files.newBufferedWriter(Paths.get(fileName), Charset.defaultCharset());
 			out.write(data);
 			out.close();
 		} catch (IOException e) {
@@ -143,44 +233,107 @@ public class IOUtility {
 	 * array de bytes.
 	 */
 	public byte[] readBinaryFile(String fileName) throws IOException {
-		File file = new File(fileName);
-		FileInputStream is = new FileInputStream(file);
+		return Files.readAllBytes(Paths.get(fileName));
+	}
 
-		long length = file.length();
-		byte[] bytes = new byte[(int) length];
+	/**
+	 * Descarga el recurso apuntado por la URL y retorna el contenido en un
+	 * array de bytes. No depende del tamano informado por la conexion.
+	 */
+	public byte[] readBytes(URL url) throws IOException {
+		InputStream is = url.openStream();
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int numRead;
+			while ((numRead = is.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, numRead);
+			}
+			return bytes.toByteArray();
+		} finally {
+			is.close();
+		}
+	}
 
-		int offset = 0;
-		int numRead = 0;
-		while (offset < bytes.length && (numRead = is.read(bytes, offset, bytes.length - offset)) >= 0) {
-			offset += numRead;
+	/**
+	 * Copia el recurso apuntado por la URL al fichero sin cargarlo en memoria.
+	 * Si el recurso es un fichero local, se copia de canal a canal (transferTo).
+	 * Retorna el numero de bytes copiados.
+	 */
+	public long copyResource(URL url, String fileName) throws IOException {
+		Path target = Paths.get(fileName);
+		Path source = this.getLocalPath(url);
+		if (source == null) {
+			InputStream is = url.openStream();
+			try {
+				return Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				is.close();
+			}
 		}
-		if (offset < bytes.length) {
-			throw new IOException("El fichero no se ha leido completamente: " + file.getName());
+		FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+		try {
+			FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				long size = in.size();
+				long position = 0;
+				while (position < size) {
+					position += in.transferTo(position, size - position, out);
+				}
+				return size;
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
 		}
-		is.close();
-		return bytes;
 	}
 
 	/**
-	 * Descarga el recurso apuntado por la URL y retorna el contenido en un
-	 * array de bytes.
+	 * Retorna true si el fichero tiene el mismo contenido que el recurso apuntado
+	 * por la URL. Primero se compara el tamano y despues el hash SHA-1.
 	 */
-	public byte[] readBytes(URL url) throws IOException {
-		URLConnection connection = url.openConnection();
-		InputStream is = connection.getInputStream();
+	public boolean isSameContent(URL url, String fileName) throws IOException {
+		Path file = Paths.get(fileName);
+		if (!Files.isRegularFile(file)) {
+			return false;
+		}
+		long length = this.getContentLength(url);
+		if (length >= 0 && length != Files.size(file)) {
+			return false;
+		}
+		return this.digest(url).equals(this.digest(file));
+	}
 
-		byte[] bytes = new byte[connection.getContentLength()];
+	/**
+	 * Retorna el tamano del recurso apuntado por la URL, o -1 si no se conoce.
+	 */
+	public long getContentLength(URL url) throws IOException {
+		Path source = this.getLocalPath(url);
+		if (source != null) {
+			return Files.size(source);
+		}
+		URLConnection connection = url.openConnection();
+		long length = connection.getContentLengthLong();
+		connection.getInputStream().close();
+		return length;
+	}
 
-		int offset = 0;
-		int numRead = 0;
-		while (offset < bytes.length && (numRead = is.read(bytes, offset, bytes.length - offset)) >= 0) {
-			offset += numRead;
+	/**
+	 * Retorna la ruta del fichero si la URL apunta a un fichero local, o null en otro caso
+	 * (por ejemplo, un recurso dentro de un jar).
+	 */
+	private Path getLocalPath(URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return null;
 		}
-		if (offset < bytes.length) {
-			throw new IOException("El fichero no se ha leido completamente: " + url.toString());
+		try {
+			return Paths.get(url.toURI());
+		} catch (URISyntaxException e) {
+			return null;
+		} catch (IllegalArgumentException e) {
+			return null;
 		}
-		is.close();
-		return bytes;
 	}
 
 	/**
@@ -198,9 +351,7 @@ public class IOUtility {
 	 * Guarda el contenido binario en un fichero, en la ruta indicada.
 	 */
 	public void writeBinaryFile(String fileName, byte[] data) throws IOException {
-		FileOutputStream fos = new FileOutputStream(fileName);
-		fos.write(data);
-		fos.close();
+		Files.write(Paths.get(fileName), data);
 	}
 
 	/**
@@ -248,6 +399,68 @@ public class IOUtility {
 		return respuesta;
 	}
 
+	/**
+	 * Calcula el hash SHA-1 del contenido y lo retorna en hexadecimal.
+	 */
+	public String digest(byte[] data) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			return this.toHex(digest.digest(data));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Calcula el hash SHA-1 del recurso apuntado por la URL, leyendolo por bloques.
+	 */
+	public String digest(URL url) throws IOException {
+		InputStream is = url.openStream();
+		try {
+			return this.digest(is);
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Calcula el hash SHA-1 del fichero, leyendolo por bloques.
+	 */
+	public String digest(Path file) throws IOException {
+		InputStream is = Files.newInputStream(file);
+		try {
+			return this.digest(is);
+		} finally {
+			is.close();
+		}
+	}
+
+	private String digest(InputStream is) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int numRead;
+			while ((numRead = is.read(buffer)) >= 0) {
+				digest.update(buffer, 0, numRead);
+			}
+			return this.toHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private String toHex(byte[] hash) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < hash.length; i++) {
+			String hex = Integer.toHexString(hash[i] & 0xff);
+			if (hex.length() == 1) {
+				result.append('0');
+			}
+			result.append(hex);
+		}
+		return result.toString();
+	}
+
 	/**
 	 * Lee un fichero de propiedades disponible en un jar dentro del classpath
 	 * o bien de un fichero en el classpath mismo.
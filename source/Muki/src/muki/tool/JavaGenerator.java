@@ -15,11 +15,14 @@
  */
 package muki.tool;
 
-import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
-import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 
 import muki.tool.model.ModelDefinitionsType;
 import muki.tool.model.ModelType;
@@ -32,129 +35,466 @@ import muki.tool.model.ControllerType;
  * - Java beans (models) with Jaxb annotations for XML serialization/deserialization using JaxB
  * - Java controller interfaces
  * - Java controller skeleton implementation. This skeleton passes the invocations to a delegate object.
+ * - A provider of a single JAXBContext for all the models, created at startup, that reuses the marshallers per thread
+ * 
+ * Optionally (see setJsonCodecs()) it generates a JSON codec for every model, that uses the streaming API of Jackson
+ * instead of the reflective databinding, and the provider that reads and writes the models with them.
+ * In the same way (see setXmlCodecs()) it generates a StAX codec for every model that writes the XML of JAXB.
+ * 
+ * If an operation uses the binary serialization, every model has a binary codec and the provider of the
+ * binary media type is generated (see setBinaryCodecs()).
+ * 
+ * With setExternalizable() the models implement Externalizable, so the Java serialization writes the
+ * attributes directly instead of using reflection.
+ * 
+ * The GET operations with a streaming list return a StreamingOutput (MukiStreamingOutput) that writes the
+ * items of the iterator returned by the delegate while the response is sent.
+ * 
+ * The paginated GET operations return a page of the model (for example, TrackPage with the items and the
+ * cursor of the next page, see ModelUtility.getPageModels()), that is generated like the other models.
+ * The controller limits the size of the page requested to the max page size of the operation.
+ * 
+ * The asynchronous operations (attribute async of the controller or the operation) have a delegate that
+ * returns a CompletionStage, and the controller resumes the suspended response of RESTEasy when it's completed
+ * (see MukiAsyncResponse). The application must be deployed with the servlet MukiAsyncDispatcher, that
+ * releases the thread of the container while the delegate waits.
  */
-public class JavaGenerator {
+public class JavaGenerator extends Generator {
 
-	private IOUtility io;
+	private static int BATCH_SIZE = 256;
+	private boolean jsonCodecs;
+	private boolean xmlCodecs;
+	private boolean binaryCodecs;
+	private boolean externalizable;
 
 	public JavaGenerator() throws Exception {
-		this.init();
-	}
-
-	private void init() throws Exception {
-		this.setIo(new IOUtility());
-		Velocity.init(this.getIo().getProperties("velocity.properties"));
+		super(new JavaVelocityHelper());
 	}
 
 	/**
 	 * This is the main method that generates all the artifacts
 	 */
-	public void generateAll(Project project, String outputDirectory) throws Exception {
+	public void generateAll(Project project, final String outputDirectory) throws Exception {
 		ModelDefinitionsType allTypes = project.getModelDefinitions();
+		ControllerDefinitionsType allControllers = project.getControllerDefinitions();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		this.setBinaryCodecs(new ModelUtility().hasBinarySerialization(allControllers));
+		List<ModelType> pageModels = new ModelUtility().getPageModels(allControllers);
 		for (ModelType aType : allTypes.getModel()) {
-			this.generateModelClass(aType, outputDirectory, allTypes.getJavaPackage());
+			if (this.isChanged(aType)) {
+				tasks.add(this.createModelTask(aType, outputDirectory, allTypes.getJavaPackage()));
+			}
+		}
+		// The pages only change with a full generation (see ProjectChanges)
+		if (this.isGeneratingAll()) {
+			for (ModelType aPage : pageModels) {
+				tasks.add(this.createModelTask(aPage, outputDirectory, allTypes.getJavaPackage()));
+			}
 		}
-		ControllerDefinitionsType allControllers = project.getControllerDefinitions();
 		for (ControllerType aController : allControllers.getController()) {
-			this.generateControllerClass(aController, outputDirectory, allControllers.getJavaPackage(), allTypes.getJavaPackage());
-			this.generateDelegateInterface(aController, outputDirectory, allControllers.getJavaPackage(), allTypes.getJavaPackage());
+			if (this.isChanged(aController)) {
+				tasks.add(this.createControllerTask(aController, outputDirectory, allControllers.getJavaPackage(), allTypes));
+			}
+		}
+		if (this.isControllersChanged()) {
+			ModelUtility modelUtility = new ModelUtility();
+			tasks.add(this.createApplicationTask(allControllers, outputDirectory, modelUtility.hasStreamingOperations(allControllers), 
+					modelUtility.hasAsyncOperations(allControllers)));
 		}
-		this.generateRestApplicationClass(allControllers, outputDirectory);
-		this.generateExceptionClass(outputDirectory, allControllers.getJavaPackage());
+		if (this.isModelListChanged()) {
+			tasks.add(this.createModelListTask(this.getModelList(allTypes, pageModels), outputDirectory, allControllers.getJavaPackage()));
+		}
+		this.execute(tasks);
+	}
+
+	/**
+	 * Returns the definitions with the models and the pages of the paginated operations, that are
+	 * registered in the JAXBContext and the providers like the other models
+	 */
+	private ModelDefinitionsType getModelList(ModelDefinitionsType allTypes, Collection<ModelType> pageModels) {
+		if (pageModels.isEmpty()) {
+			return allTypes;
+		}
+		ModelDefinitionsType modelList = new ModelDefinitionsType();
+		modelList.setJavaPackage(allTypes.getJavaPackage());
+		modelList.getModel().addAll(allTypes.getModel());
+		modelList.getModel().addAll(pageModels);
+		return modelList;
+	}
+
+	/**
+	 * Generates all the artifacts reading the project file with a ProjectReader, so the project
+	 * is never loaded in memory: the models and controllers are generated in batches while the file is read.
+	 * Only the names of the controllers are kept, for the RestApplication class, and the names of the models
+	 * with their list attributes (the streaming lists of the controllers are resolved with them).
+	 */
+	public void generateAll(String projectFile, final String outputDirectory) throws Exception {
+		final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		final ControllerDefinitionsType allControllers = new ControllerDefinitionsType();
+		final ModelDefinitionsType allTypes = new ModelDefinitionsType();
+		final Map<String, ModelType> pageModels = new LinkedHashMap<String, ModelType>();
+		new ProjectReader().read(projectFile, new ProjectHandler() {
+			private Project project;
+			private boolean streamingOperations;
+			private boolean asyncOperations;
+			public void startProject(Project project) {
+				// The reader adds the definitions to this project when they are found
+				this.project = project;
+			}
+			public void model(ModelDefinitionsType definitions, ModelType model) throws Exception {
+				tasks.add(createModelTask(model, outputDirectory, definitions.getJavaPackage()));
+				executeBatch(tasks);
+				ModelType modelName = new ModelType();
+				modelName.setName(model.getName());
+				modelName.getListAttr().addAll(model.getListAttr());
+				allTypes.getModel().add(modelName);
+			}
+			public void controller(ControllerDefinitionsType definitions, ControllerType controller) throws Exception {
+				allTypes.setJavaPackage(this.project.getModelDefinitions().getJavaPackage());
+				tasks.add(createControllerTask(controller, outputDirectory, definitions.getJavaPackage(), allTypes));
+				executeBatch(tasks);
+				new ModelUtility().addPageModels(controller, pageModels);
+				this.streamingOperations |= new ModelUtility().hasStreamingOperations(controller);
+				this.asyncOperations |= new ModelUtility().hasAsyncOperations(controller);
+				ControllerType controllerName = new ControllerType();
+				controllerName.setName(controller.getName());
+				allControllers.getController().add(controllerName);
+			}
+			public void endProject(Project project) throws Exception {
+				allControllers.setJavaPackage(project.getControllerDefinitions().getJavaPackage());
+				allTypes.setJavaPackage(project.getModelDefinitions().getJavaPackage());
+				for (ModelType aPage : pageModels.values()) {
+					tasks.add(createModelTask(aPage, outputDirectory, allTypes.getJavaPackage()));
+				}
+				tasks.add(createApplicationTask(allControllers, outputDirectory, this.streamingOperations, this.asyncOperations));
+				tasks.add(createModelListTask(getModelList(allTypes, pageModels.values()), outputDirectory, allControllers.getJavaPackage()));
+				execute(tasks);
+			}
+		});
+	}
+
+	/**
+	 * Executes the tasks when there are enough of them to keep all the threads busy
+	 */
+	private void executeBatch(List<Callable<Object>> tasks) throws Exception {
+		if (tasks.size() >= BATCH_SIZE) {
+			this.execute(tasks);
+			tasks.clear();
+		}
+	}
+
+	private Callable<Object> createModelTask(final ModelType aType, final String outputDirectory, final String javaPackage) {
+		return new Callable<Object>() {
+			public Object call() throws Exception {
+				generateModelClass(aType, outputDirectory, javaPackage);
+				if (isJsonCodecs()) {
+					generateJsonCodec(aType, outputDirectory, javaPackage);
+				}
+				if (isXmlCodecs()) {
+					generateXmlCodec(aType, outputDirectory, javaPackage);
+				}
+				if (isBinaryCodecs()) {
+					generateBinaryCodec(aType, outputDirectory, javaPackage);
+				}
+				return null;
+			}
+		};
+	}
+
+	private Callable<Object> createControllerTask(final ControllerType aController, final String outputDirectory, final String javaPackage, final ModelDefinitionsType allTypes) {
+		return new Callable<Object>() {
+			public Object call() throws Exception {
+				generateControllerClass(aController, allTypes, outputDirectory, javaPackage);
+				generateDelegateInterface(aController, allTypes, outputDirectory, javaPackage);
+				return null;
+			}
+		};
+	}
+
+	private Callable<Object> createApplicationTask(final ControllerDefinitionsType allControllers, final String outputDirectory, 
+			final boolean streamingOperations, final boolean asyncOperations) {
+		return new Callable<Object>() {
+			public Object call() throws Exception {
+				generateRestApplicationClass(allControllers, outputDirectory);
+				generateExceptionClass(outputDirectory, allControllers.getJavaPackage());
+				if (streamingOperations) {
+					generateStreamingOutput(outputDirectory, allControllers.getJavaPackage());
+				}
+				if (asyncOperations) {
+					generateAsyncResponse(outputDirectory, allControllers.getJavaPackage());
+					generateAsyncDispatcher(outputDirectory, allControllers.getJavaPackage());
+				}
+				return null;
+			}
+		};
 	}
 	
+	/**
+	 * Creates the task that generates the classes that depend on the list of models
+	 */
+	private Callable<Object> createModelListTask(final ModelDefinitionsType allTypes, final String outputDirectory, final String javaPackage) {
+		return new Callable<Object>() {
+			public Object call() throws Exception {
+				generateJaxbContextResolver(allTypes, outputDirectory, javaPackage);
+				if (isJsonCodecs()) {
+					generateJsonProvider(allTypes, outputDirectory, javaPackage);
+				}
+				if (isXmlCodecs()) {
+					generateXmlProvider(allTypes, outputDirectory, javaPackage);
+				}
+				if (isBinaryCodecs()) {
+					generateBinaryProvider(allTypes, outputDirectory, javaPackage);
+				}
+				return null;
+			}
+		};
+	}
+
 	public void generateModelClass(ModelType type, String outputDirectory, String javaPackage) throws Exception {
-		VelocityContext context = new VelocityContext();
+		VelocityContext context = this.createContext();
 		context.put("type", type);
 		context.put("javaPackage", javaPackage);
-		context.put("helper", new JavaVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_java_bean.vm");
+		context.put("externalizable", this.isExternalizable());
 		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
 		String fileName = targetPath + "/" + type.getName() + ".java";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_java_bean.vm", context, fileName);
 	}
 	
-	public void generateControllerClass(ControllerType controller, String outputDirectory, String javaPackage, String typesJavaPackage) throws Exception {
-		VelocityContext context = new VelocityContext();
+	public void generateControllerClass(ControllerType controller, ModelDefinitionsType definitions, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
 		context.put("controller", controller);
+		context.put("definitions", definitions);
 		context.put("javaPackage", javaPackage);
-		context.put("typesJavaPackage", typesJavaPackage);
-		context.put("helper", new JavaVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_java_controller.vm");
+		context.put("typesJavaPackage", definitions.getJavaPackage());
 		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
 		String fileName = targetPath + "/" + controller.getName() + ".java";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_java_controller.vm", context, fileName);
 	}
 		
 	public void generateRestApplicationClass(ControllerDefinitionsType controllers, String outputDirectory) throws Exception {
-		VelocityContext context = new VelocityContext();
+		VelocityContext context = this.createContext();
 		context.put("controllers", controllers);
 		context.put("javaPackage", controllers.getJavaPackage());
-		context.put("helper", new JavaVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_java_rest_application.vm");
+		context.put("jsonCodecs", this.isJsonCodecs());
+		context.put("xmlCodecs", this.isXmlCodecs());
+		context.put("binaryCodecs", this.isBinaryCodecs());
 		String targetPath = this.createPackageDirectory(outputDirectory, controllers.getJavaPackage());
 		String fileName = targetPath + "/RestApplication.java";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_java_rest_application.vm", context, fileName);
 	}
 
-	public void generateDelegateInterface(ControllerType controller, String outputDirectory, String javaPackage, String typesJavaPackage) throws Exception {
-		VelocityContext context = new VelocityContext();
+	public void generateDelegateInterface(ControllerType controller, ModelDefinitionsType definitions, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
 		context.put("controller", controller);
+		context.put("definitions", definitions);
 		context.put("javaPackage", javaPackage);
-		context.put("typesJavaPackage", typesJavaPackage);
-		context.put("helper", new JavaVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_java_delegate.vm");
+		context.put("typesJavaPackage", definitions.getJavaPackage());
 		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
 		String fileName = targetPath + "/" + controller.getName() + "Delegate.java";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_java_delegate.vm", context, fileName);
 	}
 	
+	/**
+	 * Generates the provider of the JAXBContext of all the models and the context that reuses the marshallers
+	 * (in the package of the controllers, they are registered by RestApplication)
+	 */
+	public void generateJaxbContextResolver(ModelDefinitionsType definitions, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("definitions", definitions);
+		context.put("javaPackage", javaPackage);
+		context.put("typesJavaPackage", definitions.getJavaPackage());
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/MukiJaxbContextResolver.java";
+		this.merge("/templates/template_java_JaxbContextResolver.vm", context, fileName);
+		fileName = targetPath + "/MukiPooledJaxbContext.java";
+		this.merge("/templates/template_java_PooledJaxbContext.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the JSON codec of the model (see setJsonCodecs())
+	 */
+	public void generateJsonCodec(ModelType type, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("type", type);
+		context.put("javaPackage", javaPackage);
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/" + type.getName() + "JsonCodec.java";
+		this.merge("/templates/template_java_json_codec.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the provider that reads and writes the models with the JSON codecs (in the package of the
+	 * controllers, it's registered by RestApplication)
+	 */
+	public void generateJsonProvider(ModelDefinitionsType definitions, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("definitions", definitions);
+		context.put("javaPackage", javaPackage);
+		context.put("typesJavaPackage", definitions.getJavaPackage());
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/MukiJsonProvider.java";
+		this.merge("/templates/template_java_JsonProvider.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the XML codec of the model (see setXmlCodecs())
+	 */
+	public void generateXmlCodec(ModelType type, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("type", type);
+		context.put("javaPackage", javaPackage);
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/" + type.getName() + "XmlCodec.java";
+		this.merge("/templates/template_java_xml_codec.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the provider that reads and writes the models with the XML codecs (in the package of the
+	 * controllers, it's registered by RestApplication) and the conversions used by the codecs (in the package of the models)
+	 */
+	public void generateXmlProvider(ModelDefinitionsType definitions, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("definitions", definitions);
+		context.put("javaPackage", javaPackage);
+		context.put("typesJavaPackage", definitions.getJavaPackage());
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/MukiXmlProvider.java";
+		this.merge("/templates/template_java_XmlProvider.vm", context, fileName);
+		context.put("javaPackage", definitions.getJavaPackage());
+		targetPath = this.createPackageDirectory(outputDirectory, definitions.getJavaPackage());
+		fileName = targetPath + "/MukiXmlSupport.java";
+		this.merge("/templates/template_java_XmlSupport.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the binary codec of the model (see setBinaryCodecs())
+	 */
+	public void generateBinaryCodec(ModelType type, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("type", type);
+		context.put("javaPackage", javaPackage);
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/" + type.getName() + "BinaryCodec.java";
+		this.merge("/templates/template_java_binary_codec.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the provider of the binary media type (in the package of the controllers, it's registered
+	 * by RestApplication) and the writer and reader of the format used by the codecs (in the package of the models)
+	 */
+	public void generateBinaryProvider(ModelDefinitionsType definitions, String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("definitions", definitions);
+		context.put("javaPackage", javaPackage);
+		context.put("typesJavaPackage", definitions.getJavaPackage());
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/MukiBinaryProvider.java";
+		this.merge("/templates/template_java_BinaryProvider.vm", context, fileName);
+		context.put("javaPackage", definitions.getJavaPackage());
+		targetPath = this.createPackageDirectory(outputDirectory, definitions.getJavaPackage());
+		fileName = targetPath + "/MukiBinaryWriter.java";
+		this.merge("/templates/template_java_BinaryWriter.vm", context, fileName);
+		fileName = targetPath + "/MukiBinaryReader.java";
+		this.merge("/templates/template_java_BinaryReader.vm", context, fileName);
+	}
+
 	public void generateExceptionClass(String outputDirectory, String javaPackage) throws Exception {
-		VelocityContext context = new VelocityContext();
+		VelocityContext context = this.createContext();
 		context.put("javaPackage", javaPackage);
-		context.put("helper", new JavaVelocityHelper());
 		// Exception class
-		Template template = Velocity.getTemplate("/templates/template_java_MukiResourceNotFoundException.vm");
 		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
 		String fileName = targetPath + "/" + "MukiResourceNotFoundException.java";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_java_MukiResourceNotFoundException.vm", context, fileName);
 		// Mapper class
-		template = Velocity.getTemplate("/templates/template_java_MukiExceptionMapper.vm");
 		fileName = targetPath + "/" + "MukiExceptionMapper.java";
-		writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_java_MukiExceptionMapper.vm", context, fileName);
 	}
 			
-	private String createPackageDirectory(String outputDirectory, String javaPackage) {
+	/**
+	 * Generates the StreamingOutput of the GET operations with a streaming list
+	 */
+	public void generateStreamingOutput(String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("javaPackage", javaPackage);
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/" + "MukiStreamingOutput.java";
+		this.merge("/templates/template_java_StreamingOutput.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the class that resumes the responses of the asynchronous operations (it uses CompletionStage,
+	 * so it's only generated if there are asynchronous operations)
+	 */
+	public void generateAsyncResponse(String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("javaPackage", javaPackage);
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/" + "MukiAsyncResponse.java";
+		this.merge("/templates/template_java_AsyncResponse.vm", context, fileName);
+	}
+
+	/**
+	 * Generates the servlet that suspends the requests of the asynchronous operations without blocking the
+	 * thread of the container (it replaces HttpServletDispatcher in the web.xml)
+	 */
+	public void generateAsyncDispatcher(String outputDirectory, String javaPackage) throws Exception {
+		VelocityContext context = this.createContext();
+		context.put("javaPackage", javaPackage);
+		String targetPath = this.createPackageDirectory(outputDirectory, javaPackage);
+		String fileName = targetPath + "/" + "MukiAsyncDispatcher.java";
+		this.merge("/templates/template_java_AsyncDispatcher.vm", context, fileName);
+	}
+
+	private String createPackageDirectory(String outputDirectory, String javaPackage) throws Exception {
 		String targetPath = outputDirectory + "/" + javaPackage.replace('.', '/');
-		this.getIo().createDirectory(targetPath);
+		this.createDirectory(targetPath);
 		return targetPath;
 	}
 
-	private IOUtility getIo() {
-		return io;
+	/**
+	 * If it's true, the JSON codecs of the models and their provider are generated
+	 */
+	public boolean isJsonCodecs() {
+		return jsonCodecs;
 	}
 
-	private void setIo(IOUtility io) {
-		this.io = io;
+	public void setJsonCodecs(boolean jsonCodecs) {
+		this.jsonCodecs = jsonCodecs;
+	}
+
+	/**
+	 * If it's true, the XML codecs of the models and their provider are generated
+	 */
+	public boolean isXmlCodecs() {
+		return xmlCodecs;
+	}
+
+	public void setXmlCodecs(boolean xmlCodecs) {
+		this.xmlCodecs = xmlCodecs;
+	}
+
+	/**
+	 * If it's true, the binary codecs of the models and their provider are generated. generateAll(Project)
+	 * sets it when an operation uses the binary serialization. The project read from a file is not in memory,
+	 * so it must be set before (see ModelUtility.isBinarySerializationUsed()).
+	 */
+	public boolean isBinaryCodecs() {
+		return binaryCodecs;
+	}
+
+	public void setBinaryCodecs(boolean binaryCodecs) {
+		this.binaryCodecs = binaryCodecs;
+	}
+
+	/**
+	 * If it's true, the models implement Externalizable with writeExternal() and readExternal()
+	 */
+	public boolean isExternalizable() {
+		return externalizable;
+	}
+
+	public void setExternalizable(boolean externalizable) {
+		this.externalizable = externalizable;
 	}
 
-		
 }
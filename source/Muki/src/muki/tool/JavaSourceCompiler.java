@@ -0,0 +1,252 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles the generated Java sources in this process with the compiler of the JDK (javax.tools). The sources
+ * are read from memory (for example, the files of a MemoryOutputSink) and the class files are kept in memory,
+ * so no temporary source tree is needed. All the sources are compiled in a single task. Example:
+ * 
+ *   JavaSourceCompiler compiler = new JavaSourceCompiler();
+ *   Map<String, byte[]> classes = compiler.compile(sink.getFiles(), result);
+ *   compiler.writeJar(classes, "generated-classes.jar");
+ * 
+ * The errors and warnings of the compiler are added to the ExecutionResult.
+ */
+public class JavaSourceCompiler {
+
+	private String classpath;
+	private List<String> options;
+
+	public JavaSourceCompiler() {
+		this.setClasspath(System.getProperty("java.class.path"));
+		this.setOptions(new ArrayList<String>());
+		this.getOptions().add("-g");
+	}
+
+	/**
+	 * Compiles the .java files of the map (path relative to the root of the sources -> content). The other files
+	 * are copied as resources. Returns the class files and the resources indexed by their relative path, for
+	 * example "store/model/Cd.class". The result is not OK if there are compilation errors.
+	 */
+	public Map<String, byte[]> compile(Map<String, byte[]> sources, ExecutionResult result) throws Exception {
+		Map<String, byte[]> classes = new TreeMap<String, byte[]>();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			result.error("-> The Java compiler is not available. A JDK is needed to compile the generated classes.");
+			return classes;
+		}
+		List<JavaFileObject> units = new ArrayList<JavaFileObject>();
+		for (Map.Entry<String, byte[]> entry : sources.entrySet()) {
+			if (entry.getKey().endsWith(".java")) {
+				units.add(new SourceFile(entry.getKey(), new String(entry.getValue())));
+			} else {
+				classes.put(entry.getKey(), entry.getValue());
+			}
+		}
+		if (units.isEmpty()) {
+			return classes;
+		}
+		List<String> arguments = new ArrayList<String>(this.getOptions());
+		if (this.getClasspath() != null) {
+			arguments.add("-classpath");
+			arguments.add(this.getClasspath());
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, null);
+		MemoryFileManager fileManager = new MemoryFileManager(standardManager, classes);
+		try {
+			boolean ok = compiler.getTask(null, fileManager, diagnostics, arguments, null, units).call();
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				this.report(diagnostic, result);
+			}
+			if (!ok) {
+				// The errors were reported by the diagnostics, unless the compiler failed before
+				result.setOk(false);
+			}
+		} finally {
+			fileManager.close();
+		}
+		return classes;
+	}
+
+	private void report(Diagnostic<? extends JavaFileObject> diagnostic, ExecutionResult result) {
+		StringBuilder message = new StringBuilder("-> ");
+		if (diagnostic.getSource() != null) {
+			message.append(diagnostic.getSource().getName()).append(":").append(diagnostic.getLineNumber()).append(": ");
+		}
+		message.append(diagnostic.getMessage(Locale.ENGLISH));
+		if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+			result.error(message.toString());
+		} else if (diagnostic.getKind() == Diagnostic.Kind.WARNING || diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING) {
+			result.warning(message.toString());
+		} else {
+			result.trace(message.toString());
+		}
+	}
+
+	/**
+	 * Writes the classes returned by compile() under the directory
+	 */
+	public void writeClasses(Map<String, byte[]> classes, String directory) throws Exception {
+		IOUtility io = new IOUtility();
+		for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+			File file = new File(directory, entry.getKey());
+			io.createDirectory(file.getParent());
+			io.writeBinaryFile(file.getPath(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes the classes returned by compile() to a jar file, ready to deploy (WEB-INF/lib)
+	 */
+	public void writeJar(Map<String, byte[]> classes, String jarFile) throws Exception {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue("Created-By", "Muki " + Version.id());
+		JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jarFile), 64 * 1024), manifest);
+		try {
+			List<String> directories = new ArrayList<String>();
+			for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+				// The entries of the directories are added before their files
+				String path = entry.getKey();
+				for (int i = path.indexOf('/'); i > -1; i = path.indexOf('/', i + 1)) {
+					String directory = path.substring(0, i + 1);
+					if (!directories.contains(directory)) {
+						directories.add(directory);
+						out.putNextEntry(new JarEntry(directory));
+						out.closeEntry();
+					}
+				}
+				out.putNextEntry(new JarEntry(path));
+				out.write(entry.getValue());
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Classpath used to compile the sources. By default, the classpath of this process.
+	 */
+	public String getClasspath() {
+		return classpath;
+	}
+
+	public void setClasspath(String classpath) {
+		this.classpath = classpath;
+	}
+
+	/**
+	 * Options of the compiler (-g by default)
+	 */
+	public List<String> getOptions() {
+		return options;
+	}
+
+	public void setOptions(List<String> options) {
+		this.options = options;
+	}
+
+	/**
+	 * A source file in memory
+	 */
+	private static class SourceFile extends SimpleJavaFileObject {
+
+		private String source;
+
+		public SourceFile(String path, String source) {
+			super(URI.create("string:///" + path), Kind.SOURCE);
+			this.source = source;
+		}
+
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+	/**
+	 * A class file written by the compiler in memory
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private String path;
+		private Map<String, byte[]> classes;
+
+		public ClassFile(String path, Map<String, byte[]> classes) {
+			super(URI.create("bytes:///" + path), Kind.CLASS);
+			this.path = path;
+			this.classes = classes;
+		}
+
+		public OutputStream openOutputStream() {
+			return new ByteArrayOutputStream() {
+				public void close() throws IOException {
+					super.close();
+					synchronized (classes) {
+						classes.put(path, this.toByteArray());
+					}
+				}
+			};
+		}
+	}
+
+	/**
+	 * Reads the classpath with the standard file manager and keeps the compiled classes in memory
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private Map<String, byte[]> classes;
+
+		public MemoryFileManager(StandardJavaFileManager fileManager, Map<String, byte[]> classes) {
+			super(fileManager);
+			this.classes = classes;
+		}
+
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+			return new ClassFile(className.replace('.', '/') + kind.extension, classes);
+		}
+	}
+
+}
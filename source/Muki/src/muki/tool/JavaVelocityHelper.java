@@ -20,6 +20,9 @@ import muki.tool.model.DeleteOperationType;
 import muki.tool.model.FormParamType;
 import muki.tool.model.GetOperationType;
 import muki.tool.model.ListAttrType;
+import muki.tool.model.ModelDefinitionsType;
+import muki.tool.model.ModelType;
+import muki.tool.model.PaginationType;
 import muki.tool.model.PathParamType;
 import muki.tool.model.PostOperationType;
 import muki.tool.model.PutOperationType;
@@ -33,6 +36,15 @@ import muki.tool.model.SimpleAttrType;
  * the template itself.
  */
 public class JavaVelocityHelper extends VelocityHelper {
+
+	public static String BINARY_MEDIA_TYPE = "application/x-muki-binary";
+	public static long DEFAULT_ASYNC_TIMEOUT = 30000;
+	// Wire types of the fields of the binary codecs, in the lower 3 bits of the tags
+	private static int BINARY_VARINT = 0;
+	private static int BINARY_FIXED64 = 1;
+	private static int BINARY_BYTES = 2;
+	private static int BINARY_OBJECT = 3;
+	private static int BINARY_LIST = 4;
 	
 	/**
 	 * Returns the name of the variable capitalized, to generate the getter and setter.
@@ -166,6 +178,431 @@ public class JavaVelocityHelper extends VelocityHelper {
 		return result.toString();
 	}
 
+	/**
+	 * Returns the name of the constant with the pre-encoded name of the attribute in the JSON codec.
+	 * Example: FIELD_title
+	 */
+	public String getJsonFieldConstant(SimpleAttrType attribute) {
+		return "FIELD_" + attribute.getName();
+	}
+
+	public String getJsonFieldConstant(ListAttrType attribute) {
+		return "FIELD_" + attribute.getName();
+	}
+
+	/**
+	 * Returns the statements of the JSON codec that write the attribute. Example:
+	 *   generator.writeFieldName(FIELD_title);
+	 *   generator.writeString(value.getTitle());
+	 */
+	public String getJsonWriteStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		String getter = this.getGetterName(attribute) + "()";
+		result.append("generator.writeFieldName(").append(this.getJsonFieldConstant(attribute)).append(");\n        ");
+		if(this.isStringType(typeName)) {
+			result.append("generator.writeString(value.").append(getter).append(");");
+		} else if(this.isBooleanType(typeName)) {
+			result.append("generator.writeBoolean(value.").append(getter).append(");");
+		} else if(this.isPrimitiveType(typeName)) {
+			result.append("generator.writeNumber(value.").append(getter).append(");");
+		} else {
+			result.append(typeName).append("JsonCodec.write(value.").append(getter).append(", generator);");
+		}
+		return result.toString();
+	}
+
+	public String getJsonWriteStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String getter = "get" + this.toCapitalizedCase(attribute.getName()) + "()";
+		result.append("generator.writeFieldName(").append(this.getJsonFieldConstant(attribute)).append(");\n");
+		result.append("        if (value.").append(getter).append(" == null) {\n");
+		result.append("            generator.writeNull();\n");
+		result.append("        } else {\n");
+		result.append("            generator.writeStartArray();\n");
+		result.append("            for (").append(typeName).append(" item : value.").append(getter).append(") {\n");
+		result.append("                ").append(typeName).append("JsonCodec.write(item, generator);\n");
+		result.append("            }\n");
+		result.append("            generator.writeEndArray();\n");
+		result.append("        }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the statements of the JSON codec that read the attribute when the current field
+	 * of the parser has its name. Example:
+	 *   if ("title".equals(name)) {
+	 *       value.setTitle(token == JsonToken.VALUE_NULL ? null : parser.getText());
+	 *       continue;
+	 *   }
+	 */
+	public String getJsonReadStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		String setter = "value.set" + this.toCapitalizedCase(attribute.getName());
+		result.append("if (\"").append(attribute.getName()).append("\".equals(name)) {\n");
+		if(this.isStringType(typeName)) {
+			result.append("                ").append(setter).append("(token == JsonToken.VALUE_NULL ? null : parser.getText());\n");
+		} else if(this.isPrimitiveType(typeName)) {
+			String method = "getBooleanValue";
+			if(this.isIntegerType(typeName)) {
+				method = "getIntValue";
+			} else if(this.isLongType(typeName)) {
+				method = "getLongValue";
+			} else if(this.isDoubleType(typeName)) {
+				method = "getDoubleValue";
+			}
+			result.append("                if (token != JsonToken.VALUE_NULL) {\n");
+			result.append("                    ").append(setter).append("(parser.").append(method).append("());\n");
+			result.append("                }\n");
+		} else {
+			result.append("                ").append(setter).append("(").append(typeName).append("JsonCodec.read(parser));\n");
+		}
+		result.append("                continue;\n");
+		result.append("            }");
+		return result.toString();
+	}
+
+	public String getJsonReadStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String setter = "value.set" + this.toCapitalizedCase(attribute.getName());
+		result.append("if (\"").append(attribute.getName()).append("\".equals(name)) {\n");
+		result.append("                if (token == JsonToken.VALUE_NULL) {\n");
+		result.append("                    ").append(setter).append("(null);\n");
+		result.append("                } else if (token == JsonToken.START_ARRAY) {\n");
+		result.append("                    List<").append(typeName).append("> list = new ArrayList<").append(typeName).append(">();\n");
+		result.append("                    while (parser.nextToken() != JsonToken.END_ARRAY) {\n");
+		result.append("                        list.add(").append(typeName).append("JsonCodec.read(parser));\n");
+		result.append("                    }\n");
+		result.append("                    ").append(setter).append("(list);\n");
+		result.append("                } else {\n");
+		result.append("                    throw new JsonParseException(\"Expected an array in ").append(attribute.getName()).append("\", parser.getCurrentLocation());\n");
+		result.append("                }\n");
+		result.append("                continue;\n");
+		result.append("            }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns true if the attribute is serialized as an XML attribute (the numbers and booleans, see
+	 * getGetterMethodDeclaration()), or false if it's an element
+	 */
+	public boolean isXmlAttribute(SimpleAttrType attribute) {
+		String typeName = attribute.getType();
+		return this.isBooleanType(typeName) || this.isDoubleType(typeName) || this.isIntegerType(typeName) || this.isLongType(typeName);
+	}
+
+	/**
+	 * Returns the condition of the XML codec that is true if the model has child elements to write.
+	 * Without them, the model is written as an empty element like JAXB does.
+	 * Example: value.getTitle() != null || value.getTracks() != null
+	 */
+	public String getXmlElementsCondition(ModelType type) {
+		StringBuffer result = new StringBuffer();
+		for (SimpleAttrType attribute : type.getSimpleAttr()) {
+			if(!this.isXmlAttribute(attribute)) {
+				if(result.length() > 0) {
+					result.append(" || ");
+				}
+				result.append("value.").append(this.getGetterName(attribute)).append("() != null");
+			}
+		}
+		for (ListAttrType attribute : type.getListAttr()) {
+			if(result.length() > 0) {
+				result.append(" || ");
+			}
+			result.append("value.get").append(this.toCapitalizedCase(attribute.getName())).append("() != null");
+		}
+		return result.length() == 0 ? "false" : result.toString();
+	}
+
+	/**
+	 * Returns the statements of the XML codec that write the attribute with the same names of the
+	 * JAXB annotations. Example:
+	 *   if (value.getTitle() != null) {
+	 *       writer.writeStartElement("title");
+	 *       MukiXmlSupport.writeText(writer, value.getTitle());
+	 *       writer.writeEndElement();
+	 *   }
+	 */
+	public String getXmlWriteStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		String getter = "value." + this.getGetterName(attribute) + "()";
+		if(this.isXmlAttribute(attribute)) {
+			String text = this.isDoubleType(typeName) ? "MukiXmlSupport.printDouble(" + getter + ")" : "String.valueOf(" + getter + ")";
+			result.append("writer.writeAttribute(\"").append(attribute.getName()).append("\", ").append(text).append(");");
+		} else if(this.isStringType(typeName)) {
+			result.append("if (").append(getter).append(" != null) {\n");
+			result.append("            writer.writeStartElement(\"").append(attribute.getName()).append("\");\n");
+			result.append("            MukiXmlSupport.writeText(writer, ").append(getter).append(");\n");
+			result.append("            writer.writeEndElement();\n");
+			result.append("        }");
+		} else {
+			result.append(typeName).append("XmlCodec.writeElement(").append(getter).append(", \"").append(attribute.getName()).append("\", writer);");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the statements of the XML codec that write a list attribute: a wrapper element with
+	 * the name of the attribute (empty if the list is empty), and an element for every item named
+	 * after its type in lower case
+	 */
+	public String getXmlWriteStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String getter = "value.get" + this.toCapitalizedCase(attribute.getName()) + "()";
+		result.append("if (").append(getter).append(" != null && ").append(getter).append(".isEmpty()) {\n");
+		result.append("            writer.writeEmptyElement(\"").append(attribute.getName()).append("\");\n");
+		result.append("        } else if (").append(getter).append(" != null) {\n");
+		result.append("            writer.writeStartElement(\"").append(attribute.getName()).append("\");\n");
+		result.append("            for (").append(typeName).append(" item : ").append(getter).append(") {\n");
+		result.append("                ").append(typeName).append("XmlCodec.writeElement(item, \"").append(typeName.toLowerCase()).append("\", writer);\n");
+		result.append("            }\n");
+		result.append("            writer.writeEndElement();\n");
+		result.append("        }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the statements of the XML codec that read the attribute when the current XML attribute
+	 * or element has its name. Example:
+	 *   if ("price".equals(name)) {
+	 *       value.setPrice(MukiXmlSupport.parseDouble(reader.getAttributeValue(i)));
+	 *       continue;
+	 *   }
+	 */
+	public String getXmlReadStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		String setter = "value.set" + this.toCapitalizedCase(attribute.getName());
+		String indent = this.isXmlAttribute(attribute) ? "                " : "            ";
+		result.append("if (\"").append(attribute.getName()).append("\".equals(name)) {\n");
+		if(this.isXmlAttribute(attribute)) {
+			String method = "parseBoolean";
+			if(this.isIntegerType(typeName)) {
+				method = "parseInt";
+			} else if(this.isLongType(typeName)) {
+				method = "parseLong";
+			} else if(this.isDoubleType(typeName)) {
+				method = "parseDouble";
+			}
+			result.append(indent).append("    ").append(setter).append("(MukiXmlSupport.").append(method).append("(reader.getAttributeValue(i)));\n");
+		} else if(this.isStringType(typeName)) {
+			result.append(indent).append("    ").append(setter).append("(reader.getElementText());\n");
+		} else {
+			result.append(indent).append("    ").append(setter).append("(").append(typeName).append("XmlCodec.readElement(reader));\n");
+		}
+		result.append(indent).append("    continue;\n");
+		result.append(indent).append("}");
+		return result.toString();
+	}
+
+	public String getXmlReadStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String setter = "value.set" + this.toCapitalizedCase(attribute.getName());
+		result.append("if (\"").append(attribute.getName()).append("\".equals(name)) {\n");
+		result.append("                List<").append(typeName).append("> list = new ArrayList<").append(typeName).append(">();\n");
+		result.append("                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {\n");
+		result.append("                    if (\"").append(typeName.toLowerCase()).append("\".equals(reader.getLocalName())) {\n");
+		result.append("                        list.add(").append(typeName).append("XmlCodec.readElement(reader));\n");
+		result.append("                    } else {\n");
+		result.append("                        MukiXmlSupport.skipElement(reader);\n");
+		result.append("                    }\n");
+		result.append("                }\n");
+		result.append("                ").append(setter).append("(list);\n");
+		result.append("                continue;\n");
+		result.append("            }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the tag of the attribute in the binary codec: the tag declared in the model and the wire type
+	 * in the lower 3 bits. The tags don't depend on the position of the attributes, so they can be reordered
+	 * or removed, and a reader skips the tags it doesn't know (see ModelUtility.validateTag()).
+	 * Example: a string attribute with tag="1" -> 1 << 3 | BYTES = 10
+	 */
+	public int getBinaryTag(ModelType type, SimpleAttrType attribute) {
+		String typeName = attribute.getType();
+		int wireType = BINARY_OBJECT;
+		if(this.isDoubleType(typeName)) {
+			wireType = BINARY_FIXED64;
+		} else if(this.isStringType(typeName)) {
+			wireType = BINARY_BYTES;
+		} else if(this.isPrimitiveType(typeName)) {
+			wireType = BINARY_VARINT;
+		}
+		return this.getBinaryTagNumber(type, attribute.getName(), attribute.getTag()) << 3 | wireType;
+	}
+
+	/**
+	 * The list attributes share the tags of the model with the simple attributes, they have their own wire type
+	 */
+	public int getBinaryTag(ModelType type, ListAttrType attribute) {
+		return this.getBinaryTagNumber(type, attribute.getName(), attribute.getTag()) << 3 | BINARY_LIST;
+	}
+
+	private int getBinaryTagNumber(ModelType type, String attributeName, Integer tag) {
+		if (tag == null) {
+			throw new IllegalArgumentException("The attribute " + attributeName + " of " + type.getName() + " has no tag for the binary serialization");
+		}
+		return tag.intValue();
+	}
+
+	public String getBinaryTagConstant(SimpleAttrType attribute) {
+		return "TAG_" + attribute.getName();
+	}
+
+	public String getBinaryTagConstant(ListAttrType attribute) {
+		return "TAG_" + attribute.getName();
+	}
+
+	/**
+	 * Returns the statements of the binary codec that write the attribute. Example:
+	 *   writer.writeString(TAG_title, value.getTitle());
+	 */
+	public String getBinaryWriteStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		String getter = "value." + this.getGetterName(attribute) + "()";
+		String tag = this.getBinaryTagConstant(attribute);
+		if(this.isPrimitiveType(typeName)) {
+			result.append("writer.write").append(this.toCapitalizedCase(this.getJavaPrimitiveType(typeName))).append("(").append(tag).append(", ").append(getter).append(");");
+		} else {
+			result.append("if (").append(getter).append(" != null) {\n");
+			result.append("            writer.writeTag(").append(tag).append(");\n");
+			result.append("            ").append(typeName).append("BinaryCodec.write(").append(getter).append(", writer);\n");
+			result.append("        }");
+		}
+		return result.toString();
+	}
+
+	public String getBinaryWriteStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String getter = "value.get" + this.toCapitalizedCase(attribute.getName()) + "()";
+		result.append("if (").append(getter).append(" != null) {\n");
+		result.append("            writer.writeListTag(").append(this.getBinaryTagConstant(attribute)).append(", ").append(getter).append(".size());\n");
+		result.append("            for (").append(typeName).append(" item : ").append(getter).append(") {\n");
+		result.append("                ").append(typeName).append("BinaryCodec.write(item, writer);\n");
+		result.append("            }\n");
+		result.append("        }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the case of the binary codec that reads the attribute. Example:
+	 *   case TAG_title:
+	 *       value.setTitle(reader.readString());
+	 *       break;
+	 */
+	public String getBinaryReadStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		String setter = "value.set" + this.toCapitalizedCase(attribute.getName());
+		result.append("case ").append(this.getBinaryTagConstant(attribute)).append(":\n");
+		if(this.isPrimitiveType(typeName)) {
+			result.append("                ").append(setter).append("(reader.read").append(this.toCapitalizedCase(this.getJavaPrimitiveType(typeName))).append("());\n");
+		} else {
+			result.append("                ").append(setter).append("(").append(typeName).append("BinaryCodec.read(reader));\n");
+		}
+		result.append("                break;");
+		return result.toString();
+	}
+
+	public String getBinaryReadStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String setter = "value.set" + this.toCapitalizedCase(attribute.getName());
+		result.append("case ").append(this.getBinaryTagConstant(attribute)).append(": {\n");
+		result.append("                int size = reader.readListSize();\n");
+		result.append("                List<").append(typeName).append("> list = new ArrayList<").append(typeName).append(">(size);\n");
+		result.append("                for (int i = 0; i < size; i++) {\n");
+		result.append("                    list.add(").append(typeName).append("BinaryCodec.read(reader));\n");
+		result.append("                }\n");
+		result.append("                ").append(setter).append("(list);\n");
+		result.append("                break;\n");
+		result.append("            }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the statement of writeExternal() that writes the attribute. The primitives are written directly,
+	 * the strings and the models with writeObject() (they can be null). Example:
+	 *   out.writeInt(this.durationInSeconds);
+	 */
+	public String getExternalWriteStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		if(this.isPrimitiveType(typeName) && !this.isStringType(typeName)) {
+			result.append("out.write").append(this.toCapitalizedCase(this.getJavaPrimitiveType(typeName)));
+		} else {
+			result.append("out.writeObject");
+		}
+		result.append("(this.").append(attribute.getName()).append(");");
+		return result.toString();
+	}
+
+	public String getExternalWriteStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String field = "this." + attribute.getName();
+		result.append("if (").append(field).append(" == null) {\n");
+		result.append("            out.writeInt(-1);\n");
+		result.append("        } else {\n");
+		result.append("            out.writeInt(").append(field).append(".size());\n");
+		result.append("            for (").append(attribute.getItemsType()).append(" item : ").append(field).append(") {\n");
+		result.append("                out.writeObject(item);\n");
+		result.append("            }\n");
+		result.append("        }");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the statement of readExternal() that reads the attribute. Example:
+	 *   this.title = (String)in.readObject();
+	 */
+	public String getExternalReadStatements(SimpleAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getType();
+		result.append("this.").append(attribute.getName()).append(" = ");
+		if(this.isStringType(typeName)) {
+			result.append("(").append(this.getJavaPrimitiveType(typeName)).append(")in.readObject();");
+		} else if(this.isPrimitiveType(typeName)) {
+			result.append("in.read").append(this.toCapitalizedCase(this.getJavaPrimitiveType(typeName))).append("();");
+		} else {
+			result.append("(").append(typeName).append(")in.readObject();");
+		}
+		return result.toString();
+	}
+
+	public String getExternalReadStatements(ListAttrType attribute) {
+		StringBuffer result = new StringBuffer();
+		String typeName = attribute.getItemsType();
+		String field = "this." + attribute.getName();
+		String size = attribute.getName() + "Size";
+		result.append("int ").append(size).append(" = in.readInt();\n");
+		result.append("        if (").append(size).append(" < 0) {\n");
+		result.append("            ").append(field).append(" = null;\n");
+		result.append("        } else {\n");
+		result.append("            ").append(field).append(" = new ArrayList<").append(typeName).append(">(").append(size).append(");\n");
+		result.append("            for (int i = 0; i < ").append(size).append("; i++) {\n");
+		result.append("                ").append(field).append(".add((").append(typeName).append(")in.readObject());\n");
+		result.append("            }\n");
+		result.append("        }");
+		return result.toString();
+	}
+
+	private String getGetterName(SimpleAttrType attribute) {
+		if(this.isBooleanType(attribute.getType())) {
+			return "is" + this.toCapitalizedCase(attribute.getName());
+		}
+		return "get" + this.toCapitalizedCase(attribute.getName());
+	}
+
 	public String getDelegateInterfaceName(ControllerType service) {
 		return service.getName() + "Delegate";
 	}
@@ -198,13 +635,18 @@ public class JavaVelocityHelper extends VelocityHelper {
 			if(this.isJsonSerialization(operation.getSerializationType())) {
 				xmlAnnotations.append("@Produces(\"application/json\")\n    ");
 			}
+			if(this.isBinarySerialization(operation.getSerializationType())) {
+				xmlAnnotations.append("@Produces(\"").append(BINARY_MEDIA_TYPE).append("\")\n    ");
+			}
 		}
 		StringBuffer result = new StringBuffer();
 		result.append(xmlAnnotations);
 		if(this.isStringType(operation.getReturnType())) {
 			result.append("public String ");
+		} else if(this.isStreaming(operation)) {
+			result.append("public StreamingOutput ");
 		} else {
-			result.append("public ").append(operation.getReturnType()).append(" ");
+			result.append("public ").append(this.getResultType(operation)).append(" ");
 		}
 		// Operation name
 		result.append(operation.getName()).append("(");
@@ -224,6 +666,14 @@ public class JavaVelocityHelper extends VelocityHelper {
 			result.append("@QueryParam(\"").append(param.getName()).append("\") String ").append(param.getName());
 			isFirst = false;
 		}
+		if(this.isPaginated(operation)) {
+			if(!isFirst) {
+				result.append(", ");
+			}
+			result.append("@QueryParam(\"").append(ModelUtility.LIMIT_PARAM).append("\") Integer ").append(ModelUtility.LIMIT_PARAM).append(", ");
+			result.append("@QueryParam(\"").append(ModelUtility.CURSOR_PARAM).append("\") String ").append(ModelUtility.CURSOR_PARAM);
+			isFirst = false;
+		}
 		for (ContextParamType param : operation.getContextParam()) {
 			if(!isFirst) {
 				result.append(", ");
@@ -270,9 +720,44 @@ public class JavaVelocityHelper extends VelocityHelper {
 	}
 	
 	/**
-	 * Returns the body of the service implementation for a GET operation
+	 * Returns the body of the service implementation for a GET operation. If the operation is paginated,
+	 * the size of the page requested is limited to the max page size. Example:
+	 *   int pageSize = limit == null ? 20 : Math.max(1, Math.min(limit, 100));
+	 *   TrackPage result = this.getDelegate().getTracks(id, pageSize, cursor);
 	 */
 	public String getMethodBodyFor(GetOperationType operation) {
+		StringBuffer body = new StringBuffer();
+		body.append(this.getPageSizeStatement(operation));
+		if(this.isStringType(operation.getReturnType())) {
+			body.append("String");
+		} else {
+			body.append(this.getResultType(operation));
+		}
+		body.append(" result = ").append(this.getDelegateInvocation(operation)).append(";");
+		return body.toString(); 
+	}
+
+	/**
+	 * Returns the statement that limits the size of the page requested, if the operation is paginated
+	 */
+	private String getPageSizeStatement(GetOperationType operation) {
+		if(!this.isPaginated(operation)) {
+			return "";
+		}
+		StringBuffer statement = new StringBuffer();
+		PaginationType pagination = operation.getPagination();
+		int maxPageSize = pagination.getMaxPageSize();
+		int defaultPageSize = pagination.getDefaultPageSize() == null ? maxPageSize : pagination.getDefaultPageSize();
+		statement.append("int pageSize = ").append(ModelUtility.LIMIT_PARAM).append(" == null ? ").append(defaultPageSize);
+		statement.append(" : Math.max(1, Math.min(").append(ModelUtility.LIMIT_PARAM).append(", ").append(maxPageSize).append("));\n        ");
+		return statement.toString();
+	}
+
+	/**
+	 * Returns the invocation of the delegate for a GET operation. Example:
+	 *   this.getDelegate().getCd(id)
+	 */
+	private String getDelegateInvocation(GetOperationType operation) {
 		// Generate list of parameters to invoke delegate
 		StringBuffer params = new StringBuffer();
 		boolean isFirst = true;
@@ -290,6 +775,13 @@ public class JavaVelocityHelper extends VelocityHelper {
 			params.append(param.getName());
 			isFirst = false;
 		}
+		if(this.isPaginated(operation)) {
+			if(!isFirst) {
+				params.append(", ");
+			}
+			params.append("pageSize, ").append(ModelUtility.CURSOR_PARAM);
+			isFirst = false;
+		}
 		for (ContextParamType param : operation.getContextParam()) {
 			if(!isFirst) {
 				params.append(", ");
@@ -297,22 +789,47 @@ public class JavaVelocityHelper extends VelocityHelper {
 			params.append(param.getName());
 			isFirst = false;
 		}
-		StringBuffer body = new StringBuffer();
-		if(this.isStringType(operation.getReturnType())) {
-			body.append("String");
+		StringBuffer invocation = new StringBuffer();
+		invocation.append("this.getDelegate().").append(operation.getName()).append("(");
+		invocation.append(params);
+		invocation.append(")");
+		return invocation.toString();
+	}
+
+	/**
+	 * Returns the body of the service implementation for a GET operation. If the operation has a streaming
+	 * list, the items returned by the delegate are written by a MukiStreamingOutput. Example:
+	 *   StreamingOutput result = MukiStreamingOutput.json(this.getDelegate().getTracks(id), "tracks");
+	 */
+	public String getMethodBodyFor(GetOperationType operation, ModelDefinitionsType definitions) {
+		if(!this.isStreaming(operation)) {
+			return this.getMethodBodyFor(operation);
+		}
+		String itemsType = this.getStreamingItemsType(operation, definitions);
+		String invocation = this.getDelegateInvocation(operation);
+		StringBuffer result = new StringBuffer();
+		result.append("StreamingOutput result = MukiStreamingOutput.");
+		if(this.isXmlSerialization(operation.getSerializationType())) {
+			result.append("xml(").append(invocation).append(", \"").append(this.toLowerCase(operation.getReturnType())).append("\", \"");
+			result.append(operation.getStreamingList()).append("\", \"").append(this.toLowerCase(itemsType)).append("\", ");
+			result.append(itemsType).append(".class);");
 		} else {
-			body.append(operation.getReturnType());
+			result.append("json(").append(invocation).append(", \"").append(operation.getStreamingList()).append("\");");
 		}
-		body.append(" result = this.getDelegate().").append(operation.getName()).append("(");
-		body.append(params);
-		body.append(");");
-		return body.toString(); 
+		return result.toString();
 	}
 
 	/**
 	 * Returns the body of the service implementation for a DELETE operation
 	 */
 	public String getMethodBodyFor(DeleteOperationType operation) {
+		return this.getDelegateInvocation(operation) + ";";
+	}
+
+	/**
+	 * Returns the invocation of the delegate for a DELETE operation
+	 */
+	private String getDelegateInvocation(DeleteOperationType operation) {
 		// Generate list of parameters to invoke delegate
 		StringBuffer params = new StringBuffer();
 		boolean isFirst = true;
@@ -337,20 +854,35 @@ public class JavaVelocityHelper extends VelocityHelper {
 			params.append(param.getName());
 			isFirst = false;
 		}
-		StringBuffer body = new StringBuffer();
-		body.append("this.getDelegate().").append(operation.getName()).append("(");
-		body.append(params);
-		body.append(");");
-		return body.toString(); 
+		StringBuffer invocation = new StringBuffer();
+		invocation.append("this.getDelegate().").append(operation.getName()).append("(");
+		invocation.append(params);
+		invocation.append(")");
+		return invocation.toString();
 	}
 
 	public String getDelegateMethodDeclarationFor(GetOperationType operation) {
-		StringBuffer result = new StringBuffer();
 		if(this.isStringType(operation.getReturnType())) {
-			result.append("public String ");
-		} else {
-			result.append("public ").append(operation.getReturnType()).append(" ");
+			return this.getDelegateMethodDeclarationFor(operation, "String");
 		}
+		return this.getDelegateMethodDeclarationFor(operation, this.getResultType(operation));
+	}
+
+	/**
+	 * Returns the declaration of the delegate for a GET operation. If the operation has a streaming list,
+	 * the delegate returns an iterator of its items. Example:
+	 *   public Iterator<Track> getTracks(String id)
+	 */
+	public String getDelegateMethodDeclarationFor(GetOperationType operation, ModelDefinitionsType definitions) {
+		if(!this.isStreaming(operation)) {
+			return this.getDelegateMethodDeclarationFor(operation);
+		}
+		return this.getDelegateMethodDeclarationFor(operation, "Iterator<" + this.getStreamingItemsType(operation, definitions) + ">");
+	}
+
+	private String getDelegateMethodDeclarationFor(GetOperationType operation, String returnType) {
+		StringBuffer result = new StringBuffer();
+		result.append("public ").append(returnType).append(" ");
 		// Operation name
 		result.append(operation.getName());
 		// Parameters
@@ -372,6 +904,13 @@ public class JavaVelocityHelper extends VelocityHelper {
 			params.append(param.getName());
 			isFirst = false;
 		}
+		if(this.isPaginated(operation)) {
+			if(!isFirst) {
+				params.append(", ");
+			}
+			params.append("int ").append(ModelUtility.LIMIT_PARAM).append(", String ").append(ModelUtility.CURSOR_PARAM);
+			isFirst = false;
+		}
 		for (ContextParamType param : operation.getContextParam()) {
 			if(!isFirst) {
 				params.append(", ");
@@ -432,6 +971,9 @@ public class JavaVelocityHelper extends VelocityHelper {
 			if(this.isJsonSerialization(operation.getSerializationType())) {
 				xmlAnnotations.append("@Consumes(\"application/json\")\n    ");
 			}
+			if(this.isBinarySerialization(operation.getSerializationType())) {
+				xmlAnnotations.append("@Consumes(\"").append(BINARY_MEDIA_TYPE).append("\")\n    ");
+			}
 		}
 		if(this.isComplexType(operation.getReturnType())) {
 			if(this.isXmlSerialization(operation.getSerializationType())) {
@@ -440,6 +982,9 @@ public class JavaVelocityHelper extends VelocityHelper {
 			if(this.isJsonSerialization(operation.getSerializationType())) {
 				xmlAnnotations.append("@Produces(\"application/json\")\n    ");
 			}
+			if(this.isBinarySerialization(operation.getSerializationType())) {
+				xmlAnnotations.append("@Produces(\"").append(BINARY_MEDIA_TYPE).append("\")\n    ");
+			}
 		}
 		StringBuffer result = new StringBuffer();
 		result.append(xmlAnnotations);
@@ -514,6 +1059,9 @@ public class JavaVelocityHelper extends VelocityHelper {
 			if(this.isJsonSerialization(operation.getSerializationType())) {
 				xmlAnnotations.append("@Consumes(\"application/json\")\n    ");
 			}
+			if(this.isBinarySerialization(operation.getSerializationType())) {
+				xmlAnnotations.append("@Consumes(\"").append(BINARY_MEDIA_TYPE).append("\")\n    ");
+			}
 		}
 		if(this.isComplexType(operation.getReturnType())) {
 			if(this.isXmlSerialization(operation.getSerializationType())) {
@@ -522,6 +1070,9 @@ public class JavaVelocityHelper extends VelocityHelper {
 			if(this.isJsonSerialization(operation.getSerializationType())) {
 				xmlAnnotations.append("@Produces(\"application/json\")\n    ");
 			}
+			if(this.isBinarySerialization(operation.getSerializationType())) {
+				xmlAnnotations.append("@Produces(\"").append(BINARY_MEDIA_TYPE).append("\")\n    ");
+			}
 		}
 		StringBuffer result = new StringBuffer();
 		result.append(xmlAnnotations);
@@ -587,8 +1138,20 @@ public class JavaVelocityHelper extends VelocityHelper {
 	 * Returns the body of the service implementation for a POST operation
 	 */
 	public String getMethodBodyFor(PostOperationType operation) {
-		// Deserialize of parameter
-		StringBuffer deserialization = new StringBuffer();
+		StringBuffer body = new StringBuffer();
+		// If the operation doesn't return a value:
+		if(this.isUndefinedType(operation.getReturnType())) {
+			body.append(this.getDelegateInvocation(operation)).append(";\r");
+		} else {
+			body.append("return ").append(this.getDelegateInvocation(operation)).append(";\r");
+		}
+		return body.toString();
+	}
+
+	/**
+	 * Returns the invocation of the delegate for a POST operation
+	 */
+	private String getDelegateInvocation(PostOperationType operation) {
 		StringBuffer params = new StringBuffer();
 		boolean isFirst = true;
 		for (PathParamType param : operation.getPathParam()) {
@@ -626,23 +1189,29 @@ public class JavaVelocityHelper extends VelocityHelper {
 			params.append(param.getName());
 			isFirst = false;
 		}
+		StringBuffer invocation = new StringBuffer();
+		invocation.append("this.getDelegate().").append(operation.getName()).append("(").append(params).append(")");
+		return invocation.toString();
+	}
+
+	/**
+	 * Returns the body of the service implementation for a PUT operation
+	 */
+	public String getMethodBodyFor(PutOperationType operation) {
 		StringBuffer body = new StringBuffer();
-		body.append(deserialization);
 		// If the operation doesn't return a value:
 		if(this.isUndefinedType(operation.getReturnType())) {
-			body.append("this.getDelegate().").append(operation.getName()).append("(").append(params).append(");\r");
+			body.append(this.getDelegateInvocation(operation)).append(";\r");
 		} else {
-			body.append("return this.getDelegate().").append(operation.getName()).append("(").append(params).append(");\r");
+			body.append("return ").append(this.getDelegateInvocation(operation)).append(";\r");
 		}
 		return body.toString();
 	}
 
 	/**
-	 * Returns the body of the service implementation for a PUT operation
+	 * Returns the invocation of the delegate for a PUT operation
 	 */
-	public String getMethodBodyFor(PutOperationType operation) {
-		// Deserialize of parameter
-		StringBuffer deserialization = new StringBuffer();
+	private String getDelegateInvocation(PutOperationType operation) {
 		StringBuffer params = new StringBuffer();
 		boolean isFirst = true;
 		for (PathParamType param : operation.getPathParam()) {
@@ -680,15 +1249,9 @@ public class JavaVelocityHelper extends VelocityHelper {
 			params.append(param.getName());
 			isFirst = false;
 		}
-		StringBuffer body = new StringBuffer();
-		body.append(deserialization);
-		// If the operation doesn't return a value:
-		if(this.isUndefinedType(operation.getReturnType())) {
-			body.append("this.getDelegate().").append(operation.getName()).append("(").append(params).append(");\r");
-		} else {
-			body.append("return this.getDelegate().").append(operation.getName()).append("(").append(params).append(");\r");
-		}
-		return body.toString();
+		StringBuffer invocation = new StringBuffer();
+		invocation.append("this.getDelegate().").append(operation.getName()).append("(").append(params).append(")");
+		return invocation.toString();
 	}
 
 	public String getDelegateMethodDeclarationFor(PostOperationType operation) {
@@ -819,6 +1382,146 @@ public class JavaVelocityHelper extends VelocityHelper {
 		return result.toString();
 	}
 	
+	/**
+	 * Returns true if an operation of the controller is asynchronous (the controller and the delegate
+	 * import the classes of the asynchronous operations)
+	 */
+	public boolean isAsync(ControllerType controller) {
+		return this.getUtility().hasAsyncOperations(controller);
+	}
+
+	public boolean isAsync(ControllerType controller, GetOperationType operation) {
+		return this.getUtility().isAsync(controller, operation.isAsync());
+	}
+
+	public boolean isAsync(ControllerType controller, PostOperationType operation) {
+		return this.getUtility().isAsync(controller, operation.isAsync());
+	}
+
+	public boolean isAsync(ControllerType controller, PutOperationType operation) {
+		return this.getUtility().isAsync(controller, operation.isAsync());
+	}
+
+	public boolean isAsync(ControllerType controller, DeleteOperationType operation) {
+		return this.getUtility().isAsync(controller, operation.isAsync());
+	}
+
+	public String getAsyncMethodDeclarationFor(ControllerType controller, GetOperationType operation) {
+		return this.getAsyncMethodDeclaration(controller, this.getMethodDeclarationFor(operation), operation.getName());
+	}
+
+	public String getAsyncMethodDeclarationFor(ControllerType controller, PostOperationType operation) {
+		return this.getAsyncMethodDeclaration(controller, this.getMethodDeclarationFor(operation), operation.getName());
+	}
+
+	public String getAsyncMethodDeclarationFor(ControllerType controller, PutOperationType operation) {
+		return this.getAsyncMethodDeclaration(controller, this.getMethodDeclarationFor(operation), operation.getName());
+	}
+
+	public String getAsyncMethodDeclarationFor(ControllerType controller, DeleteOperationType operation) {
+		return this.getAsyncMethodDeclaration(controller, this.getMethodDeclarationFor(operation), operation.getName());
+	}
+
+	/**
+	 * Returns the declaration of an asynchronous operation from the synchronous one: the method doesn't
+	 * return a value, it receives the response suspended until the timeout of the controller (the servlet
+	 * MukiAsyncDispatcher releases the thread of the container while the request is suspended). Example:
+	 *   public void getCd(@PathParam("id") String id, @Suspend(30000) AsynchronousResponse response)
+	 */
+	private String getAsyncMethodDeclaration(ControllerType controller, String declaration, String name) {
+		int start = declaration.indexOf("public ");
+		int paramsStart = declaration.indexOf(" " + name + "(", start) + name.length() + 2;
+		String params = declaration.substring(paramsStart, declaration.length() - 1);
+		long timeout = controller.getAsyncTimeout() == null ? DEFAULT_ASYNC_TIMEOUT : controller.getAsyncTimeout();
+		StringBuffer result = new StringBuffer();
+		result.append(declaration.substring(0, start));
+		result.append("public void ").append(name).append("(").append(params);
+		if(params.length() > 0) {
+			result.append(", ");
+		}
+		result.append("@Suspend(").append(timeout).append(") AsynchronousResponse response)");
+		return result.toString();
+	}
+
+	/**
+	 * Returns the body of an asynchronous GET operation, that resumes the response when the result
+	 * of the delegate is completed. Example:
+	 *   MukiAsyncResponse.resumeResource(this.getDelegate().getCd(id), response, "application/json");
+	 */
+	public String getAsyncMethodBodyFor(GetOperationType operation) {
+		StringBuffer body = new StringBuffer();
+		body.append(this.getPageSizeStatement(operation));
+		body.append("MukiAsyncResponse.resumeResource(").append(this.getDelegateInvocation(operation)).append(", response, ");
+		body.append(this.getMediaTypeArgument(operation.getReturnType(), operation.getSerializationType())).append(");");
+		return body.toString();
+	}
+
+	public String getAsyncMethodBodyFor(PostOperationType operation) {
+		return this.getAsyncMethodBody(this.getDelegateInvocation(operation), operation.getReturnType(), operation.getSerializationType());
+	}
+
+	public String getAsyncMethodBodyFor(PutOperationType operation) {
+		return this.getAsyncMethodBody(this.getDelegateInvocation(operation), operation.getReturnType(), operation.getSerializationType());
+	}
+
+	public String getAsyncMethodBodyFor(DeleteOperationType operation) {
+		return this.getAsyncMethodBody(this.getDelegateInvocation(operation), null, null);
+	}
+
+	private String getAsyncMethodBody(String invocation, String returnType, String serializationType) {
+		StringBuffer body = new StringBuffer();
+		body.append("MukiAsyncResponse.resume(").append(invocation).append(", response, ");
+		body.append(this.getMediaTypeArgument(returnType, serializationType)).append(");");
+		return body.toString();
+	}
+
+	/**
+	 * Returns the media type of the result of an asynchronous operation, or null if the result is not a model
+	 * (the providers choose it)
+	 */
+	private String getMediaTypeArgument(String returnType, String serializationType) {
+		if(this.isUndefinedType(returnType) || !this.isComplexType(returnType)) {
+			return "null";
+		}
+		if(this.isXmlSerialization(serializationType)) {
+			return "\"application/xml\"";
+		}
+		if(this.isJsonSerialization(serializationType)) {
+			return "\"application/json\"";
+		}
+		return "\"" + BINARY_MEDIA_TYPE + "\"";
+	}
+
+	public String getAsyncDelegateMethodDeclarationFor(GetOperationType operation) {
+		return this.getAsyncDelegateMethodDeclaration(this.getDelegateMethodDeclarationFor(operation));
+	}
+
+	public String getAsyncDelegateMethodDeclarationFor(PostOperationType operation) {
+		return this.getAsyncDelegateMethodDeclaration(this.getDelegateMethodDeclarationFor(operation));
+	}
+
+	public String getAsyncDelegateMethodDeclarationFor(PutOperationType operation) {
+		return this.getAsyncDelegateMethodDeclaration(this.getDelegateMethodDeclarationFor(operation));
+	}
+
+	public String getAsyncDelegateMethodDeclarationFor(DeleteOperationType operation) {
+		return this.getAsyncDelegateMethodDeclaration(this.getDelegateMethodDeclarationFor(operation));
+	}
+
+	/**
+	 * Returns the declaration of the delegate of an asynchronous operation from the synchronous one:
+	 * the result is a CompletionStage. Example:
+	 *   public CompletionStage<Cd> getCd(String id)
+	 */
+	private String getAsyncDelegateMethodDeclaration(String declaration) {
+		int typeEnd = declaration.indexOf(' ', "public ".length());
+		String returnType = declaration.substring("public ".length(), typeEnd);
+		if(returnType.equals("void")) {
+			returnType = "Void";
+		}
+		return "public CompletionStage<" + returnType + ">" + declaration.substring(typeEnd);
+	}
+
 	private boolean isStringType(String modelType) {
 		return this.getUtility().isStringType(modelType);
 	}
@@ -854,6 +1557,53 @@ public class JavaVelocityHelper extends VelocityHelper {
 	public boolean isJsonSerialization(String serializationType) {
 		return this.getUtility().isJsonSerialization(serializationType);
 	}
+
+	public boolean isBinarySerialization(String serializationType) {
+		return this.getUtility().isBinarySerialization(serializationType);
+	}
+
+	public boolean isStreaming(ControllerType controller) {
+		return this.getUtility().hasStreamingOperations(controller);
+	}
+
+	public boolean isStreaming(GetOperationType operation) {
+		return !this.isUndefinedType(operation.getStreamingList());
+	}
+
+	public boolean isPaginated(GetOperationType operation) {
+		return operation.getPagination() != null;
+	}
+
+	/**
+	 * Returns the model returned by a GET operation, that is a page of the model if the operation is paginated
+	 */
+	private String getResultType(GetOperationType operation) {
+		if(this.isPaginated(operation)) {
+			return this.getUtility().getPageModelName(operation.getReturnType());
+		}
+		return operation.getReturnType();
+	}
+
+	/**
+	 * Returns the type of the items of the streaming list of the operation, that is an attribute of the
+	 * model returned
+	 */
+	private String getStreamingItemsType(GetOperationType operation, ModelDefinitionsType definitions) {
+		for (ModelType type : definitions.getModel()) {
+			if (type.getName().equals(operation.getReturnType())) {
+				for (ListAttrType attribute : type.getListAttr()) {
+					if (attribute.getName().equals(operation.getStreamingList())) {
+						return attribute.getItemsType();
+					}
+				}
+			}
+		}
+		throw new IllegalArgumentException("The streaming list " + operation.getStreamingList() + " is not an attribute of " + operation.getReturnType());
+	}
+
+	public String getBinaryMediaType() {
+		return BINARY_MEDIA_TYPE;
+	}
 	
 	private boolean isComplexType(String modelType) {
 		return this.getUtility().isComplexType(modelType);
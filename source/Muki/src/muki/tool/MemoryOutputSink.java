@@ -0,0 +1,103 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the artifacts in memory instead of writing them to the disk. The files are indexed by their path
+ * relative to the output directory (with '/' as separator), for example "store/model/Cd.java", so they can be
+ * passed directly to a compiler or added to a jar. Nothing is written to the output directory: it's only
+ * used to calculate the relative paths. Example:
+ * 
+ *   MemoryOutputSink sink = new MemoryOutputSink("generated");
+ *   JavaGenerator generator = new JavaGenerator();
+ *   generator.setOutputSink(sink);
+ *   generator.generateAll(project, "generated");
+ *   Map<String, byte[]> files = sink.getFiles();
+ */
+public class MemoryOutputSink implements OutputSink {
+
+	private String outputDirectory;
+	private Map<String, byte[]> fileMap;
+
+	public MemoryOutputSink(String outputDirectory) {
+		this.setOutputDirectory(this.normalize(outputDirectory));
+		this.setFileMap(new TreeMap<String, byte[]>());
+	}
+
+	public void createDirectory(String directory) {
+	}
+
+	public synchronized void write(String fileName, byte[] data) {
+		this.getFileMap().put(this.getRelativePath(fileName), data);
+	}
+
+	public boolean writeResource(String fileName, URL resource) throws Exception {
+		this.write(fileName, new IOUtility().readBytes(resource));
+		return true;
+	}
+
+	/**
+	 * Returns the content of a file, or null if it was not generated
+	 */
+	public synchronized byte[] getFile(String path) {
+		return this.getFileMap().get(path);
+	}
+
+	/**
+	 * Returns all the files sorted by path
+	 */
+	public synchronized Map<String, byte[]> getFiles() {
+		return Collections.unmodifiableMap(new TreeMap<String, byte[]>(this.getFileMap()));
+	}
+
+	private String getRelativePath(String fileName) {
+		String path = this.normalize(fileName);
+		if (path.startsWith(this.getOutputDirectory() + "/")) {
+			path = path.substring(this.getOutputDirectory().length() + 1);
+		}
+		return path;
+	}
+
+	private String normalize(String path) {
+		path = path.replace('\\', '/');
+		while (path.endsWith("/")) {
+			path = path.substring(0, path.length() - 1);
+		}
+		return path;
+	}
+
+	private String getOutputDirectory() {
+		return outputDirectory;
+	}
+
+	private void setOutputDirectory(String outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	private Map<String, byte[]> getFileMap() {
+		return fileMap;
+	}
+
+	private void setFileMap(Map<String, byte[]> fileMap) {
+		this.fileMap = fileMap;
+	}
+
+}
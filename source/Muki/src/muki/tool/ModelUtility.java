@@ -18,9 +18,14 @@ package muki.tool;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -31,10 +36,12 @@ import muki.tool.model.GetOperationType;
 import muki.tool.model.ListAttrType;
 import muki.tool.model.ModelDefinitionsType;
 import muki.tool.model.ModelType;
+import muki.tool.model.PaginationType;
 import muki.tool.model.PathParamType;
 import muki.tool.model.PostOperationType;
 import muki.tool.model.Project;
 import muki.tool.model.PutOperationType;
+import muki.tool.model.QueryParamType;
 import muki.tool.model.SimpleAttrType;
 import muki.tool.model.ControllerDefinitionsType;
 import muki.tool.model.ControllerType;
@@ -52,44 +59,33 @@ public class ModelUtility {
 	public static String INTEGER_TYPE = "INT";
 	public static String DOUBLE_TYPE = "DOUBLE";
 	public static String BOOLEAN_TYPE = "BOOLEAN";
-	private Map<String, String> javaTypesMapping;
-	private Map<String, String> objcTypesMapping;
-	private Map<String, String> swiftTypesMapping;
-	private List<String> basicTypes;
-	private Project project;
+	public static String PAGE_MODEL_SUFFIX = "Page";
+	public static String PAGE_ITEMS = "items";
+	public static String PAGE_NEXT_CURSOR = "nextCursor";
+	public static String LIMIT_PARAM = "limit";
+	public static String CURSOR_PARAM = "cursor";
+	public static int MAX_BINARY_TAG = (1 << 28) - 1;
+	private static final Map<String, String> JAVA_TYPES_MAPPING = createTypesMapping("String", "long", "int", "double", "boolean");
+	private static final Map<String, String> OBJC_TYPES_MAPPING = createTypesMapping("NSString", "long long", "NSInteger", "double", "BOOL");
+	private static final Map<String, String> SWIFT_TYPES_MAPPING = createTypesMapping("String", "Int64", "Int", "Double", "Bool");
+	private static JAXBContext context;
+	private Set<String> modelNames;
+	private Set<String> listAttributeNames;
+	private boolean binarySerializationUsed;
+	private Set<String> untaggedModels;
 
-	public ModelUtility() {
+	/**
+	 * Builds the mapping from the basic types to the types of a target language.
+	 * The mappings are immutable and shared by all the instances.
+	 */
+	private static Map<String, String> createTypesMapping(String stringType, String longType, String integerType, String doubleType, String booleanType) {
 		Map<String, String> mapping = new HashMap<String, String>();
-		mapping.put(STRING_TYPE, "String");
-		mapping.put(LONG_TYPE, "long");
-		mapping.put(INTEGER_TYPE, "int");
-		mapping.put(DOUBLE_TYPE, "double");
-		mapping.put(BOOLEAN_TYPE, "boolean");
-		this.setJavaTypesMapping(mapping);
-		
-		mapping = new HashMap<String, String>();
-		mapping.put(STRING_TYPE, "NSString");
-		mapping.put(LONG_TYPE, "long long");
-		mapping.put(INTEGER_TYPE, "NSInteger");
-		mapping.put(DOUBLE_TYPE, "double");
-		mapping.put(BOOLEAN_TYPE, "BOOL");
-		this.setObjcTypesMapping(mapping);
-		
-		mapping = new HashMap<String, String>();
-		mapping.put(STRING_TYPE, "String");
-		mapping.put(LONG_TYPE, "Int64");
-		mapping.put(INTEGER_TYPE, "Int");
-		mapping.put(DOUBLE_TYPE, "Double");
-		mapping.put(BOOLEAN_TYPE, "Bool");
-		this.setSwiftTypesMapping(mapping);
-		
-		List<String> types = new ArrayList<String>();
-		types.add(STRING_TYPE);
-		types.add(LONG_TYPE);
-		types.add(INTEGER_TYPE);
-		types.add(DOUBLE_TYPE);
-		types.add(BOOLEAN_TYPE);
-		this.setBasicTypes(types);
+		mapping.put(STRING_TYPE, stringType);
+		mapping.put(LONG_TYPE, longType);
+		mapping.put(INTEGER_TYPE, integerType);
+		mapping.put(DOUBLE_TYPE, doubleType);
+		mapping.put(BOOLEAN_TYPE, booleanType);
+		return Collections.unmodifiableMap(mapping);
 	}
 	
 	/**
@@ -97,8 +93,7 @@ public class ModelUtility {
 	 * objects. The project is returned.
 	 */
 	public Project openProject(String fileName) throws Exception {
-		JAXBContext context = JAXBContext.newInstance(Project.class);
-		Unmarshaller unmarshaller = context.createUnmarshaller();
+		Unmarshaller unmarshaller = getContext().createUnmarshaller();
 		Project newProject = (Project)unmarshaller.unmarshal(new File(fileName));
 		return newProject;
 	}
@@ -109,11 +104,84 @@ public class ModelUtility {
 	 * writing the file to the disk.
 	 */
 	public void saveProject(Project project, String fileName) throws Exception {	
-		JAXBContext context = JAXBContext.newInstance(Project.class);
-		Marshaller marshaller = context.createMarshaller();
+		Marshaller marshaller = getContext().createMarshaller();
 		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
 		FileWriter writer = new FileWriter(fileName);
-		marshaller.marshal(project, writer);
+		try {
+			marshaller.marshal(project, writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Returns the JAXB context of the project model. Creating the context is expensive, so it's created
+	 * only once and shared by the whole process (the context is thread-safe, the marshallers are not).
+	 */
+	public static synchronized JAXBContext getContext() throws Exception {
+		if (context == null) {
+			context = JAXBContext.newInstance(Project.class);
+		}
+		return context;
+	}
+
+	/**
+	 * Validates the project file without loading the whole project in memory (see ProjectReader).
+	 * The file is read twice: first to build the index with the names of the models, then to validate
+	 * every model and controller. The result is the same as validate(Project, ExecutionResult).
+	 */
+	public void validate(String projectFile, ExecutionResult result) throws Exception {
+		final Project header = new Project();
+		final ExecutionResult validationResult = result;
+		this.setModelNames(new HashSet<String>());
+		this.setListAttributeNames(new HashSet<String>());
+		this.setBinarySerializationUsed(false);
+		this.setUntaggedModels(new LinkedHashSet<String>());
+		ProjectReader reader = new ProjectReader();
+		reader.read(projectFile, new ProjectHandler() {
+			private int models = 0;
+			public void startProject(Project project) {
+			}
+			public void model(ModelDefinitionsType definitions, ModelType model) {
+				this.models++;
+				indexModel(model, this.models, validationResult);
+			}
+			public void controller(ControllerDefinitionsType definitions, ControllerType controller) {
+			}
+			public void endProject(Project project) {
+				header.setName(project.getName());
+				header.setModelDefinitions(project.getModelDefinitions());
+				header.setControllerDefinitions(project.getControllerDefinitions());
+			}
+		});
+		this.validateProject(header, result);
+		if (header.getModelDefinitions() == null || header.getControllerDefinitions() == null) {
+			return;
+		}
+		this.validateModelDefinitions(header.getModelDefinitions(), result);
+		reader.read(projectFile, new ProjectHandler() {
+			private int models = 0;
+			private int controllers = 0;
+			public void startProject(Project project) {
+			}
+			public void model(ModelDefinitionsType definitions, ModelType model) {
+				this.models++;
+				validate(model, this.models, validationResult);
+			}
+			public void controller(ControllerDefinitionsType definitions, ControllerType controller) {
+				if (this.controllers == 0) {
+					validateControllerDefinitions(definitions, validationResult);
+				}
+				this.controllers++;
+				validate(controller, this.controllers, validationResult);
+			}
+			public void endProject(Project project) {
+				if (this.controllers == 0) {
+					validateControllerDefinitions(project.getControllerDefinitions(), validationResult);
+				}
+			}
+		});
+		this.validateBinaryTags(result);
 	}
 	
 	/**
@@ -121,54 +189,86 @@ public class ModelUtility {
 	 * return value, etc.
 	 * If no constraint is violated, then we return null. Otherwise, return a string with a list of
 	 * constraints that have been violated.
+	 * The names of the models are indexed first, so every reference to a model is resolved with a lookup
+	 * and the project is validated in a single pass.
 	 */
 	public void validate(Project aProject, ExecutionResult result) {
-		this.setProject(aProject);
+		this.setModelNames(new HashSet<String>());
+		this.setListAttributeNames(new HashSet<String>());
+		this.setBinarySerializationUsed(false);
+		this.setUntaggedModels(new LinkedHashSet<String>());
+		if (aProject.getModelDefinitions() != null) {
+			List<ModelType> models = aProject.getModelDefinitions().getModel();
+			for (int i = 0; i < models.size(); i++) {
+				this.indexModel(models.get(i), i + 1, result);
+			}
+		}
+		this.validateProject(aProject, result);
+		this.validate(aProject.getModelDefinitions(), result);
+		this.validate(aProject.getControllerDefinitions(), result);
+		this.validateBinaryTags(result);
+	}
+	
+	/**
+	 * Adds the name of the model to the index used to resolve the model types, and the names of its
+	 * list attributes (Model.attribute) to resolve the streaming lists of the GET operations
+	 */
+	private void indexModel(ModelType model, int index, ExecutionResult result) {
+		if (!this.isUndefined(model.getName()) && !this.getModelNames().add(model.getName())) {
+			result.warning("The name of the model (" + index + ") is duplicated: " + model.getName());
+		}
+		for (ListAttrType attribute : model.getListAttr()) {
+			this.getListAttributeNames().add(model.getName() + "." + attribute.getName());
+		}
+	}
+	
+	private void validateProject(Project aProject, ExecutionResult result) {
 		if(this.isUndefined(aProject.getName())) {
-			result.append("The project name is undefined");
-			result.setOk(false);
+			result.error("The project name is undefined");
 		}
 		if(aProject.getModelDefinitions() == null) {
-			result.append("The project doesn't have model definitions");
-			result.setOk(false);
+			result.error("The project doesn't have model definitions");
 		}
 		if(aProject.getControllerDefinitions() == null) {
-			result.append("The project doesn't have controller definitions");
-			result.setOk(false);
+			result.error("The project doesn't have controller definitions");
 		}
-		this.validate(aProject.getModelDefinitions(), result);
-		this.validate(aProject.getControllerDefinitions(), result);
 	}
 	
 	private void validate(ControllerDefinitionsType definitions, ExecutionResult result) {
-		result.append("-> Validating controllers...");
-		if(this.isUndefined(definitions.getJavaPackage())) {
-			result.append("The Java package is undefined for the controller definitions");
-			result.setOk(false);
-		}
-		if(this.isUndefined(definitions.getJavaPackage())) {
-			result.append("The Java package is undefined for the controller definitions");
-			result.setOk(false);
-		}
+		this.validateControllerDefinitions(definitions, result);
 		for (int i = 0; i < definitions.getController().size(); i++) {
 			ControllerType controller = definitions.getController().get(i);
 			this.validate(controller, i + 1, result);
 		}
 	}
 	
+	private void validateControllerDefinitions(ControllerDefinitionsType definitions, ExecutionResult result) {
+		result.trace("-> Validating controllers...");
+		if(this.isUndefined(definitions.getJavaPackage())) {
+			result.error("The Java package is undefined for the controller definitions");
+		}
+		if(this.isUndefined(definitions.getJavaPackage())) {
+			result.error("The Java package is undefined for the controller definitions");
+		}
+	}
+	
 	private void validate(ControllerType controller, int index, ExecutionResult result) {
-		result.append("-> Validating controller (" + index + ") ...");
+		result.trace("-> Validating controller (" + index + ") ...");
 		if(this.isUndefined(controller.getName())) {
-			result.append("The name for controller (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The name for controller (" + index + ") is undefined");
 		}
 		if(this.isUndefined(controller.getHttpPath())) {
-			result.append("The HTTP path for controller (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The HTTP path for controller (" + index + ") is undefined");
+		}
+		if(controller.getAsyncTimeout() != null && controller.getAsyncTimeout() < 1) {
+			result.error("The async timeout of controller (" + index + ") must be greater than 0");
 		}
 		for (int i = 0; i < controller.getGetOperation().size(); i++) {
 			GetOperationType operation = controller.getGetOperation().get(i);
 			this.validate(operation, i + 1, result);
+			if(!this.isUndefined(operation.getStreamingList()) && this.isAsync(controller, operation.isAsync())) {
+				result.error("The GET operation (" + (i + 1) + ") has a streaming list, so it can't be async");
+			}
 		}
 		for (int i = 0; i < controller.getPostOperation().size(); i++) {
 			PostOperationType operation = controller.getPostOperation().get(i);
@@ -185,176 +285,245 @@ public class ModelUtility {
 	}
 	
 	private void validate(GetOperationType operation, int index, ExecutionResult result) {
-		result.append("-> Validating GET operation (" + index + ") ...");
+		result.trace("-> Validating GET operation (" + index + ") ...");
 		if(this.isUndefined(operation.getName())) {
-			result.append("The name of the GET operation (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the GET operation (" + index + ") is undefined");
 		}
 		if(this.isUndefined(operation.getHttpPath())) {
-			result.append("The HTTP path of the GET operation (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The HTTP path of the GET operation (" + index + ") is undefined");
 		}
 		String returnType = operation.getReturnType();
 		if(this.isUndefined(returnType)) {
-			result.append("The return type of the GET operation (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The return type of the GET operation (" + index + ") is undefined");
 		} else if(!this.isStringType(returnType) && !this.existsComplexType(returnType)) {
-			result.append("The return type of the GET operation (" + index + ") must be STRING or a model defined in the project");			
-			result.setOk(false);
-		} else if(this.isComplexType(returnType) && !this.isXmlSerialization(operation.getSerializationType()) && !this.isJsonSerialization(operation.getSerializationType())) {
-			result.append("The serialization type of the GET operation (" + index + ") must be XML or JSON");			
-			result.setOk(false);
+			result.error("The return type of the GET operation (" + index + ") must be STRING or a model defined in the project");
+		} else if(this.isComplexType(returnType)) {
+			this.validateSerialization(operation.getSerializationType(), "GET", index, result);
+		}
+		if(!this.isUndefined(operation.getStreamingList())) {
+			this.validateStreamingList(operation, index, result);
+		}
+		if(operation.getPagination() != null) {
+			this.validatePagination(operation, index, result);
 		}
 		for (PathParamType param : operation.getPathParam()) {
 			if(operation.getHttpPath().indexOf("{" + param.getName() + "}") < 0) {
-				result.append("The param " + param.getName() + " in GET operation (" + index + ") is not declared in the HTTP Path");			
-				result.setOk(false);
+				result.error("The param " + param.getName() + " in GET operation (" + index + ") is not declared in the HTTP Path");
+			}
+		}
+	}
+
+	/**
+	 * The streaming list must be a list attribute of the model returned. The items are written one by
+	 * one, so the binary serialization (that writes the length of the object first) is not supported.
+	 */
+	private void validateStreamingList(GetOperationType operation, int index, ExecutionResult result) {
+		String returnType = operation.getReturnType();
+		if(!this.getListAttributeNames().contains(returnType + "." + operation.getStreamingList())) {
+			result.error("The streaming list of the GET operation (" + index + ") must be a list attribute of the model returned");
+		} else if(!this.isXmlSerialization(operation.getSerializationType()) && !this.isJsonSerialization(operation.getSerializationType())) {
+			result.error("The GET operation (" + index + ") has a streaming list, so the serialization type must be XML or JSON");
+		}
+	}
+
+	/**
+	 * A paginated operation returns a page of the model (see getPageModels()), so the model can't have a
+	 * streaming list, and the limit and cursor are added to its parameters. The pages are only generated
+	 * for Java, the clients of Objective-C and Swift read the model.
+	 */
+	private void validatePagination(GetOperationType operation, int index, ExecutionResult result) {
+		PaginationType pagination = operation.getPagination();
+		String returnType = operation.getReturnType();
+		result.warning("The GET operation (" + index + ") is paginated, that is only generated for Java");
+		if(this.isUndefined(returnType) || !this.isComplexType(returnType)) {
+			result.error("The GET operation (" + index + ") is paginated, so it must return a model defined in the project");
+		} else if(this.existsComplexType(this.getPageModelName(returnType))) {
+			result.error("The page of the GET operation (" + index + ") is already a model: " + this.getPageModelName(returnType));
+		}
+		if(!this.isUndefined(operation.getStreamingList())) {
+			result.error("The GET operation (" + index + ") can't have a streaming list and pagination");
+		}
+		if(pagination.getMaxPageSize() == null || pagination.getMaxPageSize() < 1) {
+			result.error("The max page size of the GET operation (" + index + ") must be greater than 0");
+		} else if(pagination.getDefaultPageSize() != null && (pagination.getDefaultPageSize() < 1 || pagination.getDefaultPageSize() > pagination.getMaxPageSize())) {
+			result.error("The default page size of the GET operation (" + index + ") must be between 1 and the max page size");
+		}
+		for (PathParamType param : operation.getPathParam()) {
+			if(LIMIT_PARAM.equals(param.getName()) || CURSOR_PARAM.equals(param.getName())) {
+				result.error("The GET operation (" + index + ") is paginated, so the param " + param.getName() + " is already defined");
+			}
+		}
+		for (QueryParamType param : operation.getQueryParam()) {
+			if(LIMIT_PARAM.equals(param.getName()) || CURSOR_PARAM.equals(param.getName())) {
+				result.error("The GET operation (" + index + ") is paginated, so the param " + param.getName() + " is already defined");
 			}
 		}
 	}
 
 	private void validate(PostOperationType operation, int index, ExecutionResult result) {
-		result.append("-> Validating POST operation (" + index + ") ...");
+		result.trace("-> Validating POST operation (" + index + ") ...");
 		if(this.isUndefined(operation.getName())) {
-			result.append("The name of the POST operation (" +index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the POST operation (" +index + ") is undefined");
 		}
 		if(this.isUndefined(operation.getHttpPath())) {
-			result.append("The HTTP path of the POST operation (" +index + ") is undefined");
-			result.setOk(false);
+			result.error("The HTTP path of the POST operation (" +index + ") is undefined");
 		}
 		String returnType = operation.getReturnType();
 		if(!this.isUndefined(returnType)) {
 			if(!this.isStringType(returnType) && !this.existsComplexType(returnType)) {
-				result.append("The return type of the POST operation (" + index + ") must be STRING or a model defined in the project");			
-				result.setOk(false);
+				result.error("The return type of the POST operation (" + index + ") must be STRING or a model defined in the project");
 			}
 		}
 		String paramType = operation.getParamType();
 		if(operation.getFormParam() != null && !operation.getFormParam().isEmpty() && !this.isUndefined(paramType)) {
-			result.append("The POST operation (" + index + ") has form parameters and also a model type param. Only one is allowed.");
-			result.setOk(false);
+			result.error("The POST operation (" + index + ") has form parameters and also a model type param. Only one is allowed.");
 		}
 		if(!this.isUndefined(paramType)) {
 			if(!this.isStringType(paramType) && !this.existsComplexType(paramType)) {
-				result.append("The parameter type of the POST operation (" + index + ") must be STRING or a model defined in the project");
-				result.setOk(false);
+				result.error("The parameter type of the POST operation (" + index + ") must be STRING or a model defined in the project");
 			}
 		}
 		if((!this.isUndefined(paramType) && this.isComplexType(paramType)) || (!this.isUndefined(returnType) && this.isComplexType(returnType))) {
-			if (!this.isXmlSerialization(operation.getSerializationType()) && !this.isJsonSerialization(operation.getSerializationType())) {			
-				result.append("The serialization type of the POST operation (" + index + ") must be XML or JSON");			
-				result.setOk(false);
-			}
+			this.validateSerialization(operation.getSerializationType(), "POST", index, result);
 		}
 		for (PathParamType param : operation.getPathParam()) {
 			if(operation.getHttpPath().indexOf("{" + param.getName() + "}") < 0) {
-				result.append("The param " + param.getName() + " in POST operation (" + index + ") is not declared in the HTTP Path");			
-				result.setOk(false);
+				result.error("The param " + param.getName() + " in POST operation (" + index + ") is not declared in the HTTP Path");
 			}
 		}
 	}
 
 	private void validate(PutOperationType operation, int index, ExecutionResult result) {
-		result.append("-> Validating PUT operation (" + index + ") ...");
+		result.trace("-> Validating PUT operation (" + index + ") ...");
 		if(this.isUndefined(operation.getName())) {
-			result.append("The name of the PUT operation (" +index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the PUT operation (" +index + ") is undefined");
 		}
 		if(this.isUndefined(operation.getHttpPath())) {
-			result.append("The HTTP path of the PUT operation (" +index + ") is undefined");
-			result.setOk(false);
+			result.error("The HTTP path of the PUT operation (" +index + ") is undefined");
 		}
 		String returnType = operation.getReturnType();
 		if(!this.isUndefined(returnType)) {
 			if(!this.isStringType(returnType) && !this.existsComplexType(returnType)) {
-				result.append("The return type of the PUT operation (" + index + ") must be STRING or a model defined in the project");			
-				result.setOk(false);
+				result.error("The return type of the PUT operation (" + index + ") must be STRING or a model defined in the project");
 			}
 		}
 		String paramType = operation.getParamType();
 		if(operation.getFormParam() != null && !operation.getFormParam().isEmpty() && !this.isUndefined(paramType)) {
-			result.append("The PUT operation (" + index + ") has form parameters and also a model type param. Only one is allowed.");
-			result.setOk(false);
+			result.error("The PUT operation (" + index + ") has form parameters and also a model type param. Only one is allowed.");
 		}
 		if(!this.isUndefined(paramType)) {
 			if(!this.isStringType(paramType) && !this.existsComplexType(paramType)) {
-				result.append("The parameter type of the PUT operation (" + index + ") must be STRING or a model defined in the project");
-				result.setOk(false);
+				result.error("The parameter type of the PUT operation (" + index + ") must be STRING or a model defined in the project");
 			}
 		}
 		if((!this.isUndefined(paramType) && this.isComplexType(paramType)) || (!this.isUndefined(returnType) && this.isComplexType(returnType))) {
-			if (!this.isXmlSerialization(operation.getSerializationType()) && !this.isJsonSerialization(operation.getSerializationType())) {			
-				result.append("The serialization type of the PUT operation (" + index + ") must be XML or JSON");			
-				result.setOk(false);
-			}
+			this.validateSerialization(operation.getSerializationType(), "PUT", index, result);
 		}
 		for (PathParamType param : operation.getPathParam()) {
 			if(operation.getHttpPath().indexOf("{" + param.getName() + "}") < 0) {
-				result.append("The param " + param.getName() + " in PUT operation (" + index + ") is not declared in the HTTP Path");			
-				result.setOk(false);
+				result.error("The param " + param.getName() + " in PUT operation (" + index + ") is not declared in the HTTP Path");
 			}
 		}
 	}
 
+	/**
+	 * The operations that send or return models must declare the serialization. The binary serialization
+	 * is only implemented by the Java server, the clients of Objective-C and Swift use XML.
+	 */
+	private void validateSerialization(String serializationType, String operationType, int index, ExecutionResult result) {
+		if (this.isBinarySerialization(serializationType)) {
+			this.setBinarySerializationUsed(true);
+			result.warning("The " + operationType + " operation (" + index + ") uses the BINARY serialization, that is only generated for Java");
+		} else if (!this.isXmlSerialization(serializationType) && !this.isJsonSerialization(serializationType)) {
+			result.error("The serialization type of the " + operationType + " operation (" + index + ") must be XML, JSON or BINARY");
+		}
+	}
+
 	private void validate(DeleteOperationType operation, int index, ExecutionResult result) {
-		result.append("-> Validating DELETE operation (" + index + ") ...");
+		result.trace("-> Validating DELETE operation (" + index + ") ...");
 		if(this.isUndefined(operation.getName())) {
-			result.append("The name of the DELETE operation (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the DELETE operation (" + index + ") is undefined");
 		}
 		if(this.isUndefined(operation.getHttpPath())) {
-			result.append("The HTTP path of the DELETE operation (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The HTTP path of the DELETE operation (" + index + ") is undefined");
 		}
 		for (PathParamType param : operation.getPathParam()) {
 			if(operation.getHttpPath().indexOf("{" + param.getName() + "}") < 0) {
-				result.append("The param " + param.getName() + " in DELETE operation (" + index + ") is not declared in the HTTP Path");			
-				result.setOk(false);
+				result.error("The param " + param.getName() + " in DELETE operation (" + index + ") is not declared in the HTTP Path");
 			}
 		}
 	}
 
 	private void validate(ModelDefinitionsType definitions, ExecutionResult result) {
-		result.append("-> Validating models ...");
-		if(this.isUndefined(definitions.getJavaPackage())) {
-			result.append("The Java package is undefined for the model definitions");
-			result.setOk(false);
-		}
+		this.validateModelDefinitions(definitions, result);
 		for (int i = 0; i < definitions.getModel().size(); i++) {
 			ModelType type = definitions.getModel().get(i);
 			this.validate(type, i + 1, result);
 		}
 	}
 	
+	private void validateModelDefinitions(ModelDefinitionsType definitions, ExecutionResult result) {
+		result.trace("-> Validating models ...");
+		if(this.isUndefined(definitions.getJavaPackage())) {
+			result.error("The Java package is undefined for the model definitions");
+		}
+	}
+	
 	private void validate(ModelType type, int index, ExecutionResult result) {
-		result.append("-> Validating model (" + index + ") ...");
+		result.trace("-> Validating model (" + index + ") ...");
 		if(this.isUndefined(type.getName())) {
-			result.append("The name of the model (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the model (" + index + ") is undefined");
 		}
+		Set<Integer> tags = new HashSet<Integer>();
 		for (int i = 0; i < type.getSimpleAttr().size(); i++) {
 			SimpleAttrType attribute = type.getSimpleAttr().get(i);
 			this.validate(attribute, i + 1, result);
+			this.validateTag(type, attribute.getName(), attribute.getTag(), tags, result);
 		}
 		for (int i = 0; i < type.getListAttr().size(); i++) {
 			ListAttrType attribute = type.getListAttr().get(i);
 			this.validate(attribute, i + 1, result);
+			this.validateTag(type, attribute.getName(), attribute.getTag(), tags, result);
+		}
+	}
+
+	/**
+	 * The tag identifies the attribute in the binary serialization, so it must be unique in the model
+	 * and it can't change when the attributes are reordered or removed. The models without tags are
+	 * checked when the whole project has been validated (see validateBinaryTags()).
+	 */
+	private void validateTag(ModelType type, String attributeName, Integer tag, Set<Integer> tags, ExecutionResult result) {
+		if (tag == null) {
+			this.getUntaggedModels().add(type.getName());
+		} else if (tag.intValue() < 1 || tag.intValue() > MAX_BINARY_TAG) {
+			result.error("The tag of the attribute " + attributeName + " in the model " + type.getName() + " must be between 1 and " + MAX_BINARY_TAG);
+		} else if (!tags.add(tag)) {
+			result.error("The tag " + tag + " of the attribute " + attributeName + " is duplicated in the model " + type.getName());
+		}
+	}
+
+	/**
+	 * The binary codecs are generated for every model, so all the attributes need a tag when an
+	 * operation uses the binary serialization
+	 */
+	private void validateBinaryTags(ExecutionResult result) {
+		if (!this.isBinarySerializationUsed()) {
+			return;
+		}
+		for (String modelName : this.getUntaggedModels()) {
+			result.error("The model " + modelName + " has attributes without tag, the tags are required by the BINARY serialization");
 		}
 	}
 	
 	private void validate(SimpleAttrType attribute, int index, ExecutionResult result) {
-		result.append("-> Validating simple attribute (" + index + ") ...");
+		result.trace("-> Validating simple attribute (" + index + ") ...");
 		if(this.isUndefined(attribute.getName())) {
-			result.append("The name of the simple attribute (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the simple attribute (" + index + ") is undefined");
 		}
 		if(this.isUndefined(attribute.getType())) {
-			result.append("The type of the simple attribute (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The type of the simple attribute (" + index + ") is undefined");
 		} else if (!this.isPrimitiveType(attribute.getType()) && !this.existsComplexType(attribute.getType())) {
-				result.append("The type of the simple attribute (" + index + ") must be a basic type (STRING, LONG, etc) or another model defined in the project");
-				result.setOk(false);
+			result.error("The type of the simple attribute (" + index + ") must be a basic type (STRING, LONG, etc) or another model defined in the project");
 		}
 	}
 	
@@ -363,27 +532,19 @@ public class ModelUtility {
 	 * the name in the paramenter.
 	 */
 	private boolean existsComplexType(String name) {
-		for (ModelType model :  this.getProject().getModelDefinitions().getModel()) {
-			if (model.getName().equals(name)) {
-				return true;
-			}
-		}
-		return false;
+		return this.getModelNames().contains(name);
 	}
 	
 	private void validate(ListAttrType attribute, int index, ExecutionResult result) {
-		result.append("-> Validating list attribute (" + index + ") ...");
+		result.trace("-> Validating list attribute (" + index + ") ...");
 		if(this.isUndefined(attribute.getName())) {
-			result.append("The name of the list attribute (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The name of the list attribute (" + index + ") is undefined");
 		}
 		if(this.isUndefined(attribute.getItemsType())) {
-			result.append("The items type of the list attribute (" + index + ") is undefined");
-			result.setOk(false);
+			result.error("The items type of the list attribute (" + index + ") is undefined");
 		}
 		if(!this.existsComplexType(attribute.getItemsType())) {
-			result.append("The items type of the list attribute (" + index + ") must be another model defined in the project. Basic types are not supported in lists.");
-			result.setOk(false);
+			result.error("The items type of the list attribute (" + index + ") must be another model defined in the project. Basic types are not supported in lists.");
 		}
 	}
 	
@@ -426,7 +587,168 @@ public class ModelUtility {
 	public boolean isJsonSerialization(String serializationType) {
 		return serializationType != null && serializationType.toLowerCase().equals("json");
 	}
+
+	public boolean isBinarySerialization(String serializationType) {
+		return serializationType != null && serializationType.toLowerCase().equals("binary");
+	}
+
+	/**
+	 * Returns true if an operation of the controllers uses the binary serialization
+	 */
+	public boolean hasBinarySerialization(ControllerDefinitionsType controllers) {
+		if (controllers == null) {
+			return false;
+		}
+		for (ControllerType controller : controllers.getController()) {
+			for (GetOperationType operation : controller.getGetOperation()) {
+				if (this.isBinarySerialization(operation.getSerializationType())) {
+					return true;
+				}
+			}
+			for (PostOperationType operation : controller.getPostOperation()) {
+				if (this.isBinarySerialization(operation.getSerializationType())) {
+					return true;
+				}
+			}
+			for (PutOperationType operation : controller.getPutOperation()) {
+				if (this.isBinarySerialization(operation.getSerializationType())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
 	
+	/**
+	 * Returns true if an operation is asynchronous: the async attribute of the operation, if it's defined,
+	 * or the one of the controller
+	 */
+	public boolean isAsync(ControllerType controller, Boolean operationAsync) {
+		if (operationAsync != null) {
+			return operationAsync;
+		}
+		return Boolean.TRUE.equals(controller.isAsync());
+	}
+
+	/**
+	 * Returns true if an operation of the controller is asynchronous
+	 */
+	public boolean hasAsyncOperations(ControllerType controller) {
+		for (GetOperationType operation : controller.getGetOperation()) {
+			if (this.isAsync(controller, operation.isAsync())) {
+				return true;
+			}
+		}
+		for (PostOperationType operation : controller.getPostOperation()) {
+			if (this.isAsync(controller, operation.isAsync())) {
+				return true;
+			}
+		}
+		for (PutOperationType operation : controller.getPutOperation()) {
+			if (this.isAsync(controller, operation.isAsync())) {
+				return true;
+			}
+		}
+		for (DeleteOperationType operation : controller.getDeleteOperation()) {
+			if (this.isAsync(controller, operation.isAsync())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if an operation of the controllers is asynchronous
+	 */
+	public boolean hasAsyncOperations(ControllerDefinitionsType controllers) {
+		if (controllers == null) {
+			return false;
+		}
+		for (ControllerType controller : controllers.getController()) {
+			if (this.hasAsyncOperations(controller)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a GET operation of the controller has a streaming list
+	 */
+	public boolean hasStreamingOperations(ControllerType controller) {
+		for (GetOperationType operation : controller.getGetOperation()) {
+			if (!this.isUndefined(operation.getStreamingList())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a GET operation of the controllers has a streaming list
+	 */
+	public boolean hasStreamingOperations(ControllerDefinitionsType controllers) {
+		if (controllers == null) {
+			return false;
+		}
+		for (ControllerType controller : controllers.getController()) {
+			if (this.hasStreamingOperations(controller)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the pages of the models returned by the paginated GET operations, in the order they are
+	 * found. Every page is a model with the list of items and the cursor of the next page, for example:
+	 *   TrackPage: List<Track> items, String nextCursor
+	 */
+	public List<ModelType> getPageModels(ControllerDefinitionsType controllers) {
+		Map<String, ModelType> pages = new LinkedHashMap<String, ModelType>();
+		if (controllers != null) {
+			for (ControllerType controller : controllers.getController()) {
+				this.addPageModels(controller, pages);
+			}
+		}
+		return new ArrayList<ModelType>(pages.values());
+	}
+
+	/**
+	 * Adds the pages of the paginated GET operations of the controller that are not in the map (by name)
+	 */
+	public void addPageModels(ControllerType controller, Map<String, ModelType> pages) {
+		for (GetOperationType operation : controller.getGetOperation()) {
+			if (operation.getPagination() != null && !pages.containsKey(this.getPageModelName(operation.getReturnType()))) {
+				ModelType page = this.createPageModel(operation.getReturnType());
+				pages.put(page.getName(), page);
+			}
+		}
+	}
+
+	private ModelType createPageModel(String itemsType) {
+		ModelType page = new ModelType();
+		page.setName(this.getPageModelName(itemsType));
+		ListAttrType items = new ListAttrType();
+		items.setName(PAGE_ITEMS);
+		items.setItemsType(itemsType);
+		items.setTag(1);
+		page.getListAttr().add(items);
+		SimpleAttrType nextCursor = new SimpleAttrType();
+		nextCursor.setName(PAGE_NEXT_CURSOR);
+		nextCursor.setType(STRING_TYPE);
+		nextCursor.setTag(2);
+		page.getSimpleAttr().add(nextCursor);
+		return page;
+	}
+
+	/**
+	 * Returns the name of the page of the model returned by a paginated operation
+	 */
+	public String getPageModelName(String modelType) {
+		return modelType + PAGE_MODEL_SUFFIX;
+	}
+
 	public boolean isComplexType(String modelType) {
 		return modelType != null && !this.isPrimitiveType(modelType);
 	}
@@ -444,43 +766,51 @@ public class ModelUtility {
 	}
 	
 	private Map<String, String> getJavaTypesMapping() {
-		return javaTypesMapping;
+		return JAVA_TYPES_MAPPING;
 	}
 
-	private void setJavaTypesMapping(Map<String, String> javaTypesMapping) {
-		this.javaTypesMapping = javaTypesMapping;
+	private Map<String, String> getObjcTypesMapping() {
+		return OBJC_TYPES_MAPPING;
 	}
 
-	private Map<String, String> getObjcTypesMapping() {
-		return objcTypesMapping;
+	private Set<String> getModelNames() {
+		return modelNames;
 	}
 
-	private void setObjcTypesMapping(Map<String, String> objcTypesMapping) {
-		this.objcTypesMapping = objcTypesMapping;
+	private void setModelNames(Set<String> modelNames) {
+		this.modelNames = modelNames;
 	}
 
-	private List<String> getBasicTypes() {
-		return basicTypes;
+	private Set<String> getListAttributeNames() {
+		return listAttributeNames;
 	}
 
-	private void setBasicTypes(List<String> basicTypes) {
-		this.basicTypes = basicTypes;
+	private void setListAttributeNames(Set<String> listAttributeNames) {
+		this.listAttributeNames = listAttributeNames;
 	}
 
-	private Project getProject() {
-		return project;
+	/**
+	 * Returns true if the last project validated has operations with the binary serialization. The
+	 * Java generator needs it when the project is not loaded in memory (see JavaGenerator.setBinaryCodecs())
+	 */
+	public boolean isBinarySerializationUsed() {
+		return binarySerializationUsed;
 	}
 
-	private void setProject(Project project) {
-		this.project = project;
+	private void setBinarySerializationUsed(boolean binarySerializationUsed) {
+		this.binarySerializationUsed = binarySerializationUsed;
 	}
 
-	private Map<String, String> getSwiftTypesMapping() {
-		return swiftTypesMapping;
+	private Set<String> getUntaggedModels() {
+		return untaggedModels;
 	}
 
-	private void setSwiftTypesMapping(Map<String, String> swiftTypesMapping) {
-		this.swiftTypesMapping = swiftTypesMapping;
+	private void setUntaggedModels(Set<String> untaggedModels) {
+		this.untaggedModels = untaggedModels;
+	}
+
+	private Map<String, String> getSwiftTypesMapping() {
+		return SWIFT_TYPES_MAPPING;
 	}
 
 }
@@ -15,6 +15,17 @@
  */
 package muki.tool;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import muki.tool.model.Project;
 
 /**
@@ -43,13 +54,56 @@ public class MukiGenerator {
 	public static String GENERATE_JAVA = "generate-java";
 	public static String GENERATE_OBJC = "generate-objc";
 	public static String GENERATE_SWIFT = "generate-swift";
-	public static String COMMAND_HELP = "MukiGenerator <generate-java|generate-objc|generate-swift> <path-to-project.xml> <output directory>";
+	public static String GENERATE_ALL = "generate-all";
+	public static String GENERATE_AND_COMPILE = "generate-and-compile";
+	public static String OPTION_INCREMENTAL = "--incremental";
+	public static String OPTION_THREADS = "--threads=";
+	public static String OPTION_QUIET = "--quiet";
+	public static String OPTION_JAVA_OUTPUT = "--java=";
+	public static String OPTION_OBJC_OUTPUT = "--objc=";
+	public static String OPTION_SWIFT_OUTPUT = "--swift=";
+	public static String OPTION_ARCHIVE = "--archive";
+	public static String OPTION_STORE_RESOURCES = "--store-resources";
+	public static String OPTION_WATCH = "--watch";
+	public static String OPTION_CACHE = "--cache=";
+	public static String OPTION_PARALLEL_PROJECTS = "--parallel-projects=";
+	public static String OPTION_REPORT = "--report=";
+	public static String OPTION_JSON_CODECS = "--json-codecs";
+	public static String OPTION_XML_CODECS = "--xml-codecs";
+	public static String OPTION_EXTERNALIZABLE = "--externalizable";
+	public static String OPTION_CLASSPATH = "--classpath=";
+	public static String JAVA_ARCHIVE = "generated-sources.jar";
+	public static String OBJC_ARCHIVE = "generated-objc.zip";
+	public static String SWIFT_ARCHIVE = "generated-swift.zip";
+	public static String CLASSES_ARCHIVE = "generated-classes.jar";
+	public static int QUIET_MAX_MESSAGES = 100;
+	public static String COMMAND_HELP = "MukiGenerator <generate-java|generate-objc|generate-swift> <path-to-project.xml>... <output directory> [--incremental] [--threads=<n>] [--quiet] [--archive [--store-resources]] [--cache=<directory>] [--report=<file.json>] [--json-codecs] [--xml-codecs] [--externalizable] [--watch]\n" +
+			"MukiGenerator generate-all <path-to-project.xml>... [--java=<output directory>] [--objc=<output directory>] [--swift=<output directory>] [--incremental] [--threads=<n>] [--quiet] [--archive [--store-resources]] [--cache=<directory>] [--report=<file.json>] [--json-codecs] [--xml-codecs] [--externalizable] [--watch]\n" +
+			"MukiGenerator generate-and-compile <path-to-project.xml>... <output directory> [--archive] [--threads=<n>] [--quiet] [--cache=<directory>] [--report=<file.json>] [--json-codecs] [--xml-codecs] [--externalizable] [--classpath=<classpath>]\n" +
+			"With several project files, every project is generated in a subdirectory of the output directory [--parallel-projects=<n>]";
 	private Project project;
 	private String outputDirectory;
+	private boolean incremental;
+	private boolean archive;
+	private boolean storeResources;
+	private boolean watch;
+	private String cacheDirectory;
+	private boolean validated;
+	private int parallelProjects;
+	private String reportFile;
+	private boolean jsonCodecs;
+	private boolean xmlCodecs;
+	private boolean externalizable;
+	private String classpath;
+	private int threads = 1;
+	private String stamp;
+	private byte[] projectData;
+	private Map<String, String> targets;
 	private IOUtility io;
 	
 	public MukiGenerator() {
 		this.setIo(new IOUtility());
+		this.setTargets(new LinkedHashMap<String, String>());
 	}
 
 	public static void main(String[] args) throws Exception {
@@ -62,6 +116,16 @@ public class MukiGenerator {
 	}
 
 	public void run(String[] args, ExecutionResult result) throws Exception {
+		GenerationStatistics.resetPeakHeap();
+		try {
+			this.runCommand(args, result);
+		} finally {
+			result.getStatistics().updatePeakHeap();
+			this.writeReport(result);
+		}
+	}
+
+	private void runCommand(String[] args, ExecutionResult result) throws Exception {
 		if(args != null && args.length == 1) {
 			String value = args[0].trim().toLowerCase();
 			if(value.equals("help") || value.equals("?")) {
@@ -70,19 +134,144 @@ public class MukiGenerator {
 				return;
 			}
 		}
-		if (args == null || args.length != 3) {
+		List<String> arguments = new ArrayList<String>();
+		if (args != null) {
+			for (String arg : args) {
+				if (arg.startsWith("--")) {
+					if (!this.parseOption(arg, result)) {
+						return;
+					}
+				} else {
+					arguments.add(arg);
+				}
+			}
+		}
+		if (this.isWatch()) {
+			this.watch(arguments, result);
+			return;
+		}
+		if (arguments.size() == 2 && arguments.get(0).equals(GENERATE_ALL)) {
+			this.generateAll(arguments.get(1), result);
+			return;
+		}
+		if (arguments.size() > 2 && arguments.get(0).equals(GENERATE_ALL)) {
+			this.run(GENERATE_ALL, arguments.subList(1, arguments.size()), null, result);
+			return;
+		}
+		if (arguments.size() > 3) {
+			this.run(arguments.get(0), arguments.subList(1, arguments.size() - 1), arguments.get(arguments.size() - 1), result);
+			return;
+		}
+		if (arguments.size() != 3) {
 			result.append("Usage: " + COMMAND_HELP);
 			result.setOk(false);
 			return;
 		}
-		String option = args[0];
-		String projectFile = args[1];
-		String outputDirectory = args[2];
+		String option = arguments.get(0);
+		String projectFile = arguments.get(1);
+		String outputDirectory = arguments.get(2);
 		this.run(option, projectFile, outputDirectory, result);
 	}
+
+	/**
+	 * In quiet mode, the result only keeps the errors and warnings (up to QUIET_MAX_MESSAGES)
+	 * and the main steps of the generation.
+	 */
+	public void setQuiet(boolean quiet, ExecutionResult result) {
+		result.setVerbose(!quiet);
+		result.setMaxMessages(quiet ? QUIET_MAX_MESSAGES : 0);
+	}
+
+	/**
+	 * Reads an optional argument of the command line (--option). Returns false if the argument is invalid.
+	 */
+	private boolean parseOption(String arg, ExecutionResult result) {
+		if (arg.equals(OPTION_INCREMENTAL)) {
+			this.setIncremental(true);
+			return true;
+		}
+		if (arg.equals(OPTION_ARCHIVE)) {
+			this.setArchive(true);
+			return true;
+		}
+		if (arg.equals(OPTION_STORE_RESOURCES)) {
+			this.setStoreResources(true);
+			return true;
+		}
+		if (arg.equals(OPTION_WATCH)) {
+			this.setWatch(true);
+			return true;
+		}
+		if (arg.equals(OPTION_JSON_CODECS)) {
+			this.setJsonCodecs(true);
+			return true;
+		}
+		if (arg.equals(OPTION_XML_CODECS)) {
+			this.setXmlCodecs(true);
+			return true;
+		}
+		if (arg.equals(OPTION_EXTERNALIZABLE)) {
+			this.setExternalizable(true);
+			return true;
+		}
+		if (arg.equals(OPTION_QUIET)) {
+			this.setQuiet(true, result);
+			return true;
+		}
+		if (arg.startsWith(OPTION_CLASSPATH)) {
+			this.setClasspath(arg.substring(OPTION_CLASSPATH.length()));
+			return true;
+		}
+		if (arg.startsWith(OPTION_REPORT)) {
+			this.setReportFile(arg.substring(OPTION_REPORT.length()));
+			return true;
+		}
+		if (arg.startsWith(OPTION_CACHE)) {
+			this.setCacheDirectory(arg.substring(OPTION_CACHE.length()));
+			return true;
+		}
+		if (arg.startsWith(OPTION_JAVA_OUTPUT)) {
+			this.addTarget(GENERATE_JAVA, arg.substring(OPTION_JAVA_OUTPUT.length()));
+			return true;
+		}
+		if (arg.startsWith(OPTION_OBJC_OUTPUT)) {
+			this.addTarget(GENERATE_OBJC, arg.substring(OPTION_OBJC_OUTPUT.length()));
+			return true;
+		}
+		if (arg.startsWith(OPTION_SWIFT_OUTPUT)) {
+			this.addTarget(GENERATE_SWIFT, arg.substring(OPTION_SWIFT_OUTPUT.length()));
+			return true;
+		}
+		if (arg.startsWith(OPTION_PARALLEL_PROJECTS)) {
+			try {
+				this.setParallelProjects(Integer.parseInt(arg.substring(OPTION_PARALLEL_PROJECTS.length())));
+				if (this.getParallelProjects() > 0) {
+					return true;
+				}
+			} catch (NumberFormatException e) {
+			}
+		}
+		if (arg.startsWith(OPTION_THREADS)) {
+			try {
+				this.setThreads(Integer.parseInt(arg.substring(OPTION_THREADS.length())));
+				if (this.getThreads() > 0) {
+					return true;
+				}
+			} catch (NumberFormatException e) {
+			}
+		}
+		result.append("-> Invalid argument: " + arg);
+		result.append("Usage: " + COMMAND_HELP);
+		result.setOk(false);
+		return false;
+	}
 	
 	public void run(String option, String projectFile, String outputDirectory, ExecutionResult result) throws Exception {
-		if (option == null || (!option.equals(GENERATE_JAVA) && !option.equals(GENERATE_OBJC) && !option.equals(GENERATE_SWIFT))) {
+		if (option != null && option.equals(GENERATE_ALL)) {
+			this.generateAll(projectFile, result);
+			return;
+		}
+		if (option == null || (!option.equals(GENERATE_JAVA) && !option.equals(GENERATE_OBJC) && !option.equals(GENERATE_SWIFT) && !option.equals(GENERATE_AND_COMPILE))) {
 			result.append("-> Invalid option! The command line is:");
 			result.append(COMMAND_HELP);
 			result.setOk(false);
@@ -98,10 +287,28 @@ public class MukiGenerator {
 			result.setOk(false);
 			return;
 		}
-		ModelUtility modelUtility = new ModelUtility();
-		Project newProject = modelUtility.openProject(projectFile);
-		this.setProject(newProject);
+		if (option.equals(GENERATE_AND_COMPILE)) {
+			this.setOutputDirectory(outputDirectory);
+			this.readProject(projectFile, result);
+			this.generateAndCompile(result);
+			return;
+		}
+		if (this.isIncremental() && !this.isArchive()) {
+			String newStamp = this.createStamp(option, projectFile, outputDirectory);
+			if (newStamp == null) {
+				result.append("-> The project and the generator didn't change since the last generation. Nothing to do.");
+				return;
+			}
+			this.setStamp(newStamp);
+			this.setProjectData(this.getIo().readBinaryFile(projectFile));
+		}
 		this.setOutputDirectory(outputDirectory);
+		if(option.equals(GENERATE_JAVA) && this.getCacheDirectory() == null && !this.isPartialGenerationAvailable(option, outputDirectory)) {
+			// The Java artifacts don't need the whole project, so the file is streamed
+			this.generateJava(projectFile, result);
+			return;
+		}
+		this.readProject(projectFile, result);
 		if(option.equals(GENERATE_JAVA)) {
 			this.generateJava(result);
 			return;
@@ -116,32 +323,389 @@ public class MukiGenerator {
 		}
 	}
 	
+	/**
+	 * Generates several projects in this process, using up to getParallelProjects() threads. Every project is
+	 * generated in a subdirectory of the output directory (or of the output directories of the targets, with
+	 * generate-all) named after the project file. The result has the messages of every project, and it's
+	 * not OK if any project failed.
+	 */
+	public void run(final String option, List<String> projectFiles, String outputDirectory, ExecutionResult result) throws Exception {
+		boolean generateAll = option != null && option.equals(GENERATE_ALL);
+		if (option == null || (!generateAll && !option.equals(GENERATE_JAVA) && !option.equals(GENERATE_OBJC) && !option.equals(GENERATE_SWIFT) && !option.equals(GENERATE_AND_COMPILE))) {
+			result.append("-> Invalid option! The command line is:");
+			result.append(COMMAND_HELP);
+			result.setOk(false);
+			return;
+		}
+		if (!generateAll && (outputDirectory == null || !this.getIo().existsFile(outputDirectory))) {
+			result.append("-> The output directory doesn't exists: " + outputDirectory);
+			result.setOk(false);
+			return;
+		}
+		Map<String, String> names = new LinkedHashMap<String, String>();
+		for (String projectFile : projectFiles) {
+			String name = this.getProjectName(projectFile);
+			if (names.containsKey(name)) {
+				result.append("-> The project files " + names.get(name) + " and " + projectFile + " would be generated in the same directory: " + name);
+				result.setOk(false);
+				return;
+			}
+			names.put(name, projectFile);
+		}
+		List<Callable<ExecutionResult>> tasks = new ArrayList<Callable<ExecutionResult>>();
+		for (Map.Entry<String, String> entry : names.entrySet()) {
+			final String projectFile = entry.getValue();
+			final MukiGenerator generator = this.createProjectGenerator(entry.getKey());
+			final String projectOutputDirectory = generateAll ? null : outputDirectory + "/" + entry.getKey();
+			final ExecutionResult projectResult = new ExecutionResult();
+			projectResult.setVerbose(result.isVerbose());
+			projectResult.setMaxMessages(result.getMaxMessages());
+			tasks.add(new Callable<ExecutionResult>() {
+				public ExecutionResult call() throws Exception {
+					projectResult.append("-> *** Project " + projectFile + " ***");
+					try {
+						if (projectOutputDirectory != null) {
+							getIo().createDirectory(projectOutputDirectory);
+						}
+						generator.run(option, projectFile, projectOutputDirectory, projectResult);
+					} catch (Exception e) {
+						projectResult.append("-> *** ERROR: " + e + " ***");
+						projectResult.setOk(false);
+					}
+					return projectResult;
+				}
+			});
+		}
+		int poolSize = this.getParallelProjects() > 0 ? this.getParallelProjects() : Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, tasks.size())));
+		List<String> failures = new ArrayList<String>();
+		try {
+			List<Future<ExecutionResult>> futures = executor.invokeAll(tasks);
+			Iterator<String> files = names.values().iterator();
+			for (Future<ExecutionResult> future : futures) {
+				String projectFile = files.next();
+				ExecutionResult projectResult = future.get();
+				result.append(projectResult);
+				if (!projectResult.isOk()) {
+					failures.add(projectFile);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		result.append("-> " + names.size() + " projects: " + (names.size() - failures.size()) + " OK, " + failures.size() + " FAILED");
+		for (String projectFile : failures) {
+			result.append("-> *** FAILED: " + projectFile + " ***");
+		}
+	}
+
+	/**
+	 * Saves the statistics of the generation (see GenerationStatistics) and the result as JSON in the report file.
+	 * Nothing is done if there is no report file.
+	 */
+	public void writeReport(ExecutionResult result) throws Exception {
+		if (this.getReportFile() == null) {
+			return;
+		}
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"version\": \"").append(Version.id()).append("\"");
+		json.append(",\n  \"ok\": ").append(result.isOk());
+		json.append(",\n  \"errors\": ").append(result.getErrors());
+		json.append(",\n  \"warnings\": ").append(result.getWarnings());
+		json.append(",\n  \"statistics\": ").append(result.getStatistics().toJson().replace("\n", "\n  "));
+		json.append("\n}\n");
+		this.getIo().writeBinaryFile(this.getReportFile(), json.toString().getBytes("UTF-8"));
+	}
+
+	/**
+	 * Returns the name of the output subdirectory of a project: the name of the file without the extension
+	 */
+	private String getProjectName(String projectFile) {
+		String name = new File(projectFile).getName();
+		int index = name.lastIndexOf('.');
+		return index > 0 ? name.substring(0, index) : name;
+	}
+
+	/**
+	 * Creates a generator with the same configuration of this one, for a project of a multi-project run
+	 */
+	private MukiGenerator createProjectGenerator(String name) {
+		MukiGenerator generator = new MukiGenerator();
+		generator.setIncremental(this.isIncremental());
+		generator.setArchive(this.isArchive());
+		generator.setStoreResources(this.isStoreResources());
+		generator.setThreads(this.getThreads());
+		generator.setCacheDirectory(this.getCacheDirectory());
+		generator.setJsonCodecs(this.isJsonCodecs());
+		generator.setXmlCodecs(this.isXmlCodecs());
+		generator.setExternalizable(this.isExternalizable());
+		generator.setClasspath(this.getClasspath());
+		for (Map.Entry<String, String> target : this.getTargets().entrySet()) {
+			String targetDirectory = target.getValue() + "/" + name;
+			this.getIo().createDirectory(targetDirectory);
+			generator.addTarget(target.getKey(), targetDirectory);
+		}
+		return generator;
+	}
+
+	/**
+	 * Generates the code and then generates it again every time the project file changes (see ProjectWatcher).
+	 * The arguments are the same of a normal generation: a single target with its output directory, or
+	 * generate-all with the targets. This method returns when the process is finished.
+	 */
+	private void watch(List<String> arguments, ExecutionResult result) throws Exception {
+		Map<String, String> watchTargets = new LinkedHashMap<String, String>();
+		if (arguments.size() == 2 && arguments.get(0).equals(GENERATE_ALL)) {
+			watchTargets.putAll(this.getTargets());
+		} else if (arguments.size() == 3 && (arguments.get(0).equals(GENERATE_JAVA) || arguments.get(0).equals(GENERATE_OBJC) || 
+				arguments.get(0).equals(GENERATE_SWIFT))) {
+			watchTargets.put(arguments.get(0), arguments.get(2));
+		}
+		if (watchTargets.isEmpty() || this.isArchive()) {
+			result.append("Usage: " + COMMAND_HELP);
+			result.setOk(false);
+			return;
+		}
+		String projectFile = arguments.get(1);
+		if(!this.getIo().existsFile(projectFile)) {
+			result.append("-> The project file doesn't exists: " + projectFile);
+			result.setOk(false);
+			return;
+		}
+		for (String outputDirectory : watchTargets.values()) {
+			if(outputDirectory == null || !this.getIo().existsFile(outputDirectory)) {
+				result.append("-> The output directory doesn't exists: " + outputDirectory);
+				result.setOk(false);
+				return;
+			}
+		}
+		ProjectWatcher watcher = new ProjectWatcher(projectFile, watchTargets);
+		watcher.setThreads(this.getThreads());
+		watcher.setJsonCodecs(this.isJsonCodecs());
+		watcher.setXmlCodecs(this.isXmlCodecs());
+		watcher.setExternalizable(this.isExternalizable());
+		watcher.watch(System.out);
+	}
+
+	/**
+	 * Generates several targets (Java, Objective-C, Swift) in a single run. The project is read and validated
+	 * once, and then the targets are generated at the same time, each one in its own output directory
+	 * (see addTarget()). The log reports the time spent in every target.
+	 */
+	public void generateAll(String projectFile, ExecutionResult result) throws Exception {
+		if (this.getTargets().isEmpty()) {
+			result.append("-> There are no targets to generate. The command line is:");
+			result.append(COMMAND_HELP);
+			result.setOk(false);
+			return;
+		}
+		if(projectFile == null || !this.getIo().existsFile(projectFile)) {
+			result.append("-> The project file doesn't exists: " + projectFile);
+			result.setOk(false);
+			return;
+		}
+		final Map<String, String> stamps = new LinkedHashMap<String, String>();
+		for (Map.Entry<String, String> target : this.getTargets().entrySet()) {
+			String outputDirectory = target.getValue();
+			if(outputDirectory == null || !this.getIo().existsFile(outputDirectory)) {
+				result.append("-> The output directory doesn't exists: " + outputDirectory);
+				result.setOk(false);
+				return;
+			}
+			String newStamp = (this.isIncremental() && !this.isArchive()) ? this.createStamp(target.getKey(), projectFile, outputDirectory) : "";
+			if (newStamp == null) {
+				result.append("-> " + target.getKey() + ": the project and the generator didn't change since the last generation. Nothing to do.");
+			} else {
+				stamps.put(target.getKey(), newStamp);
+			}
+		}
+		if (stamps.isEmpty()) {
+			return;
+		}
+		if (this.isIncremental() && !this.isArchive()) {
+			this.setProjectData(this.getIo().readBinaryFile(projectFile));
+		}
+		long start = System.currentTimeMillis();
+		this.readProject(projectFile, result);
+		final Project project = this.getProject();
+		this.validateModel(result);
+		result.append("-> Project read and validated in " + (System.currentTimeMillis() - start) + " ms");
+		if(!result.isOk()) {
+			return;
+		}
+		List<Callable<ExecutionResult>> tasks = new ArrayList<Callable<ExecutionResult>>();
+		for (final String option : stamps.keySet()) {
+			final String outputDirectory = this.getTargets().get(option);
+			final String targetStamp = stamps.get(option);
+			final ExecutionResult targetResult = new ExecutionResult();
+			targetResult.setVerbose(result.isVerbose());
+			tasks.add(new Callable<ExecutionResult>() {
+				public ExecutionResult call() throws Exception {
+					long targetStart = System.currentTimeMillis();
+					generate(option, project, outputDirectory, targetStamp, targetResult);
+					targetResult.append("-> " + option + " finished in " + (System.currentTimeMillis() - targetStart) + " ms");
+					return targetResult;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			for (Future<ExecutionResult> future : executor.invokeAll(tasks)) {
+				result.append(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		result.append("-> *** Code generation OK (" + (System.currentTimeMillis() - start) + " ms) ***");
+	}
+	
+	/**
+	 * Generates a target with a project that is already validated
+	 */
+	private void generate(String option, Project project, String outputDirectory, String targetStamp, ExecutionResult result) throws Exception {
+		long start = System.nanoTime();
+		Generator generator = this.createGenerator(option);
+		this.configure(generator);
+		generator.setStatistics(result.getStatistics());
+		GenerationManifest manifest = this.prepareGenerator(generator, option, outputDirectory);
+		ProjectChanges changes = this.findChanges(manifest, option, project, result);
+		generator.setChanges(changes);
+		try {
+			generator.generateAll(project, outputDirectory);
+		} finally {
+			this.closeArchive(generator, result);
+		}
+		result.getStatistics().addPhase(GenerationStatistics.GENERATION, System.nanoTime() - start);
+		this.finishOutputDirectory(manifest, targetStamp, changes, result);
+	}
+
+	/**
+	 * In incremental mode, compares the project with the copy saved by the last generation (see DependencyGraph
+	 * and ProjectChanges). Returns the changes, or null if all the artifacts must be generated.
+	 */
+	private ProjectChanges findChanges(GenerationManifest manifest, String option, Project project, ExecutionResult result) throws Exception {
+		if (manifest == null || !manifest.isComplete()) {
+			return null;
+		}
+		Project previousProject = manifest.loadProject(this.getStampOption(option));
+		if (previousProject == null) {
+			return null;
+		}
+		ProjectChanges changes = new ProjectChanges(new ProjectSnapshot(previousProject), new ProjectSnapshot(project));
+		if (changes.isFullGenerationRequired()) {
+			return null;
+		}
+		result.append("-> Partial generation: " + changes.getAffectedModels().size() + " models and " + 
+				changes.getAffectedControllers().size() + " controllers affected by the changes");
+		return changes;
+	}
+
+	/**
+	 * Returns true if the last generation in the directory saved the project, so only the artifacts
+	 * affected by the changes can be generated
+	 */
+	private boolean isPartialGenerationAvailable(String option, String outputDirectory) throws Exception {
+		if (!this.isIncremental() || this.isArchive()) {
+			return false;
+		}
+		GenerationManifest manifest = new GenerationManifest(outputDirectory);
+		return manifest.load() && manifest.hasProject(this.getStampOption(option));
+	}
+	
+	private Generator createGenerator(String option) throws Exception {
+		if (option.equals(GENERATE_OBJC)) {
+			return new ObjcGenerator();
+		}
+		if (option.equals(GENERATE_SWIFT)) {
+			return new SwiftGenerator();
+		}
+		return new JavaGenerator();
+	}
+	
+	/**
+	 * Applies the options of the generation of the target to its generator
+	 */
+	private void configure(Generator generator) {
+		if (generator instanceof JavaGenerator) {
+			((JavaGenerator)generator).setJsonCodecs(this.isJsonCodecs());
+			((JavaGenerator)generator).setXmlCodecs(this.isXmlCodecs());
+			((JavaGenerator)generator).setExternalizable(this.isExternalizable());
+		}
+	}
+
+	/**
+	 * Returns the option of the target for the stamps (see GenerationManifest.getStampOption())
+	 */
+	private String getStampOption(String option) {
+		return GenerationManifest.getStampOption(option, this.isJsonCodecs(), this.isXmlCodecs(), this.isExternalizable());
+	}
+
+	/**
+	 * Returns the stamp of the generation in incremental mode, or null if the project and the generator
+	 * didn't change since the last generation in the output directory
+	 */
+	private String createStamp(String option, String projectFile, String outputDirectory) throws Exception {
+		GenerationManifest manifest = new GenerationManifest(outputDirectory);
+		String newStamp = manifest.createStamp(this.getStampOption(option), projectFile);
+		if (manifest.load() && newStamp.equals(manifest.getStamp()) && manifest.isComplete()) {
+			return null;
+		}
+		return newStamp;
+	}
+	
 	public void generateJava(ExecutionResult result) {
 		this.validateModel(result);
 		if(!result.isOk()) {
 			return;
 		}
-		this.getIo().deleteDirectory(this.getOutputDirectory());
 		result.append("-> Generating Java classes...");
 		try {
-			JavaGenerator generator = new JavaGenerator();
-			generator.generateAll(this.getProject(), this.getOutputDirectory());
+			this.generate(GENERATE_JAVA, this.getProject(), this.getOutputDirectory(), this.getStamp(), result);
 			result.append("-> *** Code generation OK ***");
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
 	
+	/**
+	 * Generates the Java classes reading the project file with a ProjectReader. The project
+	 * is never loaded in memory, so the memory used doesn't depend on the size of the project.
+	 */
+	public void generateJava(String projectFile, ExecutionResult result) throws Exception {
+		result.append("-> Validating the project...");
+		long start = System.nanoTime();
+		ModelUtility modelUtility = new ModelUtility();
+		modelUtility.validate(projectFile, result);
+		result.getStatistics().addPhase(GenerationStatistics.VALIDATION, System.nanoTime() - start);
+		this.appendValidationResult(result);
+		if(!result.isOk()) {
+			return;
+		}
+		result.append("-> Generating Java classes...");
+		start = System.nanoTime();
+		JavaGenerator generator = new JavaGenerator();
+		this.configure(generator);
+		generator.setBinaryCodecs(modelUtility.isBinarySerializationUsed());
+		generator.setStatistics(result.getStatistics());
+		GenerationManifest manifest = this.prepareGenerator(generator, GENERATE_JAVA, this.getOutputDirectory());
+		try {
+			generator.generateAll(projectFile, this.getOutputDirectory());
+		} finally {
+			this.closeArchive(generator, result);
+		}
+		result.getStatistics().addPhase(GenerationStatistics.GENERATION, System.nanoTime() - start);
+		this.finishOutputDirectory(manifest, this.getStamp(), null, result);
+		result.append("-> *** Code generation OK ***");
+	}
+	
 	public void generateObjC(ExecutionResult result) throws Exception {
 		this.validateModel(result);
 		if(!result.isOk()) {
 			return;
 		}
-		this.getIo().deleteDirectory(this.getOutputDirectory());
 		result.append("-> Generating Objective-C classes...");
 		try {
-			ObjcGenerator generator = new ObjcGenerator();
-			generator.generateAll(this.getProject(), this.getOutputDirectory());
+			this.generate(GENERATE_OBJC, this.getProject(), this.getOutputDirectory(), this.getStamp(), result);
 			result.append("-> *** Code generation OK ***");
 		} catch (Exception e) {
 			throw new RuntimeException(e);
@@ -153,11 +717,9 @@ public class MukiGenerator {
 		if(!result.isOk()) {
 			return;
 		}
-		this.getIo().deleteDirectory(this.getOutputDirectory());
 		result.append("-> Generating Swift classes...");
 		try {
-			SwiftGenerator generator = new SwiftGenerator();
-			generator.generateAll(this.getProject(), this.getOutputDirectory());
+			this.generate(GENERATE_SWIFT, this.getProject(), this.getOutputDirectory(), this.getStamp(), result);
 			result.append("-> *** Code generation OK ***");
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -165,13 +727,181 @@ public class MukiGenerator {
 		}
 	}
 	
+	/**
+	 * Generates the Java classes in memory and compiles them in this process (see JavaSourceCompiler): the sources
+	 * are not written. The classes are written to the output directory, or to a jar (CLASSES_ARCHIVE) in archive mode.
+	 * The errors of the compiler are added to the result.
+	 */
+	public void generateAndCompile(ExecutionResult result) {
+		this.validateModel(result);
+		if(!result.isOk()) {
+			return;
+		}
+		result.append("-> Generating Java classes...");
+		try {
+			long start = System.nanoTime();
+			MemoryOutputSink sink = new MemoryOutputSink(this.getOutputDirectory());
+			JavaGenerator generator = new JavaGenerator();
+			this.configure(generator);
+			generator.setStatistics(result.getStatistics());
+			generator.setThreads(this.getThreads());
+			generator.setOutputSink(sink);
+			generator.generateAll(this.getProject(), this.getOutputDirectory());
+			result.getStatistics().addPhase(GenerationStatistics.GENERATION, System.nanoTime() - start);
+
+			Map<String, byte[]> sources = sink.getFiles();
+			result.append("-> Compiling " + sources.size() + " files...");
+			start = System.nanoTime();
+			JavaSourceCompiler compiler = new JavaSourceCompiler();
+			if (this.getClasspath() != null) {
+				compiler.setClasspath(this.getClasspath());
+			}
+			Map<String, byte[]> classes = compiler.compile(sources, result);
+			result.getStatistics().addPhase(GenerationStatistics.COMPILATION, System.nanoTime() - start);
+			if (!result.isOk()) {
+				result.append("-> *** Compilation FAILED ***");
+				return;
+			}
+			if (this.isArchive()) {
+				compiler.writeJar(classes, this.getOutputDirectory() + "/" + CLASSES_ARCHIVE);
+				result.append("-> Archive: " + classes.size() + " files written");
+			} else {
+				compiler.writeClasses(classes, this.getOutputDirectory());
+			}
+			result.append("-> *** Compilation OK: " + classes.size() + " files ***");
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Configures the generator for a target. In archive mode, the artifacts are written to an archive
+	 * in the output directory (see JAVA_ARCHIVE, etc.), and the rest of the directory is not modified.
+	 * Otherwise, the output directory is prepared and the manifest is returned (in incremental mode).
+	 */
+	private GenerationManifest prepareGenerator(Generator generator, String option, String outputDirectory) throws Exception {
+		generator.setThreads(this.getThreads());
+		if (this.isArchive()) {
+			String archiveFile = outputDirectory + "/" + this.getArchiveName(option);
+			ZipOutputSink sink = new ZipOutputSink(archiveFile, outputDirectory);
+			sink.setStoreResources(this.isStoreResources());
+			generator.setOutputSink(sink);
+			return null;
+		}
+		GenerationManifest manifest = this.prepareOutputDirectory(outputDirectory);
+		generator.setManifest(manifest);
+		return manifest;
+	}
+
+	private String getArchiveName(String option) {
+		if (option.equals(GENERATE_OBJC)) {
+			return OBJC_ARCHIVE;
+		}
+		if (option.equals(GENERATE_SWIFT)) {
+			return SWIFT_ARCHIVE;
+		}
+		return JAVA_ARCHIVE;
+	}
+
+	/**
+	 * Completes the archive if the generator writes to one
+	 */
+	private void closeArchive(Generator generator, ExecutionResult result) throws Exception {
+		if (generator.getOutputSink() instanceof ZipOutputSink) {
+			ZipOutputSink sink = (ZipOutputSink)generator.getOutputSink();
+			sink.close();
+			result.append("-> Archive: " + sink.getEntries() + " files written");
+		}
+	}
+
+	/**
+	 * Prepares the output directory before the generation. In normal mode the directory is deleted and all
+	 * the files are generated again. In incremental mode the manifest of the last generation is loaded
+	 * and returned, so only the files that changed are written. If there is no manifest, we don't know which
+	 * files belong to Muki and the directory is cleaned as usual.
+	 */
+	private GenerationManifest prepareOutputDirectory(String outputDirectory) throws Exception {
+		if (!this.isIncremental()) {
+			this.getIo().deleteDirectory(outputDirectory);
+			return null;
+		}
+		GenerationManifest manifest = new GenerationManifest(outputDirectory);
+		if (!manifest.load()) {
+			this.getIo().deleteDirectory(outputDirectory);
+		}
+		this.getIo().createDirectory(outputDirectory);
+		return manifest;
+	}
+
+	/**
+	 * In incremental mode, removes the files that are not generated anymore and saves the manifest with
+	 * a copy of the project. After a partial generation (with changes) the other files are kept.
+	 */
+	private void finishOutputDirectory(GenerationManifest manifest, String newStamp, ProjectChanges changes, ExecutionResult result) throws Exception {
+		if (manifest == null) {
+			return;
+		}
+		if (changes == null) {
+			manifest.removeStaleFiles();
+		} else {
+			manifest.keepPreviousFiles();
+		}
+		manifest.setStamp(newStamp);
+		manifest.setProjectData(this.getProjectData());
+		manifest.save();
+		result.append("-> Incremental generation: " + manifest.getWrittenFiles() + " files written, " + manifest.getUnchangedFiles() + 
+				" unchanged, " + manifest.getRemovedFiles() + " removed");
+	}
+
+	/**
+	 * Reads the project file. If there is a cache directory (see ProjectCache), the project is validated
+	 * here and saved in the cache, or read from the cache if it was already validated.
+	 */
+	private void readProject(String projectFile, ExecutionResult result) throws Exception {
+		ModelUtility modelUtility = new ModelUtility();
+		long start = System.nanoTime();
+		if (this.getCacheDirectory() == null) {
+			this.setProject(modelUtility.openProject(projectFile));
+			result.getStatistics().addPhase(GenerationStatistics.PARSING, System.nanoTime() - start);
+			return;
+		}
+		ProjectCache cache = new ProjectCache(this.getCacheDirectory());
+		byte[] data = this.getIo().readBinaryFile(projectFile);
+		Project cachedProject = cache.get(data);
+		result.getStatistics().addPhase(GenerationStatistics.PARSING, System.nanoTime() - start);
+		if (cachedProject != null) {
+			this.setProject(cachedProject);
+			this.setValidated(true);
+			result.append("-> The project was read from the cache. Validation is OK");
+			return;
+		}
+		start = System.nanoTime();
+		this.setProject(modelUtility.openProject(projectFile));
+		result.getStatistics().addPhase(GenerationStatistics.PARSING, System.nanoTime() - start);
+		this.validateModel(result);
+		this.setValidated(true);
+		if (result.isOk()) {
+			cache.put(data, this.getProject());
+		}
+	}
+
 	/**
 	 * Validates the model and adds error messages to the ExecutionResult
 	 */
 	private void validateModel(ExecutionResult result) {
+		if (this.isValidated()) {
+			// See readProject()
+			return;
+		}
 		result.append("-> Validating the project...");
+		long start = System.nanoTime();
 		ModelUtility modelUtility = new ModelUtility();
 		modelUtility.validate(this.getProject(), result);
+		result.getStatistics().addPhase(GenerationStatistics.VALIDATION, System.nanoTime() - start);
+		this.appendValidationResult(result);
+	}
+	
+	private void appendValidationResult(ExecutionResult result) {
 		if(result.isOk()) {
 			result.append("-> Validation is OK");
 		} else {
@@ -186,6 +916,18 @@ public class MukiGenerator {
 
 	public void setProject(Project project) {
 		this.project = project;
+		this.setValidated(false);
+	}
+
+	/**
+	 * True if the project was already validated (see readProject())
+	 */
+	private boolean isValidated() {
+		return validated;
+	}
+
+	private void setValidated(boolean validated) {
+		this.validated = validated;
 	}
 
 	public String getOutputDirectory() {
@@ -196,6 +938,177 @@ public class MukiGenerator {
 		this.outputDirectory = outputDirectory;
 	}
 
+	/**
+	 * In incremental mode the generator writes only the files that changed since the last
+	 * generation, instead of deleting the output directory and generating everything again.
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Number of threads used to render the templates
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Adds a target for generate-all: the option (generate-java, generate-objc or generate-swift)
+	 * and the output directory
+	 */
+	public void addTarget(String option, String outputDirectory) {
+		this.getTargets().put(option, outputDirectory);
+	}
+
+	private Map<String, String> getTargets() {
+		return targets;
+	}
+
+	private void setTargets(Map<String, String> targets) {
+		this.targets = targets;
+	}
+
+	/**
+	 * In archive mode, every target is written to a single zip or jar file in its output directory, 
+	 * instead of a file for each artifact. The incremental mode doesn't apply to archives.
+	 */
+	public boolean isArchive() {
+		return archive;
+	}
+
+	public void setArchive(boolean archive) {
+		this.archive = archive;
+	}
+
+	/**
+	 * If true, the static support files are stored in the archive without compression
+	 */
+	public boolean isStoreResources() {
+		return storeResources;
+	}
+
+	public void setStoreResources(boolean storeResources) {
+		this.storeResources = storeResources;
+	}
+
+	/**
+	 * File where the statistics of the generation are saved as JSON (see writeReport()). If it's null, there is no report.
+	 */
+	public String getReportFile() {
+		return reportFile;
+	}
+
+	public void setReportFile(String reportFile) {
+		this.reportFile = reportFile;
+	}
+
+	/**
+	 * Maximum number of projects generated at the same time (see run(String, List, String, ExecutionResult)).
+	 * If it's 0, the number of processors is used.
+	 */
+	public int getParallelProjects() {
+		return parallelProjects;
+	}
+
+	public void setParallelProjects(int parallelProjects) {
+		this.parallelProjects = parallelProjects;
+	}
+
+	/**
+	 * Directory where the validated projects are saved (see ProjectCache). If it's null, the cache is not used.
+	 */
+	public String getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	public void setCacheDirectory(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * If it's true, the Java target includes the JSON codecs of the models (see JavaGenerator.setJsonCodecs())
+	 */
+	public boolean isJsonCodecs() {
+		return jsonCodecs;
+	}
+
+	public void setJsonCodecs(boolean jsonCodecs) {
+		this.jsonCodecs = jsonCodecs;
+	}
+
+	/**
+	 * If it's true, the Java target includes the XML codecs of the models (see JavaGenerator.setXmlCodecs())
+	 */
+	public boolean isXmlCodecs() {
+		return xmlCodecs;
+	}
+
+	public void setXmlCodecs(boolean xmlCodecs) {
+		this.xmlCodecs = xmlCodecs;
+	}
+
+	/**
+	 * If it's true, the models of the Java target implement Externalizable (see JavaGenerator.setExternalizable())
+	 */
+	public boolean isExternalizable() {
+		return externalizable;
+	}
+
+	public void setExternalizable(boolean externalizable) {
+		this.externalizable = externalizable;
+	}
+
+	/**
+	 * Classpath used to compile the generated classes in generate-and-compile (the JAX-RS, JAXB and Jackson
+	 * libraries). By default, the classpath of this process (see JavaSourceCompiler).
+	 */
+	public String getClasspath() {
+		return classpath;
+	}
+
+	public void setClasspath(String classpath) {
+		this.classpath = classpath;
+	}
+
+	/**
+	 * In watch mode, the generator keeps running and generates the code again every time the project changes
+	 */
+	public boolean isWatch() {
+		return watch;
+	}
+
+	public void setWatch(boolean watch) {
+		this.watch = watch;
+	}
+
+	/**
+	 * The content of the project file, saved with the manifest in incremental mode
+	 */
+	private byte[] getProjectData() {
+		return projectData;
+	}
+
+	private void setProjectData(byte[] projectData) {
+		this.projectData = projectData;
+	}
+
+	private String getStamp() {
+		return stamp;
+	}
+
+	private void setStamp(String stamp) {
+		this.stamp = stamp;
+	}
+
 	private IOUtility getIo() {
 		return io;
 	}
@@ -15,8 +15,9 @@
  */
 package muki.tool;
 
-import java.io.FileWriter;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import muki.tool.model.ModelDefinitionsType;
 import muki.tool.model.ModelType;
@@ -24,9 +25,7 @@ import muki.tool.model.Project;
 import muki.tool.model.ControllerDefinitionsType;
 import muki.tool.model.ControllerType;
 
-import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 
 /**
  * This class generates the following Objective-C artifacts for a Cocoa restful client:
@@ -36,99 +35,109 @@ import org.apache.velocity.app.Velocity;
  * - Support classes used  by the implementation: XmlAttribute and ObjectParserDelegate
  * - Client Stub to access the remote restful service
  */
-public class ObjcGenerator {
+public class ObjcGenerator extends Generator {
 
-	private IOUtility io;
-	
 	public ObjcGenerator() throws Exception {
-		this.init();
-	}
-
-	private void init() throws Exception {
-		this.setIo(new IOUtility());
-		Velocity.init(this.getIo().getProperties("velocity.properties"));
+		super(new ObjcVelocityHelper());
 	}
 
 	/**
 	 * This is the main method that generates all the artifacts
 	 */
-	public void generateAll(Project project, String outputDirectory) throws Exception {
-		ModelDefinitionsType allTypes = project.getModelDefinitions();
-		for (ModelType aType : allTypes.getModel()) {
-			this.generateTypeInterface(aType, outputDirectory);
-			this.generateTypeImpl(aType, outputDirectory);
-			this.generateParserDelegateInterface(aType, outputDirectory);
-			this.generateParserDelegateImpl(aType, outputDirectory);
+	public void generateAll(Project project, final String outputDirectory) throws Exception {
+		final ModelDefinitionsType allTypes = project.getModelDefinitions();
+		final ControllerDefinitionsType allControllers = project.getControllerDefinitions();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (final ModelType aType : allTypes.getModel()) {
+			if (!this.isChanged(aType)) {
+				continue;
+			}
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateTypeInterface(aType, outputDirectory);
+					generateTypeImpl(aType, outputDirectory);
+					generateParserDelegateInterface(aType, outputDirectory);
+					generateParserDelegateImpl(aType, outputDirectory);
+					return null;
+				}
+			});
+		}
+		for (final ControllerType aController : allControllers.getController()) {
+			// The stubs have methods for every model
+			if (!this.isChanged(aController) && !this.isModelListChanged()) {
+				continue;
+			}
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateControllerStubInterface(aController, allControllers, allTypes, outputDirectory);
+					generateControllerStubImpl(aController, allTypes, outputDirectory);
+					return null;
+				}
+			});
+		}
+		if (this.isGeneratingAll()) {
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateSupportClasses(outputDirectory);
+					return null;
+				}
+			});
 		}
-		ControllerDefinitionsType allControllers = project.getControllerDefinitions();
-		for (ControllerType aController : allControllers.getController()) {
-			this.generateControllerStubInterface(aController, allControllers, allTypes, outputDirectory);
-			this.generateControllerStubImpl(aController, allTypes, outputDirectory);
+		if (this.isModelsChanged()) {
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateXmlSerializerInterface(allTypes, outputDirectory);
+					generateXmlSerializerImpl(allTypes, outputDirectory);
+					return null;
+				}
+			});
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateJsonSerializerInterface(allTypes, outputDirectory);
+					generateJsonSerializerImpl(allTypes, outputDirectory);
+					return null;
+				}
+			});
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateJsonDeserializerInterface(allTypes, outputDirectory);
+					generateJsonDeserializerImpl(allTypes, outputDirectory);
+					return null;
+				}
+			});
 		}
-		this.generateSupportClasses(outputDirectory);
-		this.generateXmlSerializerInterface(allTypes, outputDirectory);
-		this.generateXmlSerializerImpl(allTypes, outputDirectory);
-		this.generateJsonSerializerInterface(allTypes, outputDirectory);
-		this.generateJsonSerializerImpl(allTypes, outputDirectory);
-		this.generateJsonDeserializerInterface(allTypes, outputDirectory);
-		this.generateJsonDeserializerImpl(allTypes, outputDirectory);
+		this.execute(tasks);
 	}
 	
 	public void generateTypeInterface(ModelType type, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("type", type);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_type.h.vm");
 		String fileName = outputDirectory + "/" + type.getName() + ".h";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_type.h.vm", context, fileName);
 	}
 	
 	public void generateTypeImpl(ModelType type, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("type", type);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_type.m.vm");
 		String fileName = outputDirectory + "/" + type.getName() + ".m";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_type.m.vm", context, fileName);
 	}
 
 	public void generateSupportClasses(String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		URL url = this.getClass().getResource("/templates/template_objc_NSDataBase64.h.vm");
-		byte[] data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/NSDataBase64.h", data);
-		url = this.getClass().getResource("/templates/template_objc_NSDataBase64.m.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/NSDataBase64.m", data);
+		this.createDirectory(outputDirectory);
+		this.copyResource("/templates/template_objc_NSDataBase64.h.vm", outputDirectory + "/NSDataBase64.h");
+		this.copyResource("/templates/template_objc_NSDataBase64.m.vm", outputDirectory + "/NSDataBase64.m");
 		
-		url = this.getClass().getResource("/templates/template_objc_ObjectParserDelegate.h.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/ObjectParserDelegate.h", data);
-		url = this.getClass().getResource("/templates/template_objc_ObjectParserDelegate.m.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/ObjectParserDelegate.m", data);
+		this.copyResource("/templates/template_objc_ObjectParserDelegate.h.vm", outputDirectory + "/ObjectParserDelegate.h");
+		this.copyResource("/templates/template_objc_ObjectParserDelegate.m.vm", outputDirectory + "/ObjectParserDelegate.m");
 
-		url = this.getClass().getResource("/templates/template_objc_XmlAttribute.h.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/XmlAttribute.h", data);
-		url = this.getClass().getResource("/templates/template_objc_XmlAttribute.m.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/XmlAttribute.m", data);
+		this.copyResource("/templates/template_objc_XmlAttribute.h.vm", outputDirectory + "/XmlAttribute.h");
+		this.copyResource("/templates/template_objc_XmlAttribute.m.vm", outputDirectory + "/XmlAttribute.m");
 		
-		url = this.getClass().getResource("/templates/template_objc_MukiControllerStub.h.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/MukiControllerStub.h", data);
-		url = this.getClass().getResource("/templates/template_objc_MukiControllerStub.m.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/MukiControllerStub.m", data);
+		this.copyResource("/templates/template_objc_MukiControllerStub.h.vm", outputDirectory + "/MukiControllerStub.h");
+		this.copyResource("/templates/template_objc_MukiControllerStub.m.vm", outputDirectory + "/MukiControllerStub.m");
 		
 		// Files of the JSON-Framework (Google)
 		String[] fileNames= new String[] {"NSObject+SBJson.h", "NSObject+SBJson.m", "SBJson.h", "SBJsonParser.h", "SBJsonParser.m", "SBJsonStreamParser.h", "SBJsonStreamParser.m",
@@ -137,150 +146,90 @@ public class ObjcGenerator {
 		"SBJsonStreamWriterAccumulator.m", "SBJsonStreamWriterState.h", "SBJsonStreamWriterState.m", "SBJsonTokeniser.h", "SBJsonTokeniser.m",
 		"SBJsonUTF8Stream.h", "SBJsonUTF8Stream.m", "SBJsonWriter.h", "SBJsonWriter.m"};
 		for (int i = 0; i < fileNames.length; i++) {
-			url = this.getClass().getResource("/templates/" + fileNames[i]);
-			data = this.getIo().readBytes(url);
-			this.getIo().writeBinaryFile(outputDirectory + "/" + fileNames[i], data);
+			this.copyResource("/templates/" + fileNames[i], outputDirectory + "/" + fileNames[i]);
 		}
 	}
 
 	public void generateParserDelegateInterface(ModelType type, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("type", type);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_type_parser.h.vm");
 		String fileName = outputDirectory + "/" + type.getName() + "ParserDelegate.h";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_type_parser.h.vm", context, fileName);
 	}
 
 	public void generateParserDelegateImpl(ModelType type, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("type", type);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_type_parser.m.vm");
 		String fileName = outputDirectory + "/" + type.getName() + "ParserDelegate.m";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_type_parser.m.vm", context, fileName);
 	}
 
 	public void generateXmlSerializerInterface(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_XmlSerializer.h.vm");
 		String fileName = outputDirectory + "/XmlSerializer.h";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_XmlSerializer.h.vm", context, fileName);
 	}
 
 	public void generateXmlSerializerImpl(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_XmlSerializer.m.vm");
 		String fileName = outputDirectory + "/XmlSerializer.m";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_XmlSerializer.m.vm", context, fileName);
 	}
 
 	public void generateControllerStubInterface(ControllerType controller, ControllerDefinitionsType controllerDefinitions, ModelDefinitionsType modelDefinitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("controller", controller);
 		context.put("modelDefinitions", modelDefinitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_controller_stub.h.vm");
 		String fileName = outputDirectory + "/" + controller.getName() + "Stub.h";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_controller_stub.h.vm", context, fileName);
 	}
 	
 	public void generateControllerStubImpl(ControllerType controller, ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("controller", controller);
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_controller_stub.m.vm");
 		String fileName = outputDirectory + "/" + controller.getName() + "Stub.m";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_controller_stub.m.vm", context, fileName);
 	}
 	
 	public void generateJsonDeserializerInterface(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_JsonDeserializer.h.vm");
 		String fileName = outputDirectory + "/JsonDeserializer.h";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_JsonDeserializer.h.vm", context, fileName);
 	}
 
 	public void generateJsonDeserializerImpl(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_JsonDeserializer.m.vm");
 		String fileName = outputDirectory + "/JsonDeserializer.m";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_JsonDeserializer.m.vm", context, fileName);
 	}
 
 	public void generateJsonSerializerInterface(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_JsonSerializer.h.vm");
 		String fileName = outputDirectory + "/JsonSerializer.h";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_objc_JsonSerializer.h.vm", context, fileName);
 	}
 
 	public void generateJsonSerializerImpl(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new ObjcVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_objc_JsonSerializer.m.vm");
 		String fileName = outputDirectory + "/JsonSerializer.m";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
-	}
-
-	private IOUtility getIo() {
-		return io;
-	}
-
-	private void setIo(IOUtility io) {
-		this.io = io;
+		this.merge("/templates/template_objc_JsonSerializer.m.vm", context, fileName);
 	}
 
 }
@@ -0,0 +1,42 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.net.URL;
+
+/**
+ * Destination of the artifacts produced by the generators. The generators build the names of the files
+ * under the output directory, and the sink decides where the content goes: the disk (FileOutputSink),
+ * memory (MemoryOutputSink), etc. The implementations must support concurrent writes, because the
+ * artifacts can be rendered in parallel.
+ */
+public interface OutputSink {
+
+	/**
+	 * Called before writing the files of a directory
+	 */
+	public void createDirectory(String directory) throws Exception;
+
+	public void write(String fileName, byte[] data) throws Exception;
+
+	/**
+	 * Writes a static support file copied from the classpath (it's the same in every generation).
+	 * The resource should be streamed, not loaded in memory, when the sink allows it. Returns false if
+	 * the file already had the same content and it was not written again.
+	 */
+	public boolean writeResource(String fileName, URL resource) throws Exception;
+
+}
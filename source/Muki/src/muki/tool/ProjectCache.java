@@ -0,0 +1,134 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import muki.tool.model.Project;
+
+/**
+ * Cache of validated projects in a directory. The projects are saved in binary form (serialized), and the
+ * name of every file is the hash of the content of the project file and the version of Muki. Reading a project
+ * from the cache is much faster than parsing and validating the XML file, and several builds can share the
+ * same cache (for example, the targets of an Ant build that generate the code for the same project).
+ * 
+ * When the project file or Muki change, the hash is different and the project is read and validated again.
+ * Only the last MAX_ENTRIES projects are kept.
+ */
+public class ProjectCache {
+
+	public static int MAX_ENTRIES = 20;
+	private static String EXTENSION = ".project";
+	private String directory;
+	private IOUtility io;
+
+	public ProjectCache(String directory) {
+		this.setDirectory(directory);
+		this.setIo(new IOUtility());
+	}
+
+	/**
+	 * Returns the validated project for the content of the project file, or null if it's not in the cache
+	 */
+	public Project get(byte[] projectData) {
+		File file = this.getFile(projectData);
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				return (Project)in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			// The file is incomplete or was saved by other version of the classes: it will be saved again
+			return null;
+		}
+	}
+
+	/**
+	 * Saves a validated project. The file is written with a temporary name and then renamed, so other
+	 * processes never read an incomplete file.
+	 */
+	public void put(byte[] projectData, Project project) throws Exception {
+		this.getIo().createDirectory(this.getDirectory());
+		File file = this.getFile(projectData);
+		File temp = File.createTempFile("muki", ".tmp", new File(this.getDirectory()));
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			out.writeObject(project);
+		} finally {
+			out.close();
+		}
+		if (!temp.renameTo(file)) {
+			// Other process saved the same project
+			temp.delete();
+		}
+		this.removeOldEntries();
+	}
+
+	private void removeOldEntries() {
+		File[] files = new File(this.getDirectory()).listFiles(new FilenameFilter() {
+			public boolean accept(File dir, String name) {
+				return name.endsWith(EXTENSION);
+			}
+		});
+		if (files == null || files.length <= MAX_ENTRIES) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File file1, File file2) {
+				return Long.valueOf(file2.lastModified()).compareTo(file1.lastModified());
+			}
+		});
+		for (int i = MAX_ENTRIES; i < files.length; i++) {
+			files[i].delete();
+		}
+	}
+
+	private File getFile(byte[] projectData) {
+		String hash = this.getIo().digest(projectData);
+		return new File(this.getDirectory(), "muki-" + Version.id() + "-" + hash + EXTENSION);
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	private void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
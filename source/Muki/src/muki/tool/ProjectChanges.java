@@ -0,0 +1,167 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelType;
+
+/**
+ * The differences between two versions of a project. A generator with changes (see Generator.setChanges())
+ * only generates the artifacts of the models and controllers affected by the changes (see DependencyGraph),
+ * plus the artifacts that depend on all of them. If a model or controller was removed or renamed, the definitions changed,
+ * the binary serialization started or stopped being used, or the pages of the paginated operations changed, the whole project
+ * must be generated again (see isFullGenerationRequired()).
+ */
+public class ProjectChanges {
+
+	private Set<String> changedModels;
+	private Set<String> changedControllers;
+	private Set<String> affectedModels;
+	private Set<String> affectedControllers;
+	private boolean modelListChanged;
+	private boolean controllerListChanged;
+	private boolean fullGenerationRequired;
+
+	public ProjectChanges(ProjectSnapshot previous, ProjectSnapshot current) {
+		this.setChangedModels(this.findChanges(previous.getModelHashes(), current.getModelHashes()));
+		this.setChangedControllers(this.findChanges(previous.getControllerHashes(), current.getControllerHashes()));
+		this.setAffectedModels(current.getDependencies().getAffectedModels(this.getChangedModels()));
+		this.setAffectedControllers(current.getDependencies().getAffectedControllers(this.getAffectedModels(), this.getChangedControllers()));
+		this.setModelListChanged(!new ArrayList<String>(previous.getModelHashes().keySet()).equals(new ArrayList<String>(current.getModelHashes().keySet())));
+		this.setControllerListChanged(!new ArrayList<String>(previous.getControllerHashes().keySet()).equals(new ArrayList<String>(current.getControllerHashes().keySet())));
+		boolean removed = !current.getModelHashes().keySet().containsAll(previous.getModelHashes().keySet()) ||
+			!current.getControllerHashes().keySet().containsAll(previous.getControllerHashes().keySet());
+		this.setFullGenerationRequired(removed || !this.equals(previous.getName(), current.getName()) ||
+			previous.isBinarySerialization() != current.isBinarySerialization() ||
+			!previous.getPageModels().equals(current.getPageModels()) ||
+			!this.equals(previous.getModelPackage(), current.getModelPackage()) ||
+			!this.equals(previous.getControllerPackage(), current.getControllerPackage()));
+	}
+
+	/**
+	 * Returns the names of the elements that are new or have a different hash
+	 */
+	private Set<String> findChanges(Map<String, String> previous, Map<String, String> current) {
+		Set<String> changes = new HashSet<String>();
+		for (Map.Entry<String, String> entry : current.entrySet()) {
+			if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+				changes.add(entry.getKey());
+			}
+		}
+		return changes;
+	}
+
+	private boolean equals(String previous, String current) {
+		return previous == null ? current == null : previous.equals(current);
+	}
+
+	/**
+	 * Returns true if the model changed or uses a model that changed
+	 */
+	public boolean isChanged(ModelType model) {
+		return this.getAffectedModels().contains(model.getName());
+	}
+
+	/**
+	 * Returns true if the controller changed or uses a model affected by the changes
+	 */
+	public boolean isChanged(ControllerType controller) {
+		return this.getAffectedControllers().contains(controller.getName());
+	}
+
+	/**
+	 * Returns true if any model changed, or the list of models is different
+	 */
+	public boolean isModelsChanged() {
+		return this.isModelListChanged() || !this.getChangedModels().isEmpty();
+	}
+
+	/**
+	 * Returns true if any controller changed, or the list of controllers is different
+	 */
+	public boolean isControllersChanged() {
+		return this.isControllerListChanged() || !this.getChangedControllers().isEmpty();
+	}
+
+	public boolean isEmpty() {
+		return !this.isFullGenerationRequired() && !this.isModelsChanged() && !this.isControllersChanged();
+	}
+
+	public Set<String> getChangedModels() {
+		return changedModels;
+	}
+
+	private void setChangedModels(Set<String> changedModels) {
+		this.changedModels = changedModels;
+	}
+
+	public Set<String> getChangedControllers() {
+		return changedControllers;
+	}
+
+	private void setChangedControllers(Set<String> changedControllers) {
+		this.changedControllers = changedControllers;
+	}
+
+	public Set<String> getAffectedModels() {
+		return affectedModels;
+	}
+
+	private void setAffectedModels(Set<String> affectedModels) {
+		this.affectedModels = affectedModels;
+	}
+
+	public Set<String> getAffectedControllers() {
+		return affectedControllers;
+	}
+
+	private void setAffectedControllers(Set<String> affectedControllers) {
+		this.affectedControllers = affectedControllers;
+	}
+
+	/**
+	 * Returns true if the names or the order of the models changed
+	 */
+	public boolean isModelListChanged() {
+		return modelListChanged;
+	}
+
+	private void setModelListChanged(boolean modelListChanged) {
+		this.modelListChanged = modelListChanged;
+	}
+
+	public boolean isControllerListChanged() {
+		return controllerListChanged;
+	}
+
+	private void setControllerListChanged(boolean controllerListChanged) {
+		this.controllerListChanged = controllerListChanged;
+	}
+
+	public boolean isFullGenerationRequired() {
+		return fullGenerationRequired;
+	}
+
+	private void setFullGenerationRequired(boolean fullGenerationRequired) {
+		this.fullGenerationRequired = fullGenerationRequired;
+	}
+
+}
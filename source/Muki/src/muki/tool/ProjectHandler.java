@@ -0,0 +1,45 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import muki.tool.model.ControllerDefinitionsType;
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelDefinitionsType;
+import muki.tool.model.ModelType;
+import muki.tool.model.Project;
+
+/**
+ * Receives the elements of a project file while it's read by the ProjectReader, one at a time.
+ * The definitions and the project passed as parameters only have the attributes (name, Java package, etc.):
+ * the models and controllers are never added to them.
+ */
+public interface ProjectHandler {
+
+	/**
+	 * Called at the beginning of the file. The project only has the name.
+	 */
+	public void startProject(Project project) throws Exception;
+
+	public void model(ModelDefinitionsType definitions, ModelType model) throws Exception;
+
+	public void controller(ControllerDefinitionsType definitions, ControllerType controller) throws Exception;
+
+	/**
+	 * Called at the end of the file. The definitions are null if they are not in the file.
+	 */
+	public void endProject(Project project) throws Exception;
+
+}
@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import muki.tool.model.ControllerDefinitionsType;
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelDefinitionsType;
+import muki.tool.model.ModelType;
+import muki.tool.model.Project;
+
+/**
+ * Reads a project file with StAX and passes the models and controllers to a ProjectHandler one at a time.
+ * Every model and controller is unmarshalled with JAXB on its own, so the whole project is never in memory:
+ * the memory used doesn't depend on the size of the file.
+ */
+public class ProjectReader {
+
+	private static String PROJECT = "project";
+	private static String MODEL_DEFINITIONS = "model-definitions";
+	private static String CONTROLLER_DEFINITIONS = "controller-definitions";
+	private static String MODEL = "model";
+	private static String CONTROLLER = "controller";
+	private static String NAME = "name";
+	private static String JAVA_PACKAGE = "java-package";
+	private XMLInputFactory factory;
+
+	public ProjectReader() {
+		this.setFactory(XMLInputFactory.newInstance());
+	}
+
+	public void read(String fileName, ProjectHandler handler) throws Exception {
+		InputStream in = new BufferedInputStream(new FileInputStream(fileName));
+		try {
+			this.read(in, handler);
+		} finally {
+			in.close();
+		}
+	}
+
+	public void read(InputStream in, ProjectHandler handler) throws Exception {
+		Unmarshaller unmarshaller = ModelUtility.getContext().createUnmarshaller();
+		XMLStreamReader reader = this.getFactory().createXMLStreamReader(in);
+		try {
+			Project project = new Project();
+			ModelDefinitionsType modelDefinitions = null;
+			ControllerDefinitionsType controllerDefinitions = null;
+			while (reader.hasNext()) {
+				if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+					reader.next();
+					continue;
+				}
+				String element = reader.getLocalName();
+				if (element.equals(PROJECT)) {
+					project.setName(reader.getAttributeValue(null, NAME));
+					handler.startProject(project);
+				} else if (element.equals(MODEL_DEFINITIONS)) {
+					modelDefinitions = new ModelDefinitionsType();
+					modelDefinitions.setJavaPackage(reader.getAttributeValue(null, JAVA_PACKAGE));
+					project.setModelDefinitions(modelDefinitions);
+				} else if (element.equals(CONTROLLER_DEFINITIONS)) {
+					controllerDefinitions = new ControllerDefinitionsType();
+					controllerDefinitions.setJavaPackage(reader.getAttributeValue(null, JAVA_PACKAGE));
+					project.setControllerDefinitions(controllerDefinitions);
+				} else if (element.equals(MODEL) && modelDefinitions != null) {
+					// The unmarshaller leaves the reader after the end of the element
+					ModelType model = unmarshaller.unmarshal(reader, ModelType.class).getValue();
+					handler.model(modelDefinitions, model);
+					continue;
+				} else if (element.equals(CONTROLLER) && controllerDefinitions != null) {
+					ControllerType controller = unmarshaller.unmarshal(reader, ControllerType.class).getValue();
+					handler.controller(controllerDefinitions, controller);
+					continue;
+				}
+				reader.next();
+			}
+			handler.endProject(project);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private XMLInputFactory getFactory() {
+		return factory;
+	}
+
+	private void setFactory(XMLInputFactory factory) {
+		this.factory = factory;
+	}
+
+}
@@ -0,0 +1,155 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelType;
+import muki.tool.model.Project;
+
+/**
+ * Fingerprint of a project: the content hash of every model and controller (in the order of the project),
+ * the attributes of the definitions, the use of the binary serialization, the pages of the paginated operations and the dependencies
+ * between models and controllers (see DependencyGraph).
+ * Two snapshots are compared to find what changed between two versions of a project (see ProjectChanges).
+ */
+public class ProjectSnapshot {
+
+	private String name;
+	private String modelPackage;
+	private String controllerPackage;
+	private boolean binarySerialization;
+	private List<String> pageModels;
+	private Map<String, String> modelHashes;
+	private Map<String, String> controllerHashes;
+	private DependencyGraph dependencies;
+
+	public ProjectSnapshot(Project project) throws Exception {
+		Marshaller marshaller = ModelUtility.getContext().createMarshaller();
+		IOUtility io = new IOUtility();
+		this.setName(project.getName());
+		this.setModelPackage(project.getModelDefinitions().getJavaPackage());
+		this.setControllerPackage(project.getControllerDefinitions().getJavaPackage());
+		this.setBinarySerialization(new ModelUtility().hasBinarySerialization(project.getControllerDefinitions()));
+		this.setPageModels(new ArrayList<String>());
+		for (ModelType page : new ModelUtility().getPageModels(project.getControllerDefinitions())) {
+			this.getPageModels().add(page.getName());
+		}
+		this.setDependencies(new DependencyGraph(project));
+		this.setModelHashes(new LinkedHashMap<String, String>());
+		for (ModelType model : project.getModelDefinitions().getModel()) {
+			JAXBElement<ModelType> element = new JAXBElement<ModelType>(new QName("model"), ModelType.class, model);
+			this.getModelHashes().put(model.getName(), io.digest(this.marshal(marshaller, element)));
+		}
+		this.setControllerHashes(new LinkedHashMap<String, String>());
+		for (ControllerType controller : project.getControllerDefinitions().getController()) {
+			JAXBElement<ControllerType> element = new JAXBElement<ControllerType>(new QName("controller"), ControllerType.class, controller);
+			this.getControllerHashes().put(controller.getName(), io.digest(this.marshal(marshaller, element)));
+		}
+	}
+
+	private byte[] marshal(Marshaller marshaller, Object element) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		marshaller.marshal(element, out);
+		return out.toByteArray();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	private void setName(String name) {
+		this.name = name;
+	}
+
+	public String getModelPackage() {
+		return modelPackage;
+	}
+
+	private void setModelPackage(String modelPackage) {
+		this.modelPackage = modelPackage;
+	}
+
+	public String getControllerPackage() {
+		return controllerPackage;
+	}
+
+	private void setControllerPackage(String controllerPackage) {
+		this.controllerPackage = controllerPackage;
+	}
+
+	/**
+	 * True if an operation uses the binary serialization (the Java models have binary codecs)
+	 */
+	public boolean isBinarySerialization() {
+		return binarySerialization;
+	}
+
+	private void setBinarySerialization(boolean binarySerialization) {
+		this.binarySerialization = binarySerialization;
+	}
+
+	/**
+	 * Names of the pages of the paginated operations (the Java models generated for them)
+	 */
+	public List<String> getPageModels() {
+		return pageModels;
+	}
+
+	private void setPageModels(List<String> pageModels) {
+		this.pageModels = pageModels;
+	}
+
+	/**
+	 * Hash of every model, by name
+	 */
+	public Map<String, String> getModelHashes() {
+		return modelHashes;
+	}
+
+	private void setModelHashes(Map<String, String> modelHashes) {
+		this.modelHashes = modelHashes;
+	}
+
+	/**
+	 * Hash of every controller, by name
+	 */
+	public Map<String, String> getControllerHashes() {
+		return controllerHashes;
+	}
+
+	private void setControllerHashes(Map<String, String> controllerHashes) {
+		this.controllerHashes = controllerHashes;
+	}
+
+	public DependencyGraph getDependencies() {
+		return dependencies;
+	}
+
+	private void setDependencies(DependencyGraph dependencies) {
+		this.dependencies = dependencies;
+	}
+
+}
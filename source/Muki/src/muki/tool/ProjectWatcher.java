@@ -0,0 +1,283 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import muki.tool.model.Project;
+
+/**
+ * Watches the project file and generates the code again every time the file is saved. The generators
+ * (with Velocity and the templates) and the last version of the project stay in memory between generations,
+ * and only the artifacts of the models and controllers that changed are generated again (see ProjectChanges).
+ * The output directories are managed with a GenerationManifest, the same way as the incremental mode. The options
+ * of the Java target (jsonCodecs, xmlCodecs and externalizable) are part of the stamp, like in MukiGenerator.
+ * 
+ * If the new version of the project is not valid, the errors are reported and the output is not modified.
+ */
+public class ProjectWatcher {
+
+	private static long QUIET_PERIOD = 50;
+	private String projectFile;
+	private Map<String, String> targets;
+	private Map<String, Generator> generators;
+	private ProjectSnapshot snapshot;
+	private int threads = 1;
+	private boolean jsonCodecs;
+	private boolean xmlCodecs;
+	private boolean externalizable;
+	private volatile boolean running;
+
+	/**
+	 * The targets are the options of the MukiGenerator (generate-java, etc.) with their output directory
+	 */
+	public ProjectWatcher(String projectFile, Map<String, String> targets) throws Exception {
+		this.setProjectFile(projectFile);
+		this.setTargets(new LinkedHashMap<String, String>(targets));
+		this.setGenerators(new LinkedHashMap<String, Generator>());
+		for (String option : targets.keySet()) {
+			this.getGenerators().put(option, this.createGenerator(option));
+		}
+	}
+
+	private Generator createGenerator(String option) throws Exception {
+		if (option.equals(MukiGenerator.GENERATE_OBJC)) {
+			return new ObjcGenerator();
+		}
+		if (option.equals(MukiGenerator.GENERATE_SWIFT)) {
+			return new SwiftGenerator();
+		}
+		return new JavaGenerator();
+	}
+
+	/**
+	 * Generates the code for the current version of the project file. The first time all the artifacts
+	 * are generated, then only the ones that changed.
+	 */
+	public void generate(ExecutionResult result) throws Exception {
+		long start = System.currentTimeMillis();
+		ModelUtility modelUtility = new ModelUtility();
+		Project project = modelUtility.openProject(this.getProjectFile());
+		modelUtility.validate(project, result);
+		if (!result.isOk()) {
+			result.append("-> *** ERROR: The project validation FAILED! The code was not generated. ***");
+			return;
+		}
+		ProjectSnapshot newSnapshot = new ProjectSnapshot(project);
+		ProjectChanges changes = null;
+		if (this.getSnapshot() != null) {
+			changes = new ProjectChanges(this.getSnapshot(), newSnapshot);
+			if (changes.isEmpty()) {
+				result.append("-> The project didn't change");
+				this.setSnapshot(newSnapshot);
+				return;
+			}
+			if (changes.isFullGenerationRequired()) {
+				changes = null;
+			}
+		}
+		for (Map.Entry<String, Generator> entry : this.getGenerators().entrySet()) {
+			String outputDirectory = this.getTargets().get(entry.getKey());
+			GenerationManifest manifest = new GenerationManifest(outputDirectory);
+			if (!manifest.load()) {
+				// Without a manifest we don't know which files belong to Muki
+				new IOUtility().deleteDirectory(outputDirectory);
+			}
+			new IOUtility().createDirectory(outputDirectory);
+			Generator generator = entry.getValue();
+			generator.setManifest(manifest);
+			generator.setChanges(changes);
+			generator.setThreads(this.getThreads());
+			this.configure(generator);
+			generator.generateAll(project, outputDirectory);
+			if (changes == null) {
+				manifest.removeStaleFiles();
+			} else {
+				manifest.keepPreviousFiles();
+			}
+			String stampOption = GenerationManifest.getStampOption(entry.getKey(), this.isJsonCodecs(), this.isXmlCodecs(), this.isExternalizable());
+			manifest.setStamp(manifest.createStamp(stampOption, this.getProjectFile()));
+			manifest.save();
+			result.append("-> " + entry.getKey() + ": " + manifest.getWrittenFiles() + " files written, " + 
+					manifest.getRemovedFiles() + " removed");
+		}
+		this.setSnapshot(newSnapshot);
+		String changed = (changes == null) ? "all" : changes.getAffectedModels().size() + " models and " + 
+				changes.getAffectedControllers().size() + " controllers affected";
+		result.append("-> Generation finished in " + (System.currentTimeMillis() - start) + " ms (" + changed + ")");
+	}
+
+	/**
+	 * Applies the options of the Java target to its generator
+	 */
+	private void configure(Generator generator) {
+		if (generator instanceof JavaGenerator) {
+			((JavaGenerator)generator).setJsonCodecs(this.isJsonCodecs());
+			((JavaGenerator)generator).setXmlCodecs(this.isXmlCodecs());
+			((JavaGenerator)generator).setExternalizable(this.isExternalizable());
+		}
+	}
+
+	/**
+	 * Generates the code and then waits for changes in the project file, until stop() is called.
+	 * The result of every generation is printed to the stream.
+	 */
+	public void watch(PrintStream out) throws Exception {
+		this.setRunning(true);
+		File file = new File(this.getProjectFile()).getAbsoluteFile();
+		Path directory = file.getParentFile().toPath();
+		WatchService service = FileSystems.getDefault().newWatchService();
+		try {
+			directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			this.generate(out);
+			out.println("-> Watching " + file + " (Ctrl+C to finish)");
+			while (this.isRunning()) {
+				WatchKey key = service.poll(500, TimeUnit.MILLISECONDS);
+				if (key == null) {
+					continue;
+				}
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (file.getName().equals(String.valueOf(event.context()))) {
+						changed = true;
+					}
+				}
+				key.reset();
+				if (changed) {
+					// Editors save the file in several steps: wait until the file is complete
+					Thread.sleep(QUIET_PERIOD);
+					this.generate(out);
+				}
+			}
+		} finally {
+			service.close();
+		}
+	}
+
+	private void generate(PrintStream out) {
+		ExecutionResult result = new ExecutionResult();
+		result.setVerbose(false);
+		try {
+			this.generate(result);
+		} catch (Exception e) {
+			result.append("-> *** ERROR: " + e + " ***");
+		}
+		out.println(result.getLog());
+	}
+
+	public void stop() {
+		this.setRunning(false);
+	}
+
+	private String getProjectFile() {
+		return projectFile;
+	}
+
+	private void setProjectFile(String projectFile) {
+		this.projectFile = projectFile;
+	}
+
+	private Map<String, String> getTargets() {
+		return targets;
+	}
+
+	private void setTargets(Map<String, String> targets) {
+		this.targets = targets;
+	}
+
+	/**
+	 * Returns the generator of the target, to configure it before the generation
+	 */
+	public Generator getGenerator(String option) {
+		return this.getGenerators().get(option);
+	}
+
+	private Map<String, Generator> getGenerators() {
+		return generators;
+	}
+
+	private void setGenerators(Map<String, Generator> generators) {
+		this.generators = generators;
+	}
+
+	private ProjectSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	private void setSnapshot(ProjectSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * If it's true, the Java target includes the JSON codecs of the models (see JavaGenerator.setJsonCodecs())
+	 */
+	public boolean isJsonCodecs() {
+		return jsonCodecs;
+	}
+
+	public void setJsonCodecs(boolean jsonCodecs) {
+		this.jsonCodecs = jsonCodecs;
+	}
+
+	/**
+	 * If it's true, the Java target includes the XML codecs of the models (see JavaGenerator.setXmlCodecs())
+	 */
+	public boolean isXmlCodecs() {
+		return xmlCodecs;
+	}
+
+	public void setXmlCodecs(boolean xmlCodecs) {
+		this.xmlCodecs = xmlCodecs;
+	}
+
+	/**
+	 * If it's true, the models of the Java target implement Externalizable (see JavaGenerator.setExternalizable())
+	 */
+	public boolean isExternalizable() {
+		return externalizable;
+	}
+
+	public void setExternalizable(boolean externalizable) {
+		this.externalizable = externalizable;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void setRunning(boolean running) {
+		this.running = running;
+	}
+
+}
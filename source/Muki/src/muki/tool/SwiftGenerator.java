@@ -15,12 +15,11 @@
  */
 package muki.tool;
 
-import java.io.FileWriter;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
-import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 
 import muki.tool.model.ControllerDefinitionsType;
 import muki.tool.model.ControllerType;
@@ -36,142 +35,132 @@ import muki.tool.model.Project;
  * - Support classes used  by the implementation: XmlAttribute and ObjectParserDelegate
  * - Client Stub to access the remote restful service
  */
-public class SwiftGenerator {
+public class SwiftGenerator extends Generator {
 
-	private IOUtility io;
-	
 	public SwiftGenerator() throws Exception {
-		this.init();
-	}
-
-	private void init() throws Exception {
-		this.setIo(new IOUtility());
-		Velocity.init(this.getIo().getProperties("velocity.properties"));
+		super(new SwiftVelocityHelper());
 	}
 
 	/**
 	 * This is the main method that generates all the artifacts
 	 */
-	public void generateAll(Project project, String outputDirectory) throws Exception {
-		ModelDefinitionsType allTypes = project.getModelDefinitions();
-		for (ModelType aType : allTypes.getModel()) {
-			this.generateType(aType, outputDirectory);
-			this.generateParserDelegate(aType, outputDirectory);
+	public void generateAll(Project project, final String outputDirectory) throws Exception {
+		final ModelDefinitionsType allTypes = project.getModelDefinitions();
+		final ControllerDefinitionsType allControllers = project.getControllerDefinitions();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (final ModelType aType : allTypes.getModel()) {
+			if (!this.isChanged(aType)) {
+				continue;
+			}
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateType(aType, outputDirectory);
+					generateParserDelegate(aType, outputDirectory);
+					return null;
+				}
+			});
 		}
-		ControllerDefinitionsType allControllers = project.getControllerDefinitions();
-		for (ControllerType aController : allControllers.getController()) {
-			this.generateControllerStub(aController, allTypes, outputDirectory);
+		for (final ControllerType aController : allControllers.getController()) {
+			// The stubs have methods for every model
+			if (!this.isChanged(aController) && !this.isModelListChanged()) {
+				continue;
+			}
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateControllerStub(aController, allTypes, outputDirectory);
+					return null;
+				}
+			});
 		}
-		this.generateSupportClasses(outputDirectory);
-		this.generateXmlSerializer(allTypes, outputDirectory);
-		this.generateJsonSerializer(allTypes, outputDirectory);
-		this.generateJsonDeserializer(allTypes, outputDirectory);
-	}
-
-	private IOUtility getIo() {
-		return io;
-	}
-
-	private void setIo(IOUtility io) {
-		this.io = io;
+		if (this.isGeneratingAll()) {
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateSupportClasses(outputDirectory);
+					return null;
+				}
+			});
+		}
+		if (this.isModelsChanged()) {
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateXmlSerializer(allTypes, outputDirectory);
+					return null;
+				}
+			});
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateJsonSerializer(allTypes, outputDirectory);
+					return null;
+				}
+			});
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					generateJsonDeserializer(allTypes, outputDirectory);
+					return null;
+				}
+			});
+		}
+		this.execute(tasks);
 	}
 
 	public void generateType(ModelType type, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("type", type);
-		context.put("helper", new SwiftVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_swift_type.vm");
 		String fileName = outputDirectory + "/" + type.getName() + ".swift";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_swift_type.vm", context, fileName);
 	}
 		
 	public void generateSupportClasses(String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		URL url = this.getClass().getResource("/templates/template_swift_ObjectParserDelegate.vm");
-		byte[] data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/ObjectParserDelegate.swift", data);
+		this.createDirectory(outputDirectory);
+		this.copyResource("/templates/template_swift_ObjectParserDelegate.vm", outputDirectory + "/ObjectParserDelegate.swift");
 
-		url = this.getClass().getResource("/templates/template_swift_XmlAttribute.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/XmlAttribute.swift", data);
+		this.copyResource("/templates/template_swift_XmlAttribute.vm", outputDirectory + "/XmlAttribute.swift");
 		
-		url = this.getClass().getResource("/templates/template_swift_MukiControllerStub.vm");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/MukiControllerStub.swift", data);
+		this.copyResource("/templates/template_swift_MukiControllerStub.vm", outputDirectory + "/MukiControllerStub.swift");
 		
-		url = this.getClass().getResource("/templates/SwiftyJSON.swift");
-		data = this.getIo().readBytes(url);
-		this.getIo().writeBinaryFile(outputDirectory + "/SwiftyJSON.swift", data);		
+		this.copyResource("/templates/SwiftyJSON.swift", outputDirectory + "/SwiftyJSON.swift");
 	}
 
 	public void generateParserDelegate(ModelType type, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("type", type);
-		context.put("helper", new SwiftVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_swift_type_parser.vm");
 		String fileName = outputDirectory + "/" + type.getName() + "ParserDelegate.swift";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_swift_type_parser.vm", context, fileName);
 	}
 
 	public void generateXmlSerializer(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new SwiftVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_swift_XmlSerializer.vm");
 		String fileName = outputDirectory + "/XmlSerializer.swift";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_swift_XmlSerializer.vm", context, fileName);
 	}
 
 	public void generateControllerStub(ControllerType controller, ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("controller", controller);
 		context.put("definitions", definitions);
-		context.put("helper", new SwiftVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_swift_Controller_stub.vm");
 		String fileName = outputDirectory + "/" + controller.getName() + "Stub.swift";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_swift_Controller_stub.vm", context, fileName);
 	}
 		
 	public void generateJsonDeserializer(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new SwiftVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_swift_JsonDeserializer.vm");
 		String fileName = outputDirectory + "/JsonDeserializer.swift";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_swift_JsonDeserializer.vm", context, fileName);
 	}
 
 	public void generateJsonSerializer(ModelDefinitionsType definitions, String outputDirectory) throws Exception {
-		this.getIo().createDirectory(outputDirectory);
-		VelocityContext context = new VelocityContext();
+		this.createDirectory(outputDirectory);
+		VelocityContext context = this.createContext();
 		context.put("definitions", definitions);
-		context.put("helper", new SwiftVelocityHelper());
-		Template template = Velocity.getTemplate("/templates/template_swift_JsonSerializer.vm");
 		String fileName = outputDirectory + "/JsonSerializer.swift";
-		FileWriter writer = new FileWriter(fileName);
-		template.merge(context, writer);
-		writer.flush();
-		writer.close();
+		this.merge("/templates/template_swift_JsonSerializer.vm", context, fileName);
 	}
 
 		
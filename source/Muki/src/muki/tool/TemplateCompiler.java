@@ -0,0 +1,855 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import muki.tool.model.ControllerDefinitionsType;
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelDefinitionsType;
+import muki.tool.model.ModelType;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.InternalContextAdapterImpl;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.log.NullLogChute;
+import org.apache.velocity.runtime.parser.node.ASTAndNode;
+import org.apache.velocity.runtime.parser.node.ASTBlock;
+import org.apache.velocity.runtime.parser.node.ASTDirective;
+import org.apache.velocity.runtime.parser.node.ASTElseIfStatement;
+import org.apache.velocity.runtime.parser.node.ASTElseStatement;
+import org.apache.velocity.runtime.parser.node.ASTExpression;
+import org.apache.velocity.runtime.parser.node.ASTIdentifier;
+import org.apache.velocity.runtime.parser.node.ASTIfStatement;
+import org.apache.velocity.runtime.parser.node.ASTMethod;
+import org.apache.velocity.runtime.parser.node.ASTNotNode;
+import org.apache.velocity.runtime.parser.node.ASTOrNode;
+import org.apache.velocity.runtime.parser.node.ASTReference;
+import org.apache.velocity.runtime.parser.node.ASTSetDirective;
+import org.apache.velocity.runtime.parser.node.ASTText;
+import org.apache.velocity.runtime.parser.node.ASTprocess;
+import org.apache.velocity.runtime.parser.node.Node;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+
+/**
+ * Translates the Velocity templates into Java classes (emitters, see TemplateEmitter) at build time.
+ * The compiler walks the tree built by the Velocity parser and writes the equivalent Java code:
+ * the text is written as is, the references become plain method calls (resolved here with reflection,
+ * once) and the directives become loops and conditions.
+ *
+ * Only the subset of the language used by the Muki templates is supported: text, references with properties
+ * and methods, #foreach over a collection, #if / #elseif / #else with &&, || and !, and #set of a reference.
+ * The types of the variables in the context are fixed (see VARIABLE_TYPES). If a template uses something else,
+ * no emitter is written and the generators keep using Velocity for that template.
+ *
+ * Usage: TemplateCompiler <templates directory> <output directory>
+ */
+public class TemplateCompiler {
+
+	public static String EMITTER_PACKAGE = "muki.tool.emitter";
+	private static Map<String, Class<?>> VARIABLE_TYPES = new HashMap<String, Class<?>>();
+	static {
+		VARIABLE_TYPES.put("type", ModelType.class);
+		VARIABLE_TYPES.put("controller", ControllerType.class);
+		VARIABLE_TYPES.put("controllers", ControllerDefinitionsType.class);
+		VARIABLE_TYPES.put("definitions", ModelDefinitionsType.class);
+		VARIABLE_TYPES.put("modelDefinitions", ModelDefinitionsType.class);
+		VARIABLE_TYPES.put("javaPackage", String.class);
+		VARIABLE_TYPES.put("typesJavaPackage", String.class);
+		VARIABLE_TYPES.put("externalizable", Boolean.class);
+		VARIABLE_TYPES.put("jsonCodecs", Boolean.class);
+		VARIABLE_TYPES.put("xmlCodecs", Boolean.class);
+		VARIABLE_TYPES.put("binaryCodecs", Boolean.class);
+	}
+	private RuntimeInstance runtime;
+	private IOUtility io;
+	// State of the template being compiled
+	private StringBuffer declarations;
+	private StringBuffer body;
+	private int indentation;
+	private int counter;
+	private List<Map<String, Variable>> scopes;
+
+	public TemplateCompiler() throws Exception {
+		RuntimeInstance runtime = new RuntimeInstance();
+		runtime.setProperty(RuntimeInstance.RUNTIME_LOG_LOGSYSTEM, new NullLogChute());
+		runtime.init();
+		this.setRuntime(runtime);
+		this.setIo(new IOUtility());
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args == null || args.length != 2) {
+			System.out.println("Usage: TemplateCompiler <templates directory> <output directory>");
+			return;
+		}
+		new TemplateCompiler().compileAll(args[0], args[1]);
+	}
+
+	/**
+	 * Compiles all the templates (*.vm) of the directory and writes the emitters in the output directory.
+	 * Returns the number of templates compiled.
+	 */
+	public int compileAll(String templatesDirectory, String outputDirectory) throws Exception {
+		String targetPath = outputDirectory + "/" + EMITTER_PACKAGE.replace('.', '/');
+		this.getIo().createDirectory(targetPath);
+		int compiled = 0;
+		File[] files = new File(templatesDirectory).listFiles();
+		for (File file : files) {
+			if (!file.getName().endsWith(".vm")) {
+				continue;
+			}
+			String templateName = "/templates/" + file.getName();
+			Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+			try {
+				String source = this.compile(templateName, reader);
+				String className = getEmitterClassName(templateName);
+				String simpleName = className.substring(className.lastIndexOf('.') + 1);
+				this.getIo().writeBinaryFile(targetPath + "/" + simpleName + ".java", source.getBytes("UTF-8"));
+				compiled++;
+			} catch (UnsupportedOperationException e) {
+				System.out.println("-> " + templateName + " is not compiled: " + e.getMessage());
+			} finally {
+				reader.close();
+			}
+		}
+		return compiled;
+	}
+
+	/**
+	 * Returns the name of the emitter class for a template. Example: /templates/template_java_bean.vm -> muki.tool.emitter.JavaBeanEmitter
+	 */
+	public static String getEmitterClassName(String templateName) {
+		String name = templateName.substring(templateName.lastIndexOf('/') + 1);
+		if (name.startsWith("template_")) {
+			name = name.substring("template_".length());
+		}
+		if (name.endsWith(".vm")) {
+			name = name.substring(0, name.length() - ".vm".length());
+		}
+		StringBuffer result = new StringBuffer(EMITTER_PACKAGE).append('.');
+		for (String part : name.split("[_.\\-]")) {
+			if (part.length() > 0) {
+				result.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+			}
+		}
+		return result.append("Emitter").toString();
+	}
+
+	/**
+	 * Returns the source code of the emitter for the template. Throws UnsupportedOperationException if the template
+	 * uses a feature that can't be compiled.
+	 */
+	public String compile(String templateName, Reader reader) throws Exception {
+		SimpleNode root = this.getRuntime().parse(reader, templateName);
+		// The #define of C in the Objective-C support classes is parsed as the #define of Velocity, without arguments
+		ASTDirective define = this.findDefineWithoutArguments(root);
+		if (define != null) {
+			throw new UnsupportedOperationException("#define without arguments at line " + define.getLine());
+		}
+		root.init(new InternalContextAdapterImpl(new VelocityContext()), this.getRuntime());
+		this.setDeclarations(new StringBuffer());
+		this.setBody(new StringBuffer());
+		this.setIndentation(2);
+		this.setCounter(0);
+		this.setScopes(new ArrayList<Map<String, Variable>>());
+		this.getScopes().add(new LinkedHashMap<String, Variable>());
+		Variable helper = new Variable(this.newName("helper"), this.getHelperType(templateName));
+		this.getScopes().get(0).put("helper", helper);
+		this.getDeclarations().append("\t\t").append(helper.getTypeName()).append(" ").append(helper.getJavaName()).
+			append(" = (").append(helper.getTypeName()).append(")context.get(\"helper\");\n");
+		this.compileNode(root);
+
+		String className = getEmitterClassName(templateName);
+		StringBuffer source = new StringBuffer();
+		source.append("package ").append(EMITTER_PACKAGE).append(";\n\n");
+		source.append("import java.io.Writer;\n\n");
+		source.append("import org.apache.velocity.context.Context;\n\n");
+		source.append("import muki.tool.TemplateEmitter;\n\n");
+		source.append("/**\n * Generated by Muki from ").append(templateName).append(". Do not edit.\n */\n");
+		source.append("public class ").append(className.substring(className.lastIndexOf('.') + 1)).append(" extends TemplateEmitter {\n\n");
+		source.append("\tpublic void merge(Context context, Writer writer) throws Exception {\n");
+		source.append(this.getDeclarations());
+		source.append(this.getBody());
+		source.append("\t}\n\n}\n");
+		return source.toString();
+	}
+
+	/**
+	 * Returns the first #define directive without arguments, or null if there is none
+	 */
+	private ASTDirective findDefineWithoutArguments(Node node) {
+		if (node instanceof ASTDirective && ((ASTDirective)node).getDirectiveName().equals("define") && node.jjtGetNumChildren() == 0) {
+			return (ASTDirective)node;
+		}
+		for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+			ASTDirective define = this.findDefineWithoutArguments(node.jjtGetChild(i));
+			if (define != null) {
+				return define;
+			}
+		}
+		return null;
+	}
+
+	private void compileNode(Node node) throws Exception {
+		if (node instanceof ASTprocess || node instanceof ASTBlock) {
+			for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+				this.compileNode(node.jjtGetChild(i));
+			}
+		} else if (node instanceof ASTText) {
+			this.compileText(node);
+		} else if (node instanceof ASTReference) {
+			this.compileReferenceOutput((ASTReference)node);
+		} else if (node instanceof ASTIfStatement) {
+			this.compileIf(node, 0);
+		} else if (node instanceof ASTSetDirective) {
+			this.compileSet(node);
+		} else if (node instanceof ASTDirective) {
+			ASTDirective directive = (ASTDirective)node;
+			if (directive.getDirectiveName().equals("foreach")) {
+				this.compileForeach(directive);
+			} else if (directive.jjtGetNumChildren() == 0) {
+				// Not a directive (for example #import in Objective-C): it's written as text
+				this.compileText(node);
+			} else {
+				throw new UnsupportedOperationException("#" + directive.getDirectiveName() + " at line " + node.getLine());
+			}
+		} else {
+			throw new UnsupportedOperationException(node.getClass().getSimpleName() + " at line " + node.getLine());
+		}
+	}
+
+	/**
+	 * The text doesn't depend on the context, so it's rendered here by Velocity and written as a constant
+	 */
+	private void compileText(Node node) throws Exception {
+		StringWriter writer = new StringWriter();
+		node.render(new InternalContextAdapterImpl(new VelocityContext()), writer);
+		if (writer.getBuffer().length() > 0) {
+			this.line("writer.write(" + this.toJavaString(writer.toString()) + ");");
+		}
+	}
+
+	private void compileReferenceOutput(ASTReference node) throws Exception {
+		this.checkReference(node);
+		Variable value = this.compileReference(node);
+		// The literal written by Velocity when the value is null
+		StringWriter nullString = new StringWriter();
+		node.render(new InternalContextAdapterImpl(new VelocityContext()), nullString);
+		this.line("write(writer, " + value.getJavaName() + ", " + this.toJavaString(nullString.toString()) + ");");
+	}
+
+	/**
+	 * Writes the statements that evaluate the reference and returns the variable with the result. The result
+	 * is null if any part of the reference is null. If a property or method doesn't exist, Velocity returns null,
+	 * so the result is the constant null (see Variable.isUnresolved()).
+	 */
+	private Variable compileReference(ASTReference node) throws Exception {
+		this.checkReference(node);
+		Variable current = this.findVariable(node.getRootString(), node);
+		for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+			Node child = node.jjtGetChild(i);
+			Method method = null;
+			List<Variable> arguments = new ArrayList<Variable>();
+			Variable result = null;
+			if (child instanceof ASTIdentifier) {
+				method = this.findGetter(current.getType(), child.getFirstToken().image, node);
+				if (method == null) {
+					return this.unresolved();
+				}
+				result = new Variable(this.newName("value"), method.getReturnType(), method.getGenericReturnType());
+				this.line(result.getTypeName() + " " + result.getJavaName() + " = null;");
+				this.line("if (" + current.getJavaName() + " != null) {");
+				this.setIndentation(this.getIndentation() + 1);
+			} else if (child instanceof ASTMethod) {
+				String methodName = ((ASTMethod)child).getMethodName();
+				List<Class<?>> argumentTypes = new ArrayList<Class<?>>();
+				// The method is resolved before the arguments are evaluated, so the result can be declared
+				for (int j = 1; j < child.jjtGetNumChildren(); j++) {
+					if (!(child.jjtGetChild(j) instanceof ASTReference)) {
+						throw new UnsupportedOperationException("argument of " + methodName + " at line " + child.getLine());
+					}
+					argumentTypes.add(this.getReferenceType((ASTReference)child.jjtGetChild(j)));
+				}
+				method = this.findMethod(current.getType(), methodName, argumentTypes, node);
+				if (method == null) {
+					return this.unresolved();
+				}
+				result = new Variable(this.newName("value"), method.getReturnType(), method.getGenericReturnType());
+				this.line(result.getTypeName() + " " + result.getJavaName() + " = null;");
+				this.line("if (" + current.getJavaName() + " != null) {");
+				this.setIndentation(this.getIndentation() + 1);
+				for (int j = 1; j < child.jjtGetNumChildren(); j++) {
+					arguments.add(this.compileReference((ASTReference)child.jjtGetChild(j)));
+				}
+			} else {
+				throw new UnsupportedOperationException(child.getClass().getSimpleName() + " at line " + child.getLine());
+			}
+			StringBuffer call = new StringBuffer();
+			call.append(result.getJavaName()).append(" = ").append(current.getJavaName()).append(".").append(method.getName()).append("(");
+			for (int j = 0; j < arguments.size(); j++) {
+				call.append(j > 0 ? ", " : "");
+				if (arguments.get(j).isUnresolved()) {
+					call.append("(").append(method.getParameterTypes()[j].getCanonicalName()).append(")");
+				}
+				call.append(arguments.get(j).getJavaName());
+			}
+			this.line(call.append(");").toString());
+			this.setIndentation(this.getIndentation() - 1);
+			this.line("}");
+			current = result;
+		}
+		return current;
+	}
+
+	/**
+	 * Returns the static type of the reference without writing any code (null if the reference can't be resolved)
+	 */
+	private Class<?> getReferenceType(ASTReference node) throws Exception {
+		this.checkReference(node);
+		Class<?> type = this.findVariable(node.getRootString(), node).getType();
+		for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+			Node child = node.jjtGetChild(i);
+			Method method = null;
+			if (child instanceof ASTIdentifier) {
+				method = this.findGetter(type, child.getFirstToken().image, node);
+			} else if (child instanceof ASTMethod) {
+				List<Class<?>> argumentTypes = new ArrayList<Class<?>>();
+				for (int j = 1; j < child.jjtGetNumChildren(); j++) {
+					if (!(child.jjtGetChild(j) instanceof ASTReference)) {
+						throw new UnsupportedOperationException("argument at line " + child.getLine());
+					}
+					argumentTypes.add(this.getReferenceType((ASTReference)child.jjtGetChild(j)));
+				}
+				method = this.findMethod(type, ((ASTMethod)child).getMethodName(), argumentTypes, node);
+			} else {
+				throw new UnsupportedOperationException(child.getClass().getSimpleName() + " at line " + child.getLine());
+			}
+			if (method == null) {
+				return null;
+			}
+			type = this.box(method.getReturnType());
+		}
+		return type;
+	}
+
+	/**
+	 * Only the plain references are supported ($name, ${name}, $!name), without escapes
+	 */
+	private void checkReference(ASTReference node) throws Exception {
+		boolean escaped = (Boolean)this.getField(node, "escaped");
+		String escPrefix = (String)this.getField(node, "escPrefix");
+		String morePrefix = (String)this.getField(node, "morePrefix");
+		int referenceType = (Integer)this.getField(node, "referenceType");
+		if (escaped || escPrefix.length() > 0 || morePrefix.length() > 0 || referenceType < 1 || referenceType > 3) {
+			throw new UnsupportedOperationException("reference " + node.literal() + " at line " + node.getLine());
+		}
+	}
+
+	private void compileIf(Node node, int firstChild) throws Exception {
+		Node condition = node.jjtGetChild(firstChild);
+		Node block = node.jjtGetChild(firstChild + 1);
+		String result = this.compileCondition(condition);
+		this.line("if (" + result + ") {");
+		this.setIndentation(this.getIndentation() + 1);
+		this.compileNode(block);
+		this.setIndentation(this.getIndentation() - 1);
+		int next = firstChild + 2;
+		if (next < node.jjtGetNumChildren()) {
+			Node alternative = node.jjtGetChild(next);
+			this.line("} else {");
+			this.setIndentation(this.getIndentation() + 1);
+			if (alternative instanceof ASTElseStatement) {
+				this.compileNode(alternative.jjtGetChild(0));
+			} else if (alternative instanceof ASTElseIfStatement) {
+				// The next #elseif is evaluated only if this condition is false
+				this.compileElseIf(node, next);
+			} else {
+				throw new UnsupportedOperationException(alternative.getClass().getSimpleName() + " at line " + alternative.getLine());
+			}
+			this.setIndentation(this.getIndentation() - 1);
+		}
+		this.line("}");
+	}
+
+	private void compileElseIf(Node ifNode, int index) throws Exception {
+		Node elseIf = ifNode.jjtGetChild(index);
+		String result = this.compileCondition(elseIf.jjtGetChild(0));
+		this.line("if (" + result + ") {");
+		this.setIndentation(this.getIndentation() + 1);
+		this.compileNode(elseIf.jjtGetChild(1));
+		this.setIndentation(this.getIndentation() - 1);
+		int next = index + 1;
+		if (next < ifNode.jjtGetNumChildren()) {
+			Node alternative = ifNode.jjtGetChild(next);
+			this.line("} else {");
+			this.setIndentation(this.getIndentation() + 1);
+			if (alternative instanceof ASTElseStatement) {
+				this.compileNode(alternative.jjtGetChild(0));
+			} else {
+				this.compileElseIf(ifNode, next);
+			}
+			this.setIndentation(this.getIndentation() - 1);
+		}
+		this.line("}");
+	}
+
+	/**
+	 * Writes the statements that evaluate the condition and returns the name of the boolean variable
+	 * with the result. The operators are evaluated in short-circuit, like Velocity does.
+	 */
+	private String compileCondition(Node node) throws Exception {
+		if (node instanceof ASTExpression) {
+			return this.compileCondition(node.jjtGetChild(0));
+		}
+		String result = this.newName("condition");
+		if (node instanceof ASTReference) {
+			this.line("boolean " + result + " = false;");
+			this.line("{");
+			this.setIndentation(this.getIndentation() + 1);
+			Variable value = this.compileReference((ASTReference)node);
+			this.line(result + " = isTrue(" + value.getJavaName() + ");");
+			this.setIndentation(this.getIndentation() - 1);
+			this.line("}");
+		} else if (node instanceof ASTNotNode) {
+			String operand = this.compileCondition(node.jjtGetChild(0));
+			this.line("boolean " + result + " = !" + operand + ";");
+		} else if (node instanceof ASTAndNode || node instanceof ASTOrNode) {
+			String left = this.compileCondition(node.jjtGetChild(0));
+			this.line("boolean " + result + " = " + left + ";");
+			this.line("if (" + (node instanceof ASTAndNode ? "" : "!") + left + ") {");
+			this.setIndentation(this.getIndentation() + 1);
+			String right = this.compileCondition(node.jjtGetChild(1));
+			this.line(result + " = " + right + ";");
+			this.setIndentation(this.getIndentation() - 1);
+			this.line("}");
+		} else {
+			throw new UnsupportedOperationException(node.getClass().getSimpleName() + " at line " + node.getLine());
+		}
+		return result;
+	}
+
+	/**
+	 * #set($name = $reference). Like Velocity, a null value doesn't change the variable.
+	 */
+	private void compileSet(Node node) throws Exception {
+		Node left = node.jjtGetChild(0);
+		Node right = node.jjtGetChild(1);
+		if (!(left instanceof ASTReference) || left.jjtGetNumChildren() > 0 || !(right instanceof ASTExpression)
+				|| !(right.jjtGetChild(0) instanceof ASTReference)) {
+			throw new UnsupportedOperationException("#set at line " + node.getLine());
+		}
+		String name = ((ASTReference)left).getRootString();
+		this.line("{");
+		this.setIndentation(this.getIndentation() + 1);
+		Variable value = this.compileReference((ASTReference)right.jjtGetChild(0));
+		if (value.isUnresolved()) {
+			// The value is always null, so the variable doesn't change
+			this.setIndentation(this.getIndentation() - 1);
+			this.line("}");
+			return;
+		}
+		Variable variable = this.lookupVariable(name);
+		if (variable == null) {
+			variable = this.declareContextVariable(name, value.getType());
+		} else if (variable.isLoopVariable() || !variable.getType().isAssignableFrom(value.getType())) {
+			throw new UnsupportedOperationException("#set of $" + name + " at line " + node.getLine());
+		}
+		this.line("if (" + value.getJavaName() + " != null) {");
+		this.line("\t" + variable.getJavaName() + " = " + value.getJavaName() + ";");
+		this.line("}");
+		this.setIndentation(this.getIndentation() - 1);
+		this.line("}");
+	}
+
+	/**
+	 * #foreach($item in $reference) over a collection. The type of the items is taken from the generic type of the collection.
+	 */
+	private void compileForeach(ASTDirective node) throws Exception {
+		Node item = node.jjtGetChild(0);
+		Node list = node.jjtGetChild(2);
+		if (!(list instanceof ASTReference) || !item.literal().matches("\\$[a-zA-Z][a-zA-Z0-9_\\-]*")) {
+			throw new UnsupportedOperationException("#foreach at line " + node.getLine());
+		}
+		String name = item.literal().substring(1);
+		if (name.equals("velocityCount") || name.equals("velocityHasNext")) {
+			throw new UnsupportedOperationException("#foreach at line " + node.getLine());
+		}
+		Variable collection = this.compileReference((ASTReference)list);
+		if (collection.isUnresolved()) {
+			return;
+		}
+		Class<?> itemType = this.getItemType(collection);
+		if (itemType == null) {
+			throw new UnsupportedOperationException("#foreach over " + list.literal() + " at line " + node.getLine());
+		}
+		Variable variable = new Variable(this.newName(name), itemType);
+		variable.setLoopVariable(true);
+		this.line("if (" + collection.getJavaName() + " != null) {");
+		this.setIndentation(this.getIndentation() + 1);
+		this.line("for (" + variable.getTypeName() + " " + variable.getJavaName() + " : " + collection.getJavaName() + ") {");
+		this.setIndentation(this.getIndentation() + 1);
+		Map<String, Variable> scope = new HashMap<String, Variable>();
+		scope.put(name, variable);
+		this.getScopes().add(scope);
+		this.compileNode(node.jjtGetChild(3));
+		this.getScopes().remove(this.getScopes().size() - 1);
+		this.setIndentation(this.getIndentation() - 1);
+		this.line("}");
+		this.setIndentation(this.getIndentation() - 1);
+		this.line("}");
+	}
+
+	private Variable unresolved() {
+		Variable variable = new Variable("null", Object.class);
+		variable.setUnresolved(true);
+		return variable;
+	}
+
+	private Class<?> getItemType(Variable collection) {
+		if (!Iterable.class.isAssignableFrom(collection.getType()) || !(collection.getGenericType() instanceof ParameterizedType)) {
+			return null;
+		}
+		Type[] arguments = ((ParameterizedType)collection.getGenericType()).getActualTypeArguments();
+		if (arguments.length != 1 || !(arguments[0] instanceof Class<?>)) {
+			return null;
+		}
+		return (Class<?>)arguments[0];
+	}
+
+	/**
+	 * Returns the variable visible in the current scope. The variables of the context are declared
+	 * at the beginning of the method the first time they are used.
+	 */
+	private Variable findVariable(String name, Node node) {
+		Variable variable = this.lookupVariable(name);
+		if (variable == null) {
+			Class<?> type = VARIABLE_TYPES.get(name);
+			if (type == null) {
+				throw new UnsupportedOperationException("unknown variable $" + name + " at line " + node.getLine());
+			}
+			variable = this.declareContextVariable(name, type);
+		}
+		return variable;
+	}
+
+	private Variable lookupVariable(String name) {
+		for (int i = this.getScopes().size() - 1; i >= 0; i--) {
+			Variable variable = this.getScopes().get(i).get(name);
+			if (variable != null) {
+				return variable;
+			}
+		}
+		return null;
+	}
+
+	private Variable declareContextVariable(String name, Class<?> type) {
+		Variable variable = new Variable(this.newName(name), type);
+		this.getScopes().get(0).put(name, variable);
+		this.getDeclarations().append("\t\t").append(variable.getTypeName()).append(" ").append(variable.getJavaName()).
+			append(" = (").append(variable.getTypeName()).append(")context.get(\"").append(name).append("\");\n");
+		return variable;
+	}
+
+	/**
+	 * Resolves a property the same way Velocity does: getname(), getName() and isName(). Returns null if
+	 * the property doesn't exist.
+	 */
+	private Method findGetter(Class<?> type, String property, Node node) {
+		String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+		String[] names = new String[] { "get" + property, "get" + capitalized, "is" + capitalized };
+		for (String name : names) {
+			try {
+				Method method = type.getMethod(name);
+				if (!name.startsWith("is") || method.getReturnType() == boolean.class) {
+					return this.checkMethod(method, node);
+				}
+			} catch (NoSuchMethodException e) {
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the public method that accepts the arguments. If the method is overloaded, the most specific one is chosen.
+	 * Returns null if there is no method. A null argument type is an argument that is always null.
+	 */
+	private Method findMethod(Class<?> type, String name, List<Class<?>> argumentTypes, Node node) {
+		List<Method> candidates = new ArrayList<Method>();
+		for (Method method : type.getMethods()) {
+			if (method.getName().equals(name) && this.isApplicable(method.getParameterTypes(), argumentTypes)) {
+				candidates.add(method);
+			}
+		}
+		Method result = null;
+		for (Method candidate : candidates) {
+			boolean mostSpecific = true;
+			for (Method other : candidates) {
+				if (other != candidate && !this.isApplicable(other.getParameterTypes(), Arrays.asList(candidate.getParameterTypes()))) {
+					mostSpecific = false;
+				}
+			}
+			if (mostSpecific) {
+				if (result != null) {
+					throw new UnsupportedOperationException("ambiguous method " + name + " at line " + node.getLine());
+				}
+				result = candidate;
+			}
+		}
+		if (result == null) {
+			return null;
+		}
+		return this.checkMethod(result, node);
+	}
+
+	private boolean isApplicable(Class<?>[] parameterTypes, List<Class<?>> argumentTypes) {
+		if (parameterTypes.length != argumentTypes.size()) {
+			return false;
+		}
+		for (int i = 0; i < parameterTypes.length; i++) {
+			Class<?> argumentType = argumentTypes.get(i);
+			if (parameterTypes[i].isPrimitive() || (argumentType != null && !parameterTypes[i].isAssignableFrom(argumentType))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Method checkMethod(Method method, Node node) {
+		if (method.getReturnType() == void.class || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			throw new UnsupportedOperationException("method " + method.getName() + " at line " + node.getLine());
+		}
+		return method;
+	}
+
+	private Class<?> box(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (type == boolean.class) {
+			return Boolean.class;
+		} else if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		}
+		return Character.class;
+	}
+
+	private Class<?> getHelperType(String templateName) {
+		String name = templateName.substring(templateName.lastIndexOf('/') + 1);
+		if (name.startsWith("template_java")) {
+			return JavaVelocityHelper.class;
+		} else if (name.startsWith("template_objc")) {
+			return ObjcVelocityHelper.class;
+		} else if (name.startsWith("template_swift")) {
+			return SwiftVelocityHelper.class;
+		}
+		return VelocityHelper.class;
+	}
+
+	private Object getField(Object object, String name) throws Exception {
+		Field field = object.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(object);
+	}
+
+	private String toJavaString(String text) {
+		StringBuffer result = new StringBuffer("\"");
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"') {
+				result.append("\\\"");
+			} else if (c == '\\') {
+				result.append("\\\\");
+			} else if (c == '\n') {
+				result.append("\\n");
+				if (i < text.length() - 1) {
+					// One line of the template per line of Java code
+					result.append("\" +\n");
+					this.indent(result, this.getIndentation() + 1);
+					result.append("\"");
+				}
+			} else if (c == '\r') {
+				result.append("\\r");
+			} else if (c == '\t') {
+				result.append("\\t");
+			} else if (c < 0x20 || c > 0x7e) {
+				String hex = Integer.toHexString(c);
+				result.append("\\u").append("0000".substring(hex.length())).append(hex);
+			} else {
+				result.append(c);
+			}
+		}
+		return result.append("\"").toString();
+	}
+
+	private String newName(String name) {
+		this.setCounter(this.getCounter() + 1);
+		return name.replace('-', '_') + "_" + this.getCounter();
+	}
+
+	private void line(String code) {
+		this.indent(this.getBody(), this.getIndentation());
+		this.getBody().append(code).append("\n");
+	}
+
+	private void indent(StringBuffer buffer, int level) {
+		for (int i = 0; i < level; i++) {
+			buffer.append("\t");
+		}
+	}
+
+	/**
+	 * A Java local variable of the emitter
+	 */
+	private class Variable {
+
+		private String javaName;
+		private Class<?> type;
+		private Type genericType;
+		private boolean loopVariable;
+		private boolean unresolved;
+
+		public Variable(String javaName, Class<?> type) {
+			this(javaName, type, type);
+		}
+
+		public Variable(String javaName, Class<?> type, Type genericType) {
+			this.javaName = javaName;
+			this.type = box(type);
+			this.genericType = genericType;
+		}
+
+		public String getJavaName() {
+			return javaName;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public Type getGenericType() {
+			return genericType;
+		}
+
+		public String getTypeName() {
+			if (this.getGenericType() instanceof ParameterizedType && getItemType(this) != null) {
+				return this.getType().getCanonicalName() + "<" + getItemType(this).getCanonicalName() + ">";
+			}
+			return this.getType().getCanonicalName();
+		}
+
+		/**
+		 * A reference that can't be resolved: its value is always null
+		 */
+		public boolean isUnresolved() {
+			return unresolved;
+		}
+
+		public void setUnresolved(boolean unresolved) {
+			this.unresolved = unresolved;
+		}
+
+		public boolean isLoopVariable() {
+			return loopVariable;
+		}
+
+		public void setLoopVariable(boolean loopVariable) {
+			this.loopVariable = loopVariable;
+		}
+	}
+
+	private RuntimeInstance getRuntime() {
+		return runtime;
+	}
+
+	private void setRuntime(RuntimeInstance runtime) {
+		this.runtime = runtime;
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+	private StringBuffer getDeclarations() {
+		return declarations;
+	}
+
+	private void setDeclarations(StringBuffer declarations) {
+		this.declarations = declarations;
+	}
+
+	private StringBuffer getBody() {
+		return body;
+	}
+
+	private void setBody(StringBuffer body) {
+		this.body = body;
+	}
+
+	private int getIndentation() {
+		return indentation;
+	}
+
+	private void setIndentation(int indentation) {
+		this.indentation = indentation;
+	}
+
+	private int getCounter() {
+		return counter;
+	}
+
+	private void setCounter(int counter) {
+		this.counter = counter;
+	}
+
+	private List<Map<String, Variable>> getScopes() {
+		return scopes;
+	}
+
+	private void setScopes(List<Map<String, Variable>> scopes) {
+		this.scopes = scopes;
+	}
+
+}
@@ -0,0 +1,56 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.Writer;
+
+import org.apache.velocity.context.Context;
+
+/**
+ * Superclass of the emitters produced by the TemplateCompiler. An emitter is the Java version of a Velocity
+ * template: it writes exactly the same output, but the calls to the helper and the model are plain Java
+ * calls, so there is no parsing or introspection at generation time.
+ */
+public abstract class TemplateEmitter {
+
+	/**
+	 * Writes the result of merging the template with the context
+	 */
+	public abstract void merge(Context context, Writer writer) throws Exception;
+
+	/**
+	 * Evaluates a value in a condition (#if) the same way Velocity does
+	 */
+	protected static boolean isTrue(Object value) {
+		if (value == null) {
+			return false;
+		}
+		if (value instanceof Boolean) {
+			return ((Boolean)value).booleanValue();
+		}
+		return value.toString() != null;
+	}
+
+	/**
+	 * Writes the value of a reference. If the value is null, the literal of the reference is written
+	 * the same way Velocity does.
+	 */
+	protected static void write(Writer writer, Object value, String nullString) throws Exception {
+		String text = (value == null) ? null : value.toString();
+		writer.write(text == null ? nullString : text);
+	}
+
+}
@@ -0,0 +1,148 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes all the artifacts to a single zip (or jar) file instead of creating a file for each one. The archive
+ * is written sequentially while the artifacts are generated, and the entries have the path relative to
+ * the output directory. The archive is complete after close().
+ * 
+ * The static support files copied from the classpath can be stored without compression (see setStoreResources()),
+ * so they are not compressed again in every generation.
+ */
+public class ZipOutputSink implements OutputSink {
+
+	private String outputDirectory;
+	private ZipOutputStream out;
+	private boolean storeResources;
+	private int entries;
+
+	public ZipOutputSink(String archiveFile, String outputDirectory) throws Exception {
+		this.setOutputDirectory(outputDirectory.replace('\\', '/'));
+		this.setOut(new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile), 64 * 1024)));
+	}
+
+	public void createDirectory(String directory) {
+	}
+
+	public void write(String fileName, byte[] data) throws Exception {
+		this.write(fileName, data, false);
+	}
+
+	public boolean writeResource(String fileName, URL resource) throws Exception {
+		if (this.isStoreResources()) {
+			// The content is needed to calculate the checksum before writing the entry
+			this.write(fileName, new IOUtility().readBytes(resource), true);
+			return true;
+		}
+		InputStream in = resource.openStream();
+		try {
+			this.write(fileName, in);
+		} finally {
+			in.close();
+		}
+		return true;
+	}
+
+	private synchronized void write(String fileName, InputStream in) throws Exception {
+		this.getOut().putNextEntry(new ZipEntry(this.getRelativePath(fileName)));
+		byte[] buffer = new byte[8192];
+		int numRead;
+		while ((numRead = in.read(buffer)) >= 0) {
+			this.getOut().write(buffer, 0, numRead);
+		}
+		this.getOut().closeEntry();
+		this.entries++;
+	}
+
+	private synchronized void write(String fileName, byte[] data, boolean stored) throws Exception {
+		ZipEntry entry = new ZipEntry(this.getRelativePath(fileName));
+		if (stored) {
+			// The size and the checksum of a stored entry must be known before writing it
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(data.length);
+			entry.setCompressedSize(data.length);
+			entry.setCrc(crc.getValue());
+		}
+		this.getOut().putNextEntry(entry);
+		this.getOut().write(data);
+		this.getOut().closeEntry();
+		this.entries++;
+	}
+
+	/**
+	 * Writes the central directory of the archive and closes the file
+	 */
+	public synchronized void close() throws Exception {
+		this.getOut().close();
+	}
+
+	/**
+	 * Number of files written to the archive
+	 */
+	public synchronized int getEntries() {
+		return entries;
+	}
+
+	private String getRelativePath(String fileName) {
+		String path = fileName.replace('\\', '/');
+		if (path.startsWith(this.getOutputDirectory() + "/")) {
+			path = path.substring(this.getOutputDirectory().length() + 1);
+		}
+		while (path.startsWith("/")) {
+			path = path.substring(1);
+		}
+		return path;
+	}
+
+	private String getOutputDirectory() {
+		return outputDirectory;
+	}
+
+	private void setOutputDirectory(String outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	private ZipOutputStream getOut() {
+		return out;
+	}
+
+	private void setOut(ZipOutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * If true, the support files copied from the classpath are stored without compression
+	 */
+	public boolean isStoreResources() {
+		return storeResources;
+	}
+
+	public void setStoreResources(boolean storeResources) {
+		this.storeResources = storeResources;
+	}
+
+}
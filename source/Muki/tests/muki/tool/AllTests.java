@@ -21,13 +21,18 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({ AntTaskTestCase.class,
+	DependencyGraphTestCase.class,
+	GenerationManifestTestCase.class, IOUtilityTestCase.class, JavaSourceCompilerTestCase.class,
 	JavaCompilationDeploymentTestCase.class, 
 	JavaGeneratorTestCase.class, 
 	ModelUtilityTestCase.class,
 	ObjCGeneratorTestCase.class,
 	ProjectDescriptionTestCase.class, 
+	ProjectReaderTestCase.class,
+	ProjectWatcherTestCase.class,
 	RestProjectGeneratorTestCase.class,
-	SwiftGeneratorTestCase.class })
+	SwiftGeneratorTestCase.class,
+	TemplateCompilerTestCase.class })
 public class AllTests {
 
 }
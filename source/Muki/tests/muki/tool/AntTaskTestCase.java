@@ -366,6 +366,147 @@ public class AntTaskTestCase {
 		assertEquals("ok", antResult);
 	}
 
+	/**
+	 * Generates the Java, Objective-C and Swift classes with a single task
+	 */
+	@Test
+	public void testRunTaskAllOk() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR + "/java");
+		this.getIo().createDirectory(TEMP_DIR + "/objc");
+		this.getIo().createDirectory(TEMP_DIR + "/swift");
+		String projectFile = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+				
+		// Step 1: Configure Ant script for invoking from here
+		String eclipseProjectPath = this.getProjectPath();
+		String buildFile = this.getIo().getAbsolutePathForLocalResource("/tests/build-compilation-tests.xml");
+
+		DefaultLogger consoleLogger = new DefaultLogger();
+		consoleLogger.setErrorPrintStream(System.err);
+		consoleLogger.setOutputPrintStream(System.out);
+		consoleLogger.setMessageOutputLevel(org.apache.tools.ant.Project.MSG_INFO);
+
+		org.apache.tools.ant.Project antProject = new org.apache.tools.ant.Project();
+		antProject.setUserProperty("ant.file", buildFile);
+		antProject.setUserProperty("project.dir", eclipseProjectPath);
+		antProject.setUserProperty("javaOutputDirectory", TEMP_DIR + "/java");
+		antProject.setUserProperty("objcOutputDirectory", TEMP_DIR + "/objc");
+		antProject.setUserProperty("swiftOutputDirectory", TEMP_DIR + "/swift");
+		antProject.setUserProperty("projectFile", projectFile);
+		antProject.addBuildListener(consoleLogger);
+		antProject.fireBuildStarted();
+		antProject.init();
+		
+		ProjectHelper helper = ProjectHelper.getProjectHelper();
+		antProject.addReference("ant.projectHelper", helper);
+		helper.parse(antProject, new File(buildFile));
+
+		// Step 2: invoke Ant script
+		antProject.executeTarget("test-ant-task-all");
+		String antResult = antProject.getProperty("test-ant-task-all.result");
+		assertEquals("ok", antResult);
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/java/store/model/Track.java"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/java/store/controller/RestApplication.java"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/objc/Track.h"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/objc/Controller1Stub.m"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/swift/Track.swift"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/swift/Controller1Stub.swift"));
+	}
+
+	/**
+	 * Generates all the projects of a fileset, every one in its own subdirectory
+	 */
+	@Test
+	public void testRunTaskFilesetOk() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR + "/projects");
+		this.getIo().createDirectory(TEMP_DIR + "/out");
+		String projectFile = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		byte[] data = this.getIo().readBinaryFile(projectFile);
+		this.getIo().writeBinaryFile(TEMP_DIR + "/projects/store1.xml", data);
+		this.getIo().writeBinaryFile(TEMP_DIR + "/projects/store2.xml", data);
+				
+		// Step 1: Configure Ant script for invoking from here
+		String eclipseProjectPath = this.getProjectPath();
+		String buildFile = this.getIo().getAbsolutePathForLocalResource("/tests/build-compilation-tests.xml");
+
+		DefaultLogger consoleLogger = new DefaultLogger();
+		consoleLogger.setErrorPrintStream(System.err);
+		consoleLogger.setOutputPrintStream(System.out);
+		consoleLogger.setMessageOutputLevel(org.apache.tools.ant.Project.MSG_INFO);
+
+		org.apache.tools.ant.Project antProject = new org.apache.tools.ant.Project();
+		antProject.setUserProperty("ant.file", buildFile);
+		antProject.setUserProperty("project.dir", eclipseProjectPath);
+		antProject.setUserProperty("option", MukiGenerator.GENERATE_OBJC);
+		antProject.setUserProperty("outputDirectory", TEMP_DIR + "/out");
+		antProject.setUserProperty("projectsDirectory", TEMP_DIR + "/projects");
+		antProject.addBuildListener(consoleLogger);
+		antProject.fireBuildStarted();
+		antProject.init();
+		
+		ProjectHelper helper = ProjectHelper.getProjectHelper();
+		antProject.addReference("ant.projectHelper", helper);
+		helper.parse(antProject, new File(buildFile));
+
+		// Step 2: invoke Ant script
+		antProject.executeTarget("test-ant-task-fileset");
+		String antResult = antProject.getProperty("test-ant-task-fileset.result");
+		assertEquals("ok", antResult);
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/out/store1/Track.h"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/out/store1/Controller1Stub.m"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/out/store2/Track.h"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/out/store2/Controller1Stub.m"));
+	}
+
+	/**
+	 * Generates and compiles the Java classes with the classpath of the task. The classpath of the process
+	 * doesn't have the libraries, like in an Ant script (only the launcher of Ant)
+	 */
+	@Test
+	public void testRunTaskCompileOk() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+		String projectFile = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+				
+		// Step 1: Configure Ant script for invoking from here
+		String eclipseProjectPath = this.getProjectPath();
+		String buildFile = this.getIo().getAbsolutePathForLocalResource("/tests/build-compilation-tests.xml");
+
+		DefaultLogger consoleLogger = new DefaultLogger();
+		consoleLogger.setErrorPrintStream(System.err);
+		consoleLogger.setOutputPrintStream(System.out);
+		consoleLogger.setMessageOutputLevel(org.apache.tools.ant.Project.MSG_INFO);
+
+		org.apache.tools.ant.Project antProject = new org.apache.tools.ant.Project();
+		antProject.setUserProperty("ant.file", buildFile);
+		antProject.setUserProperty("project.dir", eclipseProjectPath);
+		antProject.setUserProperty("outputDirectory", TEMP_DIR);
+		antProject.setUserProperty("projectFile", projectFile);
+		antProject.addBuildListener(consoleLogger);
+		antProject.fireBuildStarted();
+		antProject.init();
+		
+		ProjectHelper helper = ProjectHelper.getProjectHelper();
+		antProject.addReference("ant.projectHelper", helper);
+		helper.parse(antProject, new File(buildFile));
+
+		// Step 2: invoke Ant script
+		String processClasspath = System.getProperty("java.class.path");
+		System.setProperty("java.class.path", "");
+		try {
+			antProject.executeTarget("test-ant-task-compile");
+		} finally {
+			System.setProperty("java.class.path", processClasspath);
+		}
+		String antResult = antProject.getProperty("test-ant-task-compile.result");
+		assertEquals("ok", antResult);
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/model/Cd.class"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/controller/Controller1.class"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/controller/RestApplication.class"));
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/store/controller/Controller1.java"));
+	}
+
 	/**
 	 * Calculates the path to the Eclipse project in the file system.
 	 * We obtain the full path to something in the classpath and then substract 
@@ -0,0 +1,108 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import muki.tool.model.GetOperationType;
+import muki.tool.model.PaginationType;
+import muki.tool.model.Project;
+import muki.tool.model.SimpleAttrType;
+
+import org.junit.Test;
+
+/**
+ * This test case verifies the dependencies between models and controllers, and the changes between
+ * two versions of a project
+ */
+public class DependencyGraphTestCase {
+
+	@Test
+	public void testDependencies() throws Exception {
+		DependencyGraph graph = new DependencyGraph(TestHelper.getFullValidProject());
+		assertTrue(graph.getModelDependencies("Track").isEmpty());
+		assertEquals(this.asSet("Track"), graph.getModelDependencies("Cd"));
+		assertEquals(this.asSet("Track", "Cd"), graph.getControllerDependencies("Controller1"));
+		assertTrue(graph.getModelDependencies("Undefined").isEmpty());
+	}
+
+	@Test
+	public void testAffectedElements() throws Exception {
+		DependencyGraph graph = new DependencyGraph(TestHelper.getFullValidProject());
+		assertEquals(this.asSet("Cd"), graph.getAffectedModels(this.asSet("Cd")));
+		assertEquals(this.asSet("Track", "Cd"), graph.getAffectedModels(this.asSet("Track")));
+		assertEquals(this.asSet("Controller1"), graph.getAffectedControllers(this.asSet("Cd"), Collections.<String>emptySet()));
+		assertTrue(graph.getAffectedControllers(Collections.<String>emptySet(), Collections.<String>emptySet()).isEmpty());
+	}
+
+	@Test
+	public void testProjectChanges() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ProjectSnapshot previous = new ProjectSnapshot(project);
+		assertTrue(new ProjectChanges(previous, new ProjectSnapshot(project)).isEmpty());
+
+		SimpleAttrType genre = new SimpleAttrType();
+		genre.setName("genre");
+		genre.setType(ModelUtility.STRING_TYPE);
+		project.getModelDefinitions().getModel().get(0).getSimpleAttr().add(genre);
+		ProjectChanges changes = new ProjectChanges(previous, new ProjectSnapshot(project));
+		assertFalse(changes.isFullGenerationRequired());
+		assertEquals(this.asSet("Track"), changes.getChangedModels());
+		assertEquals(this.asSet("Track", "Cd"), changes.getAffectedModels());
+		assertEquals(this.asSet("Controller1", "Controller2"), changes.getAffectedControllers());
+
+		project.getModelDefinitions().getModel().remove(1);
+		assertTrue(new ProjectChanges(previous, new ProjectSnapshot(project)).isFullGenerationRequired());
+	}
+
+	/**
+	 * The pages of the paginated operations are generated with all the models
+	 */
+	@Test
+	public void testProjectChangesWithPagination() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ProjectSnapshot previous = new ProjectSnapshot(project);
+		assertTrue(previous.getPageModels().isEmpty());
+
+		PaginationType pagination = new PaginationType();
+		pagination.setMaxPageSize(100);
+		GetOperationType operation = new GetOperationType();
+		operation.setName("getCds");
+		operation.setHttpPath("/cds");
+		operation.setReturnType("Cd");
+		operation.setSerializationType("json");
+		operation.setPagination(pagination);
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(operation);
+		ProjectSnapshot current = new ProjectSnapshot(project);
+		assertEquals(Arrays.asList("CdPage"), current.getPageModels());
+		assertTrue(new ProjectChanges(previous, current).isFullGenerationRequired());
+
+		pagination.setDefaultPageSize(10);
+		assertFalse(new ProjectChanges(current, new ProjectSnapshot(project)).isFullGenerationRequired());
+	}
+
+	private Set<String> asSet(String... names) {
+		return new HashSet<String>(Arrays.asList(names));
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test case verifies the manifest used for the incremental generation
+ */
+public class GenerationManifestTestCase {
+
+	private static String TEMP_DIR = TestHelper.TEMP_DIR;
+	private IOUtility io;
+
+	@Before
+	public void setUp() throws Exception {
+		this.setIo(new IOUtility());
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testWriteOnlyChangedFiles() throws Exception {
+		GenerationManifest manifest = new GenerationManifest(TEMP_DIR);
+		assertFalse(manifest.load());
+		assertTrue(manifest.write(TEMP_DIR + "/A.java", "class A {}".getBytes()));
+		assertTrue(manifest.write(TEMP_DIR + "/B.java", "class B {}".getBytes()));
+		manifest.save();
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/" + GenerationManifest.FILE_NAME));
+
+		manifest = new GenerationManifest(TEMP_DIR);
+		assertTrue(manifest.load());
+		assertFalse(manifest.write(TEMP_DIR + "/A.java", "class A {}".getBytes()));
+		assertTrue(manifest.write(TEMP_DIR + "/B.java", "class B { int i; }".getBytes()));
+		assertEquals(1, manifest.getWrittenFiles());
+		assertEquals(1, manifest.getUnchangedFiles());
+		assertEquals("class B { int i; }\n", this.getIo().readTextFile(TEMP_DIR + "/B.java"));
+	}
+
+	@Test
+	public void testRemoveStaleFiles() throws Exception {
+		GenerationManifest manifest = new GenerationManifest(TEMP_DIR);
+		manifest.write(TEMP_DIR + "/A.java", "class A {}".getBytes());
+		manifest.write(TEMP_DIR + "/B.java", "class B {}".getBytes());
+		manifest.save();
+
+		manifest = new GenerationManifest(TEMP_DIR);
+		manifest.load();
+		manifest.write(TEMP_DIR + "/A.java", "class A {}".getBytes());
+		manifest.removeStaleFiles();
+		manifest.save();
+		assertEquals(1, manifest.getRemovedFiles());
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/A.java"));
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/B.java"));
+	}
+
+	@Test
+	public void testDeletedFileIsWrittenAgain() throws Exception {
+		GenerationManifest manifest = new GenerationManifest(TEMP_DIR);
+		manifest.write(TEMP_DIR + "/A.java", "class A {}".getBytes());
+		manifest.save();
+		this.getIo().deleteFile(TEMP_DIR + "/A.java");
+
+		manifest = new GenerationManifest(TEMP_DIR);
+		manifest.load();
+		assertFalse(manifest.isComplete());
+		assertTrue(manifest.write(TEMP_DIR + "/A.java", "class A {}".getBytes()));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/A.java"));
+	}
+
+	@Test
+	public void testStamp() throws Exception {
+		String projectFile = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		GenerationManifest manifest = new GenerationManifest(TEMP_DIR);
+		String stamp = manifest.createStamp(MukiGenerator.GENERATE_JAVA, projectFile);
+		manifest.setStamp(stamp);
+		manifest.save();
+
+		manifest = new GenerationManifest(TEMP_DIR);
+		manifest.load();
+		assertEquals(stamp, manifest.getStamp());
+		assertFalse(stamp.equals(manifest.createStamp(MukiGenerator.GENERATE_OBJC, projectFile)));
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
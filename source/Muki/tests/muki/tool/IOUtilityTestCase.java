@@ -0,0 +1,107 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test case verifies the management of files and resources
+ */
+public class IOUtilityTestCase {
+
+	private static String TEMP_DIR = TestHelper.TEMP_DIR;
+	private IOUtility io;
+
+	@Before
+	public void setUp() throws Exception {
+		this.setIo(new IOUtility());
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testDeleteDirectory() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			this.getIo().createDirectory(TEMP_DIR + "/tree/dir" + i + "/sub");
+			this.getIo().writeBinaryFile(TEMP_DIR + "/tree/dir" + i + "/A.java", "class A {}".getBytes());
+			this.getIo().writeBinaryFile(TEMP_DIR + "/tree/dir" + i + "/sub/B.java", "class B {}".getBytes());
+		}
+		this.getIo().writeBinaryFile(TEMP_DIR + "/tree/C.java", "class C {}".getBytes());
+		assertTrue(this.getIo().deleteDirectory(TEMP_DIR + "/tree"));
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/tree"));
+		assertFalse(this.getIo().deleteDirectory(TEMP_DIR + "/tree"));
+	}
+
+	@Test
+	public void testCopyResource() throws Exception {
+		URL url = this.getClass().getResource("/templates/SwiftyJSON.swift");
+		String fileName = TEMP_DIR + "/SwiftyJSON.swift";
+		assertFalse(this.getIo().isSameContent(url, fileName));
+		long length = this.getIo().copyResource(url, fileName);
+		byte[] data = this.getIo().readBytes(url);
+		assertEquals(data.length, length);
+		assertEquals(data.length, this.getIo().getContentLength(url));
+		assertArrayEquals(data, this.getIo().readBinaryFile(fileName));
+		assertTrue(this.getIo().isSameContent(url, fileName));
+
+		// The file is written only if the content is different
+		FileOutputSink sink = new FileOutputSink();
+		assertFalse(sink.writeResource(fileName, url));
+		this.getIo().writeBinaryFile(fileName, "changed".getBytes());
+		assertFalse(this.getIo().isSameContent(url, fileName));
+		assertTrue(sink.writeResource(fileName, url));
+		assertArrayEquals(data, this.getIo().readBinaryFile(fileName));
+	}
+
+	/**
+	 * The resources in a jar are streamed instead of copied between channels
+	 */
+	@Test
+	public void testCopyResourceFromArchive() throws Exception {
+		String archiveFile = TEMP_DIR + "/resources.zip";
+		ZipOutputSink sink = new ZipOutputSink(archiveFile, TEMP_DIR);
+		sink.writeResource(TEMP_DIR + "/SwiftyJSON.swift", this.getClass().getResource("/templates/SwiftyJSON.swift"));
+		sink.close();
+		URL url = new URL("jar:" + new File(archiveFile).toURI().toURL() + "!/SwiftyJSON.swift");
+		byte[] data = this.getIo().readBytes(this.getClass().getResource("/templates/SwiftyJSON.swift"));
+		assertEquals(data.length, this.getIo().copyResource(url, TEMP_DIR + "/copy.swift"));
+		assertArrayEquals(data, this.getIo().readBinaryFile(TEMP_DIR + "/copy.swift"));
+		assertTrue(this.getIo().isSameContent(url, TEMP_DIR + "/copy.swift"));
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
@@ -18,6 +18,18 @@ package muki.tool;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpStatus;
@@ -28,6 +40,9 @@ import org.apache.commons.httpclient.methods.PutMethod;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.tools.ant.DefaultLogger;
 import org.apache.tools.ant.ProjectHelper;
+import org.jboss.resteasy.core.Dispatcher;
+import org.jboss.resteasy.spi.ResteasyDeployment;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -36,11 +51,15 @@ import org.junit.Test;
 import org.mortbay.jetty.Connector;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.nio.SelectChannelConnector;
+import org.mortbay.jetty.servlet.Context;
 import org.mortbay.jetty.webapp.WebAppContext;
+import org.mortbay.thread.QueuedThreadPool;
 
+import muki.tool.model.ControllerType;
 import muki.tool.model.Project;
 import muki.tool.ExecutionResult;
 import muki.tool.IOUtility;
+import muki.tool.JavaGenerator;
 import muki.tool.ModelUtility;
 import muki.tool.MukiGenerator;
 
@@ -1370,6 +1389,95 @@ public class JavaCompilationDeploymentTestCase {
 		assertTrue(jsonResponse.indexOf("{My {\\\"Track} 1 & {'My Track' ") > -1);
 	}
 	
+	/**
+	 * The asynchronous operations deployed with MukiAsyncDispatcher release the threads of Jetty: the
+	 * suspended requests are more than the threads of the pool, and the synchronous requests are still served
+	 */
+	@Test
+	public void testAsyncOperationsReleaseThreads() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ControllerType controller1 = project.getControllerDefinitions().getController().get(0);
+		controller1.setAsync(true);
+		controller1.getGetOperation().get(0).setAsync(false);
+		ClassLoader loader = TestHelper.compileJavaClasses(new JavaGenerator(), project, TEMP_DIR + "/async/classes");
+		Class<?> controllerClass = loader.loadClass("store.controller.Controller1");
+		Class<?> delegateClass = loader.loadClass("store.controller.Controller1Delegate");
+		final Class<?> cdClass = loader.loadClass("store.model.Cd");
+		final List<CompletableFuture<Object>> results = Collections.synchronizedList(new ArrayList<CompletableFuture<Object>>());
+		Object delegate = Proxy.newProxyInstance(loader, new Class<?>[] { delegateClass }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (method.getName().equals("getOperation1")) {
+					return "getOperation1";
+				}
+				CompletableFuture<Object> result = new CompletableFuture<Object>();
+				results.add(result);
+				return result;
+			}
+		});
+		Object controller = controllerClass.getDeclaredConstructor().newInstance();
+		controllerClass.getMethod("setDelegate", delegateClass).invoke(controller, delegate);
+		ResteasyDeployment deployment = new ResteasyDeployment();
+		deployment.start();
+		deployment.getRegistry().addSingletonResource(controller);
+
+		// One thread for the selector and three for the requests
+		QueuedThreadPool threadPool = new QueuedThreadPool();
+		threadPool.setMinThreads(2);
+		threadPool.setMaxThreads(4);
+		Server asyncServer = new Server();
+		asyncServer.setThreadPool(threadPool);
+		Connector connector = new SelectChannelConnector();
+		connector.setPort(8090);
+		asyncServer.setConnectors(new Connector[]{connector});
+		Context context = new Context(asyncServer, "/", Context.NO_SESSIONS);
+		context.setClassLoader(loader);
+		context.setAttribute(ResteasyProviderFactory.class.getName(), deployment.getProviderFactory());
+		context.setAttribute(Dispatcher.class.getName(), deployment.getDispatcher());
+		context.addServlet(loader.loadClass("store.controller.MukiAsyncDispatcher"), "/*");
+		asyncServer.start();
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> responses = new ArrayList<Future<String>>();
+			for (int i = 0; i < 8; i++) {
+				responses.add(clients.submit(this.createRequest("http://localhost:8090/controller1/pathGetOperation8Json/" + i)));
+			}
+			long deadline = System.currentTimeMillis() + 10000;
+			while (results.size() < 8 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(8, results.size());
+			assertEquals("200 getOperation1", this.createRequest("http://localhost:8090/controller1/pathGetOperation1").call());
+
+			for (CompletableFuture<Object> result : results) {
+				Object cd = cdClass.getDeclaredConstructor().newInstance();
+				cdClass.getMethod("setTitle", String.class).invoke(cd, "Abbey Road");
+				result.complete(cd);
+			}
+			for (Future<String> response : responses) {
+				String actualResponse = response.get(10, TimeUnit.SECONDS);
+				assertTrue(actualResponse, actualResponse.startsWith("200 "));
+				assertTrue(actualResponse, actualResponse.indexOf("\"title\":\"Abbey Road\"") > 0);
+			}
+		} finally {
+			clients.shutdownNow();
+			asyncServer.stop();
+			deployment.stop();
+		}
+	}
+
+	/**
+	 * Returns a request that sends a GET and returns the status code and the body of the response
+	 */
+	private Callable<String> createRequest(final String url) {
+		return new Callable<String>() {
+			public String call() throws Exception {
+				GetMethod method = new GetMethod(url);
+				int statusCode = new HttpClient().executeMethod(method);
+				return statusCode + " " + new String(method.getResponseBody());
+			}
+		};
+	}
+
 	private String getXmlCd() {
 		String xml = 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
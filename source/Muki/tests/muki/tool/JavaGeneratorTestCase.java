@@ -16,16 +16,65 @@
 package muki.tool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.velocity.Template;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.jboss.resteasy.annotations.Suspend;
+import org.jboss.resteasy.spi.AsynchronousResponse;
 import org.apache.velocity.app.Velocity;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import muki.tool.model.GetOperationType;
 import muki.tool.model.ModelType;
+import muki.tool.model.PaginationType;
+import muki.tool.model.PathParamType;
+import muki.tool.model.PostOperationType;
 import muki.tool.model.Project;
+import muki.tool.model.SimpleAttrType;
 import muki.tool.model.ControllerDefinitionsType;
 import muki.tool.model.ControllerType;
 import muki.tool.IOUtility;
@@ -60,6 +109,19 @@ public class JavaGeneratorTestCase {
 		assertEquals("org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader", value);
 	}
 
+	/**
+	 * The templates are cached by Velocity, so they are parsed only once
+	 * no matter how many generators are created.
+	 */
+	@Test
+	public void testTemplatesAreCached() throws Exception {
+		new JavaGenerator();
+		new JavaGenerator();
+		assertEquals("true", Velocity.getProperty("class.resource.loader.cache"));
+		Template template = Velocity.getTemplate("/templates/template_java_bean.vm");
+		assertSame(template, Velocity.getTemplate("/templates/template_java_bean.vm"));
+	}
+
 	/**
 	 * This test verifies the generation of a Java class file for a type
 	 */
@@ -155,7 +217,7 @@ public class JavaGeneratorTestCase {
 		Project project = TestHelper.getFullValidProject();
 		ControllerType controller = project.getControllerDefinitions().getController().get(0);
 
-		this.getGenerator().generateControllerClass(controller, outputDirectory, project.getControllerDefinitions().getJavaPackage(), project.getModelDefinitions().getJavaPackage());
+		this.getGenerator().generateControllerClass(controller, project.getModelDefinitions(), outputDirectory, project.getControllerDefinitions().getJavaPackage());
 		
 		String fileName = outputDirectory + "/store/controller/Controller1.java";
 		assertTrue(this.getIo().existsFile(fileName));
@@ -306,6 +368,517 @@ public class JavaGeneratorTestCase {
 		assertTrue(fileContents.indexOf("private Set<Object> singletons = new HashSet<Object>();") > 5);
 		assertTrue(fileContents.indexOf("private Set<Class<?>> empty = new HashSet<Class<?>>();") > 5);		
 		assertTrue(fileContents.indexOf("protected void init() {") > 5);		
+		assertTrue(fileContents.indexOf("this.getSingletons().add(new MukiJaxbContextResolver());") > 5);
+	}
+
+	/**
+	 * The JSON codecs must write the same JSON of the Jackson databinding, and read it back
+	 */
+	@Test
+	public void testGenerateJsonCodecs() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		JavaGenerator generator = new JavaGenerator();
+		generator.setJsonCodecs(true);
+		ClassLoader loader = TestHelper.compileJavaClasses(generator, TestHelper.getFullValidProject(), TEMP_DIR + "/classes");
+		Class<?> cdClass = loader.loadClass("store.model.Cd");
+		Class<?> codecClass = loader.loadClass("store.model.CdJsonCodec");
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/classes/store/controller/MukiJsonProvider.class"));
+
+		ObjectMapper mapper = new ObjectMapper();
+		String json = "{\"title\":\"Abbey Road\",\"artist\":null,\"mainTrack\":{\"title\":\"Come Together\",\"durationInSeconds\":259," +
+				"\"catalogId\":12345678901,\"newRelease\":true,\"price\":1.5},\"tracks\":[{\"title\":\"Something\",\"durationInSeconds\":182," +
+				"\"catalogId\":2,\"newRelease\":false,\"price\":0.99},{\"title\":null,\"durationInSeconds\":0,\"catalogId\":0," +
+				"\"newRelease\":false,\"price\":0.0}]}";
+		Object cd = mapper.readValue(json, cdClass);
+
+		StringWriter writer = new StringWriter();
+		JsonGenerator jsonGenerator = new JsonFactory().createJsonGenerator(writer);
+		codecClass.getMethod("write", cdClass, JsonGenerator.class).invoke(null, cd, jsonGenerator);
+		jsonGenerator.close();
+		assertEquals(mapper.readTree(mapper.writeValueAsString(cd)), mapper.readTree(writer.toString()));
+
+		// Unknown fields are ignored
+		JsonParser parser = new JsonFactory().createJsonParser(json.replace("\"artist\":null", "\"unknown\":{\"a\":[1,{}]},\"artist\":\"The Beatles\""));
+		parser.nextToken();
+		Object copy = codecClass.getMethod("read", JsonParser.class).invoke(null, parser);
+		assertEquals(mapper.readTree(json.replace("\"artist\":null", "\"artist\":\"The Beatles\"")), mapper.readTree(mapper.writeValueAsString(copy)));
+	}
+
+	/**
+	 * The Externalizable models must be read back with the Java serialization, and the messages must be
+	 * smaller than the ones of the default serialization
+	 */
+	@Test
+	public void testGenerateExternalizableModels() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		ClassLoader serializableLoader = TestHelper.compileJavaClasses(new JavaGenerator(), TestHelper.getFullValidProject(), TEMP_DIR + "/serializable");
+		JavaGenerator generator = new JavaGenerator();
+		generator.setExternalizable(true);
+		ClassLoader loader = TestHelper.compileJavaClasses(generator, TestHelper.getFullValidProject(), TEMP_DIR + "/externalizable");
+		Class<?> cdClass = loader.loadClass("store.model.Cd");
+		assertTrue(Externalizable.class.isAssignableFrom(cdClass));
+		assertFalse(Externalizable.class.isAssignableFrom(serializableLoader.loadClass("store.model.Cd")));
+
+		ObjectMapper mapper = new ObjectMapper();
+		String json = "{\"title\":\"Abbey Road \u00e9\",\"artist\":null,\"mainTrack\":{\"title\":\"Come Together\",\"durationInSeconds\":259," +
+				"\"catalogId\":-12345678901,\"newRelease\":true,\"price\":1.5},\"tracks\":[{\"title\":\"Something\",\"durationInSeconds\":182," +
+				"\"catalogId\":2,\"newRelease\":false,\"price\":0.99},{\"title\":null,\"durationInSeconds\":0,\"catalogId\":0," +
+				"\"newRelease\":false,\"price\":0.0}]}";
+		byte[] externalizableBytes = this.serialize(mapper.readValue(json, cdClass));
+		Object copy = this.deserialize(externalizableBytes, loader);
+		assertEquals(mapper.readTree(json), mapper.readTree(mapper.writeValueAsString(copy)));
+
+		// A null list is not the same as an empty list
+		cdClass.getMethod("setTracks", List.class).invoke(copy, (Object)null);
+		copy = this.deserialize(this.serialize(copy), loader);
+		assertEquals(null, cdClass.getMethod("getTracks").invoke(copy));
+
+		byte[] serializableBytes = this.serialize(mapper.readValue(json, serializableLoader.loadClass("store.model.Cd")));
+		assertTrue(externalizableBytes.length + " >= " + serializableBytes.length, externalizableBytes.length < serializableBytes.length);
+	}
+
+	private byte[] serialize(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(value);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private Object deserialize(byte[] bytes, final ClassLoader loader) throws Exception {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+			protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+				return Class.forName(desc.getName(), false, loader);
+			}
+		};
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The XML codecs must write the same XML of JAXB, and read it back
+	 */
+	@Test
+	public void testGenerateXmlCodecs() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		JavaGenerator generator = new JavaGenerator();
+		generator.setXmlCodecs(true);
+		ClassLoader loader = TestHelper.compileJavaClasses(generator, TestHelper.getFullValidProject(), TEMP_DIR + "/classes");
+		Class<?> cdClass = loader.loadClass("store.model.Cd");
+		Class<?> codecClass = loader.loadClass("store.model.CdXmlCodec");
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/classes/store/controller/MukiXmlProvider.class"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/classes/store/model/MukiXmlSupport.class"));
+
+		JAXBContext context = JAXBContext.newInstance(cdClass);
+		Marshaller marshaller = context.createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+		String xml = "<cd><title>Abbey Road</title><mainTrack durationInSeconds=\"259\" catalogId=\"12345678901\" newRelease=\"true\" price=\"1.5\">" +
+				"<title>Come Together</title></mainTrack><tracks><track durationInSeconds=\"182\" catalogId=\"2\" newRelease=\"false\" price=\"0.99\">" +
+				"<title>Something &amp; \"more\" &gt;</title></track><track durationInSeconds=\"0\" catalogId=\"0\" newRelease=\"false\" price=\"INF\"/></tracks></cd>";
+		Object cd = context.createUnmarshaller().unmarshal(new StringReader(xml));
+		StringWriter expected = new StringWriter();
+		marshaller.marshal(cd, expected);
+
+		StringWriter writer = new StringWriter();
+		XMLStreamWriter xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+		codecClass.getMethod("write", cdClass, XMLStreamWriter.class).invoke(null, cd, xmlWriter);
+		xmlWriter.close();
+		// The beans have no order of properties (propOrder = {}), JAXB sorts them by reflection
+		StringWriter actual = new StringWriter();
+		marshaller.marshal(context.createUnmarshaller().unmarshal(new StringReader(writer.toString())), actual);
+		assertEquals(expected.toString(), actual.toString());
+		assertTrue(writer.toString().indexOf("<tracks><track durationInSeconds=\"182\" catalogId=\"2\" newRelease=\"false\" price=\"0.99\">") > 0);
+		assertTrue(writer.toString().indexOf("price=\"INF\"/></tracks>") > 0);
+		assertTrue(writer.toString().indexOf("<title>Something &amp; &quot;more&quot; &gt;</title>") > 0);
+
+		// Unknown attributes and elements are ignored
+		String unknown = xml.replace("<title>Abbey Road</title>", "<?xml version=\"1.0\"?><!-- comment --><cd unknown=\"1\"><other><title>x</title></other><title>Abbey Road</title>").substring("<cd>".length());
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(unknown));
+		Object copy = codecClass.getMethod("read", XMLStreamReader.class).invoke(null, reader);
+		actual = new StringWriter();
+		marshaller.marshal(copy, actual);
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	/**
+	 * The operations with the binary serialization use the binary codecs. The objects must be read back,
+	 * skipping the fields that are not known.
+	 */
+	@Test
+	public void testGenerateBinaryCodecs() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		Project project = TestHelper.getFullValidProject();
+		GetOperationType getOperation = new GetOperationType();
+		getOperation.setName("getOperationBinary");
+		getOperation.setHttpPath("/pathGetOperationBinary");
+		getOperation.setReturnType("Cd");
+		getOperation.setSerializationType("binary");
+		PostOperationType postOperation = new PostOperationType();
+		postOperation.setName("postOperationBinary");
+		postOperation.setHttpPath("/pathPostOperationBinary");
+		postOperation.setParamType("Cd");
+		postOperation.setReturnType("Track");
+		postOperation.setSerializationType("binary");
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(getOperation);
+		project.getControllerDefinitions().getController().get(0).getPostOperation().add(postOperation);
+		JavaGenerator generator = new JavaGenerator();
+		ClassLoader loader = TestHelper.compileJavaClasses(generator, project, TEMP_DIR + "/classes");
+		assertTrue(generator.isBinaryCodecs());
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/classes/store/controller/MukiBinaryProvider.class"));
+		Class<?> cdClass = loader.loadClass("store.model.Cd");
+		Class<?> codecClass = loader.loadClass("store.model.CdBinaryCodec");
+		Class<?> writerClass = loader.loadClass("store.model.MukiBinaryWriter");
+		Class<?> readerClass = loader.loadClass("store.model.MukiBinaryReader");
+		Class<?> controllerClass = loader.loadClass("store.controller.Controller1");
+		assertEquals(JavaVelocityHelper.BINARY_MEDIA_TYPE, controllerClass.getMethod("getOperationBinary").getAnnotation(Produces.class).value()[0]);
+		assertEquals(JavaVelocityHelper.BINARY_MEDIA_TYPE, controllerClass.getMethod("postOperationBinary", cdClass).getAnnotation(Consumes.class).value()[0]);
+
+		ObjectMapper mapper = new ObjectMapper();
+		String json = "{\"title\":\"Abbey Road \u00e9\u20ac\ud83c\udfb5\",\"artist\":null,\"mainTrack\":{\"title\":\"Come Together\",\"durationInSeconds\":-259," +
+				"\"catalogId\":-12345678901,\"newRelease\":true,\"price\":-1.5},\"tracks\":[{\"title\":\"\",\"durationInSeconds\":2147483647," +
+				"\"catalogId\":-9223372036854775808,\"newRelease\":false,\"price\":0.99},{\"title\":null,\"durationInSeconds\":0,\"catalogId\":0," +
+				"\"newRelease\":false,\"price\":0.0}]}";
+		Object cd = mapper.readValue(json, cdClass);
+		Object writer = writerClass.getDeclaredConstructor().newInstance();
+		codecClass.getMethod("write", cdClass, writerClass).invoke(null, cd, writer);
+		byte[] bytes = (byte[])writerClass.getMethod("toByteArray").invoke(writer);
+		assertTrue(bytes.length < json.length() / 2);
+		Object reader = readerClass.getConstructor(byte[].class).newInstance(bytes);
+		Object copy = codecClass.getMethod("read", readerClass).invoke(null, reader);
+		assertEquals(mapper.readTree(json), mapper.readTree(mapper.writeValueAsString(copy)));
+
+		// The same object with unknown fields before the known ones: a string (tag 20 << 3 | 2) and a list with a null object (tag 21 << 3 | 4)
+		ByteArrayOutputStream newer = new ByteArrayOutputStream();
+		byte[] unknownFields = new byte[] { (byte)0xA2, 0x01, 0x01, 'x', (byte)0xAC, 0x01, 0x01, -1, -1, -1, -1 };
+		int length = bytes.length - 4 + unknownFields.length;
+		newer.write(new byte[] { (byte)(length >>> 24), (byte)(length >>> 16), (byte)(length >>> 8), (byte)length });
+		newer.write(unknownFields);
+		newer.write(bytes, 4, bytes.length - 4);
+		reader = readerClass.getConstructor(byte[].class).newInstance(newer.toByteArray());
+		copy = codecClass.getMethod("read", readerClass).invoke(null, reader);
+		assertEquals(mapper.readTree(json), mapper.readTree(mapper.writeValueAsString(copy)));
+	}
+
+	/**
+	 * The tags of the binary codecs are declared in the model, so the objects written before reordering,
+	 * removing and adding attributes are read by the new codec, and the other way round
+	 */
+	@Test
+	public void testGenerateBinaryCodecsWithChangedModel() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		Project project = this.getBinaryProject();
+		Project changedProject = this.getBinaryProject();
+		ModelType cd = changedProject.getModelDefinitions().getModel().get(1);
+		SimpleAttrType title = cd.getSimpleAttr().get(0);
+		SimpleAttrType mainTrack = cd.getSimpleAttr().get(2);
+		SimpleAttrType label = new SimpleAttrType();
+		label.setName("label");
+		label.setType("STRING");
+		label.setTag(5);
+		cd.getSimpleAttr().clear();
+		cd.getSimpleAttr().add(label);
+		cd.getSimpleAttr().add(mainTrack);
+		cd.getSimpleAttr().add(title);
+		ExecutionResult result = new ExecutionResult();
+		new ModelUtility().validate(changedProject, result);
+		assertTrue(result.getLog(), result.isOk());
+		ClassLoader loader = TestHelper.compileJavaClasses(new JavaGenerator(), project, TEMP_DIR + "/classes");
+		ClassLoader changedLoader = TestHelper.compileJavaClasses(new JavaGenerator(), changedProject, TEMP_DIR + "/changed");
+
+		ObjectMapper mapper = new ObjectMapper();
+		String track = "{\"title\":\"Come Together\",\"durationInSeconds\":259,\"catalogId\":12,\"newRelease\":false,\"price\":0.99}";
+		String json = "{\"title\":\"Abbey Road\",\"artist\":\"The Beatles\",\"mainTrack\":" + track + ",\"tracks\":[" + track + "]}";
+		Object copy = this.copyBinary(mapper.readValue(json, loader.loadClass("store.model.Cd")), loader, changedLoader);
+		String expected = "{\"label\":null,\"mainTrack\":" + track + ",\"title\":\"Abbey Road\",\"tracks\":[" + track + "]}";
+		assertEquals(mapper.readTree(expected), mapper.readTree(mapper.writeValueAsString(copy)));
+
+		String changedJson = "{\"label\":\"Apple\",\"mainTrack\":" + track + ",\"title\":\"Abbey Road\",\"tracks\":[" + track + "]}";
+		copy = this.copyBinary(mapper.readValue(changedJson, changedLoader.loadClass("store.model.Cd")), changedLoader, loader);
+		expected = "{\"title\":\"Abbey Road\",\"artist\":null,\"mainTrack\":" + track + ",\"tracks\":[" + track + "]}";
+		assertEquals(mapper.readTree(expected), mapper.readTree(mapper.writeValueAsString(copy)));
+	}
+
+	/**
+	 * Returns the full valid project with an operation that uses the binary serialization
+	 */
+	private Project getBinaryProject() {
+		Project project = TestHelper.getFullValidProject();
+		GetOperationType getOperation = new GetOperationType();
+		getOperation.setName("getOperationBinary");
+		getOperation.setHttpPath("/pathGetOperationBinary");
+		getOperation.setReturnType("Cd");
+		getOperation.setSerializationType("binary");
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(getOperation);
+		return project;
+	}
+
+	/**
+	 * Writes the Cd with the binary codec of a class loader and reads it with the codec of another
+	 */
+	private Object copyBinary(Object cd, ClassLoader writerLoader, ClassLoader readerLoader) throws Exception {
+		Class<?> writerClass = writerLoader.loadClass("store.model.MukiBinaryWriter");
+		Object writer = writerClass.getDeclaredConstructor().newInstance();
+		writerLoader.loadClass("store.model.CdBinaryCodec").getMethod("write", cd.getClass(), writerClass).invoke(null, cd, writer);
+		byte[] bytes = (byte[])writerClass.getMethod("toByteArray").invoke(writer);
+		Class<?> readerClass = readerLoader.loadClass("store.model.MukiBinaryReader");
+		Object reader = readerClass.getConstructor(byte[].class).newInstance(bytes);
+		return readerLoader.loadClass("store.model.CdBinaryCodec").getMethod("read", readerClass).invoke(null, reader);
+	}
+
+	/**
+	 * The GET operations with a streaming list write the items of the iterator returned by the delegate,
+	 * with the XML and JSON of the model that contains only the list, and close the iterator
+	 */
+	@Test
+	public void testGenerateStreamingOperations() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		Project project = TestHelper.getFullValidProject();
+		for (String serializationType : new String[] { "xml", "json" }) {
+			GetOperationType getOperation = new GetOperationType();
+			getOperation.setName("getOperationStreaming" + serializationType);
+			getOperation.setHttpPath("/pathGetOperationStreaming" + serializationType);
+			getOperation.setReturnType("Cd");
+			getOperation.setSerializationType(serializationType);
+			getOperation.setStreamingList("tracks");
+			project.getControllerDefinitions().getController().get(0).getGetOperation().add(getOperation);
+		}
+		ClassLoader loader = TestHelper.compileJavaClasses(new JavaGenerator(), project, TEMP_DIR + "/classes");
+		Class<?> cdClass = loader.loadClass("store.model.Cd");
+		Class<?> controllerClass = loader.loadClass("store.controller.Controller1");
+		Class<?> delegateClass = loader.loadClass("store.controller.Controller1Delegate");
+		assertSame(StreamingOutput.class, controllerClass.getMethod("getOperationStreamingxml").getReturnType());
+		assertSame(Iterator.class, delegateClass.getMethod("getOperationStreamingxml").getReturnType());
+
+		ObjectMapper mapper = new ObjectMapper();
+		String json = "{\"title\":null,\"artist\":null,\"mainTrack\":null,\"tracks\":[{\"title\":\"Come Together\",\"durationInSeconds\":259," +
+				"\"catalogId\":1,\"newRelease\":true,\"price\":1.5},{\"title\":\"Something\",\"durationInSeconds\":182,\"catalogId\":2," +
+				"\"newRelease\":false,\"price\":0.99}]}";
+		final List<?> tracks = (List<?>)cdClass.getMethod("getTracks").invoke(mapper.readValue(json, cdClass));
+		final boolean[] closed = new boolean[1];
+		Object controller = controllerClass.getDeclaredConstructor().newInstance();
+		Object delegate = Proxy.newProxyInstance(loader, new Class<?>[] { delegateClass }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (closed[0]) {
+					return null;
+				}
+				return new ClosingIterator(tracks.iterator(), closed);
+			}
+		});
+		controllerClass.getMethod("setDelegate", delegateClass).invoke(controller, delegate);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		((StreamingOutput)controllerClass.getMethod("getOperationStreamingjson").invoke(controller)).write(output);
+		assertTrue(closed[0]);
+		assertEquals(mapper.readTree(json).get("tracks"), mapper.readTree(output.toString("UTF-8")).get("tracks"));
+		assertEquals(1, mapper.readTree(output.toString("UTF-8")).size());
+
+		closed[0] = false;
+		output = new ByteArrayOutputStream();
+		((StreamingOutput)controllerClass.getMethod("getOperationStreamingxml").invoke(controller)).write(output);
+		assertTrue(closed[0]);
+		Object cd = JAXBContext.newInstance(cdClass).createUnmarshaller().unmarshal(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals(mapper.readTree(json), mapper.readTree(mapper.writeValueAsString(cd)));
+
+		// The marshaller of the thread is reused by the next responses, which are complete documents
+		JAXBContext context = (JAXBContext)loader.loadClass("store.controller.MukiJaxbContextResolver").getMethod("getJaxbContext").invoke(null);
+		StringWriter xml = new StringWriter();
+		context.createMarshaller().marshal(cd, xml);
+		assertTrue(xml.toString(), xml.toString().startsWith("<?xml"));
+
+		// The delegate returns null
+		try {
+			controllerClass.getMethod("getOperationStreamingxml").invoke(controller);
+			fail("The resource must not be found");
+		} catch (InvocationTargetException e) {
+			assertEquals("MukiResourceNotFoundException", e.getCause().getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * The paginated GET operations return a page of the model, and the controller passes to the delegate
+	 * the size of the page requested, limited to the max page size
+	 */
+	@Test
+	public void testGeneratePaginatedOperations() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		Project project = TestHelper.getFullValidProject();
+		PathParamType nameParam = new PathParamType();
+		nameParam.setName("name");
+		PaginationType pagination = new PaginationType();
+		pagination.setMaxPageSize(50);
+		pagination.setDefaultPageSize(10);
+		GetOperationType getOperation = new GetOperationType();
+		getOperation.setName("getOperationPaginated");
+		getOperation.setHttpPath("/pathGetOperationPaginated/{name}");
+		getOperation.setReturnType("Track");
+		getOperation.setSerializationType("xml");
+		getOperation.getPathParam().add(nameParam);
+		getOperation.setPagination(pagination);
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(getOperation);
+		ClassLoader loader = TestHelper.compileJavaClasses(new JavaGenerator(), project, TEMP_DIR + "/classes");
+		final Class<?> pageClass = loader.loadClass("store.model.TrackPage");
+		Class<?> controllerClass = loader.loadClass("store.controller.Controller1");
+		Class<?> delegateClass = loader.loadClass("store.controller.Controller1Delegate");
+		Method method = controllerClass.getMethod("getOperationPaginated", String.class, Integer.class, String.class);
+		assertSame(pageClass, method.getReturnType());
+		assertSame(pageClass, delegateClass.getMethod("getOperationPaginated", String.class, int.class, String.class).getReturnType());
+
+		final List<List<Object>> requests = new ArrayList<List<Object>>();
+		Object controller = controllerClass.getDeclaredConstructor().newInstance();
+		Object delegate = Proxy.newProxyInstance(loader, new Class<?>[] { delegateClass }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				requests.add(Arrays.asList(args));
+				Object page = pageClass.getDeclaredConstructor().newInstance();
+				pageClass.getMethod("setNextCursor", String.class).invoke(page, "page" + requests.size());
+				return page;
+			}
+		});
+		controllerClass.getMethod("setDelegate", delegateClass).invoke(controller, delegate);
+		method.invoke(controller, "beatles", null, null);
+		method.invoke(controller, "beatles", 500, "page1");
+		method.invoke(controller, "beatles", 0, "page2");
+		Object page = method.invoke(controller, "beatles", 20, "page3");
+		assertEquals(Arrays.<Object>asList("beatles", 10, null), requests.get(0));
+		assertEquals(Arrays.<Object>asList("beatles", 50, "page1"), requests.get(1));
+		assertEquals(Arrays.<Object>asList("beatles", 1, "page2"), requests.get(2));
+		assertEquals(Arrays.<Object>asList("beatles", 20, "page3"), requests.get(3));
+
+		// The page is registered in the JAXBContext of the models
+		JAXBContext context = (JAXBContext)loader.loadClass("store.controller.MukiJaxbContextResolver").getMethod("getJaxbContext").invoke(null);
+		StringWriter xml = new StringWriter();
+		context.createMarshaller().marshal(page, xml);
+		assertTrue(xml.toString(), xml.toString().contains("<trackpage>"));
+		assertTrue(xml.toString(), xml.toString().contains("<nextCursor>page4</nextCursor>"));
+	}
+
+	/**
+	 * The asynchronous operations have a delegate that returns a CompletionStage, and the controller sends
+	 * the result when it's completed
+	 */
+	@Test
+	public void testGenerateAsyncOperations() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		Project project = TestHelper.getFullValidProject();
+		ControllerType controller1 = project.getControllerDefinitions().getController().get(0);
+		controller1.setAsync(true);
+		controller1.setAsyncTimeout(5000L);
+		controller1.getGetOperation().get(0).setAsync(false);
+		project.getControllerDefinitions().getController().get(1).getPostOperation().get(0).setAsync(true);
+		ClassLoader loader = TestHelper.compileJavaClasses(new JavaGenerator(), project, TEMP_DIR + "/classes");
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/classes/store/controller/MukiAsyncResponse.class"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/classes/store/controller/MukiAsyncDispatcher.class"));
+		Class<?> cdClass = loader.loadClass("store.model.Cd");
+		Class<?> controllerClass = loader.loadClass("store.controller.Controller1");
+		Class<?> delegateClass = loader.loadClass("store.controller.Controller1Delegate");
+		// getOperation1 is not async
+		assertSame(String.class, controllerClass.getMethod("getOperation1").getReturnType());
+		assertSame(String.class, delegateClass.getMethod("getOperation1").getReturnType());
+		Method getMethod = controllerClass.getMethod("getOperation8Json", String.class, AsynchronousResponse.class);
+		assertSame(void.class, getMethod.getReturnType());
+		assertEquals(5000L, ((Suspend)getMethod.getParameterAnnotations()[1][0]).value());
+		assertSame(CompletionStage.class, delegateClass.getMethod("getOperation8Json", String.class).getReturnType());
+
+		final Map<String, CompletableFuture<Object>> results = new HashMap<String, CompletableFuture<Object>>();
+		final Response[] responses = new Response[1];
+		Object controller = controllerClass.getDeclaredConstructor().newInstance();
+		Object delegate = Proxy.newProxyInstance(loader, new Class<?>[] { delegateClass }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				return results.get(method.getName());
+			}
+		});
+		AsynchronousResponse response = new AsynchronousResponse() {
+			public void setResponse(Response response) {
+				responses[0] = response;
+			}
+		};
+		controllerClass.getMethod("setDelegate", delegateClass).invoke(controller, delegate);
+
+		// The response is sent when the result is completed
+		results.put("getOperation8Json", new CompletableFuture<Object>());
+		getMethod.invoke(controller, "1", response);
+		assertEquals(null, responses[0]);
+		Object cd = cdClass.getDeclaredConstructor().newInstance();
+		results.get("getOperation8Json").complete(cd);
+		assertEquals(200, responses[0].getStatus());
+		assertSame(cd, responses[0].getEntity());
+		assertEquals("application/json", responses[0].getMetadata().getFirst("Content-Type").toString());
+		results.put("getOperation8Json", CompletableFuture.completedFuture(null));
+		getMethod.invoke(controller, "1", response);
+		assertEquals(404, responses[0].getStatus());
+
+		// The errors
+		Method postMethod = controllerClass.getMethod("postOperation7Json", cdClass, AsynchronousResponse.class);
+		results.put("postOperation7Json", new CompletableFuture<Object>());
+		postMethod.invoke(controller, cd, response);
+		results.get("postOperation7Json").completeExceptionally(new WebApplicationException(409));
+		assertEquals(409, responses[0].getStatus());
+		results.put("postOperation7Json", new CompletableFuture<Object>());
+		postMethod.invoke(controller, cd, response);
+		results.get("postOperation7Json").completeExceptionally(new IllegalStateException());
+		assertEquals(500, responses[0].getStatus());
+
+		results.put("deleteOperation1", CompletableFuture.completedFuture(null));
+		controllerClass.getMethod("deleteOperation1", AsynchronousResponse.class).invoke(controller, response);
+		assertEquals(204, responses[0].getStatus());
+	}
+
+	/**
+	 * Iterator of a cursor that must be closed
+	 */
+	private static class ClosingIterator implements Iterator<Object>, Closeable {
+		private final Iterator<?> items;
+		private final boolean[] closed;
+
+		public ClosingIterator(Iterator<?> items, boolean[] closed) {
+			this.items = items;
+			this.closed = closed;
+		}
+
+		public boolean hasNext() {
+			return this.items.hasNext();
+		}
+
+		public Object next() {
+			return this.items.next();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void close() {
+			this.closed[0] = true;
+		}
+	}
+
+	/**
+	 * This test verifies the generation of the provider of the JAXBContext of the models
+	 */
+	@Test
+	public void testGenerateJaxbContextResolver() throws Exception {
+		String outputDirectory = TEMP_DIR;
+		this.getIo().deleteDirectory(outputDirectory);
+		this.getIo().createDirectory(outputDirectory);
+
+		Project project = TestHelper.getFullValidProject();
+		this.getGenerator().generateJaxbContextResolver(project.getModelDefinitions(), outputDirectory, project.getControllerDefinitions().getJavaPackage());
+
+		String fileName = outputDirectory + "/store/controller/MukiJaxbContextResolver.java";
+		assertTrue(this.getIo().existsFile(fileName));
+		String fileContents = this.getIo().readTextFile(fileName);
+		assertTrue(fileContents.indexOf("package store.controller;") > -1);
+		assertTrue(fileContents.indexOf("public class MukiJaxbContextResolver implements ContextResolver<JAXBContext> {") > 5);
+		assertTrue(fileContents.indexOf("\t\tstore.model.Track.class,\n\t\tstore.model.Cd.class,\n\t};") > 5);
+		assertTrue(fileContents.indexOf("new MukiPooledJaxbContext(JAXBContext.newInstance(MODEL_CLASSES))") > 5);
+
+		fileName = outputDirectory + "/store/controller/MukiPooledJaxbContext.java";
+		assertTrue(this.getIo().existsFile(fileName));
+		fileContents = this.getIo().readTextFile(fileName);
+		assertTrue(fileContents.indexOf("public class MukiPooledJaxbContext extends JAXBContext {") > 5);
+		assertTrue(fileContents.indexOf("private final ThreadLocal<Marshaller> marshallers") > 5);
 	}
 
 	/**
@@ -320,7 +893,7 @@ public class JavaGeneratorTestCase {
 		Project project = TestHelper.getFullValidProject();
 		ControllerType controller = project.getControllerDefinitions().getController().get(0);
 
-		this.getGenerator().generateDelegateInterface(controller, outputDirectory, project.getControllerDefinitions().getJavaPackage(), project.getModelDefinitions().getJavaPackage());
+		this.getGenerator().generateDelegateInterface(controller, project.getModelDefinitions(), outputDirectory, project.getControllerDefinitions().getJavaPackage());
 		
 		String fileName = outputDirectory + "/store/controller/Controller1Delegate.java";
 		assertTrue(this.getIo().existsFile(fileName));
@@ -439,6 +1012,57 @@ public class JavaGeneratorTestCase {
 		assertTrue(this.getIo().existsFile(outputDirectory + "/store/controller/Controller1Delegate.java"));
 		assertTrue(this.getIo().existsFile(outputDirectory + "/store/controller/Controller2Delegate.java"));
 		assertTrue(this.getIo().existsFile(outputDirectory + "/store/controller/RestApplication.java"));
+		assertTrue(this.getIo().existsFile(outputDirectory + "/store/controller/MukiJaxbContextResolver.java"));
+		assertTrue(this.getIo().existsFile(outputDirectory + "/store/controller/MukiPooledJaxbContext.java"));
+		// There are no streaming lists
+		assertFalse(this.getIo().existsFile(outputDirectory + "/store/controller/MukiStreamingOutput.java"));
+		assertFalse(this.getIo().readTextFile(outputDirectory + "/store/controller/Controller1Delegate.java").contains("java.util.Iterator"));
+	}
+
+	/**
+	 * Generates all the artifacts sequentially and then in parallel with several threads.
+	 * The output must be exactly the same.
+	 */
+	@Test
+	public void testGenerateAllParallel() throws Exception {
+		JavaGenerator parallelGenerator = new JavaGenerator();
+		parallelGenerator.setThreads(4);
+		TestHelper.assertSameFiles(this.getGenerator(), parallelGenerator, TestHelper.getFullValidProject());
+	}
+
+	/**
+	 * Generates all the artifacts in memory. The files must be the same as the ones written to the disk,
+	 * and nothing is written to the output directory.
+	 */
+	@Test
+	public void testGenerateAllInMemory() throws Exception {
+		JavaGenerator memoryGenerator = new JavaGenerator();
+		memoryGenerator.setOutputSink(new MemoryOutputSink(TestHelper.ACTUAL_DIR));
+		TestHelper.assertSameFiles(this.getGenerator(), memoryGenerator, TestHelper.getFullValidProject());
+	}
+
+	/**
+	 * Generates all the artifacts reading the project file with the streaming reader.
+	 * The output must be the same as the generation of the whole project.
+	 */
+	@Test
+	public void testGenerateAllFromFile() throws Exception {
+		String projectDirectory = TEMP_DIR + "/project";
+		String fileDirectory = TEMP_DIR + "/file";
+		this.getIo().deleteDirectory(projectDirectory);
+		this.getIo().deleteDirectory(fileDirectory);
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		Project project = new ModelUtility().openProject(fileName);
+
+		this.getGenerator().generateAll(project, projectDirectory);
+		new JavaGenerator().generateAll(fileName, fileDirectory);
+
+		Map<String, byte[]> expected = TestHelper.readAllFiles(projectDirectory);
+		Map<String, byte[]> actual = TestHelper.readAllFiles(fileDirectory);
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String path : expected.keySet()) {
+			assertTrue(path, Arrays.equals(expected.get(path), actual.get(path)));
+		}
 	}
 		
 	private JavaGenerator getGenerator() {
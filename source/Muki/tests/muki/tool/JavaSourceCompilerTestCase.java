@@ -0,0 +1,117 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test case verifies the compilation of the generated classes in this process
+ */
+public class JavaSourceCompilerTestCase {
+
+	private static String TEMP_DIR = TestHelper.TEMP_DIR;
+	private IOUtility io;
+
+	@Before
+	public void setUp() throws Exception {
+		this.setIo(new IOUtility());
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testGenerateAndCompile() throws Exception {
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		ExecutionResult result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_AND_COMPILE, fileName, TEMP_DIR}, result);
+		assertTrue(result.getLog(), result.isOk());
+		assertTrue(result.getLog().indexOf("-> *** Compilation OK") > -1);
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/model/Cd.class"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/controller/RestApplication.class"));
+		// The sources are not written
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/store/model/Cd.java"));
+		assertTrue(result.getStatistics().getPhaseTime(GenerationStatistics.COMPILATION) > 0);
+
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_AND_COMPILE, fileName, TEMP_DIR, MukiGenerator.OPTION_ARCHIVE}, result);
+		assertTrue(result.getLog(), result.isOk());
+		assertEquals(1, new File(TEMP_DIR).list().length);
+		JarFile jar = new JarFile(TEMP_DIR + "/" + MukiGenerator.CLASSES_ARCHIVE);
+		try {
+			assertNotNull(jar.getManifest());
+			assertNotNull(jar.getEntry("store/model/Cd.class"));
+			assertNotNull(jar.getEntry("store/controller/Controller1.class"));
+		} finally {
+			jar.close();
+		}
+
+		// The classpath of the option replaces the one of the process, which has the libraries
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_AND_COMPILE, fileName, TEMP_DIR, MukiGenerator.OPTION_CLASSPATH + TEMP_DIR}, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog(), result.getLog().indexOf("package javax.ws.rs does not exist") > -1);
+	}
+
+	@Test
+	public void testCompilationErrors() throws Exception {
+		Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+		sources.put("test/A.java", "package test; public class A { B b; }".getBytes());
+		sources.put("test/B.java", "package test; public class B { C c; }".getBytes());
+		ExecutionResult result = new ExecutionResult();
+		Map<String, byte[]> classes = new JavaSourceCompiler().compile(sources, result);
+		assertFalse(result.isOk());
+		assertEquals(1, result.getErrors());
+		assertTrue(result.getLog(), result.getLog().indexOf("test/B.java:1:") > -1);
+
+		sources.put("test/C.java", "package test; public class C { class Inner {} }".getBytes());
+		sources.put("test/messages.properties", "key=value".getBytes());
+		result = new ExecutionResult();
+		classes = new JavaSourceCompiler().compile(sources, result);
+		assertTrue(result.isOk());
+		assertEquals(5, classes.size());
+		assertTrue(classes.containsKey("test/C$Inner.class"));
+		assertTrue(classes.containsKey("test/messages.properties"));
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
@@ -18,6 +18,7 @@ package muki.tool;
 import static org.junit.Assert.*;
 
 import java.net.URL;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -28,6 +29,7 @@ import muki.tool.model.GetOperationType;
 import muki.tool.model.ListAttrType;
 import muki.tool.model.ModelDefinitionsType;
 import muki.tool.model.ModelType;
+import muki.tool.model.PaginationType;
 import muki.tool.model.PathParamType;
 import muki.tool.model.PostOperationType;
 import muki.tool.model.Project;
@@ -76,6 +78,323 @@ public class ModelUtilityTestCase {
 		assertTrue(result.isOk());
 	}
 
+	/**
+	 * A big project is validated with a result that only records the errors and warnings,
+	 * so the log doesn't grow with the size of the project.
+	 */
+	@Test
+	public void testValidateHugeProjectQuiet() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		String itemsType = project.getModelDefinitions().getModel().get(0).getName();
+		for (int i = 0; i < 10000; i++) {
+			SimpleAttrType attribute = new SimpleAttrType();
+			attribute.setName("attribute");
+			attribute.setType(itemsType);
+			ListAttrType list = new ListAttrType();
+			list.setName("list");
+			list.setItemsType(itemsType);
+			ModelType model = new ModelType();
+			model.setName("Model" + i);
+			model.getSimpleAttr().add(attribute);
+			model.getListAttr().add(list);
+			project.getModelDefinitions().getModel().add(model);
+		}
+		ExecutionResult result = new ExecutionResult();
+		result.setVerbose(false);
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+		assertEquals("", result.getLog());
+
+		// Every model references an undefined type
+		project.getModelDefinitions().getModel().get(0).setName("Undefined");
+		result = new ExecutionResult();
+		result.setVerbose(false);
+		result.setMaxMessages(10);
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getErrors() > 20000);
+		assertTrue(result.getLog().length() < 2000);
+		assertTrue(result.getLog().endsWith("... " + (result.getErrors() - 10) + " more messages"));
+	}
+
+	/**
+	 * The errors of the appended results (ex: the projects of a multi-project run) count against the
+	 * limit of the whole log
+	 */
+	@Test
+	public void testAppendResultWithMaxMessages() throws Exception {
+		ExecutionResult result = new ExecutionResult();
+		result.setVerbose(false);
+		result.setMaxMessages(10);
+		for (int i = 0; i < 3; i++) {
+			ExecutionResult projectResult = new ExecutionResult();
+			projectResult.setVerbose(false);
+			projectResult.setMaxMessages(10);
+			projectResult.append("-> *** Project " + i + " ***");
+			for (int j = 0; j < 8; j++) {
+				projectResult.error("Error " + j + " of project " + i);
+			}
+			result.append(projectResult);
+		}
+		assertFalse(result.isOk());
+		assertEquals(24, result.getErrors());
+		String log = result.getLog();
+		assertTrue(log, log.contains("-> *** Project 2 ***"));
+		assertTrue(log, log.contains("Error 1 of project 1"));
+		assertFalse(log, log.contains("Error 2 of project 1"));
+		assertTrue(log, log.endsWith("\n... 14 more messages"));
+		assertEquals(1, log.split("more messages").length);
+	}
+
+	@Test
+	public void testValidateDuplicatedModel() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ModelType model = new ModelType();
+		model.setName(project.getModelDefinitions().getModel().get(0).getName());
+		project.getModelDefinitions().getModel().add(model);
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.isOk());
+		assertEquals(1, result.getWarnings());
+		assertTrue(result.getLog().contains("WARNING: The name of the model"));
+	}
+
+	/**
+	 * The binary serialization is only generated for Java, so it is accepted with a warning
+	 */
+	@Test
+	public void testValidateBinarySerialization() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(this.getUtility().isBinarySerializationUsed());
+		assertFalse(this.getUtility().hasBinarySerialization(project.getControllerDefinitions()));
+
+		GetOperationType operation = new GetOperationType();
+		operation.setName("getOperationBinary");
+		operation.setHttpPath("/pathGetOperationBinary");
+		operation.setReturnType("Track");
+		operation.setSerializationType("binary");
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(operation);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+		assertEquals(1, result.getWarnings());
+		assertTrue(result.getLog().contains("uses the BINARY serialization"));
+		assertTrue(this.getUtility().isBinarySerializationUsed());
+		assertTrue(this.getUtility().hasBinarySerialization(project.getControllerDefinitions()));
+
+		operation.setSerializationType("protobuf");
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("must be XML, JSON or BINARY"));
+	}
+
+	/**
+	 * The tags of the attributes must be unique in the model, and they are required when an operation
+	 * uses the binary serialization
+	 */
+	@Test
+	public void testValidateBinaryTags() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ModelType cd = project.getModelDefinitions().getModel().get(1);
+		cd.getListAttr().get(0).setTag(2);
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog(), result.getLog().contains("The tag 2 of the attribute tracks is duplicated in the model Cd"));
+
+		cd.getListAttr().get(0).setTag(0);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog(), result.getLog().contains("The tag of the attribute tracks in the model Cd must be between 1 and " + ModelUtility.MAX_BINARY_TAG));
+
+		// The tags are optional without the binary serialization
+		cd.getListAttr().get(0).setTag(null);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+
+		GetOperationType operation = new GetOperationType();
+		operation.setName("getOperationBinary");
+		operation.setHttpPath("/pathGetOperationBinary");
+		operation.setReturnType("Track");
+		operation.setSerializationType("binary");
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(operation);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertEquals(1, result.getErrors());
+		assertTrue(result.getLog(), result.getLog().contains("The model Cd has attributes without tag"));
+	}
+
+	/**
+	 * The streaming list of a GET operation must be a list of the model returned, serialized as XML or JSON
+	 */
+	@Test
+	public void testValidateStreamingList() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		GetOperationType operation = new GetOperationType();
+		operation.setName("getOperationStreaming");
+		operation.setHttpPath("/pathGetOperationStreaming");
+		operation.setReturnType("Cd");
+		operation.setSerializationType("json");
+		operation.setStreamingList("tracks");
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(operation);
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+
+		operation.setStreamingList("mainTrack");
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("must be a list attribute of the model returned"));
+
+		operation.setStreamingList("tracks");
+		operation.setReturnType("Track");
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("must be a list attribute of the model returned"));
+
+		operation.setReturnType("Cd");
+		operation.setSerializationType("binary");
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("has a streaming list, so the serialization type must be XML or JSON"));
+	}
+
+	/**
+	 * A paginated GET operation must return a model and have a valid max page size
+	 */
+	@Test
+	public void testValidatePagination() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		PaginationType pagination = new PaginationType();
+		pagination.setMaxPageSize(100);
+		pagination.setDefaultPageSize(20);
+		GetOperationType operation = new GetOperationType();
+		operation.setName("getOperationPaginated");
+		operation.setHttpPath("/pathGetOperationPaginated");
+		operation.setReturnType("Track");
+		operation.setSerializationType("json");
+		operation.setPagination(pagination);
+		project.getControllerDefinitions().getController().get(0).getGetOperation().add(operation);
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+		assertEquals(1, result.getWarnings());
+		assertTrue(result.getLog().contains("is paginated, that is only generated for Java"));
+		List<ModelType> pages = this.getUtility().getPageModels(project.getControllerDefinitions());
+		assertEquals(1, pages.size());
+		assertEquals("TrackPage", pages.get(0).getName());
+		assertEquals("items", pages.get(0).getListAttr().get(0).getName());
+		assertEquals("Track", pages.get(0).getListAttr().get(0).getItemsType());
+		assertEquals("nextCursor", pages.get(0).getSimpleAttr().get(0).getName());
+
+		pagination.setDefaultPageSize(200);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("must be between 1 and the max page size"));
+
+		pagination.setDefaultPageSize(null);
+		pagination.setMaxPageSize(null);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("must be greater than 0"));
+
+		pagination.setMaxPageSize(100);
+		QueryParamType limit = new QueryParamType();
+		limit.setName("limit");
+		operation.getQueryParam().add(limit);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("is paginated, so the param limit is already defined"));
+
+		operation.getQueryParam().clear();
+		operation.setReturnType("STRING");
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("is paginated, so it must return a model defined in the project"));
+	}
+
+	/**
+	 * The async attribute of an operation overrides the one of the controller
+	 */
+	@Test
+	public void testValidateAsync() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ControllerType controller = project.getControllerDefinitions().getController().get(0);
+		assertFalse(this.getUtility().hasAsyncOperations(project.getControllerDefinitions()));
+		controller.getDeleteOperation().get(0).setAsync(true);
+		assertTrue(this.getUtility().hasAsyncOperations(controller));
+		assertFalse(this.getUtility().hasAsyncOperations(project.getControllerDefinitions().getController().get(1)));
+		assertTrue(this.getUtility().isAsync(controller, Boolean.TRUE));
+		assertFalse(this.getUtility().isAsync(controller, null));
+		controller.setAsync(true);
+		assertTrue(this.getUtility().isAsync(controller, null));
+		assertFalse(this.getUtility().isAsync(controller, Boolean.FALSE));
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+
+		controller.setAsyncTimeout(0L);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("The async timeout of controller (1) must be greater than 0"));
+
+		controller.setAsyncTimeout(1000L);
+		GetOperationType operation = new GetOperationType();
+		operation.setName("getOperationStreaming");
+		operation.setHttpPath("/pathGetOperationStreaming");
+		operation.setReturnType("Cd");
+		operation.setSerializationType("json");
+		operation.setStreamingList("tracks");
+		controller.getGetOperation().add(operation);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().contains("has a streaming list, so it can't be async"));
+		operation.setAsync(false);
+		result = new ExecutionResult();
+		this.getUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+	}
+
+	/**
+	 * The streaming validation of the file must give the same result as the validation of the project
+	 */
+	@Test
+	public void testValidateProjectFile() throws Exception {
+		URL url = this.getClass().getResource("/tests/store-project-ok.xml");
+		String fileName = url.getFile();
+		ExecutionResult result = new ExecutionResult();
+		this.getUtility().validate(fileName, result);
+		assertTrue(result.getLog(), result.isOk());
+
+		Project project = TestHelper.getFullValidProject();
+		project.getModelDefinitions().getModel().get(0).setName("Cd");
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+		fileName = TEMP_DIR + "/invalid_project.xml";
+		this.getUtility().saveProject(project, fileName);
+		ExecutionResult expected = new ExecutionResult();
+		this.getUtility().validate(project, expected);
+		result = new ExecutionResult();
+		this.getUtility().validate(fileName, result);
+		assertFalse(expected.isOk());
+		assertFalse(result.isOk());
+	}
+
 	/**
 	 * In this case, we verify that the validation of an invalid model actually
 	 * returns a list of errors.
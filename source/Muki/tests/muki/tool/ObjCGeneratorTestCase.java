@@ -259,6 +259,28 @@ public class ObjCGeneratorTestCase {
 		assertTrue(this.getIo().existsFile(fileName));
 	}
 
+	/**
+	 * Generates all the artifacts sequentially and then in parallel with several threads.
+	 * The output must be exactly the same.
+	 */
+	@Test
+	public void testGenerateAllParallel() throws Exception {
+		ObjcGenerator parallelGenerator = new ObjcGenerator();
+		parallelGenerator.setThreads(4);
+		TestHelper.assertSameFiles(this.getGenerator(), parallelGenerator, TestHelper.getFullValidProject());
+	}
+
+	/**
+	 * Generates all the artifacts in memory. The files must be the same as the ones written to the disk,
+	 * and nothing is written to the output directory.
+	 */
+	@Test
+	public void testGenerateAllInMemory() throws Exception {
+		ObjcGenerator memoryGenerator = new ObjcGenerator();
+		memoryGenerator.setOutputSink(new MemoryOutputSink(TestHelper.ACTUAL_DIR));
+		TestHelper.assertSameFiles(this.getGenerator(), memoryGenerator, TestHelper.getFullValidProject());
+	}
+
 	/**
 	 * This test verifies the generation of the interface of the class
 	 * that serializes the objects to XML
@@ -0,0 +1,140 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import muki.tool.model.ControllerDefinitionsType;
+import muki.tool.model.ControllerType;
+import muki.tool.model.ModelDefinitionsType;
+import muki.tool.model.ModelType;
+import muki.tool.model.Project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test case verifies the streaming reader of project files
+ */
+public class ProjectReaderTestCase {
+
+	private static String TEMP_DIR = TestHelper.TEMP_DIR;
+	private IOUtility io;
+
+	@Before
+	public void setUp() throws Exception {
+		this.setIo(new IOUtility());
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * The reader must return the same models and controllers as ModelUtility.openProject()
+	 */
+	@Test
+	public void testRead() throws Exception {
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		Project expected = new ModelUtility().openProject(fileName);
+		final List<ModelType> models = new ArrayList<ModelType>();
+		final List<ControllerType> controllers = new ArrayList<ControllerType>();
+		final Project[] result = new Project[1];
+		new ProjectReader().read(fileName, new ProjectHandler() {
+			public void startProject(Project project) {
+				assertEquals("MyProject", project.getName());
+			}
+			public void model(ModelDefinitionsType definitions, ModelType model) {
+				assertEquals("store.model", definitions.getJavaPackage());
+				models.add(model);
+			}
+			public void controller(ControllerDefinitionsType definitions, ControllerType controller) {
+				assertEquals("store.controller", definitions.getJavaPackage());
+				controllers.add(controller);
+			}
+			public void endProject(Project project) {
+				result[0] = project;
+			}
+		});
+		assertEquals(expected.getModelDefinitions().getModel().size(), models.size());
+		for (int i = 0; i < models.size(); i++) {
+			ModelType model = expected.getModelDefinitions().getModel().get(i);
+			assertEquals(model.getName(), models.get(i).getName());
+			assertEquals(model.getSimpleAttr().size(), models.get(i).getSimpleAttr().size());
+			assertEquals(model.getListAttr().size(), models.get(i).getListAttr().size());
+		}
+		assertEquals(expected.getControllerDefinitions().getController().size(), controllers.size());
+		for (int i = 0; i < controllers.size(); i++) {
+			ControllerType controller = expected.getControllerDefinitions().getController().get(i);
+			assertEquals(controller.getName(), controllers.get(i).getName());
+			assertEquals(controller.getHttpPath(), controllers.get(i).getHttpPath());
+			assertEquals(controller.getGetOperation().size(), controllers.get(i).getGetOperation().size());
+			assertEquals(controller.getPostOperation().size(), controllers.get(i).getPostOperation().size());
+		}
+		assertNotNull(result[0]);
+		assertEquals(0, result[0].getModelDefinitions().getModel().size());
+		assertEquals("store.controller", result[0].getControllerDefinitions().getJavaPackage());
+	}
+
+	/**
+	 * Reads a project with many models. The models are received one at a time.
+	 */
+	@Test
+	public void testReadBigProject() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ModelType model = project.getModelDefinitions().getModel().get(0);
+		for (int i = 0; i < 5000; i++) {
+			project.getModelDefinitions().getModel().add(model);
+		}
+		String fileName = TEMP_DIR + "/big-project.xml";
+		new ModelUtility().saveProject(project, fileName);
+		final int[] models = new int[1];
+		new ProjectReader().read(fileName, new ProjectHandler() {
+			public void startProject(Project project) {
+			}
+			public void model(ModelDefinitionsType definitions, ModelType model) {
+				models[0]++;
+			}
+			public void controller(ControllerDefinitionsType definitions, ControllerType controller) {
+			}
+			public void endProject(Project project) {
+			}
+		});
+		assertEquals(project.getModelDefinitions().getModel().size(), models[0]);
+	}
+
+	@Test
+	public void testContextIsShared() throws Exception {
+		assertSame(ModelUtility.getContext(), ModelUtility.getContext());
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
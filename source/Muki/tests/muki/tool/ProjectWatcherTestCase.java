@@ -0,0 +1,190 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import muki.tool.model.ModelType;
+import muki.tool.model.Project;
+import muki.tool.model.SimpleAttrType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test case verifies that the watcher generates again only the artifacts that changed
+ */
+public class ProjectWatcherTestCase {
+
+	private static String TEMP_DIR = TestHelper.TEMP_DIR;
+	private static String PROJECT_FILE = TEMP_DIR + "/project.xml";
+	private static String OUTPUT_DIR = TEMP_DIR + "/watch";
+	private static String FULL_OUTPUT_DIR = TEMP_DIR + "/full";
+	private IOUtility io;
+
+	@Before
+	public void setUp() throws Exception {
+		this.setIo(new IOUtility());
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+	}
+
+	@Test
+	public void testGenerateChangedModel() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ModelUtility modelUtility = new ModelUtility();
+		modelUtility.saveProject(project, PROJECT_FILE);
+		ProjectWatcher watcher = this.createWatcher();
+		ExecutionResult result = new ExecutionResult();
+		watcher.generate(result);
+		assertTrue(result.isOk());
+		File trackFile = new File(OUTPUT_DIR + "/store/model/Track.java");
+		assertTrue(trackFile.exists());
+		trackFile.setLastModified(0);
+
+		SimpleAttrType genre = new SimpleAttrType();
+		genre.setName("genre");
+		genre.setType(ModelUtility.STRING_TYPE);
+		this.getModel(project, "Cd").getSimpleAttr().add(genre);
+		modelUtility.saveProject(project, PROJECT_FILE);
+		result = new ExecutionResult();
+		watcher.generate(result);
+		assertTrue(result.isOk());
+		assertEquals(0, trackFile.lastModified());
+		assertTrue(this.getIo().readTextFile(OUTPUT_DIR + "/store/model/Cd.java").contains("genre"));
+		this.assertSameAsFullGeneration(project);
+
+		result = new ExecutionResult();
+		watcher.generate(result);
+		assertTrue(result.getLog().contains("didn't change"));
+	}
+
+	@Test
+	public void testRemovedModel() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ModelUtility modelUtility = new ModelUtility();
+		modelUtility.saveProject(project, PROJECT_FILE);
+		ProjectWatcher watcher = this.createWatcher();
+		watcher.generate(new ExecutionResult());
+		assertTrue(this.getIo().existsFile(OUTPUT_DIR + "/store/model/Cd.java"));
+
+		SimpleAttrType unused = new SimpleAttrType();
+		unused.setName("unused");
+		unused.setType(ModelUtility.STRING_TYPE);
+		ModelType removed = new ModelType();
+		removed.setName("Removed");
+		removed.getSimpleAttr().add(unused);
+		project.getModelDefinitions().getModel().add(removed);
+		modelUtility.saveProject(project, PROJECT_FILE);
+		watcher.generate(new ExecutionResult());
+		assertTrue(this.getIo().existsFile(OUTPUT_DIR + "/store/model/Removed.java"));
+
+		project.getModelDefinitions().getModel().remove(removed);
+		modelUtility.saveProject(project, PROJECT_FILE);
+		watcher.generate(new ExecutionResult());
+		assertFalse(this.getIo().existsFile(OUTPUT_DIR + "/store/model/Removed.java"));
+		this.assertSameAsFullGeneration(project);
+	}
+
+	@Test
+	public void testInvalidProjectKeepsOutput() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ModelUtility modelUtility = new ModelUtility();
+		modelUtility.saveProject(project, PROJECT_FILE);
+		ProjectWatcher watcher = this.createWatcher();
+		watcher.generate(new ExecutionResult());
+		Map<String, byte[]> before = TestHelper.readAllFiles(OUTPUT_DIR);
+
+		SimpleAttrType invalid = new SimpleAttrType();
+		invalid.setName("invalid");
+		invalid.setType("UndefinedModel");
+		this.getModel(project, "Cd").getSimpleAttr().add(invalid);
+		modelUtility.saveProject(project, PROJECT_FILE);
+		ExecutionResult result = new ExecutionResult();
+		watcher.generate(result);
+		assertFalse(result.isOk());
+		assertEquals(before.keySet(), TestHelper.readAllFiles(OUTPUT_DIR).keySet());
+	}
+
+	/**
+	 * The options of the Java target are part of the stamp, so an incremental generation with other options
+	 * writes everything again, and one with the same options has nothing to do
+	 */
+	@Test
+	public void testStampWithOptions() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		new ModelUtility().saveProject(project, PROJECT_FILE);
+		ProjectWatcher watcher = this.createWatcher();
+		watcher.setExternalizable(true);
+		watcher.generate(new ExecutionResult());
+		assertTrue(this.getIo().readTextFile(OUTPUT_DIR + "/store/model/Cd.java").contains("Externalizable"));
+
+		ExecutionResult result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_JAVA, PROJECT_FILE, OUTPUT_DIR, MukiGenerator.OPTION_INCREMENTAL, 
+				MukiGenerator.OPTION_EXTERNALIZABLE}, result);
+		assertTrue(result.getLog(), result.getLog().contains("Nothing to do"));
+
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_JAVA, PROJECT_FILE, OUTPUT_DIR, MukiGenerator.OPTION_INCREMENTAL}, result);
+		assertFalse(result.getLog(), result.getLog().contains("Nothing to do"));
+		assertFalse(this.getIo().readTextFile(OUTPUT_DIR + "/store/model/Cd.java").contains("Externalizable"));
+	}
+
+	private ProjectWatcher createWatcher() throws Exception {
+		Map<String, String> targets = new HashMap<String, String>();
+		targets.put(MukiGenerator.GENERATE_JAVA, OUTPUT_DIR);
+		return new ProjectWatcher(PROJECT_FILE, targets);
+	}
+
+	private ModelType getModel(Project project, String name) {
+		for (ModelType model : project.getModelDefinitions().getModel()) {
+			if (model.getName().equals(name)) {
+				return model;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The output of the watcher must be the same of a normal generation
+	 */
+	private void assertSameAsFullGeneration(Project project) throws Exception {
+		new JavaGenerator().generateAll(project, FULL_OUTPUT_DIR);
+		Map<String, byte[]> expected = TestHelper.readAllFiles(FULL_OUTPUT_DIR);
+		Map<String, byte[]> actual = TestHelper.readAllFiles(OUTPUT_DIR);
+		actual.remove(GenerationManifest.FILE_NAME);
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String path : expected.keySet()) {
+			assertArrayEquals(path, expected.get(path), actual.get(path));
+		}
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
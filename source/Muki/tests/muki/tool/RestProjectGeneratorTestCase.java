@@ -17,9 +17,16 @@ package muki.tool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.apache.tools.ant.DefaultLogger;
 import org.apache.tools.ant.ProjectHelper;
@@ -39,6 +46,7 @@ import muki.tool.model.SimpleAttrType;
 import muki.tool.model.ControllerDefinitionsType;
 import muki.tool.model.ControllerType;
 import muki.tool.ExecutionResult;
+import muki.tool.GenerationStatistics;
 import muki.tool.IOUtility;
 import muki.tool.ModelUtility;
 import muki.tool.MukiGenerator;
@@ -268,6 +276,325 @@ public class RestProjectGeneratorTestCase {
 		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/controller/RestApplication.java"));
 	}
 
+	/**
+	 * Runs the generation twice in incremental mode. The second run is skipped because
+	 * the project didn't change. Files that are not generated anymore are removed.
+	 */
+	@Test
+	public void testRunIncremental() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		ExecutionResult result = new ExecutionResult();
+		MukiGenerator generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_JAVA, fileName, TEMP_DIR, MukiGenerator.OPTION_INCREMENTAL}, result);
+		assertTrue(result.isOk());
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/" + GenerationManifest.FILE_NAME));
+		assertTrue(result.getLog().indexOf("-> Incremental generation:") > -1);
+
+		result = new ExecutionResult();
+		generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_JAVA, fileName, TEMP_DIR, MukiGenerator.OPTION_INCREMENTAL}, result);
+		assertTrue(result.isOk());
+		assertTrue(result.getLog().indexOf("Nothing to do.") > -1);
+
+		// Generate again without a controller: its classes must be removed
+		Project project = this.getUtility().openProject(fileName);
+		project.getControllerDefinitions().getController().remove(1);
+		result = new ExecutionResult();
+		generator = new MukiGenerator();
+		generator.setIncremental(true);
+		generator.setOutputDirectory(TEMP_DIR);
+		generator.setProject(project);
+		generator.generateJava(result);
+		assertTrue(result.isOk());
+		assertTrue(result.getLog().indexOf("2 removed") > -1);
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/store/controller/Controller2.java"));
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/store/controller/Controller2Delegate.java"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/store/controller/Controller1.java"));
+	}
+
+	/**
+	 * In incremental mode the project is saved with the manifest, and the next run only generates
+	 * the artifacts affected by the changes. The result must be the same as a full generation.
+	 */
+	@Test
+	public void testRunIncrementalPartial() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR + "/partial");
+		String fileName = TEMP_DIR + "/project.xml";
+		Project project = this.getUtility().openProject(this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml"));
+		this.getUtility().saveProject(project, fileName);
+		String[] args = new String[]{MukiGenerator.GENERATE_JAVA, fileName, TEMP_DIR + "/partial", MukiGenerator.OPTION_INCREMENTAL};
+		ExecutionResult result = new ExecutionResult();
+		new MukiGenerator().run(args, result);
+		assertTrue(result.isOk());
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/partial/" + GenerationManifest.PROJECT_FILE_NAME));
+		File cdFile = new File(TEMP_DIR + "/partial/store/model/Cd.java");
+		cdFile.setLastModified(0);
+
+		// A new model that nobody uses: the other artifacts are not generated
+		SimpleAttrType name = new SimpleAttrType();
+		name.setName("name");
+		name.setType(ModelUtility.STRING_TYPE);
+		ModelType label = new ModelType();
+		label.setName("Label");
+		label.getSimpleAttr().add(name);
+		project.getModelDefinitions().getModel().add(label);
+		this.getUtility().saveProject(project, fileName);
+		result = new ExecutionResult();
+		new MukiGenerator().run(args, result);
+		assertTrue(result.isOk());
+		assertTrue(result.getLog().indexOf("-> Partial generation: 1 models and 0 controllers") > -1);
+		assertEquals(0, cdFile.lastModified());
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/partial/store/model/Label.java"));
+
+		// Track is used by Cd and by the controllers
+		project.getModelDefinitions().getModel().get(0).getSimpleAttr().get(0).setName("name");
+		this.getUtility().saveProject(project, fileName);
+		result = new ExecutionResult();
+		new MukiGenerator().run(args, result);
+		assertTrue(result.isOk());
+		assertTrue(result.getLog().indexOf("-> Partial generation: 2 models and 2 controllers") > -1);
+		// Only the classes of the affected models and controllers are generated, and only Track.java changed
+		assertTrue(result.getLog().indexOf("-> Incremental generation: 1 files written, 5 unchanged, 0 removed") > -1);
+
+		new JavaGenerator().generateAll(project, TEMP_DIR + "/full");
+		Map<String, byte[]> expected = TestHelper.readAllFiles(TEMP_DIR + "/full");
+		Map<String, byte[]> actual = TestHelper.readAllFiles(TEMP_DIR + "/partial");
+		actual.remove(GenerationManifest.FILE_NAME);
+		actual.remove(GenerationManifest.PROJECT_FILE_NAME);
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String path : expected.keySet()) {
+			assertTrue(path, Arrays.equals(expected.get(path), actual.get(path)));
+		}
+	}
+
+	/**
+	 * The second run reads the validated project from the cache. When the project file changes,
+	 * the project is validated again.
+	 */
+	@Test
+	public void testRunWithCache() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR + "/first");
+		this.getIo().createDirectory(TEMP_DIR + "/second");
+		String fileName = TEMP_DIR + "/project.xml";
+		String cacheOption = MukiGenerator.OPTION_CACHE + TEMP_DIR + "/cache";
+		Project project = this.getUtility().openProject(this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml"));
+		this.getUtility().saveProject(project, fileName);
+		ExecutionResult result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_OBJC, fileName, TEMP_DIR + "/first", cacheOption}, result);
+		assertTrue(result.isOk());
+		assertTrue(result.getLog().indexOf("-> Validation is OK") > -1);
+		assertEquals(1, new File(TEMP_DIR + "/cache").list().length);
+
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_OBJC, fileName, TEMP_DIR + "/second", cacheOption}, result);
+		assertTrue(result.isOk());
+		assertTrue(result.getLog().indexOf("-> The project was read from the cache") > -1);
+		assertTrue(result.getLog().indexOf("-> Validating") == -1);
+		Map<String, byte[]> expected = TestHelper.readAllFiles(TEMP_DIR + "/first");
+		Map<String, byte[]> actual = TestHelper.readAllFiles(TEMP_DIR + "/second");
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String path : expected.keySet()) {
+			assertTrue(path, Arrays.equals(expected.get(path), actual.get(path)));
+		}
+
+		// An invalid project is not saved in the cache
+		project.getModelDefinitions().getModel().get(1).getSimpleAttr().get(0).setType("Undefined");
+		this.getUtility().saveProject(project, fileName);
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_JAVA, fileName, TEMP_DIR + "/second", cacheOption}, result);
+		assertFalse(result.isOk());
+		assertEquals(1, new File(TEMP_DIR + "/cache").list().length);
+	}
+
+	/**
+	 * The statistics of the generation are in the result and in the JSON report.
+	 */
+	@Test
+	public void testRunReport() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR + "/out");
+		String fileName = TEMP_DIR + "/project.xml";
+		Project project = this.getUtility().openProject(this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml"));
+		this.getUtility().saveProject(project, fileName);
+		String reportFile = TEMP_DIR + "/report.json";
+		ExecutionResult result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_SWIFT, fileName, TEMP_DIR + "/out",
+				MukiGenerator.OPTION_INCREMENTAL, MukiGenerator.OPTION_REPORT + reportFile}, result);
+		assertTrue(result.isOk());
+		GenerationStatistics statistics = result.getStatistics();
+		// The manifest and the copy of the project of the incremental generation are not counted
+		int files = 0;
+		for (String path : TestHelper.readAllFiles(TEMP_DIR + "/out").keySet()) {
+			if (!path.startsWith(".muki")) {
+				files++;
+			}
+		}
+		assertEquals(files, statistics.getWrittenFiles());
+		assertEquals(0, statistics.getUnchangedFiles());
+		assertTrue(statistics.getWrittenBytes() > 0);
+		assertEquals(2, statistics.getTemplateCount("/templates/template_swift_type.vm"));
+		assertTrue(statistics.getPhaseTime(GenerationStatistics.RENDERING) > 0);
+		assertTrue(statistics.getPhaseTime(GenerationStatistics.GENERATION) > 0);
+		assertTrue(statistics.getPeakHeap() > 0);
+		String report = new String(this.getIo().readBinaryFile(reportFile), "UTF-8");
+		assertTrue(report.indexOf("\"ok\": true") > -1);
+		assertTrue(report.indexOf("\"rendering\"") > -1);
+		assertTrue(report.indexOf("\"writtenFiles\": " + statistics.getWrittenFiles()) > -1);
+
+		// The files of the models and controllers affected by the change are generated again, some with the same content
+		SimpleAttrType attr = new SimpleAttrType();
+		attr.setName("newAttr");
+		attr.setType(ModelUtility.STRING_TYPE);
+		project.getModelDefinitions().getModel().get(1).getSimpleAttr().add(attr);
+		this.getUtility().saveProject(project, fileName);
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_SWIFT, fileName, TEMP_DIR + "/out",
+				MukiGenerator.OPTION_INCREMENTAL, MukiGenerator.OPTION_REPORT + reportFile}, result);
+		assertTrue(result.isOk());
+		assertTrue(result.getStatistics().getWrittenFiles() > 0);
+		assertTrue(result.getStatistics().getUnchangedFiles() > 0);
+		assertTrue(result.getStatistics().getWrittenFiles() + result.getStatistics().getUnchangedFiles() < files);
+	}
+
+	/**
+	 * Generates several projects in one run. Every project has its own subdirectory,
+	 * and the result reports the projects that failed.
+	 */
+	@Test
+	public void testRunManyProjects() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR + "/projects");
+		this.getIo().createDirectory(TEMP_DIR + "/out");
+		Project project = this.getUtility().openProject(this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml"));
+		this.getUtility().saveProject(project, TEMP_DIR + "/projects/store1.xml");
+		this.getUtility().saveProject(project, TEMP_DIR + "/projects/store2.xml");
+		project.getModelDefinitions().getModel().get(1).getSimpleAttr().get(0).setType("Undefined");
+		this.getUtility().saveProject(project, TEMP_DIR + "/projects/invalid.xml");
+
+		ExecutionResult result = new ExecutionResult();
+		MukiGenerator generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_JAVA, TEMP_DIR + "/projects/store1.xml", TEMP_DIR + "/projects/invalid.xml", 
+				TEMP_DIR + "/projects/store2.xml", TEMP_DIR + "/out", MukiGenerator.OPTION_PARALLEL_PROJECTS + "2"}, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().indexOf("-> 3 projects: 2 OK, 1 FAILED") > -1);
+		assertTrue(result.getLog().indexOf("-> *** FAILED: " + TEMP_DIR + "/projects/invalid.xml ***") > -1);
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/out/store1/store/model/Cd.java"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/out/store2/store/controller/RestApplication.java"));
+		assertFalse(this.getIo().existsFile(TEMP_DIR + "/out/invalid/store/model/Cd.java"));
+
+		result = new ExecutionResult();
+		generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_ALL, TEMP_DIR + "/projects/store1.xml", TEMP_DIR + "/projects/store2.xml", 
+				MukiGenerator.OPTION_SWIFT_OUTPUT + TEMP_DIR + "/swift"}, result);
+		assertTrue(result.isOk());
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/swift/store1/Cd.swift"));
+		assertTrue(this.getIo().existsFile(TEMP_DIR + "/swift/store2/Cd.swift"));
+	}
+
+	/**
+	 * Generates all the targets in a single run. The files must be the same as the
+	 * ones generated by the commands of every target.
+	 */
+	@Test
+	public void testRunGenerateAll() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		String[] options = new String[]{MukiGenerator.GENERATE_JAVA, MukiGenerator.GENERATE_OBJC, MukiGenerator.GENERATE_SWIFT};
+		for (String option : options) {
+			this.getIo().createDirectory(TEMP_DIR + "/single/" + option);
+			this.getIo().createDirectory(TEMP_DIR + "/all/" + option);
+			ExecutionResult result = new ExecutionResult();
+			new MukiGenerator().run(new String[]{option, fileName, TEMP_DIR + "/single/" + option}, result);
+			assertTrue(result.isOk());
+		}
+
+		ExecutionResult result = new ExecutionResult();
+		MukiGenerator generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_ALL, fileName, 
+				MukiGenerator.OPTION_JAVA_OUTPUT + TEMP_DIR + "/all/" + MukiGenerator.GENERATE_JAVA,
+				MukiGenerator.OPTION_OBJC_OUTPUT + TEMP_DIR + "/all/" + MukiGenerator.GENERATE_OBJC,
+				MukiGenerator.OPTION_SWIFT_OUTPUT + TEMP_DIR + "/all/" + MukiGenerator.GENERATE_SWIFT}, result);
+		System.out.println(result.getLog());
+		assertTrue(result.isOk());
+		for (String option : options) {
+			assertTrue(result.getLog().indexOf("-> " + option + " finished in") > -1);
+			Map<String, byte[]> expected = TestHelper.readAllFiles(TEMP_DIR + "/single/" + option);
+			Map<String, byte[]> actual = TestHelper.readAllFiles(TEMP_DIR + "/all/" + option);
+			assertEquals(expected.keySet(), actual.keySet());
+			for (String path : expected.keySet()) {
+				assertTrue(path, Arrays.equals(expected.get(path), actual.get(path)));
+			}
+		}
+	}
+
+	@Test
+	public void testRunGenerateAllWithoutTargets() throws Exception {
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		ExecutionResult result = new ExecutionResult();
+		MukiGenerator generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_ALL, fileName}, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().indexOf(MukiGenerator.COMMAND_HELP) > -1);
+	}
+
+	/**
+	 * Generates the Objective-C classes in a zip file. The entries must be the same files generated
+	 * in the output directory. The support files are stored without compression.
+	 */
+	@Test
+	public void testRunArchive() throws Exception {
+		this.getIo().deleteDirectory(TEMP_DIR);
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		String filesDirectory = TEMP_DIR + "/files";
+		String archiveDirectory = TEMP_DIR + "/archive";
+		this.getIo().createDirectory(filesDirectory);
+		this.getIo().createDirectory(archiveDirectory);
+		ExecutionResult result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_OBJC, fileName, filesDirectory}, result);
+		assertTrue(result.isOk());
+
+		result = new ExecutionResult();
+		new MukiGenerator().run(new String[]{MukiGenerator.GENERATE_OBJC, fileName, archiveDirectory, 
+				MukiGenerator.OPTION_ARCHIVE, MukiGenerator.OPTION_STORE_RESOURCES}, result);
+		assertTrue(result.isOk());
+		assertFalse(this.getIo().existsFile(archiveDirectory + "/Track.h"));
+		Map<String, byte[]> expected = TestHelper.readAllFiles(filesDirectory);
+		ZipFile zip = new ZipFile(archiveDirectory + "/" + MukiGenerator.OBJC_ARCHIVE);
+		try {
+			assertEquals(expected.size(), zip.size());
+			for (String path : expected.keySet()) {
+				ZipEntry entry = zip.getEntry(path);
+				assertNotNull(path, entry);
+				InputStream in = zip.getInputStream(entry);
+				ByteArrayOutputStream data = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+					data.write(buffer, 0, n);
+				}
+				in.close();
+				assertTrue(path, Arrays.equals(expected.get(path), data.toByteArray()));
+			}
+			assertEquals(ZipEntry.STORED, zip.getEntry("XmlAttribute.h").getMethod());
+			assertEquals(ZipEntry.DEFLATED, zip.getEntry("Track.h").getMethod());
+		} finally {
+			zip.close();
+		}
+	}
+
+	@Test
+	public void testRunArgumentsInvalidFlag() throws Exception {
+		String fileName = this.getIo().getAbsolutePathForLocalResource("/tests/store-project-ok.xml");
+		ExecutionResult result = new ExecutionResult();
+		MukiGenerator generator = new MukiGenerator();
+		generator.run(new String[]{MukiGenerator.GENERATE_JAVA, fileName, TEMP_DIR, "--invalid"}, result);
+		assertFalse(result.isOk());
+		assertTrue(result.getLog().indexOf(MukiGenerator.COMMAND_HELP) > -1);
+	}
+
 	/**
 	 * Calculates the path to the Eclipse project in the file system.
 	 * We obtain the full path to something in the classpath and then substract 
@@ -49,6 +49,28 @@ public class SwiftGeneratorTestCase {
 	public void tearDown() throws Exception {
 	}
 
+	/**
+	 * Generates all the artifacts sequentially and then in parallel with several threads.
+	 * The output must be exactly the same.
+	 */
+	@Test
+	public void testGenerateAllParallel() throws Exception {
+		SwiftGenerator parallelGenerator = new SwiftGenerator();
+		parallelGenerator.setThreads(4);
+		TestHelper.assertSameFiles(this.getGenerator(), parallelGenerator, TestHelper.getFullValidProject());
+	}
+
+	/**
+	 * Generates all the artifacts in memory. The files must be the same as the ones written to the disk,
+	 * and nothing is written to the output directory.
+	 */
+	@Test
+	public void testGenerateAllInMemory() throws Exception {
+		SwiftGenerator memoryGenerator = new SwiftGenerator();
+		memoryGenerator.setOutputSink(new MemoryOutputSink(TestHelper.ACTUAL_DIR));
+		TestHelper.assertSameFiles(this.getGenerator(), memoryGenerator, TestHelper.getFullValidProject());
+	}
+
 	private SwiftGenerator getGenerator() {
 		return generator;
 	}
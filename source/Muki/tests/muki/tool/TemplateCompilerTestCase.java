@@ -0,0 +1,252 @@
+/**
+ *  Copyright 2015 Gabriel Casarini
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package muki.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import muki.tool.model.ControllerType;
+import muki.tool.model.GetOperationType;
+import muki.tool.model.PaginationType;
+import muki.tool.model.Project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test case verifies the compilation of the templates into emitters. The emitters must produce
+ * exactly the same output as Velocity.
+ */
+public class TemplateCompilerTestCase {
+
+	private static String TEMP_DIR = TestHelper.TEMP_DIR;
+	private IOUtility io;
+
+	@Before
+	public void setUp() throws Exception {
+		this.setIo(new IOUtility());
+		this.getIo().deleteDirectory(TEMP_DIR);
+		this.getIo().createDirectory(TEMP_DIR);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testGetEmitterClassName() {
+		assertEquals("muki.tool.emitter.JavaBeanEmitter", TemplateCompiler.getEmitterClassName("/templates/template_java_bean.vm"));
+		assertEquals("muki.tool.emitter.ObjcTypeParserMEmitter", TemplateCompiler.getEmitterClassName("/templates/template_objc_type_parser.m.vm"));
+	}
+
+	/**
+	 * The directives that are not supported are reported, so the template is rendered by Velocity
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCompileUnsupportedTemplate() throws Exception {
+		String template = "#macro( hello $name )Hello $name#end\n#hello( $type.name )";
+		new TemplateCompiler().compile("/templates/template_java_test.vm", new StringReader(template));
+	}
+
+	/**
+	 * The #define of C (without the arguments of the Velocity directive) is reported with its line
+	 */
+	@Test
+	public void testCompileDefineWithoutArguments() throws Exception {
+		String template = "#import \"Stub.h\"\n\n#define STATUS_NOT_FOUND 404\n";
+		try {
+			new TemplateCompiler().compile("/templates/template_objc_test.m.vm", new StringReader(template));
+			fail("The template must not be compiled");
+		} catch (UnsupportedOperationException e) {
+			assertEquals("#define without arguments at line 3", e.getMessage());
+		}
+	}
+
+	/**
+	 * All the Java templates are compiled, so the Java target never falls back to Velocity
+	 */
+	@Test
+	public void testCompileJavaTemplates() throws Exception {
+		URL url = this.getClass().getResource("/templates/template_java_bean.vm");
+		File[] files = new File(url.getFile()).getParentFile().listFiles();
+		TemplateCompiler compiler = new TemplateCompiler();
+		int compiled = 0;
+		for (File file : files) {
+			if (file.getName().startsWith("template_java_") && file.getName().endsWith(".vm")) {
+				Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+				try {
+					compiler.compile("/templates/" + file.getName(), reader);
+					compiled++;
+				} catch (UnsupportedOperationException e) {
+					fail(file.getName() + " is not compiled: " + e.getMessage());
+				} finally {
+					reader.close();
+				}
+			}
+		}
+		assertTrue(compiled > 10);
+	}
+
+	@Test
+	public void testEmittersJava() throws Exception {
+		this.verifyEmitters(new JavaGenerator(), new JavaGenerator(), "/templates/template_java_bean.vm");
+	}
+
+	@Test
+	public void testEmittersJavaExternalizable() throws Exception {
+		JavaGenerator velocityGenerator = new JavaGenerator();
+		velocityGenerator.setExternalizable(true);
+		JavaGenerator emitterGenerator = new JavaGenerator();
+		emitterGenerator.setExternalizable(true);
+		this.verifyEmitters(velocityGenerator, emitterGenerator, "/templates/template_java_bean.vm");
+	}
+
+	/**
+	 * The Java target with all the options and operations that change the generated code: codecs, Externalizable
+	 * models, binary serialization, streaming lists, pagination and asynchronous operations
+	 */
+	@Test
+	public void testEmittersJavaAllFeatures() throws Exception {
+		Project project = TestHelper.getFullValidProject();
+		ControllerType controller1 = project.getControllerDefinitions().getController().get(0);
+		ControllerType controller2 = project.getControllerDefinitions().getController().get(1);
+		controller1.setAsync(true);
+		controller1.setAsyncTimeout(5000L);
+		controller1.getGetOperation().get(0).setAsync(false);
+		controller2.getPostOperation().get(0).setAsync(true);
+
+		GetOperationType binaryOperation = new GetOperationType();
+		binaryOperation.setName("getOperationBinary");
+		binaryOperation.setHttpPath("/pathGetOperationBinary");
+		binaryOperation.setReturnType("Cd");
+		binaryOperation.setSerializationType("binary");
+		controller1.getGetOperation().add(binaryOperation);
+		PaginationType pagination = new PaginationType();
+		pagination.setMaxPageSize(50);
+		GetOperationType paginatedOperation = new GetOperationType();
+		paginatedOperation.setName("getOperationPaginated");
+		paginatedOperation.setHttpPath("/pathGetOperationPaginated");
+		paginatedOperation.setReturnType("Track");
+		paginatedOperation.setSerializationType("json");
+		paginatedOperation.setPagination(pagination);
+		controller1.getGetOperation().add(paginatedOperation);
+		for (String serializationType : new String[] { "xml", "json" }) {
+			GetOperationType streamingOperation = new GetOperationType();
+			streamingOperation.setName("getOperationStreaming" + serializationType);
+			streamingOperation.setHttpPath("/pathGetOperationStreaming" + serializationType);
+			streamingOperation.setReturnType("Cd");
+			streamingOperation.setSerializationType(serializationType);
+			streamingOperation.setStreamingList("tracks");
+			controller2.getGetOperation().add(streamingOperation);
+		}
+		ExecutionResult result = new ExecutionResult();
+		new ModelUtility().validate(project, result);
+		assertTrue(result.getLog(), result.isOk());
+
+		JavaGenerator velocityGenerator = new JavaGenerator();
+		JavaGenerator emitterGenerator = new JavaGenerator();
+		for (JavaGenerator generator : new JavaGenerator[] { velocityGenerator, emitterGenerator }) {
+			generator.setJsonCodecs(true);
+			generator.setXmlCodecs(true);
+			generator.setExternalizable(true);
+		}
+		this.verifyEmitters(velocityGenerator, emitterGenerator, "/templates/template_java_rest_application.vm", project);
+		assertNotNull(emitterGenerator.getEmitter("/templates/template_java_controller.vm"));
+		assertNotNull(emitterGenerator.getEmitter("/templates/template_java_AsyncResponse.vm"));
+		assertNotNull(emitterGenerator.getEmitter("/templates/template_java_AsyncDispatcher.vm"));
+		assertTrue(emitterGenerator.isBinaryCodecs());
+		assertTrue(this.getIo().existsFile(TestHelper.ACTUAL_DIR + "/store/model/TrackPage.java"));
+		assertTrue(this.getIo().existsFile(TestHelper.ACTUAL_DIR + "/store/controller/MukiStreamingOutput.java"));
+	}
+
+	@Test
+	public void testEmittersObjC() throws Exception {
+		this.verifyEmitters(new ObjcGenerator(), new ObjcGenerator(), "/templates/template_objc_type_parser.m.vm");
+	}
+
+	@Test
+	public void testEmittersSwift() throws Exception {
+		this.verifyEmitters(new SwiftGenerator(), new SwiftGenerator(), "/templates/template_swift_type.vm");
+	}
+
+	/**
+	 * Compiles the templates, generates the project with Velocity and with the emitters, and
+	 * verifies that all the files are identical.
+	 */
+	private void verifyEmitters(Generator velocityGenerator, Generator emitterGenerator, String templateName) throws Exception {
+		this.verifyEmitters(velocityGenerator, emitterGenerator, templateName, TestHelper.getFullValidProject());
+	}
+
+	private void verifyEmitters(Generator velocityGenerator, Generator emitterGenerator, String templateName, Project project) throws Exception {
+		emitterGenerator.setEmitterClassLoader(this.compileEmitters());
+		assertNull(velocityGenerator.getEmitter(templateName));
+		assertNotNull(emitterGenerator.getEmitter(templateName));
+		TestHelper.assertSameFiles(velocityGenerator, emitterGenerator, project);
+	}
+
+	/**
+	 * Compiles the templates and the emitters, and returns a class loader with the emitter classes
+	 */
+	private ClassLoader compileEmitters() throws Exception {
+		String sourceDirectory = TEMP_DIR + "/emitters-src";
+		String classesDirectory = TEMP_DIR + "/emitters-classes";
+		URL url = this.getClass().getResource("/templates/template_java_bean.vm");
+		String templatesDirectory = new File(url.getFile()).getParent();
+		int compiled = new TemplateCompiler().compileAll(templatesDirectory, sourceDirectory);
+		assertTrue(compiled > 20);
+
+		this.getIo().createDirectory(classesDirectory);
+		List<String> arguments = new ArrayList<String>();
+		arguments.add("-nowarn");
+		arguments.add("-classpath");
+		arguments.add(System.getProperty("java.class.path"));
+		arguments.add("-d");
+		arguments.add(classesDirectory);
+		for (File file : new File(sourceDirectory + "/muki/tool/emitter").listFiles()) {
+			arguments.add(file.getAbsolutePath());
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])));
+		URL[] urls = new URL[] { new File(classesDirectory).toURI().toURL() };
+		return new URLClassLoader(urls, this.getClass().getClassLoader());
+	}
+
+	private IOUtility getIo() {
+		return io;
+	}
+
+	private void setIo(IOUtility io) {
+		this.io = io;
+	}
+
+}
@@ -15,6 +15,17 @@
  */
 package muki.tool;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
 import muki.tool.model.ContextParamType;
 import muki.tool.model.DeleteOperationType;
 import muki.tool.model.FormParamType;
@@ -38,6 +49,54 @@ public class TestHelper {
 
 	public static String TEMP_DIR = "/Users/gabriel/temp/muki-tests";
 	//public static String TEMP_DIR = "c:/temp/muki-tests";
+	public static String EXPECTED_DIR = TEMP_DIR + "/expected";
+	public static String ACTUAL_DIR = TEMP_DIR + "/actual";
+
+	/**
+	 * Returns the contents of all the files in the directory and its subdirectories. The key
+	 * is the path relative to the directory.
+	 */
+	public static Map<String, byte[]> readAllFiles(String directory) throws Exception {
+		Map<String, byte[]> files = new TreeMap<String, byte[]>();
+		readAllFiles(new File(directory), "", files);
+		return files;
+	}
+
+	private static void readAllFiles(File directory, String path, Map<String, byte[]> files) throws Exception {
+		IOUtility io = new IOUtility();
+		for (File file : directory.listFiles()) {
+			if (file.isDirectory()) {
+				readAllFiles(file, path + file.getName() + "/", files);
+			} else {
+				files.put(path + file.getName(), io.readBinaryFile(file.getAbsolutePath()));
+			}
+		}
+	}
+
+	/**
+	 * Generates the project with both generators (in EXPECTED_DIR and ACTUAL_DIR) and verifies that all the files
+	 * are identical. If the second generator writes to a MemoryOutputSink, nothing must be written to ACTUAL_DIR.
+	 */
+	public static void assertSameFiles(Generator expectedGenerator, Generator actualGenerator, Project project) throws Exception {
+		IOUtility io = new IOUtility();
+		io.deleteDirectory(EXPECTED_DIR);
+		io.deleteDirectory(ACTUAL_DIR);
+		expectedGenerator.generateAll(project, EXPECTED_DIR);
+		actualGenerator.generateAll(project, ACTUAL_DIR);
+
+		Map<String, byte[]> expected = readAllFiles(EXPECTED_DIR);
+		Map<String, byte[]> actual;
+		if (actualGenerator.getOutputSink() instanceof MemoryOutputSink) {
+			assertFalse(io.existsFile(ACTUAL_DIR));
+			actual = ((MemoryOutputSink)actualGenerator.getOutputSink()).getFiles();
+		} else {
+			actual = readAllFiles(ACTUAL_DIR);
+		}
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String path : expected.keySet()) {
+			assertTrue(path, Arrays.equals(expected.get(path), actual.get(path)));
+		}
+	}
 
 	/**
 	 * Returns a project object that defines a Cd with a list of tracks
@@ -47,24 +106,31 @@ public class TestHelper {
 		SimpleAttrType title = new SimpleAttrType();
 		title.setName("title");
 		title.setType("STRING");
+		title.setTag(1);
 		SimpleAttrType artist = new SimpleAttrType();
 		artist.setName("artist");
 		artist.setType("STRING");
+		artist.setTag(2);
 		SimpleAttrType durationInSeconds = new SimpleAttrType();
 		durationInSeconds.setName("durationInSeconds");
 		durationInSeconds.setType("INT");
+		durationInSeconds.setTag(2);
 		SimpleAttrType catalogId = new SimpleAttrType();
 		catalogId.setName("catalogId");
 		catalogId.setType("LONG");
+		catalogId.setTag(3);
 		SimpleAttrType newRelease = new SimpleAttrType();
 		newRelease.setName("newRelease");
 		newRelease.setType("BOOLEAN");
+		newRelease.setTag(4);
 		SimpleAttrType price = new SimpleAttrType();
 		price.setName("price");
 		price.setType("DOUBLE");
+		price.setTag(5);
 		SimpleAttrType mainTrack = new SimpleAttrType();
 		mainTrack.setName("mainTrack");
 		mainTrack.setType("Track");
+		mainTrack.setTag(3);
 
 		ModelType track = new ModelType();
 		track.setName("Track");
@@ -77,6 +143,7 @@ public class TestHelper {
 		ListAttrType listOfTracks = new ListAttrType();
 		listOfTracks.setName("tracks");
 		listOfTracks.setItemsType("Track");
+		listOfTracks.setTag(4);
 		
 		ModelType cd = new ModelType();
 		cd.setName("Cd");
@@ -775,4 +842,23 @@ public class TestHelper {
 		return project;		
 	}
 
+	/**
+	 * Generates the Java classes of the project in memory, compiles them in the directory and returns
+	 * a class loader to use them
+	 */
+	public static ClassLoader compileJavaClasses(JavaGenerator generator, Project project, String classesDirectory) throws Exception {
+		MemoryOutputSink sink = new MemoryOutputSink(classesDirectory);
+		generator.setOutputSink(sink);
+		generator.generateAll(project, classesDirectory);
+		ExecutionResult result = new ExecutionResult();
+		JavaSourceCompiler compiler = new JavaSourceCompiler();
+		Map<String, byte[]> classes = compiler.compile(sink.getFiles(), result);
+		if (!result.isOk()) {
+			throw new IllegalStateException(result.getLog());
+		}
+		compiler.writeClasses(classes, classesDirectory);
+		URL[] urls = new URL[] { new File(classesDirectory).toURI().toURL() };
+		return new URLClassLoader(urls, TestHelper.class.getClassLoader());
+	}
+
 }